@@ -0,0 +1,25 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives the ad lifecycle latency histograms periodically. Set this with
+ * {@link AdLatencyMetrics#setExporter(AdLatencyExporter, long)}.
+ */
+public interface AdLatencyExporter {
+    /**
+     * Called on the main thread once per export for each format and phase that has samples.
+     * The histogram keeps accumulating after this returns; read what you need here, and call
+     * {@link LatencyHistogram#reset()} if you want each export to cover one interval only.
+     *
+     * @param adFormat  The format of the ads measured.
+     * @param phase     The phase measured.
+     * @param histogram All samples recorded since the histogram was last reset.
+     */
+    void export(@NonNull AdFormat adFormat, @NonNull AdLifecyclePhase phase,
+            @NonNull LatencyHistogram histogram);
+}
@@ -0,0 +1,171 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps a {@link LatencyHistogram} for each {@link AdFormat} and {@link AdLifecyclePhase} in
+ * memory, so apps can watch how long ads take to load and show, for example the p50 and p99
+ * time to ad:
+ *
+ * <pre>
+ * LatencyHistogram timeToAd = AdLatencyMetrics.getHistogram(AdFormat.BANNER,
+ *         AdLifecyclePhase.TIME_TO_AD);
+ * long p99 = timeToAd == null ? 0 : timeToAd.getValueAtPercentile(99);
+ * </pre>
+ *
+ * Or set an {@link AdLatencyExporter} to have the histograms pushed periodically.
+ */
+public final class AdLatencyMetrics {
+    private static final int PHASE_COUNT = AdLifecyclePhase.values().length;
+
+    @NonNull private static final AtomicReferenceArray<LatencyHistogram> sHistograms =
+            new AtomicReferenceArray<LatencyHistogram>(AdFormat.values().length * PHASE_COUNT);
+    @Nullable private static volatile Handler sHandler;
+    @Nullable private static volatile AdLatencyExporter sExporter;
+    private static volatile long sExportIntervalMillis;
+
+    private static final Runnable sExportRunnable = new Runnable() {
+        @Override
+        public void run() {
+            exportNow();
+            final Handler handler = sHandler;
+            if (sExporter != null && handler != null) {
+                handler.postDelayed(this, sExportIntervalMillis);
+            }
+        }
+    };
+
+    private AdLatencyMetrics() {}
+
+    /**
+     * @return The current time to pass to {@link #record(AdFormat, AdLifecyclePhase, long)}.
+     */
+    public static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * MoPub SDK internal method. Records that a phase finished. Safe to call from any thread.
+     *
+     * @param adFormat    The format of the ad.
+     * @param phase       The phase that finished.
+     * @param startMillis The value of {@link #now()} when the phase started.
+     */
+    public static void record(@NonNull final AdFormat adFormat,
+            @NonNull final AdLifecyclePhase phase, final long startMillis) {
+        recordDuration(adFormat, phase, now() - startMillis);
+    }
+
+    /**
+     * MoPub SDK internal method. Records how long a phase took. Safe to call from any thread.
+     */
+    public static void recordDuration(@NonNull final AdFormat adFormat,
+            @NonNull final AdLifecyclePhase phase, final long durationMillis) {
+        Preconditions.checkNotNull(adFormat);
+        Preconditions.checkNotNull(phase);
+
+        getOrCreateHistogram(adFormat, phase).record(durationMillis);
+    }
+
+    /**
+     * @return The histogram for the format and phase, or null if nothing has been recorded for
+     * them yet.
+     */
+    @Nullable
+    public static LatencyHistogram getHistogram(@NonNull final AdFormat adFormat,
+            @NonNull final AdLifecyclePhase phase) {
+        Preconditions.checkNotNull(adFormat);
+        Preconditions.checkNotNull(phase);
+
+        return sHistograms.get(getIndex(adFormat, phase));
+    }
+
+    /**
+     * Sets the exporter to call on the main thread every intervalMillis. Replaces any exporter
+     * set before. Pass null to stop exporting.
+     */
+    public static void setExporter(@Nullable final AdLatencyExporter exporter,
+            final long intervalMillis) {
+        Preconditions.checkArgument(exporter == null || intervalMillis > 0);
+
+        synchronized (AdLatencyMetrics.class) {
+            if (sHandler != null) {
+                sHandler.removeCallbacks(sExportRunnable);
+                sHandler = null;
+            }
+            sExportIntervalMillis = intervalMillis;
+            sExporter = exporter;
+            if (exporter != null) {
+                sHandler = new Handler(Looper.getMainLooper());
+                sHandler.postDelayed(sExportRunnable, intervalMillis);
+            }
+        }
+    }
+
+    /**
+     * Calls the exporter now for every format and phase that has samples. Must be called on the
+     * main thread.
+     */
+    public static void exportNow() {
+        final AdLatencyExporter exporter = sExporter;
+        if (exporter == null) {
+            return;
+        }
+
+        for (final AdFormat adFormat : AdFormat.values()) {
+            for (final AdLifecyclePhase phase : AdLifecyclePhase.values()) {
+                final LatencyHistogram histogram = sHistograms.get(getIndex(adFormat, phase));
+                if (histogram != null && histogram.getCount() > 0) {
+                    exporter.export(adFormat, phase, histogram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resets every histogram.
+     */
+    public static void reset() {
+        for (int i = 0; i < sHistograms.length(); i++) {
+            final LatencyHistogram histogram = sHistograms.get(i);
+            if (histogram != null) {
+                histogram.reset();
+            }
+        }
+    }
+
+    @NonNull
+    private static LatencyHistogram getOrCreateHistogram(@NonNull final AdFormat adFormat,
+            @NonNull final AdLifecyclePhase phase) {
+        final int index = getIndex(adFormat, phase);
+        final LatencyHistogram histogram = sHistograms.get(index);
+        if (histogram != null) {
+            return histogram;
+        }
+        sHistograms.compareAndSet(index, null, new LatencyHistogram());
+        return sHistograms.get(index);
+    }
+
+    private static int getIndex(@NonNull final AdFormat adFormat,
+            @NonNull final AdLifecyclePhase phase) {
+        return adFormat.ordinal() * PHASE_COUNT + phase.ordinal();
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        setExporter(null, 0);
+        for (int i = 0; i < sHistograms.length(); i++) {
+            sHistograms.set(i, null);
+        }
+    }
+}
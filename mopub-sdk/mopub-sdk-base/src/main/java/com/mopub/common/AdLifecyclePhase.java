@@ -0,0 +1,45 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+/**
+ * The phases of loading and showing an ad that {@link AdLatencyMetrics} records.
+ */
+public enum AdLifecyclePhase {
+    /**
+     * Building the ad request URL after an ad is requested, for example by MoPubView#loadAd.
+     */
+    REQUEST_BUILD,
+
+    /**
+     * From sending an ad request until its response starts being parsed. Includes time spent
+     * waiting in the request queue. Recorded for every request in the waterfall.
+     */
+    NETWORK,
+
+    /**
+     * Parsing an ad response. Runs on a background thread.
+     */
+    PARSE,
+
+    /**
+     * From handing an ad to the custom event until it reports the ad loaded. For web creatives
+     * this includes rendering the creative, since they report loaded once the page loads.
+     * Failed attempts earlier in the waterfall are not recorded.
+     */
+    ADAPTER_LOAD,
+
+    /**
+     * From sending the first ad request until an ad loads, across the whole waterfall.
+     */
+    TIME_TO_AD,
+
+    /**
+     * From an ad loading until its first impression. For full-screen formats this includes the
+     * time until the app shows the ad. Not recorded for native ads, whose impressions depend on
+     * when the app places them on screen.
+     */
+    FIRST_IMPRESSION
+}
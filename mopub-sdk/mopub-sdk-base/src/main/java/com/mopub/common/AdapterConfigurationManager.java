@@ -6,43 +6,115 @@ package com.mopub.common;
 
 import android.content.Context;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.text.TextUtils;
 
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.Reflection;
 import com.mopub.mobileads.MoPubErrorCode;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
-import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR;
 
 /**
  * Gets Advanced Bidders through an Async Task and stores it in memory for retrieval.
+ *
+ * Adapters are initialized in parallel on a small thread pool. SDK initialization waits for each
+ * adapter up to the adapter initialization timeout; adapters that take longer are reported as
+ * still initializing and are added once they finish.
  */
 public class AdapterConfigurationManager implements AdapterConfigurationsInitializationListener {
 
-    private static final String TOKEN_KEY = "token";
+    static final long DEFAULT_ADAPTER_INITIALIZATION_TIMEOUT_MILLIS = 5000;
+    @VisibleForTesting
+    static final int MAX_INITIALIZATION_THREADS = 4;
+    private static final long INITIALIZATION_THREAD_KEEP_ALIVE_SECONDS = 30;
 
     @Nullable private volatile Map<String, AdapterConfiguration> mAdapterConfigurations;
     @Nullable private SdkInitializationListener mSdkInitializationListener;
+    @Nullable private final AdapterInitializationMetricsListener mMetricsListener;
+    private final long mAdapterInitializationTimeoutMillis;
+    @NonNull private final Executor mInitializationExecutor;
+    @NonNull private final Handler mHandler;
+    // Adapters that finished after their timeout but before the rest were published.
+    // Only accessed on the main thread.
+    @NonNull private final Map<String, AdapterConfiguration> mLateAdapterConfigurations;
+    // Adapters that are still initializing after their timeout.
+    @NonNull private final Set<String> mInitializingAdapterConfigurationClasses;
+    @NonNull private final BiddingTokenService mBiddingTokenService;
+    @Nullable private volatile Context mApplicationContext;
 
     AdapterConfigurationManager(
             @Nullable final SdkInitializationListener sdkInitializationListener) {
+        this(sdkInitializationListener, null, DEFAULT_ADAPTER_INITIALIZATION_TIMEOUT_MILLIS);
+    }
+
+    AdapterConfigurationManager(
+            @Nullable final SdkInitializationListener sdkInitializationListener,
+            @Nullable final AdapterInitializationMetricsListener metricsListener,
+            final long adapterInitializationTimeoutMillis) {
+        this(sdkInitializationListener, metricsListener, adapterInitializationTimeoutMillis,
+                createInitializationExecutor());
+    }
+
+    @VisibleForTesting
+    AdapterConfigurationManager(
+            @Nullable final SdkInitializationListener sdkInitializationListener,
+            @Nullable final AdapterInitializationMetricsListener metricsListener,
+            final long adapterInitializationTimeoutMillis,
+            @NonNull final Executor initializationExecutor) {
+        this(sdkInitializationListener, metricsListener, adapterInitializationTimeoutMillis,
+                initializationExecutor, new BiddingTokenService());
+    }
+
+    @VisibleForTesting
+    AdapterConfigurationManager(
+            @Nullable final SdkInitializationListener sdkInitializationListener,
+            @Nullable final AdapterInitializationMetricsListener metricsListener,
+            final long adapterInitializationTimeoutMillis,
+            @NonNull final Executor initializationExecutor,
+            @NonNull final BiddingTokenService biddingTokenService) {
+        Preconditions.checkNotNull(initializationExecutor);
+        Preconditions.checkNotNull(biddingTokenService);
+
         mSdkInitializationListener = sdkInitializationListener;
+        mMetricsListener = metricsListener;
+        mAdapterInitializationTimeoutMillis = adapterInitializationTimeoutMillis;
+        mInitializationExecutor = initializationExecutor;
+        mHandler = new Handler(Looper.getMainLooper());
+        mLateAdapterConfigurations = new HashMap<>();
+        mInitializingAdapterConfigurationClasses =
+                Collections.synchronizedSet(new HashSet<String>());
+        mBiddingTokenService = biddingTokenService;
+    }
+
+    @NonNull
+    private static Executor createInitializationExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_INITIALIZATION_THREADS,
+                MAX_INITIALIZATION_THREADS, INITIALIZATION_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        // Adapters are only initialized once, so don't keep the threads around.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     public void initialize(@NonNull final Context context,
@@ -54,10 +126,13 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
         Preconditions.checkNotNull(networkMediationConfigurations);
         Preconditions.checkNotNull(moPubRequestOptions);
 
+        mApplicationContext = context.getApplicationContext();
         AsyncTasks.safeExecuteOnExecutor(
                 new AdapterConfigurationsInitializationAsyncTask(context.getApplicationContext(),
                         adapterConfigurationClasses, networkMediationConfigurations,
-                        moPubRequestOptions, this));
+                        moPubRequestOptions, this, mInitializationExecutor,
+                        mAdapterInitializationTimeoutMillis,
+                        mInitializingAdapterConfigurationClasses));
     }
 
     @Nullable
@@ -97,22 +172,22 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
             
             abNames.add(configDetails.toString());
         }
-        return abNames;
-    }
-
-    @Nullable
-    String getTokensAsJsonString(@NonNull final Context context) {
-        Preconditions.checkNotNull(context);
 
-        final JSONObject tokens = getTokensAsJsonObject(context);
-        if (tokens == null) {
-            return null;
+        synchronized (mInitializingAdapterConfigurationClasses) {
+            for (final String adapterName : mInitializingAdapterConfigurationClasses) {
+                abNames.add(adapterName.substring(adapterName.lastIndexOf(".") + 1) +
+                        ": Still initializing");
+            }
         }
-        return tokens.toString();
+        return abNames;
     }
 
+    /**
+     * Returns the advanced bidding tokens as a JSON string. Cached tokens are used while they are
+     * fresh, so this only blocks, briefly, when none are.
+     */
     @Nullable
-    private JSONObject getTokensAsJsonObject(@NonNull final Context context) {
+    String getTokensAsJsonString(@NonNull final Context context) {
         Preconditions.checkNotNull(context);
 
         final Map<String, AdapterConfiguration>
@@ -120,26 +195,21 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
         if (adapterConfigurations == null || adapterConfigurations.isEmpty()) {
             return null;
         }
+        return mBiddingTokenService.getTokensJson(context, adapterConfigurations.values());
+    }
 
-        JSONObject jsonObject = null;
-        for (final AdapterConfiguration adapterConfiguration : adapterConfigurations.values()) {
-            try {
-                final String token = adapterConfiguration.getBiddingToken(context);
-                if (TextUtils.isEmpty(token)) {
-                    continue;
-                }
-                final JSONObject bidderJsonObject = new JSONObject();
-                bidderJsonObject.put(TOKEN_KEY, token);
-                if (jsonObject == null) {
-                    jsonObject = new JSONObject();
-                }
-                jsonObject.put(adapterConfiguration.getMoPubNetworkName(), bidderJsonObject);
-            } catch (JSONException e) {
-                MoPubLog.log(ERROR, "JSON parsing failed for MoPub network name: " +
-                        adapterConfiguration.getMoPubNetworkName());
-            }
+    /**
+     * Drops the cached bidding tokens, for example after a consent change, and starts collecting
+     * new ones in the background.
+     */
+    void invalidateBiddingTokens() {
+        mBiddingTokenService.invalidate();
+
+        final Map<String, AdapterConfiguration> adapterConfigurations = mAdapterConfigurations;
+        final Context context = mApplicationContext;
+        if (context != null && adapterConfigurations != null && !adapterConfigurations.isEmpty()) {
+            mBiddingTokenService.refresh(context, adapterConfigurations.values());
         }
-        return jsonObject;
     }
 
     @VisibleForTesting
@@ -154,12 +224,26 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
         return adapterConfigurations.get(clazz.getName());
     }
 
+    @VisibleForTesting
+    boolean isAdapterConfigurationInitializing(@NonNull final String adapterConfigurationClass) {
+        return mInitializingAdapterConfigurationClasses.contains(adapterConfigurationClass);
+    }
+
     @Override
     public void onAdapterConfigurationsInitialized(@NonNull final
     Map<String, AdapterConfiguration> adapterConfigurations) {
         Preconditions.checkNotNull(adapterConfigurations);
 
-        mAdapterConfigurations = adapterConfigurations;
+        if (mLateAdapterConfigurations.isEmpty()) {
+            mAdapterConfigurations = adapterConfigurations;
+        } else {
+            final Map<String, AdapterConfiguration> mergedAdapterConfigurations =
+                    new HashMap<>(adapterConfigurations);
+            mergedAdapterConfigurations.putAll(mLateAdapterConfigurations);
+            mLateAdapterConfigurations.clear();
+            mAdapterConfigurations = mergedAdapterConfigurations;
+        }
+        invalidateBiddingTokens();
 
         final SdkInitializationListener sdkInitializationListener = mSdkInitializationListener;
         if (sdkInitializationListener != null) {
@@ -179,6 +263,45 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
                 moPubErrorCode);
     }
 
+    @Override
+    public void onAdapterConfigurationInitialized(@NonNull final String adapterConfigurationClass,
+            @Nullable final AdapterConfiguration adapterConfiguration, final long durationMillis,
+            final boolean timedOut) {
+        Preconditions.checkNotNull(adapterConfigurationClass);
+
+        // Called on the initialization threads.
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (timedOut && adapterConfiguration != null) {
+                    addLateAdapterConfiguration(adapterConfigurationClass, adapterConfiguration);
+                }
+                if (mMetricsListener != null) {
+                    mMetricsListener.onAdapterInitializationFinished(adapterConfigurationClass,
+                            durationMillis, timedOut, adapterConfiguration == null);
+                }
+            }
+        });
+    }
+
+    private void addLateAdapterConfiguration(@NonNull final String adapterConfigurationClass,
+            @NonNull final AdapterConfiguration adapterConfiguration) {
+        MoPubLog.log(CUSTOM, adapterConfigurationClass + " finished initializing after the " +
+                "adapter initialization timeout.");
+
+        final Map<String, AdapterConfiguration> adapterConfigurations = mAdapterConfigurations;
+        if (adapterConfigurations == null) {
+            // The rest haven't been published yet. They will be merged in.
+            mLateAdapterConfigurations.put(adapterConfigurationClass, adapterConfiguration);
+            return;
+        }
+        final Map<String, AdapterConfiguration> mergedAdapterConfigurations =
+                new HashMap<>(adapterConfigurations);
+        mergedAdapterConfigurations.put(adapterConfigurationClass, adapterConfiguration);
+        mAdapterConfigurations = mergedAdapterConfigurations;
+        invalidateBiddingTokens();
+    }
+
     private static class AdapterConfigurationsInitializationAsyncTask extends AsyncTask<Void, Void, Map<String, AdapterConfiguration>> {
 
         @NonNull private final WeakReference<Context> weakContext;
@@ -187,76 +310,70 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
         @NonNull private final Map<String, Map<String, String>> moPubRequestOptions;
         @NonNull private final AdapterConfigurationsInitializationListener
                 adapterConfigurationsInitializationListener;
+        @NonNull private final Executor initializationExecutor;
+        private final long adapterInitializationTimeoutMillis;
+        @NonNull private final Set<String> initializingAdapterConfigurationClasses;
 
         AdapterConfigurationsInitializationAsyncTask(
                 @NonNull final Context context,
                 @NonNull final Set<String> adapterConfigurationClasses,
                 @NonNull final Map<String, Map<String, String>> networkMediationConfigurations,
                 @NonNull final Map<String, Map<String, String>> moPubRequestOptions,
-                @NonNull final AdapterConfigurationsInitializationListener adapterConfigurationsInitializationListener) {
+                @NonNull final AdapterConfigurationsInitializationListener adapterConfigurationsInitializationListener,
+                @NonNull final Executor initializationExecutor,
+                final long adapterInitializationTimeoutMillis,
+                @NonNull final Set<String> initializingAdapterConfigurationClasses) {
             Preconditions.checkNotNull(context);
             Preconditions.checkNotNull(adapterConfigurationClasses);
             Preconditions.checkNotNull(networkMediationConfigurations);
             Preconditions.checkNotNull(moPubRequestOptions);
             Preconditions.checkNotNull(adapterConfigurationsInitializationListener);
+            Preconditions.checkNotNull(initializationExecutor);
+            Preconditions.checkNotNull(initializingAdapterConfigurationClasses);
 
             this.weakContext = new WeakReference<>(context);
             this.adapterConfigurationClasses = adapterConfigurationClasses;
             this.networkMediationConfigurations = networkMediationConfigurations;
             this.moPubRequestOptions = moPubRequestOptions;
             this.adapterConfigurationsInitializationListener = adapterConfigurationsInitializationListener;
+            this.initializationExecutor = initializationExecutor;
+            this.adapterInitializationTimeoutMillis = adapterInitializationTimeoutMillis;
+            this.initializingAdapterConfigurationClasses = initializingAdapterConfigurationClasses;
         }
 
         @Override
         protected Map<String, AdapterConfiguration> doInBackground(final Void... voids) {
-            final Map<String, AdapterConfiguration> adapterConfigurations = new HashMap<>();
+            final List<AdapterInitializationJob> jobs = new ArrayList<>();
             for (final String adapterConfigurationClass : adapterConfigurationClasses) {
-                AdapterConfiguration adapterConfiguration;
+                final AdapterInitializationJob job = new AdapterInitializationJob(
+                        adapterConfigurationClass, weakContext,
+                        networkMediationConfigurations.get(adapterConfigurationClass),
+                        moPubRequestOptions.get(adapterConfigurationClass),
+                        adapterConfigurationsInitializationListener,
+                        initializingAdapterConfigurationClasses);
+                jobs.add(job);
                 try {
-                    adapterConfiguration = Reflection.instantiateClassWithEmptyConstructor(
-                            adapterConfigurationClass, AdapterConfiguration.class);
-                } catch (Exception e) {
-                    MoPubLog.log(CUSTOM_WITH_THROWABLE,
-                            "Unable to find class " + adapterConfigurationClass, e);
-                    continue;
-                }
-
-                final Context context = weakContext.get();
-                if (context == null) {
-                    MoPubLog.log(CUSTOM,
-                            "Context null. Unable to initialize adapter configuration " +
-                                    adapterConfigurationClass);
-                    continue;
+                    initializationExecutor.execute(job);
+                } catch (RejectedExecutionException e) {
+                    job.run();
                 }
+            }
 
-                // Merge and overwrite configuration from the cache with newly passed in values.
-                final Map<String, String> networkMediationConfiguration =
-                        networkMediationConfigurations.get(adapterConfigurationClass);
-                // Making a new HashMap here because getCachedInitializationParameters may
-                // return an unmodifiable map.
-                final Map<String, String> mergedParameters = new HashMap<>(
-                        adapterConfiguration.getCachedInitializationParameters(context));;
-                if (networkMediationConfiguration != null) {
-                    mergedParameters.putAll(networkMediationConfiguration);
-                    adapterConfiguration.setCachedInitializationParameters(context,
-                            mergedParameters);
-                }
+            // Jobs queued behind adapters that have timed out can't start until those finish, so
+            // stop waiting for everything once each thread has had a full timeout per job.
+            final int rounds = (jobs.size() + MAX_INITIALIZATION_THREADS - 1) /
+                    MAX_INITIALIZATION_THREADS;
+            final long overallDeadlineMillis = SystemClock.elapsedRealtime() +
+                    rounds * adapterInitializationTimeoutMillis;
 
-                final Map<String, String> moPubRequestOption =
-                        moPubRequestOptions.get(adapterConfigurationClass);
-                if (moPubRequestOption != null) {
-                    adapterConfiguration.setMoPubRequestOptions(moPubRequestOption);
+            final Map<String, AdapterConfiguration> adapterConfigurations = new HashMap<>();
+            for (final AdapterInitializationJob job : jobs) {
+                final AdapterConfiguration adapterConfiguration = job.awaitResult(
+                        adapterInitializationTimeoutMillis, overallDeadlineMillis);
+                if (adapterConfiguration != null) {
+                    adapterConfigurations.put(job.getAdapterConfigurationClass(),
+                            adapterConfiguration);
                 }
-
-                MoPubLog.log(CUSTOM, String.format(Locale.US, "Initializing %s version %s " +
-                                "with network sdk version %s and with params %s",
-                        adapterConfigurationClass, adapterConfiguration.getAdapterVersion(),
-                        adapterConfiguration.getNetworkSdkVersion(), mergedParameters));
-
-                adapterConfiguration.initializeNetwork(context, mergedParameters,
-                        adapterConfigurationsInitializationListener);
-
-                adapterConfigurations.put(adapterConfigurationClass, adapterConfiguration);
             }
             return adapterConfigurations;
         }
@@ -268,4 +385,158 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
                     adapterConfigurations);
         }
     }
+
+    /**
+     * Instantiates and initializes one adapter configuration on an initialization thread.
+     */
+    @VisibleForTesting
+    static class AdapterInitializationJob implements Runnable {
+        @NonNull private final String mAdapterConfigurationClass;
+        @NonNull private final WeakReference<Context> mWeakContext;
+        @Nullable private final Map<String, String> mNetworkMediationConfiguration;
+        @Nullable private final Map<String, String> mMoPubRequestOption;
+        @NonNull private final AdapterConfigurationsInitializationListener mListener;
+        @NonNull private final Set<String> mInitializingAdapterConfigurationClasses;
+
+        // Guarded by this
+        private boolean mStarted;
+        private long mStartMillis;
+        private boolean mFinished;
+        private boolean mTimedOut;
+        @Nullable private AdapterConfiguration mAdapterConfiguration;
+
+        AdapterInitializationJob(@NonNull final String adapterConfigurationClass,
+                @NonNull final WeakReference<Context> weakContext,
+                @Nullable final Map<String, String> networkMediationConfiguration,
+                @Nullable final Map<String, String> moPubRequestOption,
+                @NonNull final AdapterConfigurationsInitializationListener listener,
+                @NonNull final Set<String> initializingAdapterConfigurationClasses) {
+            mAdapterConfigurationClass = adapterConfigurationClass;
+            mWeakContext = weakContext;
+            mNetworkMediationConfiguration = networkMediationConfiguration;
+            mMoPubRequestOption = moPubRequestOption;
+            mListener = listener;
+            mInitializingAdapterConfigurationClasses = initializingAdapterConfigurationClasses;
+        }
+
+        @NonNull
+        String getAdapterConfigurationClass() {
+            return mAdapterConfigurationClass;
+        }
+
+        @Override
+        public void run() {
+            final long startMillis = SystemClock.elapsedRealtime();
+            synchronized (this) {
+                mStarted = true;
+                mStartMillis = startMillis;
+                notifyAll();
+            }
+
+            AdapterConfiguration adapterConfiguration = null;
+            try {
+                adapterConfiguration = initializeAdapterConfiguration();
+            } catch (Exception e) {
+                MoPubLog.log(CUSTOM_WITH_THROWABLE,
+                        "Unable to initialize adapter configuration " + mAdapterConfigurationClass,
+                        e);
+            }
+            final long durationMillis = SystemClock.elapsedRealtime() - startMillis;
+
+            final boolean timedOut;
+            synchronized (this) {
+                mFinished = true;
+                mAdapterConfiguration = adapterConfiguration;
+                timedOut = mTimedOut;
+                if (timedOut) {
+                    mInitializingAdapterConfigurationClasses.remove(mAdapterConfigurationClass);
+                }
+                notifyAll();
+            }
+
+            mListener.onAdapterConfigurationInitialized(mAdapterConfigurationClass,
+                    adapterConfiguration, durationMillis, timedOut);
+        }
+
+        /**
+         * Waits for the adapter to finish initializing, for up to the timeout after it started
+         * and no later than the overall deadline.
+         *
+         * @return The initialized adapter configuration, or null if it couldn't be created or
+         * timed out. Adapters that time out are reported to the listener when they finish.
+         */
+        @Nullable
+        synchronized AdapterConfiguration awaitResult(final long timeoutMillis,
+                final long overallDeadlineMillis) {
+            while (!mFinished) {
+                final long deadlineMillis = mStarted
+                        ? Math.min(mStartMillis + timeoutMillis, overallDeadlineMillis)
+                        : overallDeadlineMillis;
+                final long remainingMillis = deadlineMillis - SystemClock.elapsedRealtime();
+                if (remainingMillis <= 0) {
+                    markTimedOut();
+                    return null;
+                }
+                try {
+                    wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    markTimedOut();
+                    return null;
+                }
+            }
+            return mAdapterConfiguration;
+        }
+
+        private void markTimedOut() {
+            MoPubLog.log(CUSTOM, mAdapterConfigurationClass + " is still initializing. " +
+                    "Continuing SDK initialization without it.");
+            mTimedOut = true;
+            mInitializingAdapterConfigurationClasses.add(mAdapterConfigurationClass);
+        }
+
+        @Nullable
+        private AdapterConfiguration initializeAdapterConfiguration() {
+            AdapterConfiguration adapterConfiguration;
+            try {
+                adapterConfiguration = Reflection.instantiateClassWithEmptyConstructor(
+                        mAdapterConfigurationClass, AdapterConfiguration.class);
+            } catch (Exception e) {
+                MoPubLog.log(CUSTOM_WITH_THROWABLE,
+                        "Unable to find class " + mAdapterConfigurationClass, e);
+                return null;
+            }
+
+            final Context context = mWeakContext.get();
+            if (context == null) {
+                MoPubLog.log(CUSTOM,
+                        "Context null. Unable to initialize adapter configuration " +
+                                mAdapterConfigurationClass);
+                return null;
+            }
+
+            // Merge and overwrite configuration from the cache with newly passed in values.
+            // Making a new HashMap here because getCachedInitializationParameters may
+            // return an unmodifiable map.
+            final Map<String, String> mergedParameters = new HashMap<>(
+                    adapterConfiguration.getCachedInitializationParameters(context));
+            if (mNetworkMediationConfiguration != null) {
+                mergedParameters.putAll(mNetworkMediationConfiguration);
+                adapterConfiguration.setCachedInitializationParameters(context,
+                        mergedParameters);
+            }
+
+            if (mMoPubRequestOption != null) {
+                adapterConfiguration.setMoPubRequestOptions(mMoPubRequestOption);
+            }
+
+            MoPubLog.log(CUSTOM, String.format(Locale.US, "Initializing %s version %s " +
+                            "with network sdk version %s and with params %s",
+                    mAdapterConfigurationClass, adapterConfiguration.getAdapterVersion(),
+                    adapterConfiguration.getNetworkSdkVersion(), mergedParameters));
+
+            adapterConfiguration.initializeNetwork(context, mergedParameters, mListener);
+            return adapterConfiguration;
+        }
+    }
 }
@@ -5,10 +5,19 @@
 package com.mopub.common;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.util.Map;
 
 interface AdapterConfigurationsInitializationListener extends OnNetworkInitializationFinishedListener{
     void onAdapterConfigurationsInitialized(
             @NonNull final Map<String, AdapterConfiguration> adapterConfigurations);
+
+    /**
+     * Called on an initialization thread when a single adapter configuration has been
+     * initialized, or with a null configuration if it couldn't be created or initialized.
+     */
+    void onAdapterConfigurationInitialized(@NonNull final String adapterConfigurationClass,
+            @Nullable final AdapterConfiguration adapterConfiguration, final long durationMillis,
+            final boolean timedOut);
 }
@@ -0,0 +1,26 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Called on the main thread as each mediated network adapter finishes initializing or fails to,
+ * to help find the networks that slow down or break SDK startup. Set this with
+ * {@link SdkConfiguration.Builder#withAdapterInitializationMetricsListener}.
+ */
+public interface AdapterInitializationMetricsListener {
+    /**
+     * @param adapterConfigurationClass The class name of the adapter configuration.
+     * @param durationMillis            How long the adapter's initializeNetwork call took.
+     * @param timedOut                  True if the adapter took longer than the adapter
+     *                                  initialization timeout, so SDK initialization finished
+     *                                  without waiting for it.
+     * @param failed                    True if the adapter configuration couldn't be created or
+     *                                  threw while initializing, so it isn't available.
+     */
+    void onAdapterInitializationFinished(@NonNull String adapterConfigurationClass,
+            long durationMillis, boolean timedOut, boolean failed);
+}
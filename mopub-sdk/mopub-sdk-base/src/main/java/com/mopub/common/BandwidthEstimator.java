@@ -0,0 +1,165 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.mopub.common.ClientMetadata.MoPubNetworkType;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Estimates download bandwidth from the SDK's own media transfers, separately for each
+ * {@link MoPubNetworkType}, so a change of network doesn't carry over a stale estimate. Each
+ * estimate is an exponentially weighted moving average of the throughput of recent transfers.
+ * Safe to use from any thread.
+ *
+ * Transfers report samples with {@link #addSample(long, long)}, or by reading through
+ * {@link #meter(InputStream)}.
+ */
+public final class BandwidthEstimator {
+    /**
+     * Returned by {@link #getEstimateKbps()} when there is nothing to base an estimate on.
+     */
+    public static final int NO_ESTIMATE = -1;
+
+    // Smaller transfers are dominated by latency rather than bandwidth.
+    @VisibleForTesting
+    static final long MIN_SAMPLE_BYTES = 32 * 1024;
+    // Weight of the newest sample.
+    @VisibleForTesting
+    static final double SMOOTHING_FACTOR = 0.3;
+
+    @NonNull private static final Map<MoPubNetworkType, Double> sEstimatesKbps =
+            new EnumMap<MoPubNetworkType, Double>(MoPubNetworkType.class);
+
+    private BandwidthEstimator() {
+    }
+
+    /**
+     * Records a transfer on the current network.
+     *
+     * @param bytes          How many bytes were transferred.
+     * @param durationMillis How long the transfer took.
+     */
+    public static void addSample(final long bytes, final long durationMillis) {
+        addSample(getCurrentNetworkType(), bytes, durationMillis);
+    }
+
+    @VisibleForTesting
+    static void addSample(@NonNull final MoPubNetworkType networkType, final long bytes,
+            final long durationMillis) {
+        Preconditions.checkNotNull(networkType);
+
+        if (bytes < MIN_SAMPLE_BYTES || durationMillis <= 0) {
+            return;
+        }
+
+        // bits per millisecond is kilobits per second.
+        final double sampleKbps = bytes * 8.0 / durationMillis;
+        synchronized (sEstimatesKbps) {
+            final Double estimateKbps = sEstimatesKbps.get(networkType);
+            sEstimatesKbps.put(networkType, estimateKbps == null
+                    ? sampleKbps
+                    : SMOOTHING_FACTOR * sampleKbps + (1 - SMOOTHING_FACTOR) * estimateKbps);
+        }
+    }
+
+    /**
+     * @return The estimated bandwidth of the current network in kilobits per second, or
+     * {@link #NO_ESTIMATE} if no transfer has been measured on this kind of network yet.
+     */
+    public static int getEstimateKbps() {
+        return getEstimateKbps(getCurrentNetworkType());
+    }
+
+    @VisibleForTesting
+    static int getEstimateKbps(@NonNull final MoPubNetworkType networkType) {
+        Preconditions.checkNotNull(networkType);
+
+        synchronized (sEstimatesKbps) {
+            final Double estimateKbps = sEstimatesKbps.get(networkType);
+            return estimateKbps == null ? NO_ESTIMATE : (int) Math.round(estimateKbps);
+        }
+    }
+
+    /**
+     * Wraps a response body so that reading it records a sample. The sample covers the time from
+     * this call until the stream is read to the end or closed.
+     */
+    @NonNull
+    public static InputStream meter(@NonNull final InputStream inputStream) {
+        Preconditions.checkNotNull(inputStream);
+
+        return new MeteredInputStream(inputStream);
+    }
+
+    @NonNull
+    private static MoPubNetworkType getCurrentNetworkType() {
+        final ClientMetadata clientMetadata = ClientMetadata.getInstance();
+        return clientMetadata == null
+                ? MoPubNetworkType.UNKNOWN
+                : clientMetadata.getActiveNetworkType();
+    }
+
+    private static class MeteredInputStream extends FilterInputStream {
+        private final long mStartMillis;
+        private long mBytesRead;
+        private boolean mFinished;
+
+        MeteredInputStream(@NonNull final InputStream in) {
+            super(in);
+            mStartMillis = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result == -1) {
+                finish();
+            } else {
+                mBytesRead++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(@NonNull final byte[] buffer, final int offset, final int count)
+                throws IOException {
+            final int result = super.read(buffer, offset, count);
+            if (result == -1) {
+                finish();
+            } else {
+                mBytesRead += result;
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            super.close();
+        }
+
+        private void finish() {
+            if (!mFinished) {
+                mFinished = true;
+                addSample(mBytesRead, SystemClock.elapsedRealtime() - mStartMillis);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        synchronized (sEstimatesKbps) {
+            sEstimatesKbps.clear();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.mopub.common.logging.MoPubLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR;
+
+/**
+ * Collects advanced bidding tokens from the adapter configurations and caches them as a
+ * serialized JSON string for ad requests.
+ *
+ * Tokens are collected from all adapters in parallel and each is cached for the token TTL. While
+ * the cached tokens are fresh, ad requests get the cached string without calling any adapter, and
+ * tokens past half their TTL are refreshed in the background. When nothing usable is cached, a
+ * caller off the main thread waits up to the collection deadline and gets whichever tokens
+ * arrived; slower tokens are cached for later requests when they arrive. The main thread never
+ * waits: it gets whatever is cached while the collection runs in the background.
+ *
+ * This class is thread safe.
+ */
+class BiddingTokenService {
+    private static final String TOKEN_KEY = "token";
+    static final long DEFAULT_TOKEN_TTL_MILLIS = 60 * 1000;
+    static final long DEFAULT_COLLECTION_DEADLINE_MILLIS = 150;
+    private static final int MAX_COLLECTION_THREADS = 4;
+    private static final long COLLECTION_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    @NonNull private final Executor mExecutor;
+    private final long mTokenTtlMillis;
+    private final long mCollectionDeadlineMillis;
+
+    // Guarded by this. Keyed by adapter configuration class name.
+    @NonNull private final Map<String, TokenEntry> mTokens;
+    // The collection in flight for each adapter, if any.
+    @NonNull private final Map<String, InFlightCollection> mCollectionsInFlight;
+    private int mGeneration;
+    @Nullable private String mTokensJson;
+    private boolean mHasTokensJson;
+    private long mTokensJsonExpirationMillis;
+
+    BiddingTokenService() {
+        this(createCollectionExecutor(), DEFAULT_TOKEN_TTL_MILLIS,
+                DEFAULT_COLLECTION_DEADLINE_MILLIS);
+    }
+
+    @VisibleForTesting
+    BiddingTokenService(@NonNull final Executor executor, final long tokenTtlMillis,
+            final long collectionDeadlineMillis) {
+        Preconditions.checkNotNull(executor);
+
+        mExecutor = executor;
+        mTokenTtlMillis = tokenTtlMillis;
+        mCollectionDeadlineMillis = collectionDeadlineMillis;
+        mTokens = new HashMap<>();
+        mCollectionsInFlight = new HashMap<>();
+    }
+
+    @NonNull
+    private static Executor createCollectionExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_COLLECTION_THREADS,
+                MAX_COLLECTION_THREADS, COLLECTION_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the bidding tokens as a JSON string keyed by network name, or null if there are
+     * none. Blocks for at most the collection deadline, and only when nothing fresh is cached and
+     * the caller isn't on the main thread.
+     */
+    @Nullable
+    String getTokensJson(@NonNull final Context context,
+            @NonNull final Collection<AdapterConfiguration> adapterConfigurations) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(adapterConfigurations);
+
+        final long nowMillis = SystemClock.elapsedRealtime();
+        final boolean isFresh;
+        final String tokensJson;
+        synchronized (this) {
+            isFresh = mHasTokensJson && nowMillis < mTokensJsonExpirationMillis;
+            tokensJson = mTokensJson;
+            if (isFresh && nowMillis < mTokensJsonExpirationMillis - mTokenTtlMillis / 2) {
+                return tokensJson;
+            }
+        }
+
+        // Never wait while holding the lock; the collections need it to store their tokens.
+        if (!isFresh) {
+            final boolean isMainThread = Looper.myLooper() == Looper.getMainLooper();
+            return collect(context, adapterConfigurations,
+                    isMainThread ? 0 : mCollectionDeadlineMillis);
+        }
+        // Still fresh, but getting old.
+        collect(context, adapterConfigurations, 0);
+        return tokensJson;
+    }
+
+    /**
+     * Starts collecting tokens in the background, so the next ad request finds them cached.
+     */
+    void refresh(@NonNull final Context context,
+            @NonNull final Collection<AdapterConfiguration> adapterConfigurations) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(adapterConfigurations);
+
+        collect(context, adapterConfigurations, 0);
+    }
+
+    /**
+     * Drops all cached tokens, for example when consent changes or adapters are re-initialized.
+     * Collections already in flight are discarded when they finish.
+     */
+    synchronized void invalidate() {
+        mGeneration++;
+        mTokens.clear();
+        mTokensJson = null;
+        mHasTokensJson = false;
+    }
+
+    @Nullable
+    private String collect(@NonNull final Context context,
+            @NonNull final Collection<AdapterConfiguration> adapterConfigurations,
+            final long waitMillis) {
+        final Context applicationContext = (context.getApplicationContext() != null)
+                ? context.getApplicationContext() : context;
+        final CountDownLatch latch = new CountDownLatch(adapterConfigurations.size());
+
+        for (final AdapterConfiguration adapterConfiguration : adapterConfigurations) {
+            final String adapterClass = adapterConfiguration.getClass().getName();
+            final InFlightCollection inFlightCollection;
+            synchronized (this) {
+                final InFlightCollection existingCollection =
+                        mCollectionsInFlight.get(adapterClass);
+                if (existingCollection != null && existingCollection.mGeneration == mGeneration) {
+                    // Don't pile up calls on an adapter that is slow to return its token. Wait
+                    // for the call already in flight instead.
+                    existingCollection.mLatches.add(latch);
+                    continue;
+                }
+                inFlightCollection = new InFlightCollection(mGeneration);
+                inFlightCollection.mLatches.add(latch);
+                mCollectionsInFlight.put(adapterClass, inFlightCollection);
+            }
+
+            final TokenCollection collection = new TokenCollection(applicationContext,
+                    adapterConfiguration, adapterClass, inFlightCollection);
+            try {
+                mExecutor.execute(collection);
+            } catch (RejectedExecutionException e) {
+                collection.run();
+            }
+        }
+
+        if (waitMillis > 0) {
+            try {
+                if (!latch.await(waitMillis, TimeUnit.MILLISECONDS)) {
+                    MoPubLog.log(CUSTOM, "Not all bidding tokens were ready within " +
+                            waitMillis + "ms. Requesting without them.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            // Drop anything that expired while nothing new came in.
+            rebuildTokensJson();
+            return mTokensJson;
+        }
+    }
+
+    private synchronized void onTokenCollected(@NonNull final String adapterClass,
+            @NonNull final InFlightCollection inFlightCollection,
+            @Nullable final String networkName, @Nullable final String token) {
+        if (mCollectionsInFlight.get(adapterClass) == inFlightCollection) {
+            mCollectionsInFlight.remove(adapterClass);
+        }
+        if (networkName != null && inFlightCollection.mGeneration == mGeneration) {
+            mTokens.put(adapterClass,
+                    new TokenEntry(networkName, token, SystemClock.elapsedRealtime()));
+            rebuildTokensJson();
+        }
+        for (final CountDownLatch latch : inFlightCollection.mLatches) {
+            latch.countDown();
+        }
+    }
+
+    // Must be called while holding this.
+    private void rebuildTokensJson() {
+        final long nowMillis = SystemClock.elapsedRealtime();
+        long expirationMillis = Long.MAX_VALUE;
+        JSONObject tokensJson = null;
+
+        final Iterator<TokenEntry> iterator = mTokens.values().iterator();
+        while (iterator.hasNext()) {
+            final TokenEntry entry = iterator.next();
+            final long entryExpirationMillis = entry.mCollectedAtMillis + mTokenTtlMillis;
+            if (entryExpirationMillis <= nowMillis) {
+                iterator.remove();
+                continue;
+            }
+            expirationMillis = Math.min(expirationMillis, entryExpirationMillis);
+            if (TextUtils.isEmpty(entry.mToken)) {
+                continue;
+            }
+            try {
+                final JSONObject bidderJsonObject = new JSONObject();
+                bidderJsonObject.put(TOKEN_KEY, entry.mToken);
+                if (tokensJson == null) {
+                    tokensJson = new JSONObject();
+                }
+                tokensJson.put(entry.mNetworkName, bidderJsonObject);
+            } catch (JSONException e) {
+                MoPubLog.log(ERROR, "JSON parsing failed for MoPub network name: " +
+                        entry.mNetworkName);
+            }
+        }
+
+        mTokensJson = (tokensJson == null) ? null : tokensJson.toString();
+        mHasTokensJson = !mTokens.isEmpty();
+        mTokensJsonExpirationMillis = expirationMillis;
+    }
+
+    private class TokenCollection implements Runnable {
+        @NonNull private final Context mContext;
+        @NonNull private final AdapterConfiguration mAdapterConfiguration;
+        @NonNull private final String mAdapterClass;
+        @NonNull private final InFlightCollection mInFlightCollection;
+
+        TokenCollection(@NonNull final Context context,
+                @NonNull final AdapterConfiguration adapterConfiguration,
+                @NonNull final String adapterClass,
+                @NonNull final InFlightCollection inFlightCollection) {
+            mContext = context;
+            mAdapterConfiguration = adapterConfiguration;
+            mAdapterClass = adapterClass;
+            mInFlightCollection = inFlightCollection;
+        }
+
+        @Override
+        public void run() {
+            String networkName = null;
+            String token = null;
+            try {
+                networkName = mAdapterConfiguration.getMoPubNetworkName();
+                token = mAdapterConfiguration.getBiddingToken(mContext);
+            } catch (Exception e) {
+                MoPubLog.log(CUSTOM_WITH_THROWABLE,
+                        "Unable to get bidding token from " + mAdapterClass, e);
+            }
+            onTokenCollected(mAdapterClass, mInFlightCollection, networkName, token);
+        }
+    }
+
+    private static class InFlightCollection {
+        final int mGeneration;
+        // Callers waiting for this collection. Guarded by the service.
+        @NonNull final List<CountDownLatch> mLatches;
+
+        InFlightCollection(final int generation) {
+            mGeneration = generation;
+            mLatches = new ArrayList<>(1);
+        }
+    }
+
+    private static class TokenEntry {
+        @NonNull final String mNetworkName;
+        @Nullable final String mToken;
+        final long mCollectedAtMillis;
+
+        TokenEntry(@NonNull final String networkName, @Nullable final String token,
+                final long collectedAtMillis) {
+            mNetworkName = networkName;
+            mToken = token;
+            mCollectedAtMillis = collectedAtMillis;
+        }
+    }
+}
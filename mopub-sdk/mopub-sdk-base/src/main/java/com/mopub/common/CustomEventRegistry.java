@@ -0,0 +1,74 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets adapters register a factory for their custom events and adapter configurations, so the
+ * SDK can create them directly instead of looking up and invoking their constructors through
+ * reflection. Classes that aren't registered are still created through reflection.
+ *
+ * Register before the first ad request, for example in Application#onCreate:
+ *
+ * <pre>
+ * CustomEventRegistry.register(MyCustomEventBanner.class,
+ *         new CustomEventRegistry.Factory&lt;MyCustomEventBanner&gt;() {
+ *             public MyCustomEventBanner create() {
+ *                 return new MyCustomEventBanner();
+ *             }
+ *         });
+ * </pre>
+ */
+public final class CustomEventRegistry {
+    public interface Factory<T> {
+        /**
+         * @return A new instance. Called on whichever thread creates the custom event.
+         */
+        @NonNull
+        T create();
+    }
+
+    @NonNull private static final ConcurrentHashMap<String, Factory<?>> sFactories =
+            new ConcurrentHashMap<String, Factory<?>>();
+
+    private CustomEventRegistry() {
+    }
+
+    /**
+     * Registers a factory for the class. Replaces any factory registered for it before.
+     */
+    public static <T> void register(@NonNull final Class<T> clazz,
+            @NonNull final Factory<? extends T> factory) {
+        Preconditions.checkNotNull(clazz);
+        Preconditions.checkNotNull(factory);
+
+        sFactories.put(clazz.getName(), factory);
+    }
+
+    public static void unregister(@NonNull final Class<?> clazz) {
+        Preconditions.checkNotNull(clazz);
+
+        sFactories.remove(clazz.getName());
+    }
+
+    /**
+     * @return The factory registered for the class name, or null if there is none.
+     */
+    @Nullable
+    public static Factory<?> getFactory(@NonNull final String className) {
+        Preconditions.checkNotNull(className);
+
+        return sFactories.get(className);
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sFactories.clear();
+    }
+}
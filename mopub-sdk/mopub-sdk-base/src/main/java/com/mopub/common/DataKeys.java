@@ -51,6 +51,9 @@ public class DataKeys {
     // Video tracking fields
     public static final String VIDEO_TRACKERS_KEY = "video-trackers";
 
+    // Full-screen video fields
+    public static final String VIDEO_RENDERER_KEY = "video-renderer";
+
     /**
      * @deprecated as of 4.12, replaced by {@link #REWARDED_AD_CUSTOMER_ID_KEY}
      */
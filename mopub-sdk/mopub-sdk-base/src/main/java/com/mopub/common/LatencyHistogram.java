@@ -0,0 +1,122 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size histogram of durations in milliseconds, laid out like an HdrHistogram: values up
+ * to 31ms get a bucket each, and every power of two above that is split into 16 buckets, so any
+ * value is reported within about 6% of what was recorded. Recording is lock-free and doesn't
+ * allocate. Values above {@link #MAX_TRACKABLE_MILLIS} are recorded as that value.
+ *
+ * Reads can run concurrently with recording; a read that overlaps a record may or may not
+ * include it.
+ */
+public final class LatencyHistogram {
+    public static final long MAX_TRACKABLE_MILLIS = 10 * 60 * 1000;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Values below this are exact, one bucket each.
+    private static final int LINEAR_BUCKET_COUNT = SUB_BUCKET_COUNT * 2;
+
+    @VisibleForTesting
+    static final int BUCKET_COUNT = getBucketIndex(MAX_TRACKABLE_MILLIS) + 1;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mTotalCount = new AtomicLong();
+    private final AtomicLong mTotalMillis = new AtomicLong();
+    private final AtomicLong mMaxMillis = new AtomicLong();
+
+    LatencyHistogram() {
+    }
+
+    /**
+     * Records one sample. Negative values are recorded as 0.
+     */
+    public void record(final long durationMillis) {
+        final long value = Math.min(Math.max(0, durationMillis), MAX_TRACKABLE_MILLIS);
+
+        mCounts.incrementAndGet(getBucketIndex(value));
+        mTotalCount.incrementAndGet();
+        mTotalMillis.addAndGet(value);
+        long max = mMaxMillis.get();
+        while (value > max && !mMaxMillis.compareAndSet(max, value)) {
+            max = mMaxMillis.get();
+        }
+    }
+
+    public long getCount() {
+        return mTotalCount.get();
+    }
+
+    public long getMaxMillis() {
+        return mMaxMillis.get();
+    }
+
+    public double getMeanMillis() {
+        final long count = mTotalCount.get();
+        return count == 0 ? 0 : (double) mTotalMillis.get() / count;
+    }
+
+    /**
+     * @param percentile Between 0 and 100, for example 50 for the median or 99 for the p99.
+     * @return The highest value equivalent to the recorded value at that percentile, or 0 if
+     * nothing has been recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100);
+
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += mCounts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts.get(i);
+            if (seen >= target) {
+                return Math.min(getHighestValueInBucket(i), mMaxMillis.get());
+            }
+        }
+        return mMaxMillis.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalCount.set(0);
+        mTotalMillis.set(0);
+        mMaxMillis.set(0);
+    }
+
+    @VisibleForTesting
+    static int getBucketIndex(final long value) {
+        if (value < LINEAR_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // The top SUB_BUCKET_BITS + 1 bits of the value pick the bucket; the rest are dropped.
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >> shift) - SUB_BUCKET_COUNT;
+        return LINEAR_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    @VisibleForTesting
+    static long getHighestValueInBucket(final int index) {
+        if (index < LINEAR_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + 1;
+        final long subBucket = (index - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
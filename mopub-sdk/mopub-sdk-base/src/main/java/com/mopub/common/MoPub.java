@@ -6,6 +6,7 @@ package com.mopub.common;
 
 import android.app.Activity;
 import android.content.Context;
+import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.Looper;
 import android.support.annotation.NonNull;
@@ -13,8 +14,12 @@ import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.privacy.ConsentStatus;
+import com.mopub.common.privacy.ConsentStatusChangeListener;
 import com.mopub.common.privacy.PersonalInfoManager;
+import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.Reflection;
+import com.mopub.network.AdUnitConfigStore;
 import com.mopub.network.Networking;
 
 import java.lang.reflect.InvocationTargetException;
@@ -172,6 +177,7 @@ public class MoPub {
         Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(sdkConfiguration);
 
+        final long startMillis = SdkStartupTimer.now();
         MoPubLog.setLogLevel(sdkConfiguration.getLogLevel());
 
         MoPubLog.log(INIT_STARTED);
@@ -198,27 +204,63 @@ public class MoPub {
         }
 
         sSdkInitializing = true;
+        SdkStartupTimer.setListener(sdkConfiguration.getStartupTimingListener());
 
-        // Guarantees initialization of the request queue on the main thread.
+        // Guarantees initialization of the request queue on the main thread. This no longer
+        // loads the WebView or touches the disk cache; both happen in later stages.
         Networking.getRequestQueue(context);
 
+        // Trims the SDK's caches when the system is low on memory.
+        SdkMemoryManager.startListening(context);
+
         final InternalSdkInitializationListener internalSdkInitializationListener =
-                new InternalSdkInitializationListener(sdkInitializationListener);
+                new InternalSdkInitializationListener(sdkInitializationListener, startMillis);
 
+        // Waits for consent, the adapters, and the user agent.
         final SdkInitializationListener compositeSdkInitializationListener =
-                new CompositeSdkInitializationListener(internalSdkInitializationListener, 2);
+                new CompositeSdkInitializationListener(internalSdkInitializationListener, 3);
 
         sPersonalInfoManager = new PersonalInfoManager(context, sdkConfiguration.getAdUnitId(),
-                compositeSdkInitializationListener);
+                new TimedSdkInitializationListener(SdkStartupPhase.CONSENT,
+                        compositeSdkInitializationListener));
         sPersonalInfoManager.setAllowLegitimateInterest(sdkConfiguration.getLegitimateInterestAllowed());
 
-        ClientMetadata.getInstance(context);
+        // Reads from the telephony and package managers, so do it off the main thread.
+        AsyncTasks.safeExecuteOnExecutor(new ClientMetadataTask(context));
 
-        sAdapterConfigurationManager = new AdapterConfigurationManager(compositeSdkInitializationListener);
+        // Loading the WebView for the user agent is the slowest part of startup, so let the main
+        // thread get on with the app first. Later starts use the persisted user agent.
+        Networking.resolveUserAgent(context, new Runnable() {
+            @Override
+            public void run() {
+                compositeSdkInitializationListener.onInitializationFinished();
+            }
+        });
+
+        sAdapterConfigurationManager = new AdapterConfigurationManager(
+                new TimedSdkInitializationListener(SdkStartupPhase.ADAPTERS,
+                        compositeSdkInitializationListener),
+                sdkConfiguration.getAdapterInitializationMetricsListener(),
+                sdkConfiguration.getAdapterInitializationTimeoutMillis());
         sAdapterConfigurationManager.initialize(context,
                 sdkConfiguration.getAdapterConfigurationClasses(),
                 sdkConfiguration.getMediatedNetworkConfigurations(),
                 sdkConfiguration.getMoPubRequestOptions());
+
+        // Adapters may put consent into their bidding tokens, so don't reuse cached ones.
+        final AdapterConfigurationManager adapterConfigurationManager =
+                sAdapterConfigurationManager;
+        sPersonalInfoManager.subscribeConsentStatusChangeListener(
+                new ConsentStatusChangeListener() {
+                    @Override
+                    public void onConsentStateChange(@NonNull final ConsentStatus oldConsentStatus,
+                            @NonNull final ConsentStatus newConsentStatus,
+                            final boolean canCollectPersonalInformation) {
+                        adapterConfigurationManager.invalidateBiddingTokens();
+                    }
+                });
+
+        SdkStartupTimer.phaseFinished(SdkStartupPhase.MAIN_THREAD, startMillis);
     }
 
     /**
@@ -378,13 +420,17 @@ public class MoPub {
     private static class InternalSdkInitializationListener implements SdkInitializationListener {
         @Nullable
         private SdkInitializationListener mSdkInitializationListener;
+        private final long mStartMillis;
 
-        InternalSdkInitializationListener(@Nullable SdkInitializationListener sdkInitializationListener) {
+        InternalSdkInitializationListener(@Nullable SdkInitializationListener sdkInitializationListener,
+                final long startMillis) {
             mSdkInitializationListener = sdkInitializationListener;
+            mStartMillis = startMillis;
         }
 
         @Override
         public void onInitializationFinished() {
+            SdkStartupTimer.phaseFinished(SdkStartupPhase.TOTAL, mStartMillis);
             final AdapterConfigurationManager adapterConfigurationManager = sAdapterConfigurationManager;
             if (adapterConfigurationManager != null) {
                 MoPubLog.log(INIT_FINISHED, adapterConfigurationManager.getAdapterConfigurationInfo());
@@ -394,6 +440,46 @@ public class MoPub {
         }
     }
 
+    /**
+     * Records how long a startup phase took before passing its completion on.
+     */
+    private static class TimedSdkInitializationListener implements SdkInitializationListener {
+        @NonNull private final SdkStartupPhase mPhase;
+        @NonNull private final SdkInitializationListener mSdkInitializationListener;
+        private final long mStartMillis;
+
+        TimedSdkInitializationListener(@NonNull final SdkStartupPhase phase,
+                @NonNull final SdkInitializationListener sdkInitializationListener) {
+            mPhase = phase;
+            mSdkInitializationListener = sdkInitializationListener;
+            mStartMillis = SdkStartupTimer.now();
+        }
+
+        @Override
+        public void onInitializationFinished() {
+            SdkStartupTimer.phaseFinished(mPhase, mStartMillis);
+            mSdkInitializationListener.onInitializationFinished();
+        }
+    }
+
+    private static class ClientMetadataTask extends AsyncTask<Void, Void, Void> {
+        @NonNull private final Context mContext;
+
+        ClientMetadataTask(@NonNull final Context context) {
+            mContext = context;
+        }
+
+        @Override
+        protected Void doInBackground(final Void... voids) {
+            final long startMillis = SdkStartupTimer.now();
+            ClientMetadata.getInstance(mContext);
+            SdkStartupTimer.phaseFinished(SdkStartupPhase.CLIENT_METADATA, startMillis);
+            // Read the saved ad unit configs before the first ad request needs them.
+            AdUnitConfigStore.getInstance(mContext);
+            return null;
+        }
+    }
+
     @VisibleForTesting
     static void updateActivity(@NonNull Activity activity) {
         if (!sSearchedForUpdateActivityMethod) {
@@ -47,7 +47,7 @@ public abstract class MoPubHttpUrlConnection extends HttpURLConnection {
         }
 
         final HttpURLConnection urlConnection =
-                (HttpURLConnection) new URL(getUrl).openConnection();
+                Networking.getHttpTransport().openConnection(new URL(getUrl));
         urlConnection.setRequestProperty("user-agent", Networking.getCachedUserAgent());
         urlConnection.setConnectTimeout(CONNECT_TIMEOUT);
         urlConnection.setReadTimeout(READ_TIMEOUT);
@@ -481,7 +481,7 @@ class MoatViewabilitySession implements ExternalViewabilitySession {
         // MoatAdEvent event = new MoatAdEventType(<moatAdEventType>, playhead);
         // mMoatVideoTracker.dispatchEvent(event);
 
-        final Class<?> clazz = Class.forName(MOAT_AD_EVENT_TYPE_PATH);
+        final Class<?> clazz = Reflection.getClassForName(MOAT_AD_EVENT_TYPE_PATH);
         final Enum<?> adEventTypeEnum = Enum.valueOf(clazz.asSubclass(Enum.class),
                 videoEvent.getMoatEnumName());
 
@@ -0,0 +1,141 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.mopub.common.logging.MoPubLog;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.mopub.common.UrlResolutionTask.UrlResolutionListener;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Keeps the final destinations of click URLs that were resolved ahead of the click, so that
+ * {@link UrlHandler} can open the destination as soon as the ad is clicked instead of following
+ * its redirects first. Entries expire after {@link #TTL_MILLIS}.
+ *
+ * Pre-resolution is disabled by default. Redirect servers see the request before the user
+ * clicks, so only enable it with {@link #setPreResolutionEnabled(boolean)} if click destinations
+ * don't count clicks on their redirects. Click trackers are still fired when the ad is clicked.
+ *
+ * Must be used on the main thread.
+ */
+public final class ResolvedUrlCache {
+    @VisibleForTesting
+    static final long TTL_MILLIS = 5 * 60 * 1000;
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 16;
+
+    private static class Entry {
+        @NonNull final String mResolvedUrl;
+        final long mExpirationMillis;
+
+        Entry(@NonNull final String resolvedUrl, final long expirationMillis) {
+            mResolvedUrl = resolvedUrl;
+            mExpirationMillis = expirationMillis;
+        }
+    }
+
+    @NonNull private static final Map<String, Entry> sEntries =
+            new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+    @NonNull private static final Set<String> sPendingUrls = new HashSet<String>();
+    private static volatile boolean sPreResolutionEnabled;
+
+    private ResolvedUrlCache() {
+    }
+
+    /**
+     * Enables or disables resolving the click destinations of viewable native ads in the
+     * background. Disabled by default.
+     */
+    public static void setPreResolutionEnabled(final boolean enabled) {
+        sPreResolutionEnabled = enabled;
+    }
+
+    public static boolean isPreResolutionEnabled() {
+        return sPreResolutionEnabled;
+    }
+
+    /**
+     * MoPub SDK internal method. Follows the redirects of the click URL in the background and
+     * keeps the final destination. Does nothing if pre-resolution is disabled, or if the URL is
+     * already resolved or being resolved.
+     */
+    public static void preResolve(@Nullable final String clickUrl) {
+        if (!sPreResolutionEnabled || TextUtils.isEmpty(clickUrl) || get(clickUrl) != null
+                || !sPendingUrls.add(clickUrl)) {
+            return;
+        }
+
+        UrlResolutionTask.getResolvedUrl(clickUrl, new UrlResolutionListener() {
+            @Override
+            public void onSuccess(@NonNull final String resolvedUrl) {
+                sPendingUrls.remove(clickUrl);
+                put(clickUrl, resolvedUrl, SystemClock.elapsedRealtime());
+            }
+
+            @Override
+            public void onFailure(@NonNull final String message,
+                    @Nullable final Throwable throwable) {
+                sPendingUrls.remove(clickUrl);
+                MoPubLog.log(CUSTOM, "Unable to pre-resolve click url: " + message);
+            }
+        });
+    }
+
+    /**
+     * @return The final destination of the click URL, or null if it hasn't been resolved or has
+     * expired.
+     */
+    @Nullable
+    public static String get(@NonNull final String clickUrl) {
+        return get(clickUrl, SystemClock.elapsedRealtime());
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static String get(@NonNull final String clickUrl, final long nowMillis) {
+        Preconditions.checkNotNull(clickUrl);
+
+        final Entry entry = sEntries.get(clickUrl);
+        if (entry == null) {
+            return null;
+        }
+        if (nowMillis >= entry.mExpirationMillis) {
+            sEntries.remove(clickUrl);
+            return null;
+        }
+        return entry.mResolvedUrl;
+    }
+
+    @VisibleForTesting
+    static void put(@NonNull final String clickUrl, @NonNull final String resolvedUrl,
+            final long nowMillis) {
+        Preconditions.checkNotNull(clickUrl);
+        Preconditions.checkNotNull(resolvedUrl);
+
+        sEntries.put(clickUrl, new Entry(resolvedUrl, nowMillis + TTL_MILLIS));
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sEntries.clear();
+        sPendingUrls.clear();
+        sPreResolutionEnabled = false;
+    }
+}
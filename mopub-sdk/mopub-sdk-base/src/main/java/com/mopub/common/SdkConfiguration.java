@@ -5,6 +5,7 @@
 package com.mopub.common;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.logging.MoPubLog;
@@ -61,6 +62,21 @@ public class SdkConfiguration {
      */
     private final boolean mLegitimateInterestAllowed;
 
+    /**
+     * Optional listener for how long each phase of SDK startup took.
+     */
+    @Nullable private final SdkStartupTimingListener mStartupTimingListener;
+
+    /**
+     * Optional listener for how long each mediated network adapter took to initialize.
+     */
+    @Nullable private final AdapterInitializationMetricsListener mAdapterInitializationMetricsListener;
+
+    /**
+     * How long SDK initialization waits for each mediated network adapter to initialize.
+     */
+    private final long mAdapterInitializationTimeoutMillis;
+
     /**
      * Holds data for SDK initialization. Do not call this constructor directly; use the Builder.
      */
@@ -70,7 +86,10 @@ public class SdkConfiguration {
             @NonNull final LogLevel logLevel,
             @NonNull final Map<String, Map<String, String>> mediatedNetworkConfigurations,
             @NonNull final Map<String, Map<String, String>> moPubRequestOptions,
-            final boolean legitimateInterestAllowed) {
+            final boolean legitimateInterestAllowed,
+            @Nullable final SdkStartupTimingListener startupTimingListener,
+            @Nullable final AdapterInitializationMetricsListener adapterInitializationMetricsListener,
+            final long adapterInitializationTimeoutMillis) {
         Preconditions.checkNotNull(adUnitId);
         Preconditions.checkNotNull(adapterConfigurationClasses);
         Preconditions.checkNotNull(mediatedNetworkConfigurations);
@@ -83,6 +102,9 @@ public class SdkConfiguration {
         mMediatedNetworkConfigurations = mediatedNetworkConfigurations;
         mMoPubRequestOptions = moPubRequestOptions;
         mLegitimateInterestAllowed = legitimateInterestAllowed;
+        mStartupTimingListener = startupTimingListener;
+        mAdapterInitializationMetricsListener = adapterInitializationMetricsListener;
+        mAdapterInitializationTimeoutMillis = adapterInitializationTimeoutMillis;
     }
 
     @NonNull
@@ -118,6 +140,20 @@ public class SdkConfiguration {
         return mLegitimateInterestAllowed;
     }
 
+    @Nullable
+    public SdkStartupTimingListener getStartupTimingListener() {
+        return mStartupTimingListener;
+    }
+
+    @Nullable
+    public AdapterInitializationMetricsListener getAdapterInitializationMetricsListener() {
+        return mAdapterInitializationMetricsListener;
+    }
+
+    public long getAdapterInitializationTimeoutMillis() {
+        return mAdapterInitializationTimeoutMillis;
+    }
+
     public static class Builder {
         @NonNull private String adUnitId;
         @NonNull private final Set<String> adapterConfigurations;
@@ -126,6 +162,10 @@ public class SdkConfiguration {
         @NonNull private final Map<String, Map<String, String>> mediatedNetworkConfigurations;
         @NonNull private final Map<String, Map<String, String>> moPubRequestOptions;
         private boolean legitimateInterestAllowed;
+        @Nullable private SdkStartupTimingListener startupTimingListener;
+        @Nullable private AdapterInitializationMetricsListener adapterInitializationMetricsListener;
+        private long adapterInitializationTimeoutMillis =
+                AdapterConfigurationManager.DEFAULT_ADAPTER_INITIALIZATION_TIMEOUT_MILLIS;
 
         /**
          * Use this builder instead of creating a new SdkConfiguration. This Builder needs any ad
@@ -242,9 +282,52 @@ public class SdkConfiguration {
             return this;
         }
 
+        /**
+         * Sets a listener that is told how long each phase of SDK startup took, for tracking the
+         * SDK's share of app cold start time.
+         *
+         * @param startupTimingListener The listener. Can be null.
+         * @return The builder.
+         */
+        public Builder withStartupTimingListener(
+                @Nullable final SdkStartupTimingListener startupTimingListener) {
+            this.startupTimingListener = startupTimingListener;
+            return this;
+        }
+
+        /**
+         * Sets a listener that is told how long each mediated network adapter took to initialize,
+         * to find the networks that slow down SDK startup.
+         *
+         * @param adapterInitializationMetricsListener The listener. Can be null.
+         * @return The builder.
+         */
+        public Builder withAdapterInitializationMetricsListener(
+                @Nullable final AdapterInitializationMetricsListener adapterInitializationMetricsListener) {
+            this.adapterInitializationMetricsListener = adapterInitializationMetricsListener;
+            return this;
+        }
+
+        /**
+         * Sets how long SDK initialization waits for each mediated network adapter. Adapters that
+         * take longer keep initializing in the background, and SDK initialization finishes
+         * without them. Defaults to 5 seconds.
+         *
+         * @param adapterInitializationTimeoutMillis The timeout in milliseconds. Must be positive.
+         * @return The builder.
+         */
+        public Builder withAdapterInitializationTimeout(final long adapterInitializationTimeoutMillis) {
+            if (adapterInitializationTimeoutMillis > 0) {
+                this.adapterInitializationTimeoutMillis = adapterInitializationTimeoutMillis;
+            }
+            return this;
+        }
+
         public SdkConfiguration build() {
             return new SdkConfiguration(adUnitId, adapterConfigurations, mediationSettings,
-                    logLevel, mediatedNetworkConfigurations, moPubRequestOptions, legitimateInterestAllowed);
+                    logLevel, mediatedNetworkConfigurations, moPubRequestOptions, legitimateInterestAllowed,
+                    startupTimingListener, adapterInitializationMetricsListener,
+                    adapterInitializationTimeoutMillis);
         }
     }
 }
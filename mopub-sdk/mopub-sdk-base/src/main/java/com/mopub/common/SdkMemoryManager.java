@@ -0,0 +1,363 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Trims the SDK's caches when the system is low on memory. Each cache registers itself with a
+ * priority; the more memory the system asks for back, the higher the priorities that are trimmed.
+ * Caches are trimmed in priority order, cheapest to rebuild first:
+ *
+ * {@link #PRIORITY_IDLE_RESOURCES} at {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_MODERATE}
+ * and above, {@link #PRIORITY_DECODED_IMAGES} at
+ * {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} and when the UI is hidden, and
+ * {@link #PRIORITY_PRELOADED_ADS} at {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL},
+ * {@link ComponentCallbacks2#TRIM_MEMORY_MODERATE} and above, and on low memory. Caches registered
+ * with {@link #PRIORITY_NEVER} are only reported by {@link #getCacheUsages(CacheUsageListener)}.
+ *
+ * Caches are held weakly, so registering one never keeps it or its owner alive. Caches may register
+ * and unregister on any thread. They are trimmed and their memory use is read on the main thread;
+ * only their disk use is read on a background thread.
+ */
+public final class SdkMemoryManager {
+    /**
+     * Resources that aren't in use and are cheap to create again, like idle video players.
+     */
+    public static final int PRIORITY_IDLE_RESOURCES = 0;
+    /**
+     * Decoded bitmaps that can be decoded again from disk.
+     */
+    public static final int PRIORITY_DECODED_IMAGES = 1;
+    /**
+     * Ads that were loaded ahead of time and have to be requested again.
+     */
+    public static final int PRIORITY_PRELOADED_ADS = 2;
+    /**
+     * Caches that are in use or on disk, which are reported but never trimmed.
+     */
+    public static final int PRIORITY_NEVER = Integer.MAX_VALUE;
+
+    public interface TrimmableCache {
+        @NonNull
+        String getName();
+
+        /**
+         * Called on the main thread, so must not read the disk.
+         */
+        int getEntryCount();
+
+        /**
+         * Called on the main thread.
+         *
+         * @return The heap used by the cache in bytes, or 0 if it can't be measured.
+         */
+        long getMemoryBytes();
+
+        /**
+         * Called on a background thread, so must not touch state that is only used on the main
+         * thread.
+         *
+         * @return The disk used by the cache in bytes. May read the disk.
+         */
+        long getDiskBytes();
+
+        /**
+         * Called on the main thread. Releases as much of the cache as can be created again.
+         */
+        void trim();
+    }
+
+    public interface CacheUsageListener {
+        /**
+         * Called on the main thread.
+         */
+        void onCacheUsages(@NonNull List<CacheUsage> cacheUsages);
+    }
+
+    /**
+     * A snapshot of the memory and disk used by one cache.
+     */
+    public static class CacheUsage {
+        @NonNull private final String mName;
+        private final int mEntryCount;
+        private final long mMemoryBytes;
+        private long mDiskBytes;
+
+        CacheUsage(@NonNull final String name, final int entryCount, final long memoryBytes,
+                final long diskBytes) {
+            mName = name;
+            mEntryCount = entryCount;
+            mMemoryBytes = memoryBytes;
+            mDiskBytes = diskBytes;
+        }
+
+        @NonNull
+        public String getName() {
+            return mName;
+        }
+
+        public int getEntryCount() {
+            return mEntryCount;
+        }
+
+        public long getMemoryBytes() {
+            return mMemoryBytes;
+        }
+
+        public long getDiskBytes() {
+            return mDiskBytes;
+        }
+
+        @Override
+        public String toString() {
+            return mName + ": " + mEntryCount + " entries, " + mMemoryBytes + " bytes in memory, "
+                    + mDiskBytes + " bytes on disk";
+        }
+    }
+
+    private static class Registration {
+        @NonNull final WeakReference<TrimmableCache> mCache;
+        final int mPriority;
+
+        Registration(@NonNull final TrimmableCache cache, final int priority) {
+            mCache = new WeakReference<TrimmableCache>(cache);
+            mPriority = priority;
+        }
+    }
+
+    // Sorted by priority.
+    @NonNull private static final List<Registration> sRegistrations =
+            new ArrayList<Registration>();
+    @NonNull private static final ComponentCallbacks2 sComponentCallbacks =
+            new ComponentCallbacks2() {
+                @Override
+                public void onTrimMemory(final int level) {
+                    trim(getMaxPriority(level));
+                }
+
+                @Override
+                public void onConfigurationChanged(final Configuration newConfig) {
+                }
+
+                @Override
+                public void onLowMemory() {
+                    trim(PRIORITY_PRELOADED_ADS);
+                }
+            };
+    private static boolean sListening;
+
+    private SdkMemoryManager() {
+    }
+
+    /**
+     * MoPub SDK internal method. Starts listening for memory pressure. Called when the SDK is
+     * initialized.
+     */
+    public static synchronized void startListening(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        if (sListening) {
+            return;
+        }
+        context.getApplicationContext().registerComponentCallbacks(sComponentCallbacks);
+        sListening = true;
+    }
+
+    /**
+     * MoPub SDK internal method. Registers a cache to be trimmed and reported. Registering the
+     * same cache again does nothing. The manager only keeps a weak reference, so the caller has to
+     * keep the cache for as long as it should be trimmed.
+     */
+    public static synchronized void register(@NonNull final TrimmableCache cache,
+            final int priority) {
+        Preconditions.checkNotNull(cache);
+
+        pruneRegistrations();
+        int index = sRegistrations.size();
+        for (int i = 0; i < sRegistrations.size(); i++) {
+            final Registration registration = sRegistrations.get(i);
+            if (registration.mCache.get() == cache) {
+                return;
+            }
+            if (registration.mPriority > priority && index == sRegistrations.size()) {
+                index = i;
+            }
+        }
+        sRegistrations.add(index, new Registration(cache, priority));
+    }
+
+    public static synchronized void unregister(@NonNull final TrimmableCache cache) {
+        Preconditions.checkNotNull(cache);
+
+        for (int i = 0; i < sRegistrations.size(); i++) {
+            if (sRegistrations.get(i).mCache.get() == cache) {
+                sRegistrations.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reports the memory and disk used by each registered cache. Must be called on the main
+     * thread. The memory used is read right away, the disk used on a background thread, and the
+     * listener is called back on the main thread.
+     */
+    public static void getCacheUsages(@NonNull final CacheUsageListener listener) {
+        Preconditions.checkNotNull(listener);
+        Preconditions.checkUiThread();
+
+        final List<TrimmableCache> caches = new ArrayList<TrimmableCache>();
+        final List<CacheUsage> usages = new ArrayList<CacheUsage>();
+        for (final Registration registration : getRegistrations()) {
+            final TrimmableCache cache = registration.mCache.get();
+            if (cache == null) {
+                continue;
+            }
+            caches.add(cache);
+            usages.add(new CacheUsage(cache.getName(), cache.getEntryCount(),
+                    cache.getMemoryBytes(), 0));
+        }
+
+        try {
+            AsyncTasks.safeExecuteOnExecutor(new DiskUsageTask(caches, usages, listener));
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM, "Unable to read cache disk usage", e);
+            listener.onCacheUsages(usages);
+        }
+    }
+
+    /**
+     * MoPub SDK internal method. Adds up the size of the files in the directory and its
+     * subdirectories.
+     */
+    public static long getDirectorySizeBytes(@Nullable final File directory) {
+        if (directory == null) {
+            return 0;
+        }
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        long size = 0;
+        for (final File file : files) {
+            size += file.isDirectory() ? getDirectorySizeBytes(file) : file.length();
+        }
+        return size;
+    }
+
+    @VisibleForTesting
+    static void trim(final int maxPriority) {
+        for (final Registration registration : getRegistrations()) {
+            if (registration.mPriority > maxPriority) {
+                return;
+            }
+            final TrimmableCache cache = registration.mCache.get();
+            if (cache == null) {
+                continue;
+            }
+            try {
+                cache.trim();
+            } catch (Exception e) {
+                MoPubLog.log(CUSTOM, "Unable to trim " + cache.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * @return The highest priority that should be trimmed at the trim level, or -1 for none.
+     */
+    @VisibleForTesting
+    static int getMaxPriority(final int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return PRIORITY_PRELOADED_ADS;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return PRIORITY_DECODED_IMAGES;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return PRIORITY_PRELOADED_ADS;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return PRIORITY_DECODED_IMAGES;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return PRIORITY_IDLE_RESOURCES;
+        }
+        return -1;
+    }
+
+    @NonNull
+    private static synchronized List<Registration> getRegistrations() {
+        pruneRegistrations();
+        // Copied so caches can register or unregister while being trimmed.
+        return new ArrayList<Registration>(sRegistrations);
+    }
+
+    // Must be called while holding the class lock.
+    private static void pruneRegistrations() {
+        final Iterator<Registration> iterator = sRegistrations.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mCache.get() == null) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    public static synchronized void clearForTesting() {
+        sRegistrations.clear();
+        sListening = false;
+    }
+
+    private static class DiskUsageTask extends AsyncTask<Void, Void, List<CacheUsage>> {
+        @NonNull private final List<TrimmableCache> mCaches;
+        @NonNull private final List<CacheUsage> mUsages;
+        @NonNull private final CacheUsageListener mListener;
+
+        DiskUsageTask(@NonNull final List<TrimmableCache> caches,
+                @NonNull final List<CacheUsage> usages,
+                @NonNull final CacheUsageListener listener) {
+            mCaches = caches;
+            mUsages = usages;
+            mListener = listener;
+        }
+
+        @Override
+        protected List<CacheUsage> doInBackground(final Void... voids) {
+            for (int i = 0; i < mCaches.size(); i++) {
+                try {
+                    mUsages.get(i).mDiskBytes = mCaches.get(i).getDiskBytes();
+                } catch (Exception e) {
+                    MoPubLog.log(CUSTOM, "Unable to read disk usage of "
+                            + mUsages.get(i).getName(), e);
+                }
+            }
+            return mUsages;
+        }
+
+        @Override
+        protected void onPostExecute(final List<CacheUsage> usages) {
+            mListener.onCacheUsages(usages);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+/**
+ * The phases of SDK startup reported to a {@link SdkStartupTimingListener}.
+ */
+public enum SdkStartupPhase {
+    /**
+     * The work done synchronously on the main thread by {@link MoPub#initializeSdk}.
+     */
+    MAIN_THREAD,
+
+    /**
+     * Resolving the WebView user agent. This is fast when the user agent was persisted by an
+     * earlier run with the same WebView version.
+     */
+    USER_AGENT,
+
+    /**
+     * Collecting device and app metadata. Runs on a background thread.
+     */
+    CLIENT_METADATA,
+
+    /**
+     * Setting up the network disk cache. Runs on the network cache thread.
+     */
+    DISK_CACHE,
+
+    /**
+     * Loading consent state, until the consent manager reports it is ready.
+     */
+    CONSENT,
+
+    /**
+     * Initializing the mediated network adapters.
+     */
+    ADAPTERS,
+
+    /**
+     * From {@link MoPub#initializeSdk} being called until initialization finishes.
+     */
+    TOTAL
+}
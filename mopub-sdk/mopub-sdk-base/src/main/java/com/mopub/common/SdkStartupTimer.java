@@ -0,0 +1,91 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.logging.MoPubLog;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Records how long each {@link SdkStartupPhase} took and reports it to the
+ * {@link SdkStartupTimingListener} from the {@link SdkConfiguration}. Phases can finish on any
+ * thread; the listener is always called on the main thread.
+ */
+public final class SdkStartupTimer {
+    @NonNull private static final Map<SdkStartupPhase, Long> sDurations =
+            new EnumMap<SdkStartupPhase, Long>(SdkStartupPhase.class);
+    @Nullable private static volatile SdkStartupTimingListener sListener;
+
+    private SdkStartupTimer() {}
+
+    /**
+     * @return The current time to pass to {@link #phaseFinished(SdkStartupPhase, long)}.
+     */
+    public static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    static void setListener(@Nullable final SdkStartupTimingListener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Records that a phase finished. Only the first time each phase finishes is recorded.
+     *
+     * @param phase       The phase that finished.
+     * @param startMillis The value of {@link #now()} when the phase started.
+     */
+    public static void phaseFinished(@NonNull final SdkStartupPhase phase,
+            final long startMillis) {
+        Preconditions.checkNotNull(phase);
+
+        final long durationMillis = Math.max(0, now() - startMillis);
+        synchronized (sDurations) {
+            if (sDurations.containsKey(phase)) {
+                return;
+            }
+            sDurations.put(phase, durationMillis);
+        }
+        MoPubLog.log(CUSTOM, "SDK startup phase " + phase + " took " + durationMillis + "ms");
+
+        final SdkStartupTimingListener listener = sListener;
+        if (listener == null) {
+            return;
+        }
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onStartupPhaseFinished(phase, durationMillis);
+            }
+        });
+    }
+
+    /**
+     * @return How long the phase took in milliseconds, or null if it hasn't finished.
+     */
+    @Nullable
+    public static Long getDurationMillis(@NonNull final SdkStartupPhase phase) {
+        synchronized (sDurations) {
+            return sDurations.get(phase);
+        }
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        synchronized (sDurations) {
+            sDurations.clear();
+        }
+        sListener = null;
+    }
+}
@@ -0,0 +1,19 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Called on the main thread as each phase of SDK startup finishes. Set this with
+ * {@link SdkConfiguration.Builder#withStartupTimingListener(SdkStartupTimingListener)}.
+ */
+public interface SdkStartupTimingListener {
+    /**
+     * @param phase          The phase that finished.
+     * @param durationMillis How long the phase took, in milliseconds.
+     */
+    void onStartupPhaseFinished(@NonNull SdkStartupPhase phase, long durationMillis);
+}
@@ -254,7 +254,9 @@ public class UrlHandler {
     }
 
     /**
-     * Follows any redirects from {@code destinationUrl} and then handles the URL accordingly.
+     * Follows any redirects from {@code destinationUrl} and then handles the URL accordingly. If
+     * the URL was already resolved by {@link ResolvedUrlCache}, the final destination is handled
+     * right away.
      *
      * @param context The activity context.
      * @param destinationUrl The URL to handle.
@@ -270,6 +272,12 @@ public class UrlHandler {
             return;
         }
 
+        final String resolvedUrl = ResolvedUrlCache.get(destinationUrl);
+        if (resolvedUrl != null) {
+            handleResolvedUrl(context, resolvedUrl, fromUserInteraction, trackingUrls);
+            return;
+        }
+
         final UrlResolutionListener urlResolutionListener = new UrlResolutionListener() {
             @Override
             public void onSuccess(@NonNull final String resolvedUrl) {
@@ -11,6 +11,7 @@ import android.support.annotation.Nullable;
 
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.AsyncTasks;
+import com.mopub.network.Networking;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -94,7 +95,7 @@ public class UrlResolutionTask extends AsyncTask<String, Void, String> {
 
         HttpURLConnection httpUrlConnection = null;
         try {
-            httpUrlConnection = (HttpURLConnection) url.openConnection();
+            httpUrlConnection = Networking.getHttpTransport().openConnection(url);
             httpUrlConnection.setInstanceFollowRedirects(false);
 
             return resolveRedirectLocation(urlString, httpUrlConnection);
@@ -0,0 +1,130 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common.privacy;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+
+/**
+ * An immutable copy of the {@link ConsentData} in {@link PersonalInfoData}, as of one save.
+ * {@link PersonalInfoData} replaces its snapshot with a new one, with a higher version, each time
+ * it is saved, so a snapshot can be shared with any thread without copying or locking.
+ */
+final class ConsentDataSnapshot implements ConsentData {
+    @NonNull private final Context mAppContext;
+    private final long mVersion;
+    @Nullable private final String mCurrentVendorListVersion;
+    @Nullable private final String mCurrentVendorListLink;
+    @Nullable private final String mCurrentPrivacyPolicyVersion;
+    @Nullable private final String mCurrentPrivacyPolicyLink;
+    @Nullable private final String mCurrentVendorListIabFormat;
+    @Nullable private final String mConsentedPrivacyPolicyVersion;
+    @Nullable private final String mConsentedVendorListVersion;
+    @Nullable private final String mConsentedVendorListIabFormat;
+    private final boolean mForceGdprApplies;
+
+    ConsentDataSnapshot(@NonNull final Context appContext,
+            final long version,
+            @Nullable final String currentVendorListVersion,
+            @Nullable final String currentVendorListLink,
+            @Nullable final String currentPrivacyPolicyVersion,
+            @Nullable final String currentPrivacyPolicyLink,
+            @Nullable final String currentVendorListIabFormat,
+            @Nullable final String consentedPrivacyPolicyVersion,
+            @Nullable final String consentedVendorListVersion,
+            @Nullable final String consentedVendorListIabFormat,
+            final boolean forceGdprApplies) {
+        Preconditions.checkNotNull(appContext);
+
+        mAppContext = appContext;
+        mVersion = version;
+        mCurrentVendorListVersion = currentVendorListVersion;
+        mCurrentVendorListLink = currentVendorListLink;
+        mCurrentPrivacyPolicyVersion = currentPrivacyPolicyVersion;
+        mCurrentPrivacyPolicyLink = currentPrivacyPolicyLink;
+        mCurrentVendorListIabFormat = currentVendorListIabFormat;
+        mConsentedPrivacyPolicyVersion = consentedPrivacyPolicyVersion;
+        mConsentedVendorListVersion = consentedVendorListVersion;
+        mConsentedVendorListIabFormat = consentedVendorListIabFormat;
+        mForceGdprApplies = forceGdprApplies;
+    }
+
+    /**
+     * @return Starts at 0 when the data is read from disk and goes up by one with each save.
+     */
+    long getVersion() {
+        return mVersion;
+    }
+
+    @Nullable
+    @Override
+    public String getCurrentVendorListVersion() {
+        return mCurrentVendorListVersion;
+    }
+
+    @NonNull
+    @Override
+    public String getCurrentVendorListLink() {
+        return getCurrentVendorListLink(null);
+    }
+
+    @NonNull
+    @Override
+    public String getCurrentVendorListLink(@Nullable final String language) {
+        return PersonalInfoData.replaceLanguageMacro(mCurrentVendorListLink, mAppContext,
+                language);
+    }
+
+    @Nullable
+    @Override
+    public String getCurrentPrivacyPolicyVersion() {
+        return mCurrentPrivacyPolicyVersion;
+    }
+
+    @NonNull
+    @Override
+    public String getCurrentPrivacyPolicyLink() {
+        return getCurrentPrivacyPolicyLink(null);
+    }
+
+    @NonNull
+    @Override
+    public String getCurrentPrivacyPolicyLink(@Nullable final String language) {
+        return PersonalInfoData.replaceLanguageMacro(mCurrentPrivacyPolicyLink, mAppContext,
+                language);
+    }
+
+    @Nullable
+    @Override
+    public String getCurrentVendorListIabFormat() {
+        return mCurrentVendorListIabFormat;
+    }
+
+    @Nullable
+    @Override
+    public String getConsentedPrivacyPolicyVersion() {
+        return mConsentedPrivacyPolicyVersion;
+    }
+
+    @Nullable
+    @Override
+    public String getConsentedVendorListVersion() {
+        return mConsentedVendorListVersion;
+    }
+
+    @Nullable
+    @Override
+    public String getConsentedVendorListIabFormat() {
+        return mConsentedVendorListIabFormat;
+    }
+
+    @Override
+    public boolean isForceGdprApplies() {
+        return mForceGdprApplies;
+    }
+}
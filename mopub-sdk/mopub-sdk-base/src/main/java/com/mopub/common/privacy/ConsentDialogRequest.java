@@ -11,6 +11,7 @@ import android.text.TextUtils;
 
 import com.mopub.network.MoPubNetworkError;
 import com.mopub.network.MoPubRequest;
+import com.mopub.network.RequestCategory;
 import com.mopub.volley.DefaultRetryPolicy;
 import com.mopub.volley.NetworkResponse;
 import com.mopub.volley.Response;
@@ -42,6 +43,12 @@ class ConsentDialogRequest extends MoPubRequest<ConsentDialogResponse> {
         setShouldCache(false);
     }
 
+    @NonNull
+    @Override
+    public RequestCategory getRequestCategory() {
+        return RequestCategory.SYNC;
+    }
+
     @Override
     protected Response<ConsentDialogResponse> parseNetworkResponse(final NetworkResponse networkResponse) {
         final String responseBody = parseStringBody(networkResponse);
@@ -15,8 +15,16 @@ import com.mopub.common.ClientMetadata;
 import com.mopub.common.Preconditions;
 import com.mopub.common.SharedPreferencesHelper;
 import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 class PersonalInfoData implements ConsentData {
 
@@ -44,6 +52,10 @@ class PersonalInfoData implements ConsentData {
     private static final String UDID_SP_KEY = PERSONAL_INFO_PREFIX + "udid";
     private static final String LAST_CHANGED_MS_SP_KEY = PERSONAL_INFO_PREFIX + "last_changed_ms";
     private static final String CONSENT_STATUS_BEFORE_DNT_SP_KEY = PERSONAL_INFO_PREFIX + "consent_status_before_dnt";
+    // A JSON record of all of the above, written by a previous version of this SDK. It is read
+    // once if the separate preferences are missing, and then removed.
+    @VisibleForTesting
+    static final String STATE_SP_KEY = "personal_info_state";
 
     /**
      * If this is found in a url, replace it with the device default language.
@@ -51,6 +63,9 @@ class PersonalInfoData implements ConsentData {
     private static final String LANGUAGE_MACRO_KEY = "%%LANGUAGE%%";
 
     @NonNull private final Context mAppContext;
+    @NonNull private volatile ConsentDataSnapshot mSnapshot;
+    // The state as last saved, so that only changed preferences are written. Guarded by this.
+    @NonNull private JSONObject mSavedState;
 
     // Values that are locally generated
     @NonNull private String mAdUnitId;
@@ -85,92 +100,208 @@ class PersonalInfoData implements ConsentData {
         mConsentStatus = ConsentStatus.UNKNOWN;
         mAdUnitId = "";
         getStateFromDisk();
+        mSnapshot = createSnapshot(0);
     }
 
     private void getStateFromDisk() {
         final SharedPreferences sharedPreferences = SharedPreferencesHelper.getSharedPreferences(
                 mAppContext, PERSONAL_INFO_DATA_SHARED_PREFS);
-        mAdUnitId = sharedPreferences.getString(AD_UNIT_ID_SP_KEY, "");
-        mCachedLastAdUnitIdUsedForInit = sharedPreferences.getString(
-                CACHED_LAST_AD_UNIT_ID_USED_FOR_INIT_SP_KEY, null);
-        mConsentStatus = ConsentStatus.fromString(sharedPreferences.getString(
+        final JSONObject state = readState(sharedPreferences);
+        mSavedState = state;
+
+        mAdUnitId = state.optString(AD_UNIT_ID_SP_KEY, "");
+        mCachedLastAdUnitIdUsedForInit = optString(state,
+                CACHED_LAST_AD_UNIT_ID_USED_FOR_INIT_SP_KEY);
+        mConsentStatus = ConsentStatus.fromString(state.optString(
                 CONSENT_STATUS_SP_KEY, ConsentStatus.UNKNOWN.name()));
-        final String lastSuccessfullySyncedConsentStatusString = sharedPreferences.getString(
-                LAST_SUCCESSFULLY_SYNCED_CONSENT_STATUS_SP_KEY, null);
-        if (TextUtils.isEmpty(lastSuccessfullySyncedConsentStatusString)) {
-            mLastSuccessfullySyncedConsentStatus = null;
-        } else {
-            mLastSuccessfullySyncedConsentStatus =
-                    ConsentStatus.fromString(lastSuccessfullySyncedConsentStatusString);
-        }
-        mIsWhitelisted = sharedPreferences.getBoolean(IS_WHITELISTED_SP_KEY, false);
-        mCurrentVendorListVersion = sharedPreferences.getString(CURRENT_VENDOR_LIST_VERSION_SP_KEY,
-                null);
-        mCurrentVendorListLink = sharedPreferences.getString(CURRENT_VENDOR_LIST_LINK_SP_KEY, null);
-        mCurrentPrivacyPolicyVersion = sharedPreferences.getString(
-                CURRENT_PRIVACY_POLICY_VERSION_SP_KEY, null);
-        mCurrentPrivacyPolicyLink = sharedPreferences.getString(CURRENT_PRIVACY_POLICY_LINK_SP_KEY,
-                null);
-        mCurrentVendorListIabFormat = sharedPreferences.getString(
-                CURRENT_VENDOR_LIST_IAB_FORMAT_SP_KEY, null);
-        mCurrentVendorListIabHash = sharedPreferences.getString(CURRENT_VENDOR_LIST_IAB_HASH_SP_KEY,
-                null);
-        mConsentedVendorListVersion = sharedPreferences.getString(
-                CONSENTED_VENDOR_LIST_VERSION_SP_KEY, null);
-        mConsentedPrivacyPolicyVersion = sharedPreferences.getString(
-                CONSENTED_PRIVACY_POLICY_VERSION_SP_KEY, null);
-        mConsentedVendorListIabFormat = sharedPreferences.getString(
-                CONSENTED_VENDOR_LIST_IAB_FORMAT_SP_KEY, null);
-        mExtras = sharedPreferences.getString(EXTRAS_SP_KEY, null);
-        mConsentChangeReason = sharedPreferences.getString(CONSENT_CHANGE_REASON_SP_KEY, null);
-        mReacquireConsent = sharedPreferences.getBoolean(REACQUIRE_CONSENT_SP_KEY, false);
-        final String gdprAppliesString = sharedPreferences.getString(GDPR_APPLIES_SP_KEY, null);
+        mLastSuccessfullySyncedConsentStatus = optConsentStatus(state,
+                LAST_SUCCESSFULLY_SYNCED_CONSENT_STATUS_SP_KEY);
+        mIsWhitelisted = state.optBoolean(IS_WHITELISTED_SP_KEY, false);
+        mCurrentVendorListVersion = optString(state, CURRENT_VENDOR_LIST_VERSION_SP_KEY);
+        mCurrentVendorListLink = optString(state, CURRENT_VENDOR_LIST_LINK_SP_KEY);
+        mCurrentPrivacyPolicyVersion = optString(state, CURRENT_PRIVACY_POLICY_VERSION_SP_KEY);
+        mCurrentPrivacyPolicyLink = optString(state, CURRENT_PRIVACY_POLICY_LINK_SP_KEY);
+        mCurrentVendorListIabFormat = optString(state, CURRENT_VENDOR_LIST_IAB_FORMAT_SP_KEY);
+        mCurrentVendorListIabHash = optString(state, CURRENT_VENDOR_LIST_IAB_HASH_SP_KEY);
+        mConsentedVendorListVersion = optString(state, CONSENTED_VENDOR_LIST_VERSION_SP_KEY);
+        mConsentedPrivacyPolicyVersion = optString(state,
+                CONSENTED_PRIVACY_POLICY_VERSION_SP_KEY);
+        mConsentedVendorListIabFormat = optString(state,
+                CONSENTED_VENDOR_LIST_IAB_FORMAT_SP_KEY);
+        mExtras = optString(state, EXTRAS_SP_KEY);
+        mConsentChangeReason = optString(state, CONSENT_CHANGE_REASON_SP_KEY);
+        mReacquireConsent = state.optBoolean(REACQUIRE_CONSENT_SP_KEY, false);
+        final String gdprAppliesString = optString(state, GDPR_APPLIES_SP_KEY);
         if (TextUtils.isEmpty(gdprAppliesString)) {
             mGdprApplies = null;
         } else {
             mGdprApplies = Boolean.parseBoolean(gdprAppliesString);
         }
-        mForceGdprApplies = sharedPreferences.getBoolean(FORCE_GDPR_APPLIES_SP_KEY, false);
-        mUdid = sharedPreferences.getString(UDID_SP_KEY, null);
-        mLastChangedMs = sharedPreferences.getString(LAST_CHANGED_MS_SP_KEY, null);
-        final String consentStatusBeforeDnt = sharedPreferences.getString(
-                CONSENT_STATUS_BEFORE_DNT_SP_KEY, null);
-        if (TextUtils.isEmpty(consentStatusBeforeDnt)) {
-            mConsentStatusBeforeDnt = null;
-        } else {
-            mConsentStatusBeforeDnt = ConsentStatus.fromString(consentStatusBeforeDnt);
+        mForceGdprApplies = state.optBoolean(FORCE_GDPR_APPLIES_SP_KEY, false);
+        mUdid = optString(state, UDID_SP_KEY);
+        mLastChangedMs = optString(state, LAST_CHANGED_MS_SP_KEY);
+        mConsentStatusBeforeDnt = optConsentStatus(state, CONSENT_STATUS_BEFORE_DNT_SP_KEY);
+    }
+
+    /**
+     * Reads the state saved one preference per field. If there is none but a record written by a
+     * previous version of this SDK exists, the record is migrated to separate preferences once.
+     */
+    @NonNull
+    private static JSONObject readState(@NonNull final SharedPreferences sharedPreferences) {
+        final JSONObject state = new JSONObject();
+        for (final Map.Entry<String, ?> entry : sharedPreferences.getAll().entrySet()) {
+            final String key = entry.getKey();
+            if (key != null && key.startsWith(PERSONAL_INFO_PREFIX)) {
+                try {
+                    state.putOpt(key, entry.getValue());
+                } catch (JSONException e) {
+                    MoPubLog.log(CUSTOM, "Unable to read saved personal info for " + key);
+                }
+            }
         }
+
+        final String recordString = sharedPreferences.getString(STATE_SP_KEY, null);
+        if (recordString == null) {
+            return state;
+        }
+
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.remove(STATE_SP_KEY);
+        if (state.length() > 0) {
+            editor.apply();
+            return state;
+        }
+        final JSONObject record;
+        try {
+            record = new JSONObject(recordString);
+        } catch (JSONException e) {
+            MoPubLog.log(CUSTOM, "Unable to read saved personal info record.");
+            editor.apply();
+            return state;
+        }
+        putChanges(editor, state, record);
+        editor.apply();
+        return record;
     }
 
+    /**
+     * Adds the preferences that differ between the two states to the editor. A null value is
+     * saved as a removed preference. Booleans keep the type older SDKs used for them.
+     *
+     * @return Whether anything was added to the editor.
+     */
+    private static boolean putChanges(@NonNull final SharedPreferences.Editor editor,
+            @NonNull final JSONObject savedState, @NonNull final JSONObject state) {
+        boolean changed = false;
+        final Iterator<String> savedKeys = savedState.keys();
+        while (savedKeys.hasNext()) {
+            final String key = savedKeys.next();
+            if (!state.has(key)) {
+                editor.remove(key);
+                changed = true;
+            }
+        }
+        final Iterator<String> keys = state.keys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            final Object value = state.opt(key);
+            if (value.equals(savedState.opt(key))) {
+                continue;
+            }
+            if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            } else {
+                editor.putString(key, String.valueOf(value));
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    @Nullable
+    private static String optString(@NonNull final JSONObject state, @NonNull final String key) {
+        return state.isNull(key) ? null : state.optString(key);
+    }
+
+    @Nullable
+    private static ConsentStatus optConsentStatus(@NonNull final JSONObject state,
+            @NonNull final String key) {
+        final String consentStatus = optString(state, key);
+        return TextUtils.isEmpty(consentStatus) ? null : ConsentStatus.fromString(consentStatus);
+    }
+
+    /**
+     * Publishes the current state as a new {@link ConsentDataSnapshot} and saves it. Only the
+     * preferences that changed since the last save are written.
+     */
     void writeToDisk() {
+        final JSONObject state = new JSONObject();
+        try {
+            state.put(AD_UNIT_ID_SP_KEY, mAdUnitId);
+            state.putOpt(CACHED_LAST_AD_UNIT_ID_USED_FOR_INIT_SP_KEY,
+                    mCachedLastAdUnitIdUsedForInit);
+            state.put(CONSENT_STATUS_SP_KEY, mConsentStatus.name());
+            state.putOpt(LAST_SUCCESSFULLY_SYNCED_CONSENT_STATUS_SP_KEY,
+                    mLastSuccessfullySyncedConsentStatus == null ? null : mLastSuccessfullySyncedConsentStatus.name());
+            state.put(IS_WHITELISTED_SP_KEY, mIsWhitelisted);
+            state.putOpt(CURRENT_VENDOR_LIST_VERSION_SP_KEY, mCurrentVendorListVersion);
+            state.putOpt(CURRENT_VENDOR_LIST_LINK_SP_KEY, mCurrentVendorListLink);
+            state.putOpt(CURRENT_PRIVACY_POLICY_VERSION_SP_KEY, mCurrentPrivacyPolicyVersion);
+            state.putOpt(CURRENT_PRIVACY_POLICY_LINK_SP_KEY, mCurrentPrivacyPolicyLink);
+            state.putOpt(CURRENT_VENDOR_LIST_IAB_FORMAT_SP_KEY, mCurrentVendorListIabFormat);
+            state.putOpt(CURRENT_VENDOR_LIST_IAB_HASH_SP_KEY, mCurrentVendorListIabHash);
+            state.putOpt(CONSENTED_VENDOR_LIST_VERSION_SP_KEY, mConsentedVendorListVersion);
+            state.putOpt(CONSENTED_PRIVACY_POLICY_VERSION_SP_KEY, mConsentedPrivacyPolicyVersion);
+            state.putOpt(CONSENTED_VENDOR_LIST_IAB_FORMAT_SP_KEY, mConsentedVendorListIabFormat);
+            state.putOpt(EXTRAS_SP_KEY, mExtras);
+            state.putOpt(CONSENT_CHANGE_REASON_SP_KEY, mConsentChangeReason);
+            state.put(REACQUIRE_CONSENT_SP_KEY, mReacquireConsent);
+            state.putOpt(GDPR_APPLIES_SP_KEY,
+                    mGdprApplies == null ? null : mGdprApplies.toString());
+            state.put(FORCE_GDPR_APPLIES_SP_KEY, mForceGdprApplies);
+            state.putOpt(UDID_SP_KEY, mUdid);
+            state.putOpt(LAST_CHANGED_MS_SP_KEY, mLastChangedMs);
+            state.putOpt(CONSENT_STATUS_BEFORE_DNT_SP_KEY,
+                    mConsentStatusBeforeDnt == null ? null : mConsentStatusBeforeDnt.name());
+        } catch (JSONException e) {
+            MoPubLog.log(CUSTOM, "Unable to save personal info.");
+            return;
+        }
+
+        mSnapshot = createSnapshot(mSnapshot.getVersion() + 1);
+
         final SharedPreferences.Editor editor = SharedPreferencesHelper.getSharedPreferences(
                 mAppContext, PERSONAL_INFO_DATA_SHARED_PREFS).edit();
-        editor.putString(AD_UNIT_ID_SP_KEY, mAdUnitId);
-        editor.putString(CACHED_LAST_AD_UNIT_ID_USED_FOR_INIT_SP_KEY, mCachedLastAdUnitIdUsedForInit);
-        editor.putString(CONSENT_STATUS_SP_KEY, mConsentStatus.name());
-        editor.putString(LAST_SUCCESSFULLY_SYNCED_CONSENT_STATUS_SP_KEY,
-                mLastSuccessfullySyncedConsentStatus == null ? null : mLastSuccessfullySyncedConsentStatus.name());
-        editor.putBoolean(IS_WHITELISTED_SP_KEY, mIsWhitelisted);
-        editor.putString(CURRENT_VENDOR_LIST_VERSION_SP_KEY, mCurrentVendorListVersion);
-        editor.putString(CURRENT_VENDOR_LIST_LINK_SP_KEY, mCurrentVendorListLink);
-        editor.putString(CURRENT_PRIVACY_POLICY_VERSION_SP_KEY, mCurrentPrivacyPolicyVersion);
-        editor.putString(CURRENT_PRIVACY_POLICY_LINK_SP_KEY, mCurrentPrivacyPolicyLink);
-        editor.putString(CURRENT_VENDOR_LIST_IAB_FORMAT_SP_KEY, mCurrentVendorListIabFormat);
-        editor.putString(CURRENT_VENDOR_LIST_IAB_HASH_SP_KEY, mCurrentVendorListIabHash);
-        editor.putString(CONSENTED_VENDOR_LIST_VERSION_SP_KEY, mConsentedVendorListVersion);
-        editor.putString(CONSENTED_PRIVACY_POLICY_VERSION_SP_KEY, mConsentedPrivacyPolicyVersion);
-        editor.putString(CONSENTED_VENDOR_LIST_IAB_FORMAT_SP_KEY, mConsentedVendorListIabFormat);
-        editor.putString(EXTRAS_SP_KEY, mExtras);
-        editor.putString(CONSENT_CHANGE_REASON_SP_KEY, mConsentChangeReason);
-        editor.putBoolean(REACQUIRE_CONSENT_SP_KEY, mReacquireConsent);
-        editor.putString(GDPR_APPLIES_SP_KEY,
-                mGdprApplies == null ? null : mGdprApplies.toString());
-        editor.putBoolean(FORCE_GDPR_APPLIES_SP_KEY, mForceGdprApplies);
-        editor.putString(UDID_SP_KEY, mUdid);
-        editor.putString(LAST_CHANGED_MS_SP_KEY, mLastChangedMs);
-        editor.putString(CONSENT_STATUS_BEFORE_DNT_SP_KEY,
-                mConsentStatusBeforeDnt == null ? null : mConsentStatusBeforeDnt.name());
-        editor.apply();
+        synchronized (this) {
+            final boolean changed = putChanges(editor, mSavedState, state);
+            mSavedState = state;
+            if (changed) {
+                editor.apply();
+            }
+        }
+    }
+
+    /**
+     * @return The state as of the last {@link #writeToDisk()}. Never touches the disk.
+     */
+    @NonNull
+    ConsentDataSnapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    @NonNull
+    private ConsentDataSnapshot createSnapshot(final long version) {
+        return new ConsentDataSnapshot(mAppContext, version,
+                mCurrentVendorListVersion,
+                mCurrentVendorListLink,
+                mCurrentPrivacyPolicyVersion,
+                mCurrentPrivacyPolicyLink,
+                mCurrentVendorListIabFormat,
+                mConsentedPrivacyPolicyVersion,
+                mConsentedVendorListVersion,
+                mConsentedVendorListIabFormat,
+                mForceGdprApplies);
     }
 
     @NonNull
@@ -482,10 +482,11 @@ public class PersonalInfoManager {
      * For use by whitelisted publishers only. Gets a copy of the current and consented vendor
      * list and privacy policy and their versions.
      *
-     * @return ConsentData which is a snapshot of the underlying data store.
+     * @return ConsentData which is a snapshot of the underlying data store. It is kept in memory,
+     * so this doesn't read from disk.
      */
     public ConsentData getConsentData() {
-        return new PersonalInfoData(mAppContext);
+        return mPersonalInfoData.getSnapshot();
     }
 
     /**
@@ -7,20 +7,37 @@ package com.mopub.common.util;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.mopub.common.CustomEventRegistry;
 import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * NOTE: Any methods accessed via this class should be annotated with
  * {@link com.mopub.common.util.ReflectionTarget}
+ *
+ * Classes, constructors and methods are looked up once and cached, including lookups that
+ * failed, so repeated calls only pay for the invocation itself.
  */
 public class Reflection {
+    // Stands in for a class or member that doesn't exist.
+    private static final Object NOT_FOUND = new Object();
+
+    // Values are the Class, or NOT_FOUND.
+    @NonNull private static final ConcurrentHashMap<String, Object> sClasses =
+            new ConcurrentHashMap<String, Object>();
+    // Values are the Constructor or Method, or NOT_FOUND.
+    @NonNull private static final ConcurrentHashMap<MemberKey, Object> sMembers =
+            new ConcurrentHashMap<MemberKey, Object>();
+
     public static class MethodBuilder {
         @Nullable private final Object mInstance;
         @NonNull private final String mMethodName;
@@ -59,7 +76,7 @@ public class Reflection {
                 @Nullable final Object parameter) throws ClassNotFoundException {
             Preconditions.checkNotNull(className);
 
-            final Class<?> clazz = Class.forName(className);
+            final Class<?> clazz = getClassForName(className);
 
             mParameterClasses.add(clazz);
             mParameters.add(parameter);
@@ -90,7 +107,7 @@ public class Reflection {
             Preconditions.checkNotNull(className);
 
             mIsStatic = true;
-            mClass = Class.forName(className);
+            mClass = getClassForName(className);
 
             return this;
         }
@@ -100,7 +117,8 @@ public class Reflection {
             final Class<?>[] classArray = new Class<?>[mParameterClasses.size()];
             final Class<?>[] parameterTypes = mParameterClasses.toArray(classArray);
 
-            final Method method = getDeclaredMethodWithTraversal(mClass, mMethodName, parameterTypes);
+            final Method method = getCachedDeclaredMethodWithTraversal(mClass, mMethodName,
+                    parameterTypes);
 
             if (mIsAccessible) {
                 method.setAccessible(true);
@@ -136,17 +154,102 @@ public class Reflection {
         throw new NoSuchMethodException();
     }
 
+    /**
+     * Same as {@link #getDeclaredMethodWithTraversal(Class, String, Class[])}, but cached.
+     */
+    @NonNull
+    private static Method getCachedDeclaredMethodWithTraversal(@Nullable final Class<?> clazz,
+            @NonNull final String methodName, @NonNull final Class<?>[] parameterTypes)
+            throws NoSuchMethodException {
+        if (clazz == null) {
+            throw new NoSuchMethodException();
+        }
+
+        final MemberKey key = new MemberKey(clazz, methodName, parameterTypes);
+        Object method = sMembers.get(key);
+        if (method == null) {
+            try {
+                method = getDeclaredMethodWithTraversal(clazz, methodName, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                method = NOT_FOUND;
+            }
+            sMembers.put(key, method);
+        }
+        if (method == NOT_FOUND) {
+            throw new NoSuchMethodException(methodName);
+        }
+        return (Method) method;
+    }
+
+    /**
+     * Same as {@link Class#forName(String)}, but cached. Classes that aren't found are cached too.
+     */
+    @NonNull
+    public static Class<?> getClassForName(@NonNull final String className)
+            throws ClassNotFoundException {
+        Preconditions.checkNotNull(className);
+
+        Object clazz = sClasses.get(className);
+        if (clazz == null) {
+            try {
+                clazz = Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                clazz = NOT_FOUND;
+            }
+            sClasses.put(className, clazz);
+        }
+        if (clazz == NOT_FOUND) {
+            throw new ClassNotFoundException(className);
+        }
+        return (Class<?>) clazz;
+    }
+
+    /**
+     * Returns the constructor with the given parameter types, made accessible. Cached, including
+     * constructors that don't exist.
+     */
+    @NonNull
+    public static <T> Constructor<? extends T> getDeclaredConstructor(
+            @NonNull final Class<? extends T> clazz, @NonNull final Class<?>... parameterTypes)
+            throws NoSuchMethodException {
+        Preconditions.checkNotNull(clazz);
+        Preconditions.checkNotNull(parameterTypes);
+
+        final MemberKey key = new MemberKey(clazz, null, parameterTypes);
+        Object constructor = sMembers.get(key);
+        if (constructor == null) {
+            try {
+                final Constructor<? extends T> declaredConstructor =
+                        clazz.getDeclaredConstructor(parameterTypes);
+                declaredConstructor.setAccessible(true);
+                constructor = declaredConstructor;
+            } catch (NoSuchMethodException e) {
+                constructor = NOT_FOUND;
+            }
+            sMembers.put(key, constructor);
+        }
+        if (constructor == NOT_FOUND) {
+            throw new NoSuchMethodException(clazz.getName() + ".<init>");
+        }
+        // noinspection unchecked
+        return (Constructor<? extends T>) constructor;
+    }
+
     public static boolean classFound(@NonNull final String className) {
         Preconditions.checkNotNull(className);
 
         try {
-            Class.forName(className);
+            getClassForName(className);
             return true;
         } catch (ClassNotFoundException e) {
             return false;
         }
     }
 
+    /**
+     * Creates an instance of the class. Classes registered with {@link CustomEventRegistry} are
+     * created by their factory, without reflection.
+     */
     @NonNull
     public static <T> T instantiateClassWithEmptyConstructor(@NonNull final String className,
             @NonNull final Class<? extends T> superclass)
@@ -155,10 +258,17 @@ public class Reflection {
         Preconditions.checkNotNull(className);
         Preconditions.checkNotNull(superclass);
 
-        final Class<? extends T> clazz = Class.forName(className).asSubclass(superclass);
-        // noinspection unchecked
-        final Constructor<? extends T> constructor = clazz.getDeclaredConstructor((Class[]) null);
-        constructor.setAccessible(true);
+        final CustomEventRegistry.Factory<?> factory = CustomEventRegistry.getFactory(className);
+        if (factory != null) {
+            final Object instance = factory.create();
+            if (superclass.isInstance(instance)) {
+                // noinspection unchecked
+                return (T) instance;
+            }
+        }
+
+        final Class<? extends T> clazz = getClassForName(className).asSubclass(superclass);
+        final Constructor<? extends T> constructor = getDeclaredConstructor(clazz);
 
         return constructor.newInstance();
     }
@@ -174,10 +284,10 @@ public class Reflection {
         Preconditions.checkNotNull(classes);
         Preconditions.checkNotNull(parameters);
 
-        final Class<? extends T> clazz = Class.forName(className).asSubclass(superClass);
+        final Class<? extends T> clazz = getClassForName(className).asSubclass(superClass);
         // noinspection unchecked
-        final Constructor<? extends T> constructor = clazz.getDeclaredConstructor(classes);
-        constructor.setAccessible(true);
+        final Constructor<? extends T> constructor = getDeclaredConstructor(clazz,
+                (Class<?>[]) classes);
 
         return constructor.newInstance(parameters);
     }
@@ -189,4 +299,48 @@ public class Reflection {
         return declaredField;
     }
 
+    @VisibleForTesting
+    public static void clearCacheForTesting() {
+        sClasses.clear();
+        sMembers.clear();
+    }
+
+    private static class MemberKey {
+        @NonNull private final Class<?> mClass;
+        // Null for constructors.
+        @Nullable private final String mName;
+        @NonNull private final Class<?>[] mParameterTypes;
+        private final int mHashCode;
+
+        MemberKey(@NonNull final Class<?> clazz, @Nullable final String name,
+                @NonNull final Class<?>[] parameterTypes) {
+            mClass = clazz;
+            mName = name;
+            mParameterTypes = parameterTypes.clone();
+
+            int hashCode = clazz.hashCode();
+            hashCode = 31 * hashCode + (name != null ? name.hashCode() : 0);
+            hashCode = 31 * hashCode + Arrays.hashCode(mParameterTypes);
+            mHashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MemberKey)) {
+                return false;
+            }
+            final MemberKey other = (MemberKey) o;
+            return mClass == other.mClass
+                    && (mName != null ? mName.equals(other.mName) : other.mName == null)
+                    && Arrays.equals(mParameterTypes, other.mParameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
 }
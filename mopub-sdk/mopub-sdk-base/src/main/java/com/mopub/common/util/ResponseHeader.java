@@ -34,6 +34,7 @@ public enum ResponseHeader {
     LOCATION("location"),
     USER_AGENT("user-agent"),
     ACCEPT_LANGUAGE("accept-language"),
+    IDEMPOTENCY_KEY("x-idempotency-key"),
 
     BROWSER_AGENT("x-browser-agent"),
 
@@ -62,6 +63,9 @@ public enum ResponseHeader {
     // Internal Video Trackers
     VIDEO_TRACKERS("x-video-trackers"),
 
+    // Full-screen video fields
+    VIDEO_RENDERER("x-video-renderer"),
+
     // Viewability fields
     VIDEO_VIEWABILITY_TRACKERS("x-video-viewability-trackers"),
     DISABLE_VIEWABILITY("x-disable-viewability"),
@@ -19,6 +19,8 @@ import android.view.View;
 import android.view.WindowInsets;
 import android.widget.FrameLayout;
 
+import com.mopub.common.AdLatencyMetrics;
+import com.mopub.common.AdLifecyclePhase;
 import com.mopub.common.AdReport;
 import com.mopub.common.ClientMetadata;
 import com.mopub.common.Constants;
@@ -32,6 +34,7 @@ import com.mopub.common.util.Utils;
 import com.mopub.mraid.MraidNativeCommandHandler;
 import com.mopub.network.AdLoader;
 import com.mopub.network.AdResponse;
+import com.mopub.network.AdUnitConfigStore;
 import com.mopub.network.MoPubNetworkError;
 import com.mopub.network.SingleImpression;
 import com.mopub.network.TrackingRequest;
@@ -102,6 +105,8 @@ public class AdViewController {
     private WindowInsets mWindowInsets;
     private boolean mIsTesting;
     private boolean mAdWasLoaded;
+    // When the current ad loaded, for AdLatencyMetrics. 0 once its impression is tracked.
+    private long mAdLoadedMillis;
     @Nullable private String mAdUnitId;
     @Nullable private Integer mRefreshTimeMillis;
     @NonNull private String mLastTrackedRequestId;
@@ -157,6 +162,7 @@ public class AdViewController {
         mCustomEventClassName = adResponse.getCustomEventClassName();
         // Do other ad loading setup. See AdFetcher & AdLoadTask.
         mRefreshTimeMillis = mAdResponse.getRefreshTimeMillis();
+        persistRefreshTimeMillis();
         mActiveRequest = null;
 
         loadCustomEvent(mMoPubView, adResponse.getCustomEventClassName(),
@@ -177,6 +183,7 @@ public class AdViewController {
             final MoPubNetworkError moPubNetworkError = (MoPubNetworkError) error;
             if (moPubNetworkError.getRefreshTimeMillis() != null) {
                 mRefreshTimeMillis = moPubNetworkError.getRefreshTimeMillis();
+                persistRefreshTimeMillis();
             }
         }
 
@@ -259,7 +266,13 @@ public class AdViewController {
             return;
         }
 
+        final long requestBuildStartMillis = AdLatencyMetrics.now();
         String adUrl = generateAdUrl();
+        final MoPubView moPubView = getMoPubView();
+        if (adUrl != null && moPubView != null) {
+            AdLatencyMetrics.record(moPubView.getAdFormat(), AdLifecyclePhase.REQUEST_BUILD,
+                    requestBuildStartMillis);
+        }
         loadNonJavascript(adUrl, null);
     }
 
@@ -322,6 +335,7 @@ public class AdViewController {
 
     void creativeDownloadSuccess() {
         scheduleRefreshTimerIfEnabled();
+        mAdLoadedMillis = AdLatencyMetrics.now();
 
         if (mAdLoader == null) {
             MoPubLog.log(CUSTOM, "mAdLoader is not supposed to be null");
@@ -388,6 +402,26 @@ public class AdViewController {
 
     public void setAdUnitId(@NonNull String adUnitId) {
         mAdUnitId = adUnitId;
+
+        // Until the first response, use the refresh interval the server gave last time, so a
+        // failed first request is retried on the ad unit's own schedule. Doesn't wait for the
+        // store to load.
+        final Context context = mContext;
+        if (mAdResponse == null && context != null) {
+            final Integer refreshTimeMillis =
+                    AdUnitConfigStore.getInstance(context).getRefreshTimeMillis(adUnitId);
+            if (refreshTimeMillis != null) {
+                mRefreshTimeMillis = refreshTimeMillis;
+            }
+        }
+    }
+
+    private void persistRefreshTimeMillis() {
+        final Context context = mContext;
+        if (context != null) {
+            AdUnitConfigStore.getInstance(context).putRefreshTimeMillis(mAdUnitId,
+                    mRefreshTimeMillis);
+        }
     }
 
     public long getBroadcastIdentifier() {
@@ -530,6 +564,13 @@ public class AdViewController {
             }
             TrackingRequest.makeTrackingHttpRequest(mAdResponse.getImpressionTrackingUrls(), mContext);
 
+            final MoPubView moPubView = getMoPubView();
+            if (mAdLoadedMillis != 0 && moPubView != null) {
+                AdLatencyMetrics.record(moPubView.getAdFormat(),
+                        AdLifecyclePhase.FIRST_IMPRESSION, mAdLoadedMillis);
+                mAdLoadedMillis = 0;
+            }
+
             new SingleImpression(mAdResponse.getAdUnitId(), mAdResponse.getImpressionData()).sendImpression();
         }
     }
@@ -0,0 +1,74 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.Reflection;
+import com.mopub.common.util.Reflection.MethodBuilder;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
+
+/**
+ * Reaches the ExoPlayer-based {@link VastVideoView} in the native video module, which has the
+ * ExoPlayer dependency. Full-screen VAST videos are played with it when the ad unit's
+ * {@code x-video-renderer} header is {@link #VIDEO_RENDERER_EXOPLAYER} and the module is present.
+ */
+final class ExoPlayerVideoModule {
+    static final String VIDEO_RENDERER_EXOPLAYER = "exoplayer";
+
+    private static final String EXO_VAST_VIDEO_VIEW = "com.mopub.nativeads.ExoVastVideoView";
+
+    private ExoPlayerVideoModule() {
+    }
+
+    static boolean isAvailable() {
+        return Reflection.classFound(EXO_VAST_VIDEO_VIEW);
+    }
+
+    /**
+     * @return Whether the ad unit asked for ExoPlayer and it is available.
+     */
+    static boolean shouldUseExoPlayer(@Nullable final String videoRenderer) {
+        return VIDEO_RENDERER_EXOPLAYER.equalsIgnoreCase(videoRenderer) && isAvailable();
+    }
+
+    /**
+     * @return An ExoPlayer-based video view, or null if the native video module is missing.
+     */
+    @Nullable
+    static VastVideoView createVideoView(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        try {
+            return Reflection.instantiateClassWithConstructor(EXO_VAST_VIDEO_VIEW,
+                    VastVideoView.class, new Class[]{Context.class}, new Object[]{context});
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to create ExoPlayer video view.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts caching the beginning of the video so that playback can start from the cache.
+     */
+    static void prefetch(@NonNull final Context context, @Nullable final String mediaUrl) {
+        Preconditions.checkNotNull(context);
+
+        try {
+            new MethodBuilder(null, "prefetch")
+                    .setStatic(EXO_VAST_VIDEO_VIEW)
+                    .addParam(Context.class, context)
+                    .addParam(String.class, mediaUrl)
+                    .execute();
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to prefetch video.", e);
+        }
+    }
+}
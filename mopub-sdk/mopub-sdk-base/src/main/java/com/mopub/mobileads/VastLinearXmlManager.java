@@ -34,6 +34,7 @@ class VastLinearXmlManager {
     private static final String CLICK_TRACKER = "ClickTracking";
     private static final String MEDIA_FILES = "MediaFiles";
     private static final String MEDIA_FILE = "MediaFile";
+    private static final String DURATION = "Duration";
     public static final String ICONS = "Icons";
     public static final String ICON = "Icon";
 
@@ -326,6 +327,27 @@ class VastLinearXmlManager {
         return skipOffsetString.trim();
     }
 
+    /**
+     * Gets the duration of the video from the Duration node, which looks like HH:MM:SS.mmm.
+     *
+     * @return The duration in milliseconds, or null if it is missing or not valid.
+     */
+    @Nullable
+    Integer getDurationMs() {
+        final String duration = XmlUtils.getNodeValue(
+                XmlUtils.getFirstMatchingChildNode(mLinearNode, DURATION));
+        if (duration == null) {
+            return null;
+        }
+
+        try {
+            return Strings.parseAbsoluteOffset(duration.trim());
+        } catch (NumberFormatException e) {
+            MoPubLog.log(CUSTOM, String.format("Invalid VAST duration format: %s", duration));
+            return null;
+        }
+    }
+
     /**
      * If there is a Media section, return its XML manager.
      *
@@ -27,7 +27,10 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR;
  * {@link VastVideoConfig}.
  */
 public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggregatorListener {
-
+    // A download that has lower bitrate files to fall back to gives up after this long.
+    @VisibleForTesting
+    static final long FALLBACK_DOWNLOAD_TIMEOUT_MILLIS =
+            2 * VastXmlManagerAggregator.TARGET_DOWNLOAD_MILLIS;
 
     /**
      * Users of this class should subscribe to this listener to get updates
@@ -121,11 +124,27 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
             return;
         }
 
+        downloadMediaFile(vastVideoConfig);
+    }
+
+    /**
+     * Downloads the network media file. If that fails or times out, moves on to the next lower
+     * bitrate fallback media file.
+     */
+    private void downloadMediaFile(@NonNull final VastVideoConfig vastVideoConfig) {
         final VideoDownloaderListener videoDownloaderListener = new VideoDownloaderListener() {
             @Override
             public void onComplete(boolean success) {
                 if (success && updateDiskMediaFileUrl(vastVideoConfig)) {
                     mVastManagerListener.onVastVideoConfigurationPrepared(vastVideoConfig);
+                } else if (vastVideoConfig.switchToFallbackMediaFile()) {
+                    MoPubLog.log(CUSTOM, "Failed to download VAST video. Trying a lower " +
+                            "bitrate media file.");
+                    if (updateDiskMediaFileUrl(vastVideoConfig)) {
+                        mVastManagerListener.onVastVideoConfigurationPrepared(vastVideoConfig);
+                    } else {
+                        downloadMediaFile(vastVideoConfig);
+                    }
                 } else {
                     MoPubLog.log(CUSTOM, "Failed to download VAST video.");
                     mVastManagerListener.onVastVideoConfigurationPrepared(null);
@@ -133,7 +152,11 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
             }
         };
 
-        VideoDownloader.cache(vastVideoConfig.getNetworkMediaFileUrl(), videoDownloaderListener);
+        final long timeoutMillis = vastVideoConfig.getFallbackMediaFileUrls().isEmpty()
+                ? VideoDownloader.NO_TIMEOUT
+                : FALLBACK_DOWNLOAD_TIMEOUT_MILLIS;
+        VideoDownloader.cache(vastVideoConfig.getNetworkMediaFileUrl(), timeoutMillis,
+                videoDownloaderListener);
     }
 
     /**
@@ -56,6 +56,8 @@ public class VastVideoConfig implements Serializable {
 
     @Nullable private String mClickThroughUrl;
     @Nullable private String mNetworkMediaFileUrl;
+    // Lower bitrate media files to try if the network media file fails to download.
+    @NonNull private final ArrayList<String> mFallbackMediaFileUrls;
     @Nullable private String mDiskMediaFileUrl;
     @Nullable private String mSkipOffset;
     @Nullable private VastCompanionAdConfig mLandscapeVastCompanionAdConfig;
@@ -63,6 +65,7 @@ public class VastVideoConfig implements Serializable {
     @NonNull private Map<String, VastCompanionAdConfig> mSocialActionsCompanionAds;
     @Nullable private VastIconConfig mVastIconConfig;
     private boolean mIsRewardedVideo;
+    private boolean mIsExoPlayerEnabled;
 
     // Custom extensions
     @Nullable private String mCustomCtaText;
@@ -90,6 +93,7 @@ public class VastVideoConfig implements Serializable {
         mSkipTrackers = new ArrayList<VastTracker>();
         mClickTrackers = new ArrayList<VastTracker>();
         mErrorTrackers = new ArrayList<VastTracker>();
+        mFallbackMediaFileUrls = new ArrayList<String>();
         mSocialActionsCompanionAds = new HashMap<String, VastCompanionAdConfig>();
         mIsRewardedVideo = false;
 
@@ -278,6 +282,31 @@ public class VastVideoConfig implements Serializable {
         mNetworkMediaFileUrl = networkMediaFileUrl;
     }
 
+    /**
+     * Sets the media files to fall back to, in order, if the network media file can't be
+     * downloaded.
+     */
+    public void setFallbackMediaFileUrls(@NonNull final List<String> fallbackMediaFileUrls) {
+        Preconditions.checkNotNull(fallbackMediaFileUrls);
+
+        mFallbackMediaFileUrls.clear();
+        mFallbackMediaFileUrls.addAll(fallbackMediaFileUrls);
+    }
+
+    /**
+     * Replaces the network media file with the next fallback media file.
+     *
+     * @return false if there are no fallback media files left.
+     */
+    public boolean switchToFallbackMediaFile() {
+        if (mFallbackMediaFileUrls.isEmpty()) {
+            return false;
+        }
+
+        mNetworkMediaFileUrl = mFallbackMediaFileUrls.remove(0);
+        return true;
+    }
+
     public void setDiskMediaFileUrl(@Nullable final String diskMediaFileUrl) {
         mDiskMediaFileUrl = diskMediaFileUrl;
     }
@@ -331,6 +360,10 @@ public class VastVideoConfig implements Serializable {
         mIsRewardedVideo = isRewardedVideo;
     }
 
+    public void setIsExoPlayerEnabled(final boolean isExoPlayerEnabled) {
+        mIsExoPlayerEnabled = isExoPlayerEnabled;
+    }
+
     public void setPrivacyInformationIconImageUrl(
             @Nullable final String privacyInformationIconImageUrl) {
         mPrivacyInformationIconImageUrl = privacyInformationIconImageUrl;
@@ -410,6 +443,11 @@ public class VastVideoConfig implements Serializable {
         return mNetworkMediaFileUrl;
     }
 
+    @NonNull
+    public List<String> getFallbackMediaFileUrls() {
+        return mFallbackMediaFileUrls;
+    }
+
     @Nullable
     public String getDiskMediaFileUrl() {
         return mDiskMediaFileUrl;
@@ -502,6 +540,16 @@ public class VastVideoConfig implements Serializable {
         return mIsRewardedVideo;
     }
 
+    /**
+     * Returns whether the video should be played with ExoPlayer, which streams it through the
+     * native video cache instead of playing a fully downloaded file.
+     *
+     * @return True if ExoPlayer should be used, false otherwise.
+     */
+    public boolean isExoPlayerEnabled() {
+        return mIsExoPlayerEnabled;
+    }
+
     @Nullable
     public String getPrivacyInformationIconImageUrl() {
         return mPrivacyInformationIconImageUrl;
@@ -133,7 +133,7 @@ public class VastVideoViewController extends BaseVideoViewController {
             throw new IllegalStateException("VastVideoConfig is invalid");
         }
 
-        if (mVastVideoConfig.getDiskMediaFileUrl() == null) {
+        if (getMediaFileUrl() == null) {
             throw new IllegalStateException("VastVideoConfig does not have a video disk path");
         }
 
@@ -373,11 +373,35 @@ public class VastVideoViewController extends BaseVideoViewController {
         }
     }
 
+    /**
+     * @return The downloaded video file, or if ExoPlayer is enabled and the video wasn't
+     * downloaded, the network url to stream it from. Null if the video can't be played.
+     */
+    @Nullable
+    private String getMediaFileUrl() {
+        final String diskMediaFileUrl = mVastVideoConfig.getDiskMediaFileUrl();
+        if (diskMediaFileUrl != null || !mVastVideoConfig.isExoPlayerEnabled()
+                || !ExoPlayerVideoModule.isAvailable()) {
+            return diskMediaFileUrl;
+        }
+        return mVastVideoConfig.getNetworkMediaFileUrl();
+    }
+
     private VastVideoView createVideoView(@NonNull final Context context, int initialVisibility) {
-        if (mVastVideoConfig.getDiskMediaFileUrl() == null) {
+        final String mediaFileUrl = getMediaFileUrl();
+        if (mediaFileUrl == null) {
+            throw new IllegalStateException("VastVideoConfig does not have a video disk path");
+        }
+        VastVideoView exoVideoView = null;
+        if (mVastVideoConfig.isExoPlayerEnabled()) {
+            exoVideoView = ExoPlayerVideoModule.createVideoView(context);
+        }
+        if (exoVideoView == null && mVastVideoConfig.getDiskMediaFileUrl() == null) {
             throw new IllegalStateException("VastVideoConfig does not have a video disk path");
         }
-        final VastVideoView videoView = new VastVideoView(context);
+        final VastVideoView videoView = exoVideoView != null
+                ? exoVideoView
+                : new VastVideoView(context);
 
         videoView.setId((int) Utils.generateUniqueId());
 
@@ -390,9 +414,12 @@ public class VastVideoViewController extends BaseVideoViewController {
                 mDuration = mVideoView.getDuration();
                 mExternalViewabilitySessionManager.onVideoPrepared(getLayout(), mDuration);
                 adjustSkipOffset();
-                if (mVastCompanionAdConfig == null || mHasSocialActions) {
+                // The last frame can only be read from a downloaded video.
+                final String diskMediaFileUrl = mVastVideoConfig.getDiskMediaFileUrl();
+                if ((mVastCompanionAdConfig == null || mHasSocialActions)
+                        && diskMediaFileUrl != null) {
                     videoView.prepareBlurredLastVideoFrame(mBlurredLastVideoFrameImageView,
-                            mVastVideoConfig.getDiskMediaFileUrl());
+                            diskMediaFileUrl);
                 }
                 mProgressBarWidget.calibrateAndMakeVisible(getDuration(), mShowCloseButtonDelay);
                 mRadialCountdownWidget.calibrateAndMakeVisible(mShowCloseButtonDelay);
@@ -472,7 +499,9 @@ public class VastVideoViewController extends BaseVideoViewController {
             }
         });
 
-        videoView.setVideoPath(mVastVideoConfig.getDiskMediaFileUrl());
+        videoView.setVideoPath(exoVideoView != null
+                ? mediaFileUrl
+                : mVastVideoConfig.getDiskMediaFileUrl());
         videoView.setVisibility(initialVisibility);
 
         return videoView;
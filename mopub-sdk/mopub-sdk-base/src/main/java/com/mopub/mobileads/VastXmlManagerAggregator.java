@@ -14,6 +14,7 @@ import android.text.TextUtils;
 import android.view.Display;
 import android.view.WindowManager;
 
+import com.mopub.common.BandwidthEstimator;
 import com.mopub.common.MoPubHttpUrlConnection;
 import com.mopub.common.Preconditions;
 import com.mopub.common.VisibleForTesting;
@@ -31,6 +32,7 @@ import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -84,6 +86,11 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
     private static final int MINIMUM_COMPANION_AD_HEIGHT = 250;
     private static final int BITRATE_THRESHOLD_HIGH = 1500;
     private static final int BITRATE_THRESHOLD_LOW = 700;
+    // A media file should download within this time at the estimated bandwidth.
+    @VisibleForTesting
+    static final int TARGET_DOWNLOAD_MILLIS = 15 * 1000;
+    // Assumed when the Linear node has no valid Duration.
+    private static final int DEFAULT_VIDEO_DURATION_MILLIS = 30 * 1000;
 
     @NonNull private final WeakReference<VastXmlManagerAggregatorListener> mVastXmlManagerAggregatorListener;
     private final double mScreenAspectRatio;
@@ -312,8 +319,11 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 = vastInLineXmlManager.getLinearXmlManagers();
 
         for (VastLinearXmlManager linearXmlManager : linearXmlManagers) {
-            String bestMediaFileUrl = getBestMediaFileUrl(linearXmlManager.getMediaXmlManagers());
-            if (bestMediaFileUrl != null) {
+            final List<String> mediaFileUrls = getMediaFileUrlsByPreference(
+                    linearXmlManager.getMediaXmlManagers(), linearXmlManager.getDurationMs(),
+                    BandwidthEstimator.getEstimateKbps());
+            if (!mediaFileUrls.isEmpty()) {
+                final String bestMediaFileUrl = mediaFileUrls.get(0);
                 // Create vast video configuration and populate initial trackers
                 final VastVideoConfig vastVideoConfig = new VastVideoConfig();
                 vastVideoConfig.addImpressionTrackers(vastInLineXmlManager.getImpressionTrackers());
@@ -324,6 +334,8 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 // a Wrapper element.
                 vastVideoConfig.setClickThroughUrl(linearXmlManager.getClickThroughUrl());
                 vastVideoConfig.setNetworkMediaFileUrl(bestMediaFileUrl);
+                vastVideoConfig.setFallbackMediaFileUrls(
+                        mediaFileUrls.subList(1, mediaFileUrls.size()));
 
                 final List<VastCompanionAdXmlManager> companionAdXmlManagers =
                         vastInLineXmlManager.getCompanionAdXmlManagers();
@@ -514,19 +526,36 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
     @VisibleForTesting
     @Nullable
     String getBestMediaFileUrl(@NonNull final List<VastMediaXmlManager> managers) {
-        Preconditions.checkNotNull(managers, "managers cannot be null");
-        final List<VastMediaXmlManager> mediaXmlManagers = new ArrayList<VastMediaXmlManager>(managers);
-        double bestMediaFitness = Double.NEGATIVE_INFINITY;
-        String bestMediaFileUrl = null;
+        final List<String> mediaFileUrls = getMediaFileUrlsByPreference(managers, null,
+                BandwidthEstimator.getEstimateKbps());
+        return mediaFileUrls.isEmpty() ? null : mediaFileUrls.get(0);
+    }
 
-        final Iterator<VastMediaXmlManager> xmlManagerIterator = mediaXmlManagers.iterator();
-        while (xmlManagerIterator.hasNext()) {
-            final VastMediaXmlManager mediaXmlManager = xmlManagerIterator.next();
+    /**
+     * Orders the media files to download. First is the fittest file that can be downloaded within
+     * {@link #TARGET_DOWNLOAD_MILLIS} at the estimated bandwidth, or the lowest bitrate file if
+     * none can. The rest are the files with a lower bitrate than the first, highest bitrate
+     * first, to fall back to if the download fails or times out.
+     *
+     * @param managers      The media files of a Linear node.
+     * @param durationMs    The video duration, or null if unknown.
+     * @param bandwidthKbps The estimated bandwidth, or {@link BandwidthEstimator#NO_ESTIMATE}
+     *                      to choose by fitness alone.
+     * @return The media file urls in order of preference. Empty if none can be played.
+     */
+    @VisibleForTesting
+    @NonNull
+    List<String> getMediaFileUrlsByPreference(
+            @NonNull final List<VastMediaXmlManager> managers,
+            @Nullable final Integer durationMs,
+            final int bandwidthKbps) {
+        Preconditions.checkNotNull(managers, "managers cannot be null");
 
+        final List<MediaFileCandidate> candidates = new ArrayList<MediaFileCandidate>();
+        for (final VastMediaXmlManager mediaXmlManager : managers) {
             final String mediaType = mediaXmlManager.getType();
             final String mediaUrl = mediaXmlManager.getMediaUrl();
             if (!VIDEO_MIME_TYPES.contains(mediaType) || mediaUrl == null) {
-                xmlManagerIterator.remove();
                 continue;
             }
 
@@ -537,17 +566,84 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 continue;
             }
 
-            final double mediaFitness = calculateFitness(mediaWidth,
-                    mediaHeight,
-                    mediaBitrate,
-                    mediaType);
-            if (mediaFitness > bestMediaFitness) {
-                bestMediaFitness = mediaFitness;
-                bestMediaFileUrl = mediaUrl;
+            candidates.add(new MediaFileCandidate(mediaUrl,
+                    mediaBitrate == null || mediaBitrate <= 0 ? null : mediaBitrate,
+                    calculateFitness(mediaWidth, mediaHeight, mediaBitrate, mediaType)));
+        }
+
+        MediaFileCandidate best = null;
+        for (final MediaFileCandidate candidate : candidates) {
+            if (canDownloadInTime(candidate, durationMs, bandwidthKbps)
+                    && (best == null || candidate.mFitness > best.mFitness)) {
+                best = candidate;
+            }
+        }
+        if (best == null) {
+            // Nothing will download in time, so the smallest file has the best chance.
+            for (final MediaFileCandidate candidate : candidates) {
+                if (best == null || candidate.getSortableBitrate() < best.getSortableBitrate()) {
+                    best = candidate;
+                }
+            }
+        }
+        if (best == null) {
+            return Collections.emptyList();
+        }
+
+        final List<MediaFileCandidate> fallbacks = new ArrayList<MediaFileCandidate>();
+        for (final MediaFileCandidate candidate : candidates) {
+            if (candidate.mBitrate != null && best.mBitrate != null
+                    && candidate.mBitrate < best.mBitrate) {
+                fallbacks.add(candidate);
+            }
+        }
+        Collections.sort(fallbacks, new Comparator<MediaFileCandidate>() {
+            @Override
+            public int compare(final MediaFileCandidate lhs, final MediaFileCandidate rhs) {
+                return rhs.mBitrate.compareTo(lhs.mBitrate);
+            }
+        });
+
+        final List<String> mediaFileUrls = new ArrayList<String>(fallbacks.size() + 1);
+        mediaFileUrls.add(best.mUrl);
+        for (final MediaFileCandidate fallback : fallbacks) {
+            if (!mediaFileUrls.contains(fallback.mUrl)) {
+                mediaFileUrls.add(fallback.mUrl);
             }
         }
+        return mediaFileUrls;
+    }
+
+    private static boolean canDownloadInTime(@NonNull final MediaFileCandidate candidate,
+            @Nullable final Integer durationMs, final int bandwidthKbps) {
+        if (bandwidthKbps <= 0 || candidate.mBitrate == null) {
+            return true;
+        }
+
+        final long videoDurationMs = durationMs == null || durationMs <= 0
+                ? DEFAULT_VIDEO_DURATION_MILLIS
+                : durationMs;
+        final long downloadMillis = candidate.mBitrate * videoDurationMs / bandwidthKbps;
+        return downloadMillis <= TARGET_DOWNLOAD_MILLIS;
+    }
+
+    private static class MediaFileCandidate {
+        @NonNull final String mUrl;
+        // In kbps. Null if unknown.
+        @Nullable final Integer mBitrate;
+        final double mFitness;
+
+        MediaFileCandidate(@NonNull final String url, @Nullable final Integer bitrate,
+                final double fitness) {
+            mUrl = url;
+            mBitrate = bitrate;
+            mFitness = fitness;
+        }
 
-        return bestMediaFileUrl;
+        // Unknown bitrates sort last, since the file could be any size.
+        int getSortableBitrate() {
+            return mBitrate == null ? Integer.MAX_VALUE : mBitrate;
+        }
     }
 
     @VisibleForTesting
@@ -5,9 +5,11 @@
 package com.mopub.mobileads;
 
 import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.mopub.common.BandwidthEstimator;
 import com.mopub.common.CacheService;
 import com.mopub.common.MoPubHttpUrlConnection;
 import com.mopub.common.Preconditions;
@@ -17,9 +19,12 @@ import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.Streams;
 
 import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
@@ -28,6 +33,7 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR;
 
 public class VideoDownloader {
     private static final int MAX_VIDEO_SIZE = 25 * 1024 * 1024; // 25 MiB
+    static final long NO_TIMEOUT = 0;
     private static final Deque<WeakReference<VideoDownloaderTask>> sDownloaderTasks =
             new ArrayDeque<WeakReference<VideoDownloaderTask>>();
 
@@ -39,6 +45,15 @@ public class VideoDownloader {
 
     public static void cache(@Nullable final String url,
             @NonNull final VideoDownloaderListener listener) {
+        cache(url, NO_TIMEOUT, listener);
+    }
+
+    /**
+     * @param timeoutMillis The download fails if it takes longer than this. {@link #NO_TIMEOUT}
+     *                      to only time out on connection and read timeouts.
+     */
+    static void cache(@Nullable final String url, final long timeoutMillis,
+            @NonNull final VideoDownloaderListener listener) {
         Preconditions.checkNotNull(listener);
 
         if (url == null) {
@@ -47,7 +62,8 @@ public class VideoDownloader {
             return;
         }
 
-        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(listener);
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(listener,
+                timeoutMillis);
         try {
             AsyncTasks.safeExecuteOnExecutor(videoDownloaderTask, url);
         } catch (Exception e) {
@@ -97,10 +113,17 @@ public class VideoDownloader {
     static class VideoDownloaderTask extends AsyncTask<String, Void, Boolean> {
         @NonNull private final VideoDownloaderListener mListener;
         @NonNull private final WeakReference<VideoDownloaderTask> mWeakSelf;
+        private final long mTimeoutMillis;
 
         @VisibleForTesting
         VideoDownloaderTask(@NonNull final VideoDownloaderListener listener) {
+            this(listener, NO_TIMEOUT);
+        }
+
+        VideoDownloaderTask(@NonNull final VideoDownloaderListener listener,
+                final long timeoutMillis) {
             mListener = listener;
+            mTimeoutMillis = timeoutMillis;
             mWeakSelf = new WeakReference<VideoDownloaderTask>(this);
             sDownloaderTasks.add(mWeakSelf);
         }
@@ -116,8 +139,14 @@ public class VideoDownloader {
             HttpURLConnection urlConnection = null;
             InputStream inputStream = null;
             try {
+                final long startMillis = SystemClock.elapsedRealtime();
                 urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(videoUrl);
-                inputStream = new BufferedInputStream(urlConnection.getInputStream());
+                inputStream = BandwidthEstimator.meter(urlConnection.getInputStream());
+                if (mTimeoutMillis > NO_TIMEOUT) {
+                    inputStream = new DeadlineInputStream(inputStream,
+                            startMillis + mTimeoutMillis);
+                }
+                inputStream = new BufferedInputStream(inputStream);
 
                 // Check status code range
                 int statusCode = urlConnection.getResponseCode();
@@ -177,6 +206,38 @@ public class VideoDownloader {
         }
     }
 
+    /**
+     * Fails reads once the deadline has passed, so a slow download gives up instead of taking
+     * as long as the connection allows.
+     */
+    private static class DeadlineInputStream extends FilterInputStream {
+        private final long mDeadlineMillis;
+
+        DeadlineInputStream(@NonNull final InputStream in, final long deadlineMillis) {
+            super(in);
+            mDeadlineMillis = deadlineMillis;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkDeadline();
+            return super.read();
+        }
+
+        @Override
+        public int read(@NonNull final byte[] buffer, final int offset, final int count)
+                throws IOException {
+            checkDeadline();
+            return super.read(buffer, offset, count);
+        }
+
+        private void checkDeadline() throws SocketTimeoutException {
+            if (SystemClock.elapsedRealtime() > mDeadlineMillis) {
+                throw new SocketTimeoutException("Video download took too long.");
+            }
+        }
+    }
+
     @Deprecated
     @VisibleForTesting
     public static Deque<WeakReference<VideoDownloaderTask>> getDownloaderTasks() {
@@ -11,6 +11,7 @@ import android.support.annotation.Nullable;
 
 import com.mopub.common.ExternalViewabilitySessionManager;
 import com.mopub.common.Preconditions;
+import com.mopub.common.SdkMemoryManager;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.mraid.MraidController;
@@ -95,6 +96,41 @@ public class WebViewCacheService {
     @NonNull
     private static Handler sHandler = new Handler();
 
+    /**
+     * Drops the WebViews of interstitials that are gone without waiting for the next scheduled
+     * trim. WebViews of interstitials that are still around are kept, since they can't be shown
+     * without them.
+     */
+    @NonNull
+    private static final SdkMemoryManager.TrimmableCache sTrimmableCache =
+            new SdkMemoryManager.TrimmableCache() {
+                @NonNull
+                @Override
+                public String getName() {
+                    return "Interstitial WebView cache";
+                }
+
+                @Override
+                public int getEntryCount() {
+                    return sWebViewConfigs.size();
+                }
+
+                @Override
+                public long getMemoryBytes() {
+                    return 0;
+                }
+
+                @Override
+                public long getDiskBytes() {
+                    return 0;
+                }
+
+                @Override
+                public void trim() {
+                    trimCache();
+                }
+            };
+
     private WebViewCacheService() {
     }
 
@@ -118,6 +154,7 @@ public class WebViewCacheService {
         Preconditions.checkNotNull(baseInterstitial);
         Preconditions.checkNotNull(baseWebView);
 
+        SdkMemoryManager.register(sTrimmableCache, SdkMemoryManager.PRIORITY_IDLE_RESOURCES);
         trimCache();
         // Ignore request when max size is reached.
         if (sWebViewConfigs.size() >= MAX_SIZE) {
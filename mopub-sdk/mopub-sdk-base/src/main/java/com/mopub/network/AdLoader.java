@@ -12,6 +12,7 @@ import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.AdFormat;
+import com.mopub.common.AdLatencyMetrics;
 import com.mopub.common.Preconditions;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.mobileads.MoPubError;
@@ -22,6 +23,10 @@ import com.mopub.volley.VolleyError;
 
 import java.lang.ref.WeakReference;
 
+import static com.mopub.common.AdLifecyclePhase.ADAPTER_LOAD;
+import static com.mopub.common.AdLifecyclePhase.NETWORK;
+import static com.mopub.common.AdLifecyclePhase.PARSE;
+import static com.mopub.common.AdLifecyclePhase.TIME_TO_AD;
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.REQUESTED;
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.RESPONSE_RECEIVED;
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.CUSTOM;
@@ -56,6 +61,12 @@ public class AdLoader {
     private volatile boolean mFailed;
     private boolean mContentDownloaded;
 
+    // AdLatencyMetrics timestamps, 0 until set.
+    private long mFirstRequestMillis;
+    private long mRequestMillis;
+    private long mAdapterLoadStartMillis;
+    protected long mCreativeLoadedMillis;
+
     @NonNull
     private Handler mHandler;
 
@@ -95,6 +106,7 @@ public class AdLoader {
             public void onSuccessResponse(final MultiAdResponse response) {
                 synchronized (lock) {
                     mRunning = false;
+                    recordResponseTimings(mMultiAdRequest);
                     mMultiAdResponse = response;
                     if (mMultiAdResponse.hasNext()) {
                         deliverResponse(mMultiAdResponse.next());
@@ -221,6 +233,7 @@ public class AdLoader {
      */
     public void creativeDownloadSuccess() {
         mContentDownloaded = true;
+        recordCreativeLoadTimings();
 
         if (null == mDownloadTracker) {
             MoPubLog.log(CUSTOM, "Response analytics should not be null here");
@@ -278,6 +291,10 @@ public class AdLoader {
         MoPubLog.log(REQUESTED, request.getUrl(), bodyString);
 
         mRunning = true;
+        mRequestMillis = AdLatencyMetrics.now();
+        if (mFirstRequestMillis == 0) {
+            mFirstRequestMillis = mRequestMillis;
+        }
         RequestQueue requestQueue = Networking.getRequestQueue(context);
         mMultiAdRequest = request;
         requestQueue.add(request);
@@ -313,6 +330,7 @@ public class AdLoader {
         Preconditions.checkNotNull(adResponse);
 
         Context context = mContext.get();
+        mAdapterLoadStartMillis = AdLatencyMetrics.now();
         mDownloadTracker = new ContentDownloadAnalytics(adResponse);
         mDownloadTracker.reportBeforeLoad(context);
 
@@ -322,6 +340,30 @@ public class AdLoader {
         }
     }
 
+    private void recordResponseTimings(@NonNull final MultiAdRequest request) {
+        final long parseStartMillis = request.mParseStartMillis;
+        final long parseEndMillis = request.mParseEndMillis;
+        if (mRequestMillis == 0 || parseStartMillis == 0 || parseEndMillis == 0) {
+            return;
+        }
+
+        AdLatencyMetrics.recordDuration(request.mAdFormat, NETWORK,
+                parseStartMillis - mRequestMillis);
+        AdLatencyMetrics.recordDuration(request.mAdFormat, PARSE,
+                parseEndMillis - parseStartMillis);
+    }
+
+    private void recordCreativeLoadTimings() {
+        mCreativeLoadedMillis = AdLatencyMetrics.now();
+        final AdFormat adFormat = mMultiAdRequest.mAdFormat;
+        if (mAdapterLoadStartMillis != 0) {
+            AdLatencyMetrics.record(adFormat, ADAPTER_LOAD, mAdapterLoadStartMillis);
+        }
+        if (mFirstRequestMillis != 0) {
+            AdLatencyMetrics.record(adFormat, TIME_TO_AD, mFirstRequestMillis);
+        }
+    }
+
     public boolean isRunning() {
         return mRunning;
     }
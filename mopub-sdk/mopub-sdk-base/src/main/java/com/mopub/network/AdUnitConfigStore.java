@@ -0,0 +1,687 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
+import com.mopub.common.util.Streams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
+
+/**
+ * Remembers the hints the ad server gave for each ad unit across app launches, so the first
+ * request after a cold start can use them instead of rediscovering them. Stores the refresh
+ * interval, the request rate limit, and native ad positioning, each with its own expiration.
+ *
+ * The store is a small binary file in the cache directory. It is memory-mapped and read once in the
+ * background, when the store is first used, and rate limits that are still in effect are restored
+ * into {@link RequestRateTracker}. Reads never wait for the file; until it is loaded they only see
+ * values put since the app started. Changes are serialized and written back in the background.
+ *
+ * This class is thread safe.
+ */
+public final class AdUnitConfigStore {
+    @VisibleForTesting static final String FILE_NAME = "mopub-ad-unit-configs";
+    private static final int MAGIC = 0x4d505543;
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int FLAG_REFRESH_TIME = 1;
+    private static final int FLAG_RATE_LIMIT = 1 << 1;
+    private static final int FLAG_POSITIONING = 1 << 2;
+
+    @VisibleForTesting static final long REFRESH_TIME_TTL_MILLIS = 24 * 60 * 60 * 1000;
+    @VisibleForTesting static final long POSITIONING_TTL_MILLIS = 24 * 60 * 60 * 1000;
+    @VisibleForTesting static final int MAX_AD_UNITS = 64;
+    // Anything larger than this wasn't written by us.
+    private static final int MAX_FILE_SIZE_BYTES = 256 * 1024;
+    private static final int MAX_STRING_BYTES = 1024;
+    private static final int MAX_FIXED_POSITIONS = 1024;
+
+    @Nullable private static volatile AdUnitConfigStore sInstance;
+
+    @Nullable private final File mFile;
+    // Least recently updated first. Guarded by itself.
+    @NonNull private final LinkedHashMap<String, Entry> mEntries;
+    @NonNull private final Object mFileLock;
+    // Guarded by mEntries.
+    private boolean mLoaded;
+    // Whether the entries changed since they were last written. Guarded by mEntries.
+    private boolean mWritePending;
+    // Whether a write task is scheduled and hasn't started yet. Guarded by mEntries.
+    private boolean mWriteScheduled;
+
+    /**
+     * Positioning the server returned for a native ad unit.
+     */
+    public static class Positioning {
+        @NonNull public final int[] fixedPositions;
+        // Integer.MAX_VALUE if ads don't repeat.
+        public final int repeatingInterval;
+
+        public Positioning(@NonNull final int[] fixedPositions, final int repeatingInterval) {
+            Preconditions.checkNotNull(fixedPositions);
+
+            this.fixedPositions = fixedPositions.clone();
+            this.repeatingInterval = repeatingInterval;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Positioning)) {
+                return false;
+            }
+            final Positioning that = (Positioning) o;
+            return repeatingInterval == that.repeatingInterval
+                    && Arrays.equals(fixedPositions, that.fixedPositions);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(fixedPositions) + repeatingInterval;
+        }
+    }
+
+    /**
+     * Returns the store right away. The first call starts loading the saved values in the
+     * background; until they are loaded, getters return null for them.
+     */
+    @NonNull
+    public static AdUnitConfigStore getInstance(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        AdUnitConfigStore store = sInstance;
+        if (store == null) {
+            synchronized (AdUnitConfigStore.class) {
+                store = sInstance;
+                if (store == null) {
+                    final File cacheDir = context.getApplicationContext() != null
+                            ? context.getApplicationContext().getCacheDir()
+                            : context.getCacheDir();
+                    store = new AdUnitConfigStore(
+                            cacheDir == null ? null : new File(cacheDir, FILE_NAME));
+                    store.scheduleLoad();
+                    sInstance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    @VisibleForTesting
+    AdUnitConfigStore(@Nullable final File file) {
+        mFile = file;
+        mEntries = new LinkedHashMap<String, Entry>();
+        mFileLock = new Object();
+    }
+
+    /**
+     * @return The refresh interval last returned for the ad unit, 0 if the ad unit doesn't
+     * refresh, or null if there is none or the store hasn't been loaded yet.
+     */
+    @Nullable
+    public Integer getRefreshTimeMillis(@Nullable final String adUnitId) {
+        synchronized (mEntries) {
+            final Entry entry = getEntry(adUnitId);
+            if (entry == null || (entry.mFlags & FLAG_REFRESH_TIME) == 0
+                    || entry.mRefreshTimeExpirationMillis <= now()) {
+                return null;
+            }
+            return entry.mRefreshTimeMillis;
+        }
+    }
+
+    /**
+     * @param refreshTimeMillis The refresh interval, or null or 0 if the ad unit doesn't refresh.
+     */
+    public void putRefreshTimeMillis(@Nullable final String adUnitId,
+            @Nullable final Integer refreshTimeMillis) {
+        if (TextUtils.isEmpty(adUnitId)) {
+            return;
+        }
+
+        final int value = (refreshTimeMillis == null) ? 0 : Math.max(0, refreshTimeMillis);
+        synchronized (mEntries) {
+            final Entry entry = getOrCreateEntry(adUnitId);
+            entry.mPutFlags |= FLAG_REFRESH_TIME;
+            if ((entry.mFlags & FLAG_REFRESH_TIME) != 0 && entry.mRefreshTimeMillis == value
+                    && entry.mRefreshTimeExpirationMillis - now() > REFRESH_TIME_TTL_MILLIS / 2) {
+                // Nothing worth writing.
+                return;
+            }
+            entry.mFlags |= FLAG_REFRESH_TIME;
+            entry.mRefreshTimeMillis = value;
+            entry.mRefreshTimeExpirationMillis = now() + REFRESH_TIME_TTL_MILLIS;
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * @return The positioning last returned for the ad unit, or null if there is none or the store
+     * hasn't been loaded yet.
+     */
+    @Nullable
+    public Positioning getPositioning(@Nullable final String adUnitId) {
+        synchronized (mEntries) {
+            final Entry entry = getEntry(adUnitId);
+            if (entry == null || (entry.mFlags & FLAG_POSITIONING) == 0
+                    || entry.mPositioningExpirationMillis <= now()) {
+                return null;
+            }
+            return new Positioning(entry.mFixedPositions, entry.mRepeatingInterval);
+        }
+    }
+
+    public void putPositioning(@Nullable final String adUnitId,
+            @NonNull final Positioning positioning) {
+        Preconditions.checkNotNull(positioning);
+
+        if (TextUtils.isEmpty(adUnitId)) {
+            return;
+        }
+
+        synchronized (mEntries) {
+            final Entry entry = getOrCreateEntry(adUnitId);
+            entry.mPutFlags |= FLAG_POSITIONING;
+            entry.mFlags |= FLAG_POSITIONING;
+            entry.mFixedPositions = positioning.fixedPositions.length > MAX_FIXED_POSITIONS
+                    ? Arrays.copyOf(positioning.fixedPositions, MAX_FIXED_POSITIONS)
+                    : positioning.fixedPositions.clone();
+            entry.mRepeatingInterval = positioning.repeatingInterval;
+            entry.mPositioningExpirationMillis = now() + POSITIONING_TTL_MILLIS;
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Persists a rate limit registered with {@link RequestRateTracker}. A null or non-positive
+     * interval clears it.
+     */
+    void putRateLimit(@Nullable final String adUnitId, @Nullable final Integer blockIntervalMs,
+            @Nullable final String reason) {
+        if (TextUtils.isEmpty(adUnitId)) {
+            return;
+        }
+
+        synchronized (mEntries) {
+            if (blockIntervalMs == null || blockIntervalMs <= 0) {
+                // Before the file is loaded, remember the clear so a saved limit isn't restored.
+                final Entry entry = mLoaded ? getEntry(adUnitId) : getOrCreateEntry(adUnitId);
+                if (entry == null) {
+                    return;
+                }
+                final boolean hadRateLimit = (entry.mFlags & FLAG_RATE_LIMIT) != 0;
+                entry.mPutFlags |= FLAG_RATE_LIMIT;
+                entry.mFlags &= ~FLAG_RATE_LIMIT;
+                entry.mRateLimitReason = null;
+                if (hadRateLimit || !mLoaded) {
+                    scheduleWrite();
+                }
+                return;
+            }
+
+            final Entry entry = getOrCreateEntry(adUnitId);
+            entry.mPutFlags |= FLAG_RATE_LIMIT;
+            entry.mFlags |= FLAG_RATE_LIMIT;
+            entry.mRateLimitIntervalMillis = blockIntervalMs;
+            entry.mRateLimitReason = reason;
+            entry.mRateLimitExpirationMillis = now() + blockIntervalMs;
+            scheduleWrite();
+        }
+    }
+
+    // Must be called while holding mEntries.
+    @Nullable
+    private Entry getEntry(@Nullable final String adUnitId) {
+        if (adUnitId == null) {
+            return null;
+        }
+        return mEntries.get(adUnitId);
+    }
+
+    // Must be called while holding mEntries.
+    @NonNull
+    private Entry getOrCreateEntry(@NonNull final String adUnitId) {
+        // Move the ad unit to the end, so the least recently updated one is evicted first.
+        Entry entry = mEntries.remove(adUnitId);
+        if (entry == null) {
+            entry = new Entry();
+        }
+        mEntries.put(adUnitId, entry);
+        while (mEntries.size() > MAX_AD_UNITS) {
+            final Iterator<String> iterator = mEntries.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+        return entry;
+    }
+
+    // Must be called while holding mEntries.
+    private void scheduleWrite() {
+        if (mFile == null) {
+            return;
+        }
+
+        mWritePending = true;
+        if (!mLoaded || mWriteScheduled) {
+            // Written once loaded, or by the task already scheduled.
+            return;
+        }
+        mWriteScheduled = true;
+        try {
+            AsyncTasks.safeExecuteOnExecutor(new WriteTask(this));
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "Failed to schedule ad unit config write", e);
+            mWriteScheduled = false;
+        }
+    }
+
+    private void scheduleLoad() {
+        try {
+            AsyncTasks.safeExecuteOnExecutor(new LoadTask(this));
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "Failed to schedule ad unit config load", e);
+            synchronized (mEntries) {
+                // Start over rather than never writing.
+                mLoaded = true;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void writePendingToDisk() {
+        // Only one writer at a time, so an older snapshot never replaces a newer one.
+        synchronized (mFileLock) {
+            final byte[] bytes;
+            synchronized (mEntries) {
+                mWriteScheduled = false;
+                if (!mWritePending || !mLoaded) {
+                    return;
+                }
+                mWritePending = false;
+                // Serialized here rather than on the caller's thread.
+                bytes = serialize(mEntries, now());
+            }
+            if (mFile == null) {
+                return;
+            }
+
+            final File tempFile = new File(mFile.getPath() + ".tmp");
+            FileOutputStream outputStream = null;
+            try {
+                outputStream = new FileOutputStream(tempFile);
+                outputStream.write(bytes);
+                outputStream.getFD().sync();
+                Streams.closeStream(outputStream);
+                outputStream = null;
+                if (!tempFile.renameTo(mFile)) {
+                    MoPubLog.log(CUSTOM, "Unable to replace ad unit config file");
+                    //noinspection ResultOfMethodCallIgnored
+                    tempFile.delete();
+                }
+            } catch (IOException e) {
+                MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to write ad unit configs", e);
+            } finally {
+                Streams.closeStream(outputStream);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void load() {
+        final Map<String, Entry> entries = readFromDisk();
+        synchronized (mEntries) {
+            if (entries != null) {
+                merge(entries);
+            }
+            mLoaded = true;
+            if (mWritePending) {
+                scheduleWrite();
+            }
+        }
+        // Only the saved rate limits that weren't replaced or cleared by the merge are left.
+        if (entries != null) {
+            restoreRateLimits(entries);
+        }
+    }
+
+    /**
+     * Merges the saved entries into the ones put since the app started, field by field. Fields
+     * put or cleared before the file was loaded are newer than the saved ones, so they win. The
+     * other saved fields are kept. Fields that lose are removed from the saved entries.
+     *
+     * Must be called while holding mEntries.
+     */
+    private void merge(@NonNull final Map<String, Entry> loadedEntries) {
+        final LinkedHashMap<String, Entry> merged = new LinkedHashMap<String, Entry>(loadedEntries);
+        for (final Map.Entry<String, Entry> mapEntry : mEntries.entrySet()) {
+            final Entry loadedEntry = merged.remove(mapEntry.getKey());
+            if (loadedEntry != null) {
+                mapEntry.getValue().mergeFrom(loadedEntry);
+            }
+        }
+        // Entries put before the file was loaded stay the most recently updated.
+        merged.putAll(mEntries);
+        mEntries.clear();
+        mEntries.putAll(merged);
+        while (mEntries.size() > MAX_AD_UNITS) {
+            final Iterator<String> iterator = mEntries.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    @Nullable
+    private Map<String, Entry> readFromDisk() {
+        if (mFile == null || !mFile.exists()) {
+            return null;
+        }
+
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(mFile, "r");
+            final long length = randomAccessFile.length();
+            if (length <= 0 || length > MAX_FILE_SIZE_BYTES) {
+                return null;
+            }
+            final ByteBuffer buffer = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return deserialize(buffer, now());
+        } catch (IOException e) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to read ad unit configs", e);
+        } catch (BufferUnderflowException e) {
+            MoPubLog.log(CUSTOM, "Ad unit config file is truncated. Ignoring it.");
+        } catch (IllegalArgumentException e) {
+            MoPubLog.log(CUSTOM, "Ad unit config file is invalid. Ignoring it.");
+        } finally {
+            Streams.closeStream(randomAccessFile);
+        }
+        return null;
+    }
+
+    private static void restoreRateLimits(@NonNull final Map<String, Entry> entries) {
+        final long nowMillis = now();
+        final RequestRateTracker rateTracker = RequestRateTracker.getInstance();
+        for (final Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            final Entry entry = mapEntry.getValue();
+            if ((entry.mFlags & FLAG_RATE_LIMIT) == 0) {
+                continue;
+            }
+            final long remainingMillis = entry.mRateLimitExpirationMillis - nowMillis;
+            if (remainingMillis > 0) {
+                rateTracker.restoreRateLimit(mapEntry.getKey(), entry.mRateLimitIntervalMillis,
+                        entry.mRateLimitReason, remainingMillis);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static byte[] serialize(@NonNull final Map<String, Entry> entries, final long nowMillis) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        try {
+            int count = 0;
+            for (final Entry entry : entries.values()) {
+                if (entry.getLiveFlags(nowMillis) != 0) {
+                    count++;
+                }
+            }
+
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(count);
+            for (final Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                final Entry entry = mapEntry.getValue();
+                final int flags = entry.getLiveFlags(nowMillis);
+                if (flags == 0) {
+                    continue;
+                }
+                writeString(output, mapEntry.getKey());
+                output.writeByte(flags);
+                if ((flags & FLAG_REFRESH_TIME) != 0) {
+                    output.writeLong(entry.mRefreshTimeExpirationMillis);
+                    output.writeInt(entry.mRefreshTimeMillis);
+                }
+                if ((flags & FLAG_RATE_LIMIT) != 0) {
+                    output.writeLong(entry.mRateLimitExpirationMillis);
+                    output.writeInt(entry.mRateLimitIntervalMillis);
+                    writeString(output, entry.mRateLimitReason);
+                }
+                if ((flags & FLAG_POSITIONING) != 0) {
+                    output.writeLong(entry.mPositioningExpirationMillis);
+                    output.writeInt(entry.mRepeatingInterval);
+                    output.writeInt(entry.mFixedPositions.length);
+                    for (final int position : entry.mFixedPositions) {
+                        output.writeInt(position);
+                    }
+                }
+            }
+            output.flush();
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't throw.
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws BufferUnderflowException If the data is truncated.
+     * @throws IllegalArgumentException If the data is not in the expected format.
+     */
+    @VisibleForTesting
+    @NonNull
+    static Map<String, Entry> deserialize(@NonNull final ByteBuffer buffer,
+            final long nowMillis) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("Unknown format");
+        }
+        final int count = buffer.getInt();
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+
+        final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        for (int i = 0; i < count; i++) {
+            final String adUnitId = readString(buffer);
+            final Entry entry = new Entry();
+            final int flags = buffer.get();
+            if ((flags & FLAG_REFRESH_TIME) != 0) {
+                entry.mRefreshTimeExpirationMillis = buffer.getLong();
+                entry.mRefreshTimeMillis = buffer.getInt();
+            }
+            if ((flags & FLAG_RATE_LIMIT) != 0) {
+                entry.mRateLimitExpirationMillis = buffer.getLong();
+                entry.mRateLimitIntervalMillis = buffer.getInt();
+                entry.mRateLimitReason = readString(buffer);
+            }
+            if ((flags & FLAG_POSITIONING) != 0) {
+                entry.mPositioningExpirationMillis = buffer.getLong();
+                entry.mRepeatingInterval = buffer.getInt();
+                final int positionCount = buffer.getInt();
+                if (positionCount < 0 || positionCount > MAX_FIXED_POSITIONS) {
+                    throw new IllegalArgumentException("Invalid position count " + positionCount);
+                }
+                entry.mFixedPositions = new int[positionCount];
+                for (int j = 0; j < positionCount; j++) {
+                    entry.mFixedPositions[j] = buffer.getInt();
+                }
+            }
+            entry.mFlags = flags;
+            entry.mFlags = entry.getLiveFlags(nowMillis);
+            if (adUnitId != null && entry.mFlags != 0) {
+                entries.put(adUnitId, entry);
+            }
+        }
+        return entries;
+    }
+
+    private static void writeString(@NonNull final DataOutputStream output,
+            @Nullable final String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            bytes = Arrays.copyOf(bytes, getUtf8Boundary(bytes, MAX_STRING_BYTES));
+        }
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * @return The largest length up to maxLength that doesn't split a UTF-8 character.
+     */
+    @VisibleForTesting
+    static int getUtf8Boundary(@NonNull final byte[] bytes, final int maxLength) {
+        int length = Math.min(maxLength, bytes.length);
+        // Continuation bytes look like 10xxxxxx. Back up to the first byte of the character.
+        while (length > 0 && length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return length;
+    }
+
+    @Nullable
+    private static String readString(@NonNull final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    // Wall clock time, since expirations have to survive a reboot.
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        final AdUnitConfigStore store = sInstance;
+        if (store != null && store.mFile != null) {
+            //noinspection ResultOfMethodCallIgnored
+            store.mFile.delete();
+        }
+        sInstance = null;
+    }
+
+    @VisibleForTesting
+    static class Entry {
+        int mFlags;
+        // The fields put or cleared since the app started. Not saved.
+        int mPutFlags;
+
+        int mRefreshTimeMillis;
+        long mRefreshTimeExpirationMillis;
+
+        int mRateLimitIntervalMillis;
+        @Nullable String mRateLimitReason;
+        long mRateLimitExpirationMillis;
+
+        @NonNull int[] mFixedPositions = new int[0];
+        int mRepeatingInterval;
+        long mPositioningExpirationMillis;
+
+        int getLiveFlags(final long nowMillis) {
+            int flags = mFlags;
+            if (mRefreshTimeExpirationMillis <= nowMillis) {
+                flags &= ~FLAG_REFRESH_TIME;
+            }
+            if (mRateLimitExpirationMillis <= nowMillis) {
+                flags &= ~FLAG_RATE_LIMIT;
+            }
+            if (mPositioningExpirationMillis <= nowMillis) {
+                flags &= ~FLAG_POSITIONING;
+            }
+            return flags;
+        }
+
+        /**
+         * Copies in the fields of the saved entry that weren't put since the app started, and
+         * removes the others from it.
+         */
+        void mergeFrom(@NonNull final Entry savedEntry) {
+            final int flags = savedEntry.mFlags & ~mPutFlags;
+            if ((flags & FLAG_REFRESH_TIME) != 0) {
+                mRefreshTimeMillis = savedEntry.mRefreshTimeMillis;
+                mRefreshTimeExpirationMillis = savedEntry.mRefreshTimeExpirationMillis;
+            }
+            if ((flags & FLAG_RATE_LIMIT) != 0) {
+                mRateLimitIntervalMillis = savedEntry.mRateLimitIntervalMillis;
+                mRateLimitReason = savedEntry.mRateLimitReason;
+                mRateLimitExpirationMillis = savedEntry.mRateLimitExpirationMillis;
+            }
+            if ((flags & FLAG_POSITIONING) != 0) {
+                mFixedPositions = savedEntry.mFixedPositions;
+                mRepeatingInterval = savedEntry.mRepeatingInterval;
+                mPositioningExpirationMillis = savedEntry.mPositioningExpirationMillis;
+            }
+            mFlags |= flags;
+            savedEntry.mFlags = flags;
+        }
+    }
+
+    private static class LoadTask extends AsyncTask<Void, Void, Void> {
+        @NonNull private final AdUnitConfigStore mStore;
+
+        LoadTask(@NonNull final AdUnitConfigStore store) {
+            mStore = store;
+        }
+
+        @Override
+        protected Void doInBackground(final Void... voids) {
+            mStore.load();
+            return null;
+        }
+    }
+
+    private static class WriteTask extends AsyncTask<Void, Void, Void> {
+        @NonNull private final AdUnitConfigStore mStore;
+
+        WriteTask(@NonNull final AdUnitConfigStore store) {
+            mStore = store;
+        }
+
+        @Override
+        protected Void doInBackground(final Void... voids) {
+            mStore.writePendingToDisk();
+            return null;
+        }
+    }
+}
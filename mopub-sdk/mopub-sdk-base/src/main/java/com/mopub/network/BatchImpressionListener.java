@@ -0,0 +1,27 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.support.annotation.AnyThread;
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * BatchImpressionListener receives ad impressions in batches. Use it instead of
+ * {@link ImpressionListener} when forwarding impression level revenue data somewhere that
+ * benefits from fewer, larger calls.
+ */
+public interface BatchImpressionListener {
+    /**
+     * SDK will call method onImpressions with the impressions recorded since the last call, in
+     * the order they happened. With synchronous delivery (the default) each batch holds a
+     * single impression. See {@link ImpressionsEmitter#setAsyncDelivery(boolean)}.
+     *
+     * @param impressions - non-empty, unmodifiable list of impressions.
+     */
+    @AnyThread
+    void onImpressions(@NonNull List<Impression> impressions);
+}
@@ -46,7 +46,8 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
         return factory;
     }
 
-    // Forward all methods. Enable TLS 1.1 and 1.2 before returning.
+    // Forward all methods. Enable TLS 1.1 and 1.2 and report the new connection to
+    // RequestMetricsTracker before returning.
 
     // SocketFactory overrides
     @Override
@@ -56,6 +57,7 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
         }
         final Socket socket = mCertificateSocketFactory.createSocket();
         enableTlsIfAvailable(socket);
+        RequestMetricsTracker.onSocketCreated(socket);
         return socket;
     }
 
@@ -66,6 +68,7 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
         }
         final Socket socket = mCertificateSocketFactory.createSocket(host, i);
         enableTlsIfAvailable(socket);
+        RequestMetricsTracker.onSocketCreated(socket);
         return socket;
     }
 
@@ -76,6 +79,7 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
         }
         final Socket socket = mCertificateSocketFactory.createSocket(host, port, localhost, localPort);
         enableTlsIfAvailable(socket);
+        RequestMetricsTracker.onSocketCreated(socket);
         return socket;
     }
 
@@ -86,6 +90,7 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
         }
         final Socket socket = mCertificateSocketFactory.createSocket(address, port);
         enableTlsIfAvailable(socket);
+        RequestMetricsTracker.onSocketCreated(socket);
         return socket;
     }
 
@@ -96,6 +101,7 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
         }
         final Socket socket = mCertificateSocketFactory.createSocket(address, port, localhost, localPort);
         enableTlsIfAvailable(socket);
+        RequestMetricsTracker.onSocketCreated(socket);
         return socket;
     }
 
@@ -135,6 +141,7 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
             final Socket socket = mCertificateSocketFactory.createSocket(
                     InetAddressUtils.getInetAddressByName(host), port);
             enableTlsIfAvailable(socket);
+            RequestMetricsTracker.onSocketCreated(socket);
             doManualServerNameIdentification(socket, host);
             return socket;
         }
@@ -142,6 +149,7 @@ public class CustomSSLSocketFactory extends SSLSocketFactory {
         final Socket socket = mCertificateSocketFactory.createSocket(socketParam, host, port,
                 autoClose);
         enableTlsIfAvailable(socket);
+        RequestMetricsTracker.onSocketCreated(socket);
         return socket;
     }
 
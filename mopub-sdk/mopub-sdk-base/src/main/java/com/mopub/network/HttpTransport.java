@@ -0,0 +1,30 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Opens the connections for all SDK network traffic: ad requests, tracking, images, VAST wrapper
+ * hops, video downloads and redirect resolution. Set one with
+ * {@link Networking#setHttpTransport(HttpTransport)} to send that traffic through a different
+ * HTTP client, for example an HTTP/2 client with its own connection pool that exposes its
+ * connections as {@link HttpURLConnection}s.
+ */
+public interface HttpTransport {
+    /**
+     * Called on a background thread. The connection must not be connected yet; callers set
+     * headers, timeouts and redirect handling on it before connecting.
+     *
+     * @param url The URL to connect to.
+     * @return An unconnected connection to the URL.
+     */
+    @NonNull
+    HttpURLConnection openConnection(@NonNull URL url) throws IOException;
+}
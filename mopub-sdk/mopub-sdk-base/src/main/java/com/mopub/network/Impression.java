@@ -0,0 +1,49 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+
+/**
+ * A single impression delivered to a {@link BatchImpressionListener}.
+ */
+public final class Impression {
+    @NonNull private final String mAdUnitId;
+    @Nullable private final ImpressionData mImpressionData;
+    private final long mTimestampMillis;
+
+    Impression(@NonNull final String adUnitId, @Nullable final ImpressionData impressionData,
+            final long timestampMillis) {
+        Preconditions.checkNotNull(adUnitId);
+
+        mAdUnitId = adUnitId;
+        mImpressionData = impressionData;
+        mTimestampMillis = timestampMillis;
+    }
+
+    @NonNull
+    public String getAdUnitId() {
+        return mAdUnitId;
+    }
+
+    /**
+     * @return - extended information about the ad, or null if impression level revenue data is
+     * not enabled for this MoPub account.
+     */
+    @Nullable
+    public ImpressionData getImpressionData() {
+        return mImpressionData;
+    }
+
+    /**
+     * @return - wall clock time of the impression, in milliseconds since the epoch.
+     */
+    public long getTimestampMillis() {
+        return mTimestampMillis;
+    }
+}
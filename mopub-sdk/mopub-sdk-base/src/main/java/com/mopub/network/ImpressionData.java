@@ -41,9 +41,12 @@ public class ImpressionData implements Serializable {
 
     @NonNull
     private SerializableJson mJson;
+    @NonNull
+    private transient String mJsonString;
 
     private ImpressionData(@NonNull final JSONObject json) throws JSONException {
-        mJson = new SerializableJson(json);
+        mJsonString = json.toString();
+        mJson = new SerializableJson(mJsonString);
     }
 
     @Nullable
@@ -147,6 +150,15 @@ public class ImpressionData implements Serializable {
         return mJson;
     }
 
+    /**
+     * @return - the JSON from the server, serialized once when this object was created. Prefer
+     * this over calling toString() on {@link #getJsonRepresentation()} when forwarding the data.
+     */
+    @NonNull
+    public String getJsonString() {
+        return mJsonString;
+    }
+
     private void writeObject(ObjectOutputStream oos) throws IOException {
         oos.defaultWriteObject();
         oos.writeUTF(mJson.toString());
@@ -154,14 +166,11 @@ public class ImpressionData implements Serializable {
 
     private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException, JSONException {
         ois.defaultReadObject();
-        mJson = new SerializableJson(ois.readUTF());
+        mJsonString = ois.readUTF();
+        mJson = new SerializableJson(mJsonString);
     }
 
     private static class SerializableJson extends JSONObject implements Serializable {
-        SerializableJson(@NonNull final JSONObject json) throws JSONException {
-            super(json.toString());
-        }
-
         SerializableJson(@NonNull final String json) throws JSONException {
             super(json);
         }
@@ -9,19 +9,60 @@ import android.support.annotation.Nullable;
 
 import com.mopub.common.Preconditions;
 import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
 
 /**
  * Single source of impression level revenue data. Implement interface {@link ImpressionListener}
  * and subscribe to events from ImpressionEmitter to receive detailed impression data.
  * This class is not linked to the activity lifecycle. It is recommended to subscribe to events
  * when application starts even before the first activity created.
+ *
+ * By default listeners are called on the thread that records the impression, which is usually
+ * the main thread. Call {@link #setAsyncDelivery(boolean)} to have them called on a background
+ * thread instead.
  */
 @SuppressWarnings("WeakerAccess")
 public class ImpressionsEmitter {
-    private static final HashSet<ImpressionListener> mListeners = new HashSet<>();
+    /**
+     * Maximum number of impressions waiting for asynchronous delivery. When the buffer is full
+     * the oldest impression is dropped.
+     */
+    @VisibleForTesting
+    static final int MAX_PENDING_IMPRESSIONS = 128;
+
+    private static final CopyOnWriteArraySet<ImpressionListener> mListeners =
+            new CopyOnWriteArraySet<>();
+    private static final CopyOnWriteArraySet<BatchImpressionListener> mBatchListeners =
+            new CopyOnWriteArraySet<>();
+
+    private static final ConcurrentLinkedQueue<Impression> sPendingImpressions =
+            new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger sPendingCount = new AtomicInteger();
+    private static final AtomicBoolean sFlushScheduled = new AtomicBoolean();
+    private static volatile boolean sAsyncDelivery;
+    @Nullable private static volatile Executor sExecutor;
+
+    private static final Runnable sFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
 
     /**
      * Call this method to start listening for impression level revenue data events.
@@ -31,9 +72,7 @@ public class ImpressionsEmitter {
     public static void addListener(@NonNull final ImpressionListener listener) {
         Preconditions.checkNotNull(listener);
 
-        synchronized (ImpressionsEmitter.class) {
-            mListeners.add(listener);
-        }
+        mListeners.add(listener);
     }
 
     /**
@@ -44,8 +83,44 @@ public class ImpressionsEmitter {
     public static void removeListener(@NonNull final ImpressionListener listener) {
         Preconditions.checkNotNull(listener);
 
-        synchronized (ImpressionsEmitter.class) {
-            mListeners.remove(listener);
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Call this method to receive impression level revenue data events in batches.
+     *
+     * @param listener - {@link BatchImpressionListener} interface implementation
+     */
+    public static void addBatchListener(@NonNull final BatchImpressionListener listener) {
+        Preconditions.checkNotNull(listener);
+
+        mBatchListeners.add(listener);
+    }
+
+    /**
+     * Call this method to stop receiving batches of impression level revenue data events.
+     *
+     * @param listener - previously submitted to addBatchListener() {@link BatchImpressionListener}
+     */
+    public static void removeBatchListener(@NonNull final BatchImpressionListener listener) {
+        Preconditions.checkNotNull(listener);
+
+        mBatchListeners.remove(listener);
+    }
+
+    /**
+     * When enabled, impressions are buffered and delivered to listeners on a background thread,
+     * so slow listeners don't hold up the thread showing the ad. Impressions recorded while a
+     * delivery is in progress are delivered together in the next batch. Up to
+     * {@link #MAX_PENDING_IMPRESSIONS} impressions are buffered; past that the oldest are
+     * dropped. Disabled by default.
+     *
+     * @param asyncDelivery - true to deliver impressions on a background thread.
+     */
+    public static void setAsyncDelivery(final boolean asyncDelivery) {
+        sAsyncDelivery = asyncDelivery;
+        if (!asyncDelivery && sPendingCount.get() > 0) {
+            scheduleFlush();
         }
     }
 
@@ -55,22 +130,117 @@ public class ImpressionsEmitter {
     static void send(@NonNull final String adUnitId, @Nullable final ImpressionData impressionData) {
         Preconditions.checkNotNull(adUnitId);
 
-        Set<ImpressionListener> listenerSet = cloneListeners();
-        for (ImpressionListener listener : listenerSet) {
-            listener.onImpression(adUnitId, impressionData);
+        final Impression impression = new Impression(adUnitId, impressionData,
+                System.currentTimeMillis());
+        if (!sAsyncDelivery) {
+            deliver(Collections.singletonList(impression), true);
+            return;
+        }
+
+        sPendingImpressions.offer(impression);
+        if (sPendingCount.incrementAndGet() > MAX_PENDING_IMPRESSIONS
+                && sPendingImpressions.poll() != null) {
+            sPendingCount.decrementAndGet();
+            MoPubLog.log(CUSTOM, "Impression buffer is full. Dropped the oldest impression.");
+        }
+        scheduleFlush();
+    }
+
+    private static void scheduleFlush() {
+        if (sFlushScheduled.compareAndSet(false, true)) {
+            getExecutor().execute(sFlushRunnable);
+        }
+    }
+
+    /**
+     * Delivers everything buffered so far. The flag is cleared before draining so an impression
+     * buffered during delivery always schedules another flush.
+     */
+    private static void flush() {
+        sFlushScheduled.set(false);
+
+        final List<Impression> impressions = new ArrayList<>(sPendingCount.get());
+        Impression impression;
+        while ((impression = sPendingImpressions.poll()) != null) {
+            sPendingCount.decrementAndGet();
+            impressions.add(impression);
+        }
+        if (!impressions.isEmpty()) {
+            deliver(Collections.unmodifiableList(impressions), false);
+        }
+    }
+
+    /**
+     * @param rethrow - whether listener exceptions propagate to the caller, as they always have
+     *                with synchronous delivery. On the background thread they are logged instead.
+     */
+    private static void deliver(@NonNull final List<Impression> impressions,
+            final boolean rethrow) {
+        for (final Impression impression : impressions) {
+            for (final ImpressionListener listener : mListeners) {
+                try {
+                    listener.onImpression(impression.getAdUnitId(),
+                            impression.getImpressionData());
+                } catch (RuntimeException e) {
+                    if (rethrow) {
+                        throw e;
+                    }
+                    MoPubLog.log(CUSTOM_WITH_THROWABLE, "ImpressionListener threw", e);
+                }
+            }
+        }
+
+        for (final BatchImpressionListener listener : mBatchListeners) {
+            try {
+                listener.onImpressions(impressions);
+            } catch (RuntimeException e) {
+                if (rethrow) {
+                    throw e;
+                }
+                MoPubLog.log(CUSTOM_WITH_THROWABLE, "BatchImpressionListener threw", e);
+            }
         }
     }
 
-    private static Set<ImpressionListener> cloneListeners() {
-        synchronized (ImpressionsEmitter.class) {
-            return new HashSet<>(mListeners);
+    @NonNull
+    private static Executor getExecutor() {
+        Executor executor = sExecutor;
+        if (executor == null) {
+            synchronized (ImpressionsEmitter.class) {
+                executor = sExecutor;
+                if (executor == null) {
+                    executor = createExecutor();
+                    sExecutor = executor;
+                }
+            }
         }
+        return executor;
+    }
+
+    @NonNull
+    private static ExecutorService createExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "mopub-impressions");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @VisibleForTesting
+    static void setExecutor(@Nullable final Executor executor) {
+        sExecutor = executor;
     }
 
     @VisibleForTesting
     static void clear() {
-        synchronized (ImpressionsEmitter.class) {
-            mListeners.clear();
-        }
+        mListeners.clear();
+        mBatchListeners.clear();
+        sPendingImpressions.clear();
+        sPendingCount.set(0);
+        sFlushScheduled.set(false);
+        sAsyncDelivery = false;
     }
 }
@@ -0,0 +1,120 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.Constants;
+import com.mopub.common.Preconditions;
+import com.mopub.common.SdkMemoryManager;
+import com.mopub.common.SdkStartupPhase;
+import com.mopub.common.SdkStartupTimer;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.util.DeviceUtils;
+import com.mopub.volley.Cache;
+import com.mopub.volley.toolbox.DiskBasedCache;
+
+import java.io.File;
+
+/**
+ * A {@link DiskBasedCache} that is only created when first used. The request queue's cache
+ * dispatcher initializes the cache on its own thread, so finding the cache directory and sizing
+ * it from the free disk space stays off the thread that creates the request queue.
+ *
+ * The cache is on disk, so it is only reported to {@link SdkMemoryManager}, never trimmed.
+ */
+class LazyDiskBasedCache implements Cache, SdkMemoryManager.TrimmableCache {
+    @NonNull private final Context mContext;
+    @NonNull private final String mDirectoryName;
+    @Nullable private Cache mCache;
+
+    LazyDiskBasedCache(@NonNull final Context context, @NonNull final String directoryName) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(directoryName);
+
+        mContext = context.getApplicationContext();
+        mDirectoryName = directoryName;
+    }
+
+    @NonNull
+    @VisibleForTesting
+    synchronized Cache getCache() {
+        if (mCache == null) {
+            final long startMillis = SdkStartupTimer.now();
+            final File cacheDir = getDirectory();
+            mCache = new DiskBasedCache(cacheDir,
+                    (int) DeviceUtils.diskCacheSizeBytes(cacheDir, Constants.TEN_MB));
+            mCache.initialize();
+            SdkStartupTimer.phaseFinished(SdkStartupPhase.DISK_CACHE, startMillis);
+        }
+        return mCache;
+    }
+
+    @NonNull
+    private File getDirectory() {
+        return new File(mContext.getCacheDir().getPath() + File.separator + mDirectoryName);
+    }
+
+    @Override
+    public Entry get(final String key) {
+        return getCache().get(key);
+    }
+
+    @Override
+    public void put(final String key, final Entry entry) {
+        getCache().put(key, entry);
+    }
+
+    @Override
+    public void initialize() {
+        getCache();
+    }
+
+    @Override
+    public void invalidate(final String key, final boolean fullExpire) {
+        getCache().invalidate(key, fullExpire);
+    }
+
+    @Override
+    public void remove(final String key) {
+        getCache().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        getCache().clear();
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "Volley disk cache";
+    }
+
+    /**
+     * Counting the entries would read the disk on the main thread. They are only reported through
+     * {@link #getDiskBytes()}.
+     */
+    @Override
+    public int getEntryCount() {
+        return 0;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return 0;
+    }
+
+    @Override
+    public long getDiskBytes() {
+        return SdkMemoryManager.getDirectorySizeBytes(getDirectory());
+    }
+
+    @Override
+    public void trim() {
+    }
+}
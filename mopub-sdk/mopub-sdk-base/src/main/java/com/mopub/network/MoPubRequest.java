@@ -28,7 +28,7 @@ import java.util.TreeMap;
  * server. If the request is for ad server in some way, reconstruct it as a POST request and
  * set the body and content type to json.
  */
-public abstract class MoPubRequest<T> extends Request<T>  {
+public abstract class MoPubRequest<T> extends Request<T> implements RequestCategory.Categorized {
 
     private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
 
@@ -45,6 +45,12 @@ public abstract class MoPubRequest<T> extends Request<T>  {
         mContext = context.getApplicationContext();
     }
 
+    @NonNull
+    @Override
+    public RequestCategory getRequestCategory() {
+        return RequestCategory.OTHER;
+    }
+
     @Override
     protected Map<String, String> getParams() {
         if (!MoPubRequestUtils.isMoPubRequest(getUrl())) {
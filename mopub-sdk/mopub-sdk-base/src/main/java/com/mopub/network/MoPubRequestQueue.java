@@ -6,6 +6,7 @@ package com.mopub.network;
 
 import android.os.Handler;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.mopub.common.Preconditions;
 import com.mopub.common.VisibleForTesting;
@@ -15,14 +16,25 @@ import com.mopub.volley.Request;
 import com.mopub.volley.RequestQueue;
 import com.mopub.volley.ResponseDelivery;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
  * MoPub's custom implementation of the Google Volley RequestQueue.
  * This subclass provides convenience methods for adding a delayed request to run at a time in
- * the future. This is useful for our backoff policy architecture.
+ * the future. This is useful for our backoff policy architecture. It also reports every request
+ * to {@link RequestMetricsTracker}.
+ *
+ * Requests in a {@link RequestCategory} that has a dedicated queue are sent through that queue's
+ * own network dispatchers, so a burst of image downloads or tracking pixels can't hold up ad
+ * requests. Within each queue, requests are dispatched by {@link Request#getPriority()}.
+ *
+ * Requests can be held back until {@link #releaseHeldRequests()}, so that none of them is sent
+ * before the user agent they all carry is known.
  *
  * We've overridden certain implementation methods but have kept the contract of the
  * original method consistent.
@@ -34,19 +46,140 @@ public class MoPubRequestQueue extends RequestQueue {
     @NonNull
     private final Map<Request<?>, DelayedRequestHelper> mDelayedRequests;
 
+    @NonNull
+    private final Map<RequestCategory, RequestQueue> mDedicatedQueues =
+            new EnumMap<RequestCategory, RequestQueue>(RequestCategory.class);
+
+    @NonNull
+    private final Object mHeldRequestsLock = new Object();
+
+    // Requests added while requests are held, in the order they were added. Null when requests
+    // aren't held.
+    @Nullable
+    private List<Request<?>> mHeldRequests;
+
+    @NonNull
+    private final RequestFinishedListener<Object> mMetricsFinishedListener =
+            new RequestFinishedListener<Object>() {
+                @Override
+                public void onRequestFinished(final Request<Object> request) {
+                    RequestMetricsTracker.onFinished(request);
+                }
+            };
+
     MoPubRequestQueue(Cache cache, Network network, int threadPoolSize, ResponseDelivery delivery) {
         super(cache, network, threadPoolSize, delivery);
         mDelayedRequests = new HashMap<Request<?>, DelayedRequestHelper>(CAPACITY);
+        addRequestFinishedListener(mMetricsFinishedListener);
     }
 
     MoPubRequestQueue(Cache cache, Network network, int threadPoolSize) {
         super(cache, network, threadPoolSize);
         mDelayedRequests = new HashMap<Request<?>, DelayedRequestHelper>(CAPACITY);
+        addRequestFinishedListener(mMetricsFinishedListener);
     }
 
     MoPubRequestQueue(Cache cache, Network network) {
         super(cache, network);
         mDelayedRequests = new HashMap<Request<?>, DelayedRequestHelper>(CAPACITY);
+        addRequestFinishedListener(mMetricsFinishedListener);
+    }
+
+    /**
+     * Sends all requests in the category through the given queue instead of this one. Must be
+     * called before the queue is started. The dedicated queue is started, stopped and cancelled
+     * along with this one.
+     *
+     * @param category The category of requests to send through the dedicated queue.
+     * @param queue    A queue with its own network dispatchers. It may share this queue's cache.
+     */
+    void addDedicatedQueue(@NonNull final RequestCategory category,
+            @NonNull final RequestQueue queue) {
+        Preconditions.checkNotNull(category);
+        Preconditions.checkNotNull(queue);
+
+        queue.addRequestFinishedListener(mMetricsFinishedListener);
+        mDedicatedQueues.put(category, queue);
+    }
+
+    /**
+     * Keeps requests added from now on in this queue until {@link #releaseHeldRequests()} is
+     * called.
+     */
+    void holdRequests() {
+        synchronized (mHeldRequestsLock) {
+            if (mHeldRequests == null) {
+                mHeldRequests = new ArrayList<Request<?>>();
+            }
+        }
+    }
+
+    /**
+     * Sends the held requests in the order they were added, and stops holding new ones.
+     */
+    void releaseHeldRequests() {
+        final List<Request<?>> heldRequests;
+        synchronized (mHeldRequestsLock) {
+            heldRequests = mHeldRequests;
+            mHeldRequests = null;
+        }
+        if (heldRequests == null) {
+            return;
+        }
+
+        for (final Request<?> request : heldRequests) {
+            dispatch(request);
+        }
+    }
+
+    /**
+     * Override of add to start tracking {@link RequestMetrics} for the request and to send it
+     * through its category's dedicated queue, if there is one.
+     */
+    @Override
+    public <T> Request<T> add(@NonNull final Request<T> request) {
+        RequestMetricsTracker.onEnqueued(request);
+
+        synchronized (mHeldRequestsLock) {
+            if (mHeldRequests != null) {
+                mHeldRequests.add(request);
+                return request;
+            }
+        }
+        return dispatch(request);
+    }
+
+    @NonNull
+    private <T> Request<T> dispatch(@NonNull final Request<T> request) {
+        final RequestQueue dedicatedQueue = mDedicatedQueues.get(RequestCategory.of(request));
+        if (dedicatedQueue != null) {
+            return dedicatedQueue.add(request);
+        }
+        return super.add(request);
+    }
+
+    /**
+     * Override of start to start the dedicated queues as well.
+     */
+    @Override
+    public void start() {
+        super.start();
+
+        for (final RequestQueue queue : mDedicatedQueues.values()) {
+            queue.start();
+        }
+    }
+
+    /**
+     * Override of stop to stop the dedicated queues as well.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+
+        for (final RequestQueue queue : mDedicatedQueues.values()) {
+            queue.stop();
+        }
     }
 
     /**
@@ -80,6 +213,28 @@ public class MoPubRequestQueue extends RequestQueue {
         Preconditions.checkNotNull(filter);
 
         super.cancelAll(filter);
+        for (final RequestQueue queue : mDedicatedQueues.values()) {
+            queue.cancelAll(filter);
+        }
+
+        final List<Request<?>> canceledHeldRequests = new ArrayList<Request<?>>();
+        synchronized (mHeldRequestsLock) {
+            if (mHeldRequests != null) {
+                final Iterator<Request<?>> heldIterator = mHeldRequests.iterator();
+                while (heldIterator.hasNext()) {
+                    final Request<?> request = heldIterator.next();
+                    if (filter.apply(request)) {
+                        request.cancel();
+                        heldIterator.remove();
+                        canceledHeldRequests.add(request);
+                    }
+                }
+            }
+        }
+        // Held requests never reached Volley, so it won't report them as finished.
+        for (final Request<?> request : canceledHeldRequests) {
+            RequestMetricsTracker.onFinished(request);
+        }
 
         Iterator<Map.Entry<Request<?>, DelayedRequestHelper>> iterator = mDelayedRequests.entrySet().iterator();
         while (iterator.hasNext()) {
@@ -167,4 +322,18 @@ public class MoPubRequestQueue extends RequestQueue {
     Map<Request<?>, DelayedRequestHelper> getDelayedRequests() {
         return mDelayedRequests;
     }
+
+    @NonNull
+    @Deprecated
+    @VisibleForTesting
+    Map<RequestCategory, RequestQueue> getDedicatedQueues() {
+        return mDedicatedQueues;
+    }
+
+    @VisibleForTesting
+    boolean isHoldingRequests() {
+        synchronized (mHeldRequestsLock) {
+            return mHeldRequests != null;
+        }
+    }
 }
@@ -10,6 +10,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.mopub.common.AdFormat;
+import com.mopub.common.AdLatencyMetrics;
 import com.mopub.common.MoPub;
 import com.mopub.common.Preconditions;
 import com.mopub.common.logging.MoPubLog;
@@ -35,6 +36,10 @@ public class MultiAdRequest extends MoPubRequest<MultiAdResponse> {
     @NonNull
     private final Context mContext;
 
+    // Set on the network thread when parsing starts and ends, for AdLatencyMetrics.
+    volatile long mParseStartMillis;
+    volatile long mParseEndMillis;
+
     private int hashCode = 0;
 
     public interface Listener extends Response.ErrorListener {
@@ -85,6 +90,20 @@ public class MultiAdRequest extends MoPubRequest<MultiAdResponse> {
         return url;
     }
 
+    @NonNull
+    @Override
+    public RequestCategory getRequestCategory() {
+        return RequestCategory.AD;
+    }
+
+    /**
+     * Ad requests are dispatched ahead of everything else waiting in the queue.
+     */
+    @Override
+    public Priority getPriority() {
+        return Priority.HIGH;
+    }
+
     /**
      * Callback from Volley to parse network response
      * @param networkResponse data to be parsed
@@ -93,6 +112,7 @@ public class MultiAdRequest extends MoPubRequest<MultiAdResponse> {
     @Nullable
     @Override
     protected Response<MultiAdResponse> parseNetworkResponse(NetworkResponse networkResponse) {
+        mParseStartMillis = AdLatencyMetrics.now();
         MultiAdResponse multiAdResponse;
         try {
             multiAdResponse = new MultiAdResponse(mContext, networkResponse, mAdFormat, mAdUnitId);
@@ -104,6 +124,7 @@ public class MultiAdRequest extends MoPubRequest<MultiAdResponse> {
             return Response.error(new MoPubNetworkError(ex, MoPubNetworkError.Reason.UNSPECIFIED));
         }
 
+        mParseEndMillis = AdLatencyMetrics.now();
         return Response.success(multiAdResponse, HttpHeaderParser.parseCacheHeaders(networkResponse));
     }
 
@@ -95,6 +95,7 @@ public class MultiAdResponse implements Iterator<AdResponse> {
         final Integer backoffMs = extractIntegerHeader(jsonObject, ResponseHeader.BACKOFF_MS);
         final String backoffReason = extractHeader(jsonObject, ResponseHeader.BACKOFF_REASON);
         RequestRateTracker.getInstance().registerRateLimit(adUnitId, backoffMs, backoffReason);
+        AdUnitConfigStore.getInstance(appContext).putRateLimit(adUnitId, backoffMs, backoffReason);
 
         final boolean invalidateConsent = extractBooleanHeader(jsonObject,
                 ResponseHeader.INVALIDATE_CONSENT, false);
@@ -396,6 +397,8 @@ public class MultiAdResponse implements Iterator<AdResponse> {
                         FullAdType.VAST.equals(fullAdTypeString))) {
             serverExtras.put(DataKeys.EXTERNAL_VIDEO_VIEWABILITY_TRACKERS_KEY,
                     extractHeader(jsonHeaders, ResponseHeader.VIDEO_VIEWABILITY_TRACKERS));
+            serverExtras.put(DataKeys.VIDEO_RENDERER_KEY,
+                    extractHeader(jsonHeaders, ResponseHeader.VIDEO_RENDERER));
         }
 
         // Banner imp tracking
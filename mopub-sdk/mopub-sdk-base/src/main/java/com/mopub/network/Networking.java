@@ -6,6 +6,7 @@ package com.mopub.network;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Looper;
 import android.support.annotation.NonNull;
@@ -17,27 +18,32 @@ import android.webkit.WebView;
 
 import com.mopub.common.Constants;
 import com.mopub.common.Preconditions;
+import com.mopub.common.SdkMemoryManager;
+import com.mopub.common.SdkStartupPhase;
+import com.mopub.common.SdkStartupTimer;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.DeviceUtils;
-import com.mopub.volley.Cache;
 import com.mopub.volley.Network;
 import com.mopub.volley.RequestQueue;
 import com.mopub.volley.toolbox.BaseHttpStack;
 import com.mopub.volley.toolbox.BasicNetwork;
-import com.mopub.volley.toolbox.DiskBasedCache;
 import com.mopub.volley.toolbox.HurlStack;
 import com.mopub.volley.toolbox.ImageLoader;
-
-import java.io.File;
-
-import javax.net.ssl.SSLSocketFactory;
+import com.mopub.volley.toolbox.NoCache;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 public class Networking {
     @VisibleForTesting
     static final String CACHE_DIRECTORY_NAME = "mopub-volley-cache";
+    // Network threads for each traffic class that has its own dispatchers. Everything else,
+    // including ad requests, shares the main queue's default pool of 4 threads.
+    @VisibleForTesting
+    static final int TRACKING_THREAD_POOL_SIZE = 2;
+    @VisibleForTesting
+    static final int IMAGE_THREAD_POOL_SIZE = 2;
     @NonNull private static final String DEFAULT_USER_AGENT;
 
     static {
@@ -55,9 +61,15 @@ public class Networking {
     // for more information.
     private volatile static MoPubRequestQueue sRequestQueue;
     private volatile static String sUserAgent;
+    // Whether the persisted user agent was read, so it is only read once, even if there is none.
+    private volatile static boolean sPersistedUserAgentRead;
     private volatile static MaxWidthImageLoader sMaxWidthImageLoader;
+    // SdkMemoryManager only holds the image cache weakly.
+    @Nullable private static SdkMemoryManager.TrimmableCache sImageTrimmableCache;
     private static boolean sUseHttps = false;
     private static HurlStack.UrlRewriter sUrlRewriter;
+    @Nullable private static volatile HttpTransport sHttpTransport;
+    @Nullable private static volatile HttpTransport sDefaultHttpTransport;
 
     @Nullable
     public static MoPubRequestQueue getRequestQueue() {
@@ -84,21 +96,38 @@ public class Networking {
                 requestQueue = sRequestQueue;
                 if (requestQueue == null) {
 
-                    final SSLSocketFactory socketFactory = CustomSSLSocketFactory.getDefault(Constants.TEN_SECONDS_MILLIS);
-
-                    final String userAgent = Networking.getUserAgent(
-                            context.getApplicationContext());
-                    final BaseHttpStack httpStack = new RequestQueueHttpStack(userAgent,
-                            getUrlRewriter(context), socketFactory);
+                    // The stack reads the user agent for each request, and the disk cache is set
+                    // up on the cache dispatcher thread, so creating the queue doesn't have to
+                    // load the WebView or touch the disk. The stack opens its connections through
+                    // the HttpTransport, which applies CustomSSLSocketFactory.
+                    final BaseHttpStack httpStack = new RequestQueueHttpStack(
+                            getUrlRewriter(context), null);
 
                     final Network network = new BasicNetwork(httpStack);
-                    final File volleyCacheDir = new File(context.getCacheDir().getPath() +
-                            File.separator + CACHE_DIRECTORY_NAME);
-                    final Cache cache = new DiskBasedCache(volleyCacheDir,
-                            (int) DeviceUtils.diskCacheSizeBytes(volleyCacheDir, Constants.TEN_MB));
+                    final LazyDiskBasedCache cache =
+                            new LazyDiskBasedCache(context, CACHE_DIRECTORY_NAME);
+                    SdkMemoryManager.register(cache, SdkMemoryManager.PRIORITY_NEVER);
                     requestQueue = new MoPubRequestQueue(cache, network);
+                    // Requests wait for the persisted user agent, which is read off the main
+                    // thread, but not for the WebView to load when there is none. Those few
+                    // early requests are sent with the default user agent.
+                    final boolean readUserAgent = sUserAgent == null && !sPersistedUserAgentRead;
+                    if (readUserAgent) {
+                        requestQueue.holdRequests();
+                    }
+                    // Only the main queue uses the disk cache, so a single cache dispatcher
+                    // reads and writes it. Decoded images are kept in the image memory cache.
+                    requestQueue.addDedicatedQueue(RequestCategory.TRACKING,
+                            new RequestQueue(new NoCache(), network, TRACKING_THREAD_POOL_SIZE));
+                    requestQueue.addDedicatedQueue(RequestCategory.IMAGE,
+                            new RequestQueue(new NoCache(), network, IMAGE_THREAD_POOL_SIZE));
                     sRequestQueue = requestQueue;
                     requestQueue.start();
+
+                    if (readUserAgent) {
+                        AsyncTasks.safeExecuteOnExecutor(
+                                new UserAgentTask(context, requestQueue, null));
+                    }
                 }
             }
         }
@@ -126,6 +155,37 @@ public class Networking {
                             return super.sizeOf(key, value);
                         }
                     };
+                    final SdkMemoryManager.TrimmableCache imageTrimmableCache =
+                            new SdkMemoryManager.TrimmableCache() {
+                        @NonNull
+                        @Override
+                        public String getName() {
+                            return "Volley image memory cache";
+                        }
+
+                        @Override
+                        public int getEntryCount() {
+                            return imageCache.snapshot().size();
+                        }
+
+                        @Override
+                        public long getMemoryBytes() {
+                            return imageCache.size();
+                        }
+
+                        @Override
+                        public long getDiskBytes() {
+                            return 0;
+                        }
+
+                        @Override
+                        public void trim() {
+                            imageCache.evictAll();
+                        }
+                    };
+                    sImageTrimmableCache = imageTrimmableCache;
+                    SdkMemoryManager.register(imageTrimmableCache,
+                            SdkMemoryManager.PRIORITY_DECODED_IMAGES);
                     imageLoader = new MaxWidthImageLoader(queue, context, new MaxWidthImageLoader.ImageCache() {
                         @Override
                         public Bitmap getBitmap(final String key) {
@@ -144,10 +204,48 @@ public class Networking {
         return imageLoader;
     }
 
+    /**
+     * Sets the transport used to open every SDK connection. Pass null to go back to the default
+     * transport, which uses the platform's HttpURLConnection and its connection pool. Connections
+     * already open are not affected.
+     *
+     * @param httpTransport The transport to use, or null for the default.
+     */
+    public static void setHttpTransport(@Nullable final HttpTransport httpTransport) {
+        sHttpTransport = httpTransport;
+    }
+
+    /**
+     * @return The transport set with {@link #setHttpTransport(HttpTransport)}, or the default
+     * transport.
+     */
+    @NonNull
+    public static HttpTransport getHttpTransport() {
+        final HttpTransport httpTransport = sHttpTransport;
+        if (httpTransport != null) {
+            return httpTransport;
+        }
+
+        HttpTransport defaultHttpTransport = sDefaultHttpTransport;
+        // Double-check locking to initialize.
+        if (defaultHttpTransport == null) {
+            synchronized (Networking.class) {
+                defaultHttpTransport = sDefaultHttpTransport;
+                if (defaultHttpTransport == null) {
+                    defaultHttpTransport = new UrlConnectionTransport(
+                            CustomSSLSocketFactory.getDefault(Constants.TEN_SECONDS_MILLIS));
+                    sDefaultHttpTransport = defaultHttpTransport;
+                }
+            }
+        }
+        return defaultHttpTransport;
+    }
+
     /**
      * Caches and returns the WebView user agent to be used across all SDK requests. This is
      * important because advertisers expect the same user agent across all request, impression, and
-     * click events.
+     * click events. The user agent is persisted, so later app starts with the same WebView version
+     * don't have to load the WebView to get it.
      */
     @NonNull
     public static String getUserAgent(@NonNull Context context) {
@@ -158,6 +256,12 @@ public class Networking {
             return volatileUserAgentCopy;
         }
 
+        readPersistedUserAgent(context);
+        final String persistedUserAgent = sUserAgent;
+        if (!TextUtils.isEmpty(persistedUserAgent)) {
+            return persistedUserAgent;
+        }
+
         // WebViews may only be instantiated on the UI thread. If anything goes
         // wrong with getting a user agent, use the system-specific user agent.
         if (Looper.myLooper() != Looper.getMainLooper()) {
@@ -167,6 +271,7 @@ public class Networking {
             return DEFAULT_USER_AGENT;
         }
 
+        final long startMillis = SdkStartupTimer.now();
         // Some custom ROMs may fail to get a user agent. If that happens, return
         // the Android system user agent.
         String userAgent = DEFAULT_USER_AGENT;
@@ -176,14 +281,86 @@ public class Networking {
             } else {
                 userAgent = new WebView(context).getSettings().getUserAgentString();
             }
+            if (!TextUtils.isEmpty(userAgent)) {
+                PersistedUserAgent.put(context, userAgent);
+            }
         } catch (Exception e) {
             MoPubLog.log(CUSTOM,
                     "Failed to get a user agent. Defaulting to the system user agent.");
         }
         sUserAgent = userAgent;
+        SdkStartupTimer.phaseFinished(SdkStartupPhase.USER_AGENT, startMillis);
         return userAgent;
     }
 
+    /**
+     * Reads the persisted user agent, once. This looks up the WebView package version, so it
+     * shouldn't be called on the main thread unless the user agent is needed right away.
+     */
+    private static void readPersistedUserAgent(@NonNull final Context context) {
+        if (sPersistedUserAgentRead) {
+            return;
+        }
+
+        final long startMillis = SdkStartupTimer.now();
+        final String persistedUserAgent = PersistedUserAgent.get(context);
+        sPersistedUserAgentRead = true;
+        if (!TextUtils.isEmpty(persistedUserAgent) && sUserAgent == null) {
+            sUserAgent = persistedUserAgent;
+            SdkStartupTimer.phaseFinished(SdkStartupPhase.USER_AGENT, startMillis);
+        }
+    }
+
+    /**
+     * Resolves the WebView user agent without blocking the caller. The persisted user agent is
+     * read on a background thread. Only if there is none is the WebView loaded, on the main thread
+     * once the current work there is done.
+     *
+     * @param context    Used to look up the user agent.
+     * @param onResolved Optional callback, run on the main thread once the user agent is cached.
+     */
+    public static void resolveUserAgent(@NonNull final Context context,
+            @Nullable final Runnable onResolved) {
+        Preconditions.checkNotNull(context);
+
+        AsyncTasks.safeExecuteOnExecutor(new UserAgentTask(context, null, onResolved));
+    }
+
+    private static class UserAgentTask extends AsyncTask<Void, Void, Void> {
+        @NonNull private final Context mContext;
+        @Nullable private final MoPubRequestQueue mHeldRequestQueue;
+        @Nullable private final Runnable mOnResolved;
+
+        UserAgentTask(@NonNull final Context context,
+                @Nullable final MoPubRequestQueue heldRequestQueue,
+                @Nullable final Runnable onResolved) {
+            mContext = (context.getApplicationContext() != null)
+                    ? context.getApplicationContext() : context;
+            mHeldRequestQueue = heldRequestQueue;
+            mOnResolved = onResolved;
+        }
+
+        @Override
+        protected Void doInBackground(final Void... voids) {
+            try {
+                readPersistedUserAgent(mContext);
+            } finally {
+                if (mHeldRequestQueue != null) {
+                    mHeldRequestQueue.releaseHeldRequests();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected void onPostExecute(final Void result) {
+            getUserAgent(mContext);
+            if (mOnResolved != null) {
+                mOnResolved.run();
+            }
+        }
+    }
+
     /**
      * Gets the previously cached WebView user agent. This returns the default userAgent if the
      * WebView user agent has not been initialized yet.
@@ -203,7 +380,11 @@ public class Networking {
     public static synchronized void clearForTesting() {
         sRequestQueue = null;
         sMaxWidthImageLoader = null;
+        sImageTrimmableCache = null;
         sUserAgent = null;
+        sPersistedUserAgentRead = false;
+        sHttpTransport = null;
+        RequestMetricsTracker.clearForTesting();
     }
 
     @VisibleForTesting
@@ -221,6 +402,16 @@ public class Networking {
         sUserAgent = userAgent;
     }
 
+    /**
+     * Sets a listener to receive {@link RequestMetrics} for every request sent through the SDK's
+     * request queue: time spent queued and on the network, bytes received, TLS handshakes,
+     * connection reuse and cache hits. Tracking costs a small object per request while a
+     * listener is set, and nothing otherwise. Pass null to stop tracking.
+     */
+    public static void setRequestMetricsListener(@Nullable final RequestMetricsListener listener) {
+        RequestMetricsTracker.setListener(listener);
+    }
+
     /**
      * Set whether to use HTTP or HTTPS for WebView base urls.
      */
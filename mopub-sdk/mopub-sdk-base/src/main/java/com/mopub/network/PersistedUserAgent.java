@@ -0,0 +1,118 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.webkit.WebView;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.SharedPreferencesHelper;
+import com.mopub.common.VisibleForTesting;
+
+/**
+ * Persists the WebView user agent across app starts so it doesn't have to be read from the WebView
+ * provider, which is slow the first time it is loaded. The user agent is stored together with the
+ * build fingerprint and the WebView package version, and is discarded when either changes.
+ *
+ * Safe to use from any thread.
+ */
+class PersistedUserAgent {
+    @VisibleForTesting
+    static final String PREF_USER_AGENT = "com.mopub.network.userAgent";
+    @VisibleForTesting
+    static final String PREF_USER_AGENT_VERSION_KEY = "com.mopub.network.userAgentVersionKey";
+
+    // Packages that can provide the WebView before Android O, in order of preference.
+    private static final String[] WEBVIEW_PACKAGES = {
+            "com.google.android.webview", "com.android.chrome", "com.android.webview"};
+
+    private PersistedUserAgent() {}
+
+    /**
+     * @return The persisted user agent, or null if there is none or it was stored for a different
+     * WebView version.
+     */
+    @Nullable
+    static String get(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        final SharedPreferences preferences =
+                SharedPreferencesHelper.getSharedPreferences(context);
+        final String userAgent = preferences.getString(PREF_USER_AGENT, null);
+        if (TextUtils.isEmpty(userAgent)) {
+            return null;
+        }
+        final String versionKey = preferences.getString(PREF_USER_AGENT_VERSION_KEY, null);
+        if (!getVersionKey(context).equals(versionKey)) {
+            return null;
+        }
+        return userAgent;
+    }
+
+    static void put(@NonNull final Context context, @NonNull final String userAgent) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(userAgent);
+
+        SharedPreferencesHelper.getSharedPreferences(context)
+                .edit()
+                .putString(PREF_USER_AGENT, userAgent)
+                .putString(PREF_USER_AGENT_VERSION_KEY, getVersionKey(context))
+                .apply();
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static String getVersionKey(@NonNull final Context context) {
+        final StringBuilder key = new StringBuilder(String.valueOf(Build.FINGERPRINT));
+        final PackageInfo webViewPackage = getWebViewPackage(context);
+        if (webViewPackage != null) {
+            key.append('|').append(webViewPackage.packageName)
+                    .append('|').append(webViewPackage.versionName)
+                    .append('|').append(webViewPackage.lastUpdateTime);
+        }
+        return key.toString();
+    }
+
+    @Nullable
+    private static PackageInfo getWebViewPackage(@NonNull final Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return getCurrentWebViewPackage();
+        }
+
+        final PackageManager packageManager = context.getPackageManager();
+        if (packageManager == null) {
+            return null;
+        }
+        for (final String packageName : WEBVIEW_PACKAGES) {
+            try {
+                return packageManager.getPackageInfo(packageName, 0);
+            } catch (PackageManager.NameNotFoundException e) {
+                // Try the next provider
+            } catch (RuntimeException e) {
+                // Package manager has died
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @TargetApi(Build.VERSION_CODES.O)
+    @Nullable
+    private static PackageInfo getCurrentWebViewPackage() {
+        try {
+            return WebView.getCurrentWebViewPackage();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
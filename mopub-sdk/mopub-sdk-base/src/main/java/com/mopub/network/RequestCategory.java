@@ -0,0 +1,67 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.support.annotation.NonNull;
+
+import com.mopub.common.Preconditions;
+import com.mopub.volley.Request;
+import com.mopub.volley.toolbox.ImageRequest;
+
+/**
+ * The kinds of traffic the SDK sends through its request queue.
+ */
+public enum RequestCategory {
+    /**
+     * Ad requests to the MoPub ad server.
+     */
+    AD,
+
+    /**
+     * Impression, click and other tracking pixels, and rewarded completion callbacks.
+     */
+    TRACKING,
+
+    /**
+     * Images, for example native ad assets.
+     */
+    IMAGE,
+
+    /**
+     * Native ad positioning requests.
+     */
+    POSITIONING,
+
+    /**
+     * Consent sync and consent dialog requests.
+     */
+    SYNC,
+
+    /**
+     * Anything else.
+     */
+    OTHER;
+
+    /**
+     * Implemented by requests that know their category.
+     */
+    public interface Categorized {
+        @NonNull
+        RequestCategory getRequestCategory();
+    }
+
+    @NonNull
+    public static RequestCategory of(@NonNull final Request<?> request) {
+        Preconditions.checkNotNull(request);
+
+        if (request instanceof Categorized) {
+            return ((Categorized) request).getRequestCategory();
+        }
+        if (request instanceof ImageRequest) {
+            return IMAGE;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,158 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+
+/**
+ * Timing and transfer details of one request, reported to a {@link RequestMetricsListener}.
+ * Times are {@link android.os.SystemClock#elapsedRealtime()} values in milliseconds, or
+ * {@link #NOT_SET} when the request never reached that point.
+ */
+public final class RequestMetrics {
+    public static final long NOT_SET = -1;
+
+    @NonNull private final RequestCategory mCategory;
+    @Nullable private final String mHost;
+    private final boolean mHttps;
+    private final long mEnqueueTimeMillis;
+    private final int mQueueDepth;
+
+    // Written by the network and delivery threads while the request runs.
+    volatile long mDispatchTimeMillis = NOT_SET;
+    volatile long mFirstByteTimeMillis = NOT_SET;
+    volatile long mFinishTimeMillis = NOT_SET;
+    volatile long mBytesReceived;
+    volatile long mTlsHandshakeMillis = NOT_SET;
+    volatile boolean mNewConnection;
+    volatile int mStatusCode;
+    volatile int mHostRequestsInFlight;
+    volatile boolean mCacheHit;
+    volatile boolean mCanceled;
+    // Whether this request is counted in its host's in-flight requests.
+    volatile boolean mInFlight;
+
+    RequestMetrics(@NonNull final RequestCategory category, @Nullable final String host,
+            final boolean https, final long enqueueTimeMillis, final int queueDepth) {
+        Preconditions.checkNotNull(category);
+
+        mCategory = category;
+        mHost = host;
+        mHttps = https;
+        mEnqueueTimeMillis = enqueueTimeMillis;
+        mQueueDepth = queueDepth;
+    }
+
+    @NonNull
+    public RequestCategory getCategory() {
+        return mCategory;
+    }
+
+    @Nullable
+    public String getHost() {
+        return mHost;
+    }
+
+    /**
+     * @return When the request was added to the queue.
+     */
+    public long getEnqueueTimeMillis() {
+        return mEnqueueTimeMillis;
+    }
+
+    /**
+     * @return When a network thread started sending the request, or {@link #NOT_SET} if it was
+     * served from the cache or canceled first.
+     */
+    public long getDispatchTimeMillis() {
+        return mDispatchTimeMillis;
+    }
+
+    /**
+     * @return When the response status and headers arrived.
+     */
+    public long getFirstByteTimeMillis() {
+        return mFirstByteTimeMillis;
+    }
+
+    /**
+     * @return When the response was delivered and the request finished.
+     */
+    public long getFinishTimeMillis() {
+        return mFinishTimeMillis;
+    }
+
+    /**
+     * @return How long the request waited in the queue before going to the network, or
+     * {@link #NOT_SET} if it never did.
+     */
+    public long getQueueWaitMillis() {
+        final long dispatchTimeMillis = mDispatchTimeMillis;
+        return dispatchTimeMillis == NOT_SET ? NOT_SET : dispatchTimeMillis - mEnqueueTimeMillis;
+    }
+
+    /**
+     * @return Number of response body bytes read, across all attempts.
+     */
+    public long getBytesReceived() {
+        return mBytesReceived;
+    }
+
+    /**
+     * @return How long the TLS handshake took, or {@link #NOT_SET} if the request reused an
+     * open connection or did not use https.
+     */
+    public long getTlsHandshakeMillis() {
+        return mTlsHandshakeMillis;
+    }
+
+    /**
+     * @return Whether the request reused an open connection, or null if that is unknown because
+     * the request did not use https or never went to the network.
+     */
+    @Nullable
+    public Boolean isConnectionReused() {
+        if (!mHttps || mDispatchTimeMillis == NOT_SET) {
+            return null;
+        }
+        return !mNewConnection;
+    }
+
+    /**
+     * @return The HTTP status code of the last attempt, or 0 if there was no response.
+     */
+    public int getStatusCode() {
+        return mStatusCode;
+    }
+
+    /**
+     * @return Number of requests waiting to go to the network when this one was queued.
+     */
+    public int getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    /**
+     * @return Number of requests to the same host on the network, including this one, when
+     * this request was sent.
+     */
+    public int getHostRequestsInFlight() {
+        return mHostRequestsInFlight;
+    }
+
+    /**
+     * @return True if the response came from the cache without going to the network.
+     */
+    public boolean isCacheHit() {
+        return mCacheHit;
+    }
+
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+}
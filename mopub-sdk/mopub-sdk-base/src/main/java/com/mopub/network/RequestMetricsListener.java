@@ -0,0 +1,24 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.support.annotation.AnyThread;
+import android.support.annotation.NonNull;
+
+/**
+ * Receives timing and transfer details for every request the SDK sends through its request
+ * queue. Set this with {@link Networking#setRequestMetricsListener(RequestMetricsListener)}.
+ */
+public interface RequestMetricsListener {
+    /**
+     * Called once each request finishes, whether it succeeded, failed, was served from the cache
+     * or was canceled. Usually called on the main thread, but canceled requests may be reported
+     * from a network thread. Keep this fast; it runs on the thread delivering responses.
+     *
+     * @param metrics Details of the finished request.
+     */
+    @AnyThread
+    void onRequestFinished(@NonNull RequestMetrics metrics);
+}
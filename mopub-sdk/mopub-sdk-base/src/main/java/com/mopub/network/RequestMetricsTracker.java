@@ -0,0 +1,257 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.volley.Request;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLSocket;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
+
+/**
+ * Collects {@link RequestMetrics} from {@link MoPubRequestQueue}, {@link RequestQueueHttpStack}
+ * and {@link CustomSSLSocketFactory}, and reports them to the {@link RequestMetricsListener}.
+ * Nothing is tracked while there is no listener.
+ *
+ * Requests are matched by identity, since some requests override equals. A network thread runs
+ * one request at a time, so new connections are attributed to the request the thread is
+ * currently sending.
+ */
+final class RequestMetricsTracker {
+    @Nullable private static volatile RequestMetricsListener sListener;
+
+    @NonNull private static final Map<Request<?>, RequestMetrics> sMetrics =
+            Collections.synchronizedMap(new IdentityHashMap<Request<?>, RequestMetrics>());
+    @NonNull private static final AtomicInteger sWaitingCount = new AtomicInteger();
+    @NonNull private static final ConcurrentHashMap<String, AtomicInteger> sInFlightByHost =
+            new ConcurrentHashMap<String, AtomicInteger>();
+    @NonNull private static final ThreadLocal<RequestMetrics> sSending =
+            new ThreadLocal<RequestMetrics>();
+
+    private RequestMetricsTracker() {
+    }
+
+    static void setListener(@Nullable final RequestMetricsListener listener) {
+        sListener = listener;
+    }
+
+    static boolean isEnabled() {
+        return sListener != null;
+    }
+
+    static void onEnqueued(@NonNull final Request<?> request) {
+        Preconditions.checkNotNull(request);
+
+        if (sListener == null) {
+            return;
+        }
+
+        final String url = request.getUrl();
+        final Uri uri = url == null ? null : Uri.parse(url);
+        final RequestMetrics metrics = new RequestMetrics(RequestCategory.of(request),
+                uri == null ? null : uri.getHost(),
+                uri != null && "https".equalsIgnoreCase(uri.getScheme()),
+                SystemClock.elapsedRealtime(), sWaitingCount.getAndIncrement());
+        sMetrics.put(request, metrics);
+    }
+
+    /**
+     * Called on a network thread before each attempt to send the request.
+     *
+     * @return The request's metrics, or null if it isn't being tracked.
+     */
+    @Nullable
+    static RequestMetrics onNetworkDispatch(@NonNull final Request<?> request) {
+        final RequestMetrics metrics = sMetrics.get(request);
+        if (metrics == null) {
+            return null;
+        }
+
+        if (metrics.mDispatchTimeMillis == RequestMetrics.NOT_SET) {
+            metrics.mDispatchTimeMillis = SystemClock.elapsedRealtime();
+            sWaitingCount.decrementAndGet();
+        }
+        if (!metrics.mInFlight && metrics.getHost() != null) {
+            metrics.mInFlight = true;
+            metrics.mHostRequestsInFlight = getInFlightCount(metrics.getHost()).incrementAndGet();
+        }
+        sSending.set(metrics);
+        return metrics;
+    }
+
+    static void onHeadersReceived(@NonNull final RequestMetrics metrics, final int statusCode) {
+        sSending.remove();
+        if (metrics.mFirstByteTimeMillis == RequestMetrics.NOT_SET) {
+            metrics.mFirstByteTimeMillis = SystemClock.elapsedRealtime();
+        }
+        metrics.mStatusCode = statusCode;
+    }
+
+    /**
+     * Called when an attempt is over: the response body was read or closed, or sending failed.
+     */
+    static void onNetworkAttemptFinished(@NonNull final RequestMetrics metrics) {
+        sSending.remove();
+        leaveHost(metrics);
+    }
+
+    /**
+     * Called by the socket factory for each new connection.
+     */
+    static void onSocketCreated(@Nullable final Socket socket) {
+        final RequestMetrics metrics = sSending.get();
+        if (metrics == null || !(socket instanceof SSLSocket)) {
+            return;
+        }
+
+        metrics.mNewConnection = true;
+        final long startMillis = SystemClock.elapsedRealtime();
+        final SSLSocket sslSocket = (SSLSocket) socket;
+        sslSocket.addHandshakeCompletedListener(new HandshakeCompletedListener() {
+            @Override
+            public void handshakeCompleted(final HandshakeCompletedEvent event) {
+                metrics.mTlsHandshakeMillis = SystemClock.elapsedRealtime() - startMillis;
+                sslSocket.removeHandshakeCompletedListener(this);
+            }
+        });
+    }
+
+    /**
+     * Called by the queue when the request finishes, however it finished.
+     */
+    static void onFinished(@NonNull final Request<?> request) {
+        final RequestMetrics metrics = sMetrics.remove(request);
+        if (metrics == null) {
+            return;
+        }
+
+        if (metrics.mDispatchTimeMillis == RequestMetrics.NOT_SET) {
+            sWaitingCount.decrementAndGet();
+            metrics.mCacheHit = !request.isCanceled();
+        }
+        leaveHost(metrics);
+        metrics.mCanceled = request.isCanceled();
+        metrics.mFinishTimeMillis = SystemClock.elapsedRealtime();
+
+        final RequestMetricsListener listener = sListener;
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onRequestFinished(metrics);
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "RequestMetricsListener threw", e);
+        }
+    }
+
+    @NonNull
+    static InputStream wrapResponseBody(@NonNull final InputStream content,
+            @NonNull final RequestMetrics metrics) {
+        return new CountingInputStream(content, metrics);
+    }
+
+    private static void leaveHost(@NonNull final RequestMetrics metrics) {
+        final String host = metrics.getHost();
+        if (metrics.mInFlight && host != null) {
+            metrics.mInFlight = false;
+            getInFlightCount(host).decrementAndGet();
+        }
+    }
+
+    @NonNull
+    private static AtomicInteger getInFlightCount(@NonNull final String host) {
+        final AtomicInteger count = sInFlightByHost.get(host);
+        if (count != null) {
+            return count;
+        }
+        final AtomicInteger newCount = new AtomicInteger();
+        final AtomicInteger existingCount = sInFlightByHost.putIfAbsent(host, newCount);
+        return existingCount == null ? newCount : existingCount;
+    }
+
+    /**
+     * Counts body bytes as the network reads them and ends the attempt once the body is read
+     * or closed.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        @NonNull private final RequestMetrics mMetrics;
+        private boolean mFinished;
+
+        CountingInputStream(@NonNull final InputStream in, @NonNull final RequestMetrics metrics) {
+            super(in);
+            mMetrics = metrics;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result == -1) {
+                finish();
+            } else {
+                mMetrics.mBytesReceived++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(@NonNull final byte[] buffer, final int offset, final int count)
+                throws IOException {
+            final int result = super.read(buffer, offset, count);
+            if (result == -1) {
+                finish();
+            } else {
+                mMetrics.mBytesReceived += result;
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            super.close();
+        }
+
+        private void finish() {
+            if (!mFinished) {
+                mFinished = true;
+                onNetworkAttemptFinished(mMetrics);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static int getWaitingCount() {
+        return sWaitingCount.get();
+    }
+
+    @VisibleForTesting
+    static void clearForTesting() {
+        sListener = null;
+        sMetrics.clear();
+        sWaitingCount.set(0);
+        sInFlightByHost.clear();
+        sSending.remove();
+    }
+}
@@ -14,6 +14,9 @@ import com.mopub.volley.toolbox.HttpResponse;
 import com.mopub.volley.toolbox.HurlStack;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -23,10 +26,24 @@ import javax.net.ssl.SSLSocketFactory;
  * Modified Volley HurlStack with explicitly specified User-Agent.
  *
  * Used by Networking's singleton RequestQueue to ensure all network requests use WebView's
- * User-Agent.
+ * User-Agent. Also reports network timing and response sizes to {@link RequestMetricsTracker}.
+ * Connections are opened through {@link Networking#getHttpTransport()}, so they come from the
+ * same pool as the rest of the SDK's traffic.
  */
 public class RequestQueueHttpStack extends HurlStack {
-    @NonNull private final String mUserAgent;
+    // Null to use the user agent cached by Networking at the time of each request.
+    @Nullable private final String mUserAgent;
+
+    /**
+     * Creates a stack that sends the user agent cached by {@link Networking} at the time of each
+     * request, so the stack can be created before the WebView user agent is known.
+     */
+    public RequestQueueHttpStack(@Nullable final UrlRewriter urlRewriter,
+            @Nullable final SSLSocketFactory sslSocketFactory) {
+        super(urlRewriter, sslSocketFactory);
+
+        mUserAgent = null;
+    }
 
     public RequestQueueHttpStack(@NonNull final String userAgent) {
         this(userAgent, null);
@@ -43,6 +60,13 @@ public class RequestQueueHttpStack extends HurlStack {
         mUserAgent = userAgent;
     }
 
+    @Override
+    protected HttpURLConnection createConnection(@NonNull final URL url) throws IOException {
+        final HttpURLConnection connection = Networking.getHttpTransport().openConnection(url);
+        connection.setInstanceFollowRedirects(HttpURLConnection.getFollowRedirects());
+        return connection;
+    }
+
     @Override
     public HttpResponse executeRequest(@NonNull final Request<?> request,
             @Nullable Map<String, String> additionalHeaders) throws IOException, AuthFailureError {
@@ -52,8 +76,31 @@ public class RequestQueueHttpStack extends HurlStack {
             additionalHeaders = new TreeMap<String, String>();
         }
 
-        additionalHeaders.put(ResponseHeader.USER_AGENT.getKey(), mUserAgent);
+        final String userAgent = (mUserAgent != null) ? mUserAgent : Networking.getCachedUserAgent();
+        additionalHeaders.put(ResponseHeader.USER_AGENT.getKey(), userAgent);
+
+        final RequestMetrics metrics = RequestMetricsTracker.onNetworkDispatch(request);
+        if (metrics == null) {
+            return super.executeRequest(request, additionalHeaders);
+        }
+
+        HttpResponse response = null;
+        try {
+            response = super.executeRequest(request, additionalHeaders);
+        } finally {
+            if (response == null) {
+                RequestMetricsTracker.onNetworkAttemptFinished(metrics);
+            }
+        }
 
-        return super.executeRequest(request, additionalHeaders);
+        RequestMetricsTracker.onHeadersReceived(metrics, response.getStatusCode());
+        final InputStream content = response.getContent();
+        if (content == null) {
+            RequestMetricsTracker.onNetworkAttemptFinished(metrics);
+            return response;
+        }
+        return new HttpResponse(response.getStatusCode(), response.getHeaders(),
+                response.getContentLength(),
+                RequestMetricsTracker.wrapResponseBody(content, metrics));
     }
 }
@@ -27,7 +27,11 @@ public class RequestRateTracker {
         public final String mReason;
 
         TimeRecord(int interval, @Nullable final String reason) {
-            mBlockStartTime = currentTimeMs();
+            this(interval, reason, currentTimeMs());
+        }
+
+        TimeRecord(int interval, @Nullable final String reason, final long blockStartTime) {
+            mBlockStartTime = blockStartTime;
             mBlockIntervalMs = interval;
             mReason = reason == null ? "unknown" : reason;
         }
@@ -66,6 +70,25 @@ public class RequestRateTracker {
         }
     }
 
+    /**
+     * Restores a rate limit persisted by {@link AdUnitConfigStore} in an earlier session, unless a
+     * newer one was registered since.
+     */
+    void restoreRateLimit(@Nullable final String adUnit, final int blockIntervalMs,
+            @Nullable final String reason, final long remainingMs) {
+        if (TextUtils.isEmpty(adUnit) || blockIntervalMs <= 0 || remainingMs <= 0) {
+            return;
+        }
+
+        synchronized (mTimeRecordMap) {
+            if (!mTimeRecordMap.containsKey(adUnit)) {
+                final long elapsedMs = Math.max(0, blockIntervalMs - remainingMs);
+                mTimeRecordMap.put(adUnit,
+                        new TimeRecord(blockIntervalMs, reason, currentTimeMs() - elapsedMs));
+            }
+        }
+    }
+
     boolean isBlockedByRateLimit(@Nullable final String adUnitId) {
         return getTimeUntilLimitEnds(adUnitId) > 0;
     }
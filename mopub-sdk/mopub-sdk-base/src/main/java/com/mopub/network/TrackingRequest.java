@@ -38,12 +38,15 @@ public class TrackingRequest extends MoPubRequest<Void> {
     }
 
     @Nullable private final TrackingRequest.Listener mListener;
+    @NonNull private final Priority mPriority;
 
     private TrackingRequest(@NonNull final Context context,
             @NonNull final String url,
-            @Nullable final Listener listener) {
+            @Nullable final Listener listener,
+            @NonNull final Priority priority) {
         super(context, url, listener);
         mListener = listener;
+        mPriority = priority;
         setShouldCache(false);
         setRetryPolicy(new DefaultRetryPolicy(
                 DefaultRetryPolicy.DEFAULT_TIMEOUT_MS,
@@ -51,6 +54,21 @@ public class TrackingRequest extends MoPubRequest<Void> {
                 DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
     }
 
+    @NonNull
+    @Override
+    public RequestCategory getRequestCategory() {
+        return RequestCategory.TRACKING;
+    }
+
+    /**
+     * Impression and click trackers are {@link Priority#HIGH}, so they go out ahead of VAST
+     * event trackers, which arrive in bursts during playback.
+     */
+    @Override
+    public Priority getPriority() {
+        return mPriority;
+    }
+
     @Override
     protected Response<Void> parseNetworkResponse(final NetworkResponse networkResponse) {
         if (networkResponse.statusCode != 200) {
@@ -99,13 +117,22 @@ public class TrackingRequest extends MoPubRequest<Void> {
                         .withContentPlayHead(contentPlayHead)
                         .withAssetUri(assetUri)
                         .getUris(),
-                context
+                context,
+                null,
+                Priority.NORMAL
         );
     }
 
     public static void makeTrackingHttpRequest(@Nullable final Iterable<String> urls,
             @Nullable final Context context,
             @Nullable final Listener listener) {
+        makeTrackingHttpRequest(urls, context, listener, Priority.HIGH);
+    }
+
+    private static void makeTrackingHttpRequest(@Nullable final Iterable<String> urls,
+            @Nullable final Context context,
+            @Nullable final Listener listener,
+            @NonNull final Priority priority) {
         if (urls == null || context == null) {
             return;
         }
@@ -134,7 +161,7 @@ public class TrackingRequest extends MoPubRequest<Void> {
                 }
             };
             final TrackingRequest trackingRequest = new TrackingRequest(context, url,
-                    internalListener);
+                    internalListener, priority);
             requestQueue.add(trackingRequest);
         }
     }
@@ -0,0 +1,51 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * The default {@link HttpTransport}, using the platform's {@link HttpURLConnection}.
+ *
+ * The platform keeps idle connections in a process-wide keep-alive pool, but only hands a
+ * connection back out to requests using the same {@link SSLSocketFactory}. Every https connection
+ * opened here uses the one factory, so all SDK traffic to a host shares connections.
+ */
+class UrlConnectionTransport implements HttpTransport {
+    @Nullable private final SSLSocketFactory mSslSocketFactory;
+
+    UrlConnectionTransport(@Nullable final SSLSocketFactory sslSocketFactory) {
+        mSslSocketFactory = sslSocketFactory;
+    }
+
+    @NonNull
+    @Override
+    public HttpURLConnection openConnection(@NonNull final URL url) throws IOException {
+        Preconditions.checkNotNull(url);
+
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (mSslSocketFactory != null && connection instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) connection).setSSLSocketFactory(mSslSocketFactory);
+        }
+        return connection;
+    }
+
+    @Nullable
+    @VisibleForTesting
+    SSLSocketFactory getSslSocketFactory() {
+        return mSslSocketFactory;
+    }
+}
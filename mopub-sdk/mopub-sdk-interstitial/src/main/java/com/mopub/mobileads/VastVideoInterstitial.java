@@ -35,11 +35,14 @@ class VastVideoInterstitial extends ResponseBodyInterstitial implements VastMana
     @Nullable private JSONObject mVideoTrackers;
     @Nullable private Map<String, String> mExternalViewabilityTrackers;
     @Nullable private CreativeOrientation mOrientation;
+    private boolean mUseExoPlayer;
 
     @Override
     protected void extractExtras(Map<String, String> serverExtras) {
         mVastResponse = serverExtras.get(DataKeys.HTML_RESPONSE_BODY_KEY);
         mOrientation = CreativeOrientation.fromString(serverExtras.get(CREATIVE_ORIENTATION_KEY));
+        mUseExoPlayer = ExoPlayerVideoModule.shouldUseExoPlayer(
+                serverExtras.get(DataKeys.VIDEO_RENDERER_KEY));
 
         final String externalViewabilityTrackers =
                 serverExtras.get(DataKeys.EXTERNAL_VIDEO_VIEWABILITY_TRACKERS_KEY);
@@ -74,7 +77,9 @@ class VastVideoInterstitial extends ResponseBodyInterstitial implements VastMana
             return;
         }
 
-        mVastManager = VastManagerFactory.create(mContext);
+        // ExoPlayer streams the video through its own cache, so it doesn't need to be
+        // downloaded before the ad is loaded.
+        mVastManager = VastManagerFactory.create(mContext, !mUseExoPlayer);
         mVastManager.prepareVastVideoConfiguration(mVastResponse, this,
                 mAdReport.getDspCreativeId(), mContext);
         MoPubLog.log(LOAD_SUCCESS, ADAPTER_NAME);
@@ -110,6 +115,10 @@ class VastVideoInterstitial extends ResponseBodyInterstitial implements VastMana
         mVastVideoConfig = vastVideoConfig;
         mVastVideoConfig.addVideoTrackers(mVideoTrackers);
         mVastVideoConfig.addExternalViewabilityTrackers(mExternalViewabilityTrackers);
+        mVastVideoConfig.setIsExoPlayerEnabled(mUseExoPlayer);
+        if (mUseExoPlayer) {
+            ExoPlayerVideoModule.prefetch(mContext, mVastVideoConfig.getNetworkMediaFileUrl());
+        }
         mCustomEventInterstitialListener.onInterstitialLoaded();
     }
 
@@ -0,0 +1,138 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.VisibleForTesting;
+
+import java.util.Arrays;
+
+/**
+ * Collects the ad insertions and removals made by a {@link MoPubStreamAdPlacer} during one
+ * placement pass and merges them into as few range changes as possible, in the style of
+ * DiffUtil's update callbacks.
+ *
+ * Positions are recorded in the order the changes happen, each one expressed in the position space
+ * left by the changes before it. Batches nest, and changes are only dispatched when the outermost
+ * batch ends. This class is not thread safe.
+ */
+class AdPositionChangeBatch {
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Pending range operations, in order.
+    @NonNull private int[] mTypes = new int[INITIAL_CAPACITY];
+    @NonNull private int[] mStarts = new int[INITIAL_CAPACITY];
+    @NonNull private int[] mCounts = new int[INITIAL_CAPACITY];
+    private int mOperationCount;
+    private int mDepth;
+
+    void begin() {
+        mDepth++;
+    }
+
+    /**
+     * Ends a batch. If this is the outermost batch, dispatches the merged changes to the listener
+     * and resets the batch.
+     */
+    void end(@Nullable final MoPubNativeAdRangeListener listener) {
+        if (mDepth == 0) {
+            return;
+        }
+        mDepth--;
+        if (mDepth > 0) {
+            return;
+        }
+
+        // Reset before dispatching, in case the listener triggers another placement pass.
+        final int operationCount = mOperationCount;
+        final int[] types = Arrays.copyOf(mTypes, operationCount);
+        final int[] starts = Arrays.copyOf(mStarts, operationCount);
+        final int[] counts = Arrays.copyOf(mCounts, operationCount);
+        mOperationCount = 0;
+
+        if (listener == null) {
+            return;
+        }
+        for (int i = 0; i < operationCount; i++) {
+            if (types[i] == INSERT) {
+                listener.onAdRangeLoaded(starts[i], counts[i]);
+            } else {
+                listener.onAdRangeRemoved(starts[i], counts[i]);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    boolean isInBatch() {
+        return mDepth > 0;
+    }
+
+    @VisibleForTesting
+    int getPendingOperationCount() {
+        return mOperationCount;
+    }
+
+    void adInserted(final int position) {
+        if (mOperationCount > 0) {
+            final int last = mOperationCount - 1;
+            final int start = mStarts[last];
+            final int count = mCounts[last];
+
+            // Inserting anywhere in or right after an inserted run keeps it contiguous.
+            if (mTypes[last] == INSERT && position >= start && position <= start + count) {
+                mCounts[last]++;
+                return;
+            }
+        }
+        append(INSERT, position);
+    }
+
+    void adRemoved(final int position) {
+        if (mOperationCount > 0) {
+            final int last = mOperationCount - 1;
+            final int start = mStarts[last];
+            final int count = mCounts[last];
+
+            if (mTypes[last] == REMOVE) {
+                // Removing the item right before a removed run, or the item that moved into its
+                // start, extends the run.
+                if (position == start - 1) {
+                    mStarts[last] = position;
+                    mCounts[last]++;
+                    return;
+                }
+                if (position == start) {
+                    mCounts[last]++;
+                    return;
+                }
+            } else if (position >= start && position < start + count) {
+                // Removing an ad that was inserted in this batch cancels out.
+                mCounts[last]--;
+                if (mCounts[last] == 0) {
+                    mOperationCount--;
+                }
+                return;
+            }
+        }
+        append(REMOVE, position);
+    }
+
+    private void append(final int type, final int position) {
+        if (mOperationCount == mTypes.length) {
+            final int capacity = mTypes.length * 2;
+            mTypes = Arrays.copyOf(mTypes, capacity);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mCounts = Arrays.copyOf(mCounts, capacity);
+        }
+        mTypes[mOperationCount] = type;
+        mStarts[mOperationCount] = position;
+        mCounts[mOperationCount] = 1;
+        mOperationCount++;
+    }
+}
@@ -0,0 +1,266 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Keeps a small pool of ad views per view type that were inflated ahead of time on a background
+ * thread, so an ad scrolling into view doesn't have to inflate its layout on the main thread.
+ *
+ * Each view type that needs views gets one background task, which inflates them one at a time
+ * with a {@link LayoutInflater} of its own. Tasks for different view types may run at the same
+ * time. Like AsyncLayoutInflater, a view type falls back to regular main thread inflation if
+ * inflating it off the main thread fails. For {@link MoPubStaticNativeAdRenderer},
+ * the view holder is also resolved in the background.
+ *
+ * All methods must be called on the main thread.
+ */
+class AdViewPool {
+    static final int MAX_POOL_SIZE = 4;
+
+    @NonNull private final SparseArray<ArrayDeque<View>> mViews;
+    // View types with an inflation task in flight.
+    @NonNull private final SparseBooleanArray mInflatingViewTypes;
+    // View types that could not be inflated off the main thread.
+    @NonNull private final SparseBooleanArray mDisabledViewTypes;
+
+    private int mPoolSize;
+    // Incremented by clear() so results from earlier tasks are dropped.
+    private int mGeneration;
+    private int mHitCount;
+    private int mMissCount;
+
+    AdViewPool() {
+        mViews = new SparseArray<ArrayDeque<View>>();
+        mInflatingViewTypes = new SparseBooleanArray();
+        mDisabledViewTypes = new SparseBooleanArray();
+    }
+
+    /**
+     * Sets how many views to keep ready per view type, up to {@link #MAX_POOL_SIZE}. 0 disables
+     * pre-inflation. Shrinking the pool drops the extra views.
+     */
+    void setPoolSize(final int poolSize) {
+        mPoolSize = Math.max(0, Math.min(poolSize, MAX_POOL_SIZE));
+        for (int i = 0; i < mViews.size(); i++) {
+            final ArrayDeque<View> views = mViews.valueAt(i);
+            while (views.size() > mPoolSize) {
+                views.pollLast();
+            }
+        }
+    }
+
+    int getPoolSize() {
+        return mPoolSize;
+    }
+
+    /**
+     * Returns a pre-inflated view for the view type, or {@code null} if there is none and the
+     * caller should inflate one itself.
+     */
+    @Nullable
+    View obtain(final int viewType) {
+        final ArrayDeque<View> views = mViews.get(viewType);
+        final View view = (views == null) ? null : views.pollFirst();
+        if (view != null) {
+            mHitCount++;
+        } else if (mPoolSize > 0) {
+            mMissCount++;
+        }
+        return view;
+    }
+
+    /**
+     * Starts inflating views in the background until the pool for the view type is full.
+     *
+     * @param context The context of the view the ads will be attached to.
+     * @param parent The parent the views will be attached to, used for layout params.
+     */
+    void fill(@NonNull final Context context, @Nullable final ViewGroup parent,
+            final int viewType, @NonNull final MoPubAdRenderer adRenderer) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(adRenderer);
+
+        if (mInflatingViewTypes.get(viewType) || mDisabledViewTypes.get(viewType)) {
+            return;
+        }
+        final int missing = mPoolSize - getPooledCount(viewType);
+        if (missing <= 0) {
+            return;
+        }
+
+        mInflatingViewTypes.put(viewType, true);
+        final PreInflateTask task = new PreInflateTask(this, mGeneration, viewType,
+                new PreInflationContext(context), parent, adRenderer, missing);
+        try {
+            AsyncTasks.safeExecuteOnExecutor(task);
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM, "Failed to start pre-inflating ad views", e);
+            mInflatingViewTypes.delete(viewType);
+        }
+    }
+
+    /**
+     * Drops all pooled views. Views from tasks still in flight are dropped when they finish.
+     */
+    void clear() {
+        mViews.clear();
+        mInflatingViewTypes.clear();
+        mGeneration++;
+    }
+
+    int getPooledCount(final int viewType) {
+        final ArrayDeque<View> views = mViews.get(viewType);
+        return (views == null) ? 0 : views.size();
+    }
+
+    int getHitCount() {
+        return mHitCount;
+    }
+
+    int getMissCount() {
+        return mMissCount;
+    }
+
+    @VisibleForTesting
+    boolean isDisabled(final int viewType) {
+        return mDisabledViewTypes.get(viewType);
+    }
+
+    @VisibleForTesting
+    void onViewsInflated(final int generation, final int viewType,
+            @NonNull final MoPubAdRenderer adRenderer, @NonNull final List<View> views,
+            @NonNull final List<StaticNativeViewHolder> viewHolders, final boolean failed) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mInflatingViewTypes.delete(viewType);
+
+        if (failed) {
+            MoPubLog.log(CUSTOM, "Could not inflate ad views in the background. Falling back to " +
+                    "inflating them on the main thread.");
+            mDisabledViewTypes.put(viewType, true);
+        }
+
+        ArrayDeque<View> pooledViews = mViews.get(viewType);
+        if (pooledViews == null) {
+            pooledViews = new ArrayDeque<View>(MAX_POOL_SIZE);
+            mViews.put(viewType, pooledViews);
+        }
+        for (int i = 0; i < views.size() && pooledViews.size() < mPoolSize; i++) {
+            final View view = views.get(i);
+            if (adRenderer instanceof MoPubStaticNativeAdRenderer && i < viewHolders.size()) {
+                ((MoPubStaticNativeAdRenderer) adRenderer).putViewHolder(view,
+                        viewHolders.get(i));
+            }
+            pooledViews.addLast(view);
+        }
+    }
+
+    /**
+     * Gives the renderer a {@link LayoutInflater} of its own, so inflating in the background never
+     * shares inflater state with the main thread. Inflated views still get the original context.
+     */
+    @VisibleForTesting
+    static class PreInflationContext extends ContextWrapper {
+        @NonNull private final LayoutInflater mLayoutInflater;
+
+        PreInflationContext(@NonNull final Context base) {
+            super(base);
+            mLayoutInflater = LayoutInflater.from(base).cloneInContext(base);
+        }
+
+        @Override
+        public Object getSystemService(final String name) {
+            if (LAYOUT_INFLATER_SERVICE.equals(name)) {
+                return mLayoutInflater;
+            }
+            return super.getSystemService(name);
+        }
+    }
+
+    @VisibleForTesting
+    static class PreInflateTask extends AsyncTask<Void, Void, Boolean> {
+        @NonNull private final AdViewPool mAdViewPool;
+        private final int mGeneration;
+        private final int mViewType;
+        @NonNull private final Context mContext;
+        @Nullable private final ViewGroup mParent;
+        @NonNull private final MoPubAdRenderer mAdRenderer;
+        private final int mCount;
+        @NonNull private final List<View> mViews;
+        @NonNull private final List<StaticNativeViewHolder> mViewHolders;
+
+        PreInflateTask(@NonNull final AdViewPool adViewPool, final int generation,
+                final int viewType, @NonNull final Context context,
+                @Nullable final ViewGroup parent, @NonNull final MoPubAdRenderer adRenderer,
+                final int count) {
+            mAdViewPool = adViewPool;
+            mGeneration = generation;
+            mViewType = viewType;
+            mContext = context;
+            mParent = parent;
+            mAdRenderer = adRenderer;
+            mCount = count;
+            mViews = new ArrayList<View>(count);
+            mViewHolders = new ArrayList<StaticNativeViewHolder>(count);
+        }
+
+        /**
+         * @return true if inflation failed.
+         */
+        @Override
+        protected Boolean doInBackground(final Void... voids) {
+            try {
+                for (int i = 0; i < mCount && !isCancelled(); i++) {
+                    final View view = mAdRenderer.createAdView(mContext, mParent);
+                    if (mAdRenderer instanceof MoPubStaticNativeAdRenderer) {
+                        mViewHolders.add(((MoPubStaticNativeAdRenderer) mAdRenderer)
+                                .resolveViewHolder(view));
+                    }
+                    mViews.add(view);
+                }
+                return false;
+            } catch (RuntimeException e) {
+                // Some views can only be created on a thread with a Looper.
+                MoPubLog.log(CUSTOM, "Failed to inflate ad view in the background", e);
+                return true;
+            }
+        }
+
+        @Override
+        protected void onPostExecute(final Boolean failed) {
+            mAdViewPool.onViewsInflated(mGeneration, mViewType, mAdRenderer, mViews,
+                    mViewHolders, failed == null || failed);
+        }
+
+        @Override
+        protected void onCancelled() {
+            mAdViewPool.onViewsInflated(mGeneration, mViewType, mAdRenderer, mViews,
+                    mViewHolders, false);
+        }
+    }
+}
@@ -69,6 +69,25 @@ public abstract class BaseNativeAd {
      */
     public abstract void destroy();
 
+    /**
+     * Called when the ad has been placed just past what the user can see, so it is likely to be
+     * shown soon. Your {@link BaseNativeAd} subclass can start fetching large assets, such as
+     * video, so they are ready when the ad comes into view.
+     *
+     * This method is optional.
+     */
+    public void prefetch() {
+    }
+
+    /**
+     * Called when the ad has moved away from where the user is looking before it was shown. Stop
+     * any work started in {@link #prefetch()}.
+     *
+     * This method is optional.
+     */
+    public void cancelPrefetch() {
+    }
+
     public void setNativeEventListener(
             @Nullable final NativeEventListener nativeEventListener) {
         mNativeEventListener = nativeEventListener;
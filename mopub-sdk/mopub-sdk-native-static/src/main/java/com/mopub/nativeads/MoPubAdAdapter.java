@@ -11,6 +11,8 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.AbsListView;
 import android.widget.Adapter;
 import android.widget.AdapterView;
 import android.widget.BaseAdapter;
@@ -24,9 +26,11 @@ import com.mopub.common.VisibilityTracker;
 import com.mopub.nativeads.MoPubNativeAdPositioning.MoPubClientPositioning;
 import com.mopub.nativeads.MoPubNativeAdPositioning.MoPubServerPositioning;
 
+import java.lang.ref.WeakReference;
 import java.util.List;
 import java.util.WeakHashMap;
 
+import static android.view.ViewTreeObserver.OnScrollChangedListener;
 import static android.widget.AdapterView.OnItemClickListener;
 import static android.widget.AdapterView.OnItemLongClickListener;
 import static android.widget.AdapterView.OnItemSelectedListener;
@@ -41,12 +45,20 @@ import static com.mopub.common.VisibilityTracker.VisibilityTrackerListener;
  *
  * This adapter uses a {@link com.mopub.nativeads.MoPubStreamAdPlacer} object internally. If you
  * wish to avoid wrapping your original adapter, you can use {@code MoPubStreamAdPlacer} directly.
+ *
+ * When the adapter is set on an {@link AbsListView}, the visible range is read from the list's
+ * scroll state each time it scrolls. Otherwise each row is checked for visibility.
  */
 public class MoPubAdAdapter extends BaseAdapter {
     @NonNull private final WeakHashMap<View, Integer> mViewPositionMap;
     @NonNull private final Adapter mOriginalAdapter;
     @NonNull private final MoPubStreamAdPlacer mStreamAdPlacer;
     @NonNull private final VisibilityTracker mVisibilityTracker;
+    @NonNull private final OnScrollChangedListener mOnScrollChangedListener;
+    @NonNull private WeakReference<AbsListView> mWeakListView;
+    @NonNull private WeakReference<ViewTreeObserver> mWeakViewTreeObserver;
+    private int mVisibleRangeStart = -1;
+    private int mVisibleRangeEnd = -1;
 
     @Nullable private MoPubNativeAdLoadedListener mAdLoadedListener;
 
@@ -110,6 +122,14 @@ public class MoPubAdAdapter extends BaseAdapter {
                 handleVisibilityChange(visibleViews);
             }
         });
+        mOnScrollChangedListener = new OnScrollChangedListener() {
+            @Override
+            public void onScrollChanged() {
+                handleScrollChanged();
+            }
+        };
+        mWeakListView = new WeakReference<AbsListView>(null);
+        mWeakViewTreeObserver = new WeakReference<ViewTreeObserver>(null);
         mOriginalAdapter.registerDataSetObserver(new DataSetObserver() {
             @Override
             public void onChanged() {
@@ -259,6 +279,7 @@ public class MoPubAdAdapter extends BaseAdapter {
     public void destroy() {
         mStreamAdPlacer.destroy();
         mVisibilityTracker.destroy();
+        detachFromListView();
     }
 
     @Override
@@ -346,8 +367,13 @@ public class MoPubAdAdapter extends BaseAdapter {
             resultView = mOriginalAdapter.getView(
                     mStreamAdPlacer.getOriginalPosition(position), view, viewGroup);
         }
-        mViewPositionMap.put(resultView, position);
-        mVisibilityTracker.addView(resultView, 0, null);
+
+        if (viewGroup instanceof AbsListView) {
+            attachToListView((AbsListView) viewGroup);
+        } else {
+            mViewPositionMap.put(resultView, position);
+            mVisibilityTracker.addView(resultView, 0, null);
+        }
 
         return resultView;
     }
@@ -390,6 +416,62 @@ public class MoPubAdAdapter extends BaseAdapter {
         return mOriginalAdapter.isEmpty() && mStreamAdPlacer.getAdjustedCount(0) == 0;
     }
 
+    /**
+     * Listens for scrolls of the list this adapter is set on. AbsListView reports a scroll change
+     * after every layout and scroll, and the ViewTreeObserver has to be checked again because it
+     * changes when the list is attached to a window.
+     */
+    private void attachToListView(@NonNull final AbsListView listView) {
+        final ViewTreeObserver viewTreeObserver = listView.getViewTreeObserver();
+        if (mWeakListView.get() == listView && mWeakViewTreeObserver.get() == viewTreeObserver) {
+            return;
+        }
+
+        detachFromListView();
+        if (!viewTreeObserver.isAlive()) {
+            return;
+        }
+        // A floating observer's listeners move to the window's observer on attach.
+        viewTreeObserver.removeOnScrollChangedListener(mOnScrollChangedListener);
+        viewTreeObserver.addOnScrollChangedListener(mOnScrollChangedListener);
+        mWeakListView = new WeakReference<AbsListView>(listView);
+        mWeakViewTreeObserver = new WeakReference<ViewTreeObserver>(viewTreeObserver);
+    }
+
+    private void detachFromListView() {
+        final ViewTreeObserver viewTreeObserver = mWeakViewTreeObserver.get();
+        if (viewTreeObserver != null && viewTreeObserver.isAlive()) {
+            viewTreeObserver.removeOnScrollChangedListener(mOnScrollChangedListener);
+        }
+        mWeakViewTreeObserver.clear();
+        mWeakListView.clear();
+        mVisibleRangeStart = -1;
+        mVisibleRangeEnd = -1;
+    }
+
+    @VisibleForTesting
+    void handleScrollChanged() {
+        final AbsListView listView = mWeakListView.get();
+        if (listView == null) {
+            return;
+        }
+
+        // List positions count header views, adapter positions don't.
+        final int headerCount = listView instanceof ListView
+                ? ((ListView) listView).getHeaderViewsCount()
+                : 0;
+        final int firstPosition = listView.getFirstVisiblePosition() - headerCount;
+        final int start = Math.max(firstPosition, 0);
+        final int end = Math.min(firstPosition + listView.getChildCount(), getCount());
+        if (start >= end || (start == mVisibleRangeStart && end == mVisibleRangeEnd)) {
+            return;
+        }
+
+        mVisibleRangeStart = start;
+        mVisibleRangeEnd = end;
+        mStreamAdPlacer.placeAdsInRange(start, end);
+    }
+
     private void handleVisibilityChange(@NonNull final List<View> visibleViews) {
         // Loop through all visible positions in order to build a max and min range, and then
         // place ads into that range.
@@ -11,6 +11,7 @@ import android.text.TextUtils;
 import android.view.View;
 
 import com.mopub.common.DataKeys;
+import com.mopub.common.ResolvedUrlCache;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.nativeads.NativeImageHelper.ImageListener;
@@ -360,6 +361,7 @@ public class MoPubCustomEventNative extends CustomEventNative {
         @Override
         public void recordImpression(@NonNull final View view) {
             notifyAdImpressed();
+            ResolvedUrlCache.preResolve(getClickDestinationUrl());
         }
 
         @Override
@@ -10,6 +10,8 @@ import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.AdFormat;
+import com.mopub.common.AdLatencyMetrics;
+import com.mopub.common.AdLifecyclePhase;
 import com.mopub.common.Constants;
 import com.mopub.common.Preconditions;
 import com.mopub.common.VisibleForTesting;
@@ -170,6 +172,7 @@ public class MoPubNative {
 
         MoPubLog.log(LOAD_ATTEMPTED);
 
+        final long requestBuildStartMillis = AdLatencyMetrics.now();
         final NativeUrlGenerator generator = new NativeUrlGenerator(context)
                 .withAdUnitId(mAdUnitId)
                 .withRequest(requestParameters);
@@ -181,6 +184,8 @@ public class MoPubNative {
         final String endpointUrl = generator.generateUrlString(Constants.HOST);
 
         if (endpointUrl != null) {
+            AdLatencyMetrics.record(AdFormat.NATIVE, AdLifecyclePhase.REQUEST_BUILD,
+                    requestBuildStartMillis);
             MoPubLog.log(CUSTOM, "MoPubNative Loading ad from: " + endpointUrl);
         }
 
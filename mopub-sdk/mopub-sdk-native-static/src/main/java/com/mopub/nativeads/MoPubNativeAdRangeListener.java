@@ -0,0 +1,30 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+/**
+ * A listener for determining when ranges of ads are loaded into or removed from an ad placer.
+ *
+ * Unlike {@link MoPubNativeAdLoadedListener}, which is called once per ad, this listener is called
+ * once per contiguous run of changes after each placement pass. Replaying the calls in order
+ * produces the same stream as replaying the individual {@link MoPubNativeAdLoadedListener} calls.
+ */
+public interface MoPubNativeAdRangeListener {
+    /**
+     * Called when ads are loaded at positionStart through positionStart + itemCount - 1.
+     *
+     * @param positionStart The ad position of the first newly loaded ad.
+     * @param itemCount The number of consecutive ads loaded.
+     */
+    void onAdRangeLoaded(int positionStart, int itemCount);
+
+    /**
+     * Called when the ads at positionStart through positionStart + itemCount - 1 are removed.
+     *
+     * @param positionStart The position of the first removed ad.
+     * @param itemCount The number of consecutive ads removed.
+     */
+    void onAdRangeRemoved(int positionStart, int itemCount);
+}
@@ -7,6 +7,8 @@ package com.mopub.nativeads;
 import android.app.Activity;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
@@ -25,6 +27,7 @@ import java.util.WeakHashMap;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.nativeads.MoPubRecyclerAdapter.ContentChangeStrategy.INSERT_AT_END;
 import static com.mopub.nativeads.MoPubRecyclerAdapter.ContentChangeStrategy.KEEP_ADS_FIXED;
+import static com.mopub.nativeads.MoPubRecyclerAdapter.ContentChangeStrategy.MOVE_ALL_ADS_WITH_CONTENT;
 
 
 public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
@@ -41,9 +44,12 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
     @NonNull private final RecyclerView.Adapter mOriginalAdapter;
     @NonNull private final VisibilityTracker mVisibilityTracker;
     @NonNull private final WeakHashMap<View, Integer> mViewPositionMap;
+    @NonNull private final AdViewPool mAdViewPool;
 
     @NonNull private ContentChangeStrategy mStrategy = INSERT_AT_END;
     @Nullable private MoPubNativeAdLoadedListener mAdLoadedListener;
+    // The original item count last passed to the stream ad placer.
+    private int mOriginalItemCount;
 
     public MoPubRecyclerAdapter(@NonNull Activity activity,
             @NonNull RecyclerView.Adapter originalAdapter) {
@@ -69,6 +75,7 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
             @NonNull final RecyclerView.Adapter originalAdapter,
             @NonNull final VisibilityTracker visibilityTracker) {
         mViewPositionMap = new WeakHashMap<>();
+        mAdViewPool = new AdViewPool();
         mOriginalAdapter = originalAdapter;
         mVisibilityTracker = visibilityTracker;
         mVisibilityTracker.setVisibilityTrackerListener(new VisibilityTracker.VisibilityTrackerListener() {
@@ -82,75 +89,41 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
         setHasStableIdsInternal(mOriginalAdapter.hasStableIds());
 
         mStreamAdPlacer = streamAdPlacer;
-        mStreamAdPlacer.setAdLoadedListener(new MoPubNativeAdLoadedListener() {
+        mStreamAdPlacer.setAdRangeListener(new MoPubNativeAdRangeListener() {
             @Override
-            public void onAdLoaded(final int position) {
-                handleAdLoaded(position);
+            public void onAdRangeLoaded(final int positionStart, final int itemCount) {
+                handleAdRangeLoaded(positionStart, itemCount);
             }
 
             @Override
-            public void onAdRemoved(final int position) {
-                handleAdRemoved(position);
+            public void onAdRangeRemoved(final int positionStart, final int itemCount) {
+                handleAdRangeRemoved(positionStart, itemCount);
             }
         });
-        mStreamAdPlacer.setItemCount(mOriginalAdapter.getItemCount());
+        setOriginalItemCount(mOriginalAdapter.getItemCount());
 
         mAdapterDataObserver = new RecyclerView.AdapterDataObserver() {
             @Override
             public void onChanged() {
-                mStreamAdPlacer.setItemCount(mOriginalAdapter.getItemCount());
+                setOriginalItemCount(mOriginalAdapter.getItemCount());
                 notifyDataSetChanged();
             }
 
             @Override
             public void onItemRangeChanged(final int positionStart, final int itemCount) {
-                int adjustedEndPosition = mStreamAdPlacer.getAdjustedPosition(positionStart + itemCount - 1);
-                int adjustedStartPosition = mStreamAdPlacer.getAdjustedPosition(positionStart);
-                int adjustedCount = adjustedEndPosition - adjustedStartPosition + 1;
-                notifyItemRangeChanged(adjustedStartPosition, adjustedCount);
+                handleContentRangeChanged(positionStart, itemCount, null);
             }
 
             @Override
             public void onItemRangeInserted(final int positionStart, final int itemCount) {
-                final int adjustedStartPosition = mStreamAdPlacer.getAdjustedPosition(positionStart);
-                final int newOriginalCount = mOriginalAdapter.getItemCount();
-                mStreamAdPlacer.setItemCount(newOriginalCount);
-                final boolean addingToEnd = positionStart + itemCount >= newOriginalCount;
-                if (KEEP_ADS_FIXED == mStrategy
-                        || (INSERT_AT_END == mStrategy
-                        && addingToEnd)) {
-                    notifyDataSetChanged();
-                } else {
-                    for (int i = 0; i < itemCount; i++) {
-                        // We insert itemCount items at the original position, moving ads downstream.
-                        mStreamAdPlacer.insertItem(positionStart);
-                    }
-                    notifyItemRangeInserted(adjustedStartPosition, itemCount);
-                }
+                handleContentRangeInserted(positionStart, itemCount,
+                        mOriginalAdapter.getItemCount());
             }
 
             @Override
             public void onItemRangeRemoved(final int positionStart, final int itemsRemoved) {
-                int adjustedStartPosition = mStreamAdPlacer.getAdjustedPosition(positionStart);
-                final int newOriginalCount = mOriginalAdapter.getItemCount();
-                mStreamAdPlacer.setItemCount(newOriginalCount);
-                final boolean removingFromEnd = positionStart + itemsRemoved >= newOriginalCount;
-                if (KEEP_ADS_FIXED == mStrategy
-                        || (INSERT_AT_END == mStrategy
-                        && removingFromEnd)) {
-                    notifyDataSetChanged();
-                } else {
-                    final int oldAdjustedCount = mStreamAdPlacer.getAdjustedCount(newOriginalCount + itemsRemoved);
-                    for (int i = 0; i < itemsRemoved; i++) {
-                        // We remove itemsRemoved items at the original position.
-                        mStreamAdPlacer.removeItem(positionStart);
-                    }
-
-                    final int itemsRemovedIncludingAds = oldAdjustedCount - mStreamAdPlacer.getAdjustedCount(newOriginalCount);
-                    // Need to move the start position back by the # of ads removed.
-                    adjustedStartPosition -= itemsRemovedIncludingAds - itemsRemoved;
-                    notifyItemRangeRemoved(adjustedStartPosition, itemsRemovedIncludingAds);
-                }
+                handleContentRangeRemoved(positionStart, itemsRemoved,
+                        mOriginalAdapter.getItemCount());
             }
 
             @Override
@@ -167,12 +140,14 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
     public void onAttachedToRecyclerView(final RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
         mRecyclerView = recyclerView;
+        fillAdViewPool();
     }
 
     @Override
     public void onDetachedFromRecyclerView(final RecyclerView recyclerView) {
         super.onDetachedFromRecyclerView(recyclerView);
         mRecyclerView = null;
+        mAdViewPool.clear();
     }
 
     /**
@@ -191,6 +166,78 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
         mAdLoadedListener = listener;
     }
 
+    /**
+     * Applies a content diff computed with {@link DiffUtil} for your original adapter, mapping
+     * every update through the positions of the ads in the stream.
+     *
+     * Call this instead of {@code diffResult.dispatchUpdatesTo(originalAdapter)}, after updating
+     * the data backing your original adapter. The updates are applied to the ad positions with one
+     * range operation each, and this adapter is notified with the ad-adjusted ranges, so ads are
+     * kept in place without a full data set refresh. Moves are only animated with
+     * {@link ContentChangeStrategy#MOVE_ALL_ADS_WITH_CONTENT}, and cause a full refresh otherwise.
+     *
+     * @param diffResult The diff between the old and new contents of your original adapter.
+     */
+    public void dispatchContentUpdates(@NonNull final DiffUtil.DiffResult diffResult) {
+        if (!Preconditions.NoThrow.checkNotNull(diffResult, "Cannot dispatch a null diffResult")) {
+            return;
+        }
+
+        diffResult.dispatchUpdatesTo(new ListUpdateCallback() {
+            // The original item count as of the updates dispatched so far.
+            private int mRunningOriginalCount = mOriginalItemCount;
+            private boolean mNeedsFullRefresh;
+
+            @Override
+            public void onInserted(final int position, final int count) {
+                mRunningOriginalCount += count;
+                if (!mNeedsFullRefresh) {
+                    mNeedsFullRefresh = !handleContentRangeInserted(position, count,
+                            mRunningOriginalCount);
+                }
+            }
+
+            @Override
+            public void onRemoved(final int position, final int count) {
+                mRunningOriginalCount -= count;
+                if (!mNeedsFullRefresh) {
+                    mNeedsFullRefresh = !handleContentRangeRemoved(position, count,
+                            mRunningOriginalCount);
+                }
+            }
+
+            @Override
+            public void onMoved(final int fromPosition, final int toPosition) {
+                if (mNeedsFullRefresh || MOVE_ALL_ADS_WITH_CONTENT != mStrategy) {
+                    setFullRefresh();
+                    return;
+                }
+                final int adjustedFromPosition = mStreamAdPlacer.getAdjustedPosition(fromPosition);
+                mStreamAdPlacer.moveItem(fromPosition, toPosition);
+                notifyItemMoved(adjustedFromPosition,
+                        mStreamAdPlacer.getAdjustedPosition(toPosition));
+            }
+
+            @Override
+            public void onChanged(final int position, final int count,
+                    @Nullable final Object payload) {
+                if (!mNeedsFullRefresh) {
+                    handleContentRangeChanged(position, count, payload);
+                }
+            }
+
+            private void setFullRefresh() {
+                if (!mNeedsFullRefresh) {
+                    mNeedsFullRefresh = true;
+                    notifyDataSetChanged();
+                }
+            }
+        });
+
+        // Updates after a full refresh are skipped, so make sure the placer has the final count.
+        setOriginalItemCount(mOriginalAdapter.getItemCount());
+    }
+
     /**
      * Registers an ad renderer for rendering a specific native ad format. Note that if multiple ad
      * renderers support a specific native ad format, the first one registered will be used.
@@ -200,6 +247,43 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
             return;
         }
         mStreamAdPlacer.registerAdRenderer(adRenderer);
+        fillAdViewPool();
+    }
+
+    /**
+     * Sets how many ad views to inflate ahead of time for each registered ad renderer. The views
+     * are inflated on a background thread and used when ads scroll into view, instead of inflating
+     * them on the main thread. Defaults to 0, which disables pre-inflation. At most
+     * {@link AdViewPool#MAX_POOL_SIZE} views are kept per renderer.
+     *
+     * Only use this if your ad layouts can be inflated off the main thread, i.e. they don't
+     * contain views that need a Looper when they're constructed. Renderers whose layouts fail to
+     * inflate in the background fall back to inflating on the main thread.
+     *
+     * @param poolSize The number of ad views to keep ready per ad renderer.
+     */
+    public void setAdViewPoolSize(final int poolSize) {
+        mAdViewPool.setPoolSize(poolSize);
+        fillAdViewPool();
+    }
+
+    private void fillAdViewPool() {
+        if (mRecyclerView == null || mAdViewPool.getPoolSize() == 0) {
+            return;
+        }
+        final int viewTypeCount = mStreamAdPlacer.getAdViewTypeCount();
+        for (int viewType = 1; viewType <= viewTypeCount; viewType++) {
+            final MoPubAdRenderer adRenderer = mStreamAdPlacer.getAdRendererForViewType(viewType);
+            if (adRenderer != null) {
+                mAdViewPool.fill(mRecyclerView.getContext(), mRecyclerView, viewType, adRenderer);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    @NonNull
+    AdViewPool getAdViewPool() {
+        return mAdViewPool;
     }
 
     /**
@@ -409,8 +493,16 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
                 // This will cause a null pointer exception.
                 return null;
             }
-            return new MoPubRecyclerViewHolder(
-                    adRenderer.createAdView((Activity) parent.getContext(), parent));
+            final int rendererViewType = viewType - NATIVE_AD_VIEW_TYPE_BASE;
+            View adView = mAdViewPool.obtain(rendererViewType);
+            if (adView == null) {
+                adView = adRenderer.createAdView((Activity) parent.getContext(), parent);
+            }
+            if (mAdViewPool.getPoolSize() > 0) {
+                // Top the pool back up for the next ad.
+                mAdViewPool.fill(parent.getContext(), parent, rendererViewType, adRenderer);
+            }
+            return new MoPubRecyclerViewHolder(adView);
         }
 
         return mOriginalAdapter.onCreateViewHolder(parent, viewType);
@@ -455,6 +547,7 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
         mOriginalAdapter.unregisterAdapterDataObserver(mAdapterDataObserver);
         mStreamAdPlacer.destroy();
         mVisibilityTracker.destroy();
+        mAdViewPool.clear();
     }
 
     /**
@@ -527,20 +620,95 @@ public final class MoPubRecyclerAdapter extends RecyclerView.Adapter<RecyclerVie
 
     @VisibleForTesting
     void handleAdLoaded(final int position) {
+        handleAdRangeLoaded(position, 1);
+    }
+
+    @VisibleForTesting
+    void handleAdRemoved(final int position) {
+        handleAdRangeRemoved(position, 1);
+    }
+
+    @VisibleForTesting
+    void handleAdRangeLoaded(final int positionStart, final int itemCount) {
         if (mAdLoadedListener != null) {
-            mAdLoadedListener.onAdLoaded(position);
+            for (int i = 0; i < itemCount; i++) {
+                mAdLoadedListener.onAdLoaded(positionStart + i);
+            }
         }
 
-        notifyItemInserted(position);
+        notifyItemRangeInserted(positionStart, itemCount);
     }
 
     @VisibleForTesting
-    void handleAdRemoved(final int position) {
+    void handleAdRangeRemoved(final int positionStart, final int itemCount) {
         if (mAdLoadedListener != null) {
-            mAdLoadedListener.onAdRemoved(position);
+            // The placer removes ads from the end of the stream first.
+            for (int i = itemCount - 1; i >= 0; i--) {
+                mAdLoadedListener.onAdRemoved(positionStart + i);
+            }
+        }
+
+        notifyItemRangeRemoved(positionStart, itemCount);
+    }
+
+    private void handleContentRangeChanged(final int positionStart, final int itemCount,
+            @Nullable final Object payload) {
+        int adjustedEndPosition = mStreamAdPlacer.getAdjustedPosition(positionStart + itemCount - 1);
+        int adjustedStartPosition = mStreamAdPlacer.getAdjustedPosition(positionStart);
+        int adjustedCount = adjustedEndPosition - adjustedStartPosition + 1;
+        notifyItemRangeChanged(adjustedStartPosition, adjustedCount, payload);
+    }
+
+    /**
+     * @return false if the data set was refreshed instead of notifying a range insertion.
+     */
+    private boolean handleContentRangeInserted(final int positionStart, final int itemCount,
+            final int newOriginalCount) {
+        final int adjustedStartPosition = mStreamAdPlacer.getAdjustedPosition(positionStart);
+        setOriginalItemCount(newOriginalCount);
+        final boolean addingToEnd = positionStart + itemCount >= newOriginalCount;
+        if (KEEP_ADS_FIXED == mStrategy
+                || (INSERT_AT_END == mStrategy
+                && addingToEnd)) {
+            notifyDataSetChanged();
+            return false;
         }
 
-        notifyItemRemoved(position);
+        // We insert itemCount items at the original position, moving ads downstream.
+        mStreamAdPlacer.insertItems(positionStart, itemCount);
+        notifyItemRangeInserted(adjustedStartPosition, itemCount);
+        return true;
+    }
+
+    /**
+     * @return false if the data set was refreshed instead of notifying a range removal.
+     */
+    private boolean handleContentRangeRemoved(final int positionStart, final int itemsRemoved,
+            final int newOriginalCount) {
+        int adjustedStartPosition = mStreamAdPlacer.getAdjustedPosition(positionStart);
+        setOriginalItemCount(newOriginalCount);
+        final boolean removingFromEnd = positionStart + itemsRemoved >= newOriginalCount;
+        if (KEEP_ADS_FIXED == mStrategy
+                || (INSERT_AT_END == mStrategy
+                && removingFromEnd)) {
+            notifyDataSetChanged();
+            return false;
+        }
+
+        final int oldAdjustedCount = mStreamAdPlacer.getAdjustedCount(newOriginalCount + itemsRemoved);
+        // We remove itemsRemoved items at the original position.
+        mStreamAdPlacer.removeItems(positionStart, itemsRemoved);
+
+        final int itemsRemovedIncludingAds = oldAdjustedCount - mStreamAdPlacer.getAdjustedCount(newOriginalCount);
+        // Need to move the start position back by the # of ads removed.
+        adjustedStartPosition -= itemsRemovedIncludingAds - itemsRemoved;
+        notifyItemRangeRemoved(adjustedStartPosition, itemsRemovedIncludingAds);
+        return true;
+    }
+
+    private void setOriginalItemCount(final int originalItemCount) {
+        mOriginalItemCount = originalItemCount;
+        mStreamAdPlacer.setItemCount(originalItemCount);
     }
 
     private void handleVisibilityChanged(final List<View> visibleViews,
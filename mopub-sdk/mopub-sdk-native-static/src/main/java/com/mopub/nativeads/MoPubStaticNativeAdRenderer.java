@@ -62,6 +62,24 @@ public class MoPubStaticNativeAdRenderer implements MoPubAdRenderer<StaticNative
         setViewVisibility(staticNativeViewHolder, VISIBLE);
     }
 
+    /**
+     * Looks up the views in the binder. Only touches the given view, so this is safe to call on a
+     * background thread for a view that isn't attached yet.
+     */
+    @NonNull
+    StaticNativeViewHolder resolveViewHolder(@NonNull final View view) {
+        return StaticNativeViewHolder.fromViewBinder(view, mViewBinder);
+    }
+
+    /**
+     * Registers a view holder resolved ahead of time, so rendering into the view doesn't have to
+     * look the views up again. Must be called on the main thread.
+     */
+    void putViewHolder(@NonNull final View view,
+            @NonNull final StaticNativeViewHolder staticNativeViewHolder) {
+        mViewHolderMap.put(view, staticNativeViewHolder);
+    }
+
     @Override
     public boolean supports(@NonNull final BaseNativeAd nativeAd) {
         Preconditions.checkNotNull(nativeAd);
@@ -7,6 +7,7 @@ package com.mopub.nativeads;
 import android.app.Activity;
 import android.content.Context;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.View;
@@ -23,6 +24,8 @@ import com.mopub.nativeads.PositioningSource.PositioningListener;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.WeakHashMap;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
@@ -65,6 +68,8 @@ public class MoPubStreamAdPlacer {
 
     @NonNull private final HashMap<NativeAd, WeakReference<View>> mViewMap;
     @NonNull private final WeakHashMap<View, NativeAd> mNativeAdMap;
+    // Ads placed just past the visible range that have been asked to fetch their assets.
+    @NonNull private final Set<NativeAd> mPrefetchingAds;
 
     private boolean mHasReceivedPositions;
     @Nullable private PlacementData mPendingPlacementData;
@@ -76,6 +81,9 @@ public class MoPubStreamAdPlacer {
 
     @NonNull private MoPubNativeAdLoadedListener mAdLoadedListener =
             EMPTY_NATIVE_AD_LOADED_LISTENER;
+    @Nullable private MoPubNativeAdRangeListener mAdRangeListener;
+    // Ad insertions and removals made during the current placement pass, merged into ranges.
+    @NonNull private final AdPositionChangeBatch mPendingChanges = new AdPositionChangeBatch();
 
     // The visible range is the range of items which we believe are visible, inclusive.
     // Placing ads near this range makes for a smoother user experience when scrolling up
@@ -89,6 +97,13 @@ public class MoPubStreamAdPlacer {
     private static final int RANGE_BUFFER = 6;
     private boolean mNeedsPlacement;
 
+    // Scroll velocity tracking. While the user scrolls forward, the ad source is asked to have
+    // enough ads ready for the positions that will come into view within the lookahead window.
+    private static final int PREWARM_LOOKAHEAD_MILLIS = 2000;
+    private static final int MAX_SCROLL_SAMPLE_INTERVAL_MILLIS = 1000;
+    private int mLastScrollPosition;
+    private long mLastScrollTimeMillis;
+
     /**
      * Creates a new MoPubStreamAdPlacer object.
      *
@@ -146,6 +161,7 @@ public class MoPubStreamAdPlacer {
 
         mNativeAdMap = new WeakHashMap<>();
         mViewMap = new HashMap<>();
+        mPrefetchingAds = new HashSet<>();
 
         mPlacementHandler = new Handler();
         mPlacementRunnable = new Runnable() {
@@ -202,6 +218,21 @@ public class MoPubStreamAdPlacer {
         mAdLoadedListener = (listener == null) ? EMPTY_NATIVE_AD_LOADED_LISTENER : listener;
     }
 
+    /**
+     * Sets a listener that will be called with coalesced ranges of ad changes.
+     *
+     * Ads placed or removed together, for example during the initial placement, a single
+     * placement pass or {@link #clearAds()}, are reported once per contiguous run at the end of
+     * the pass instead of once per ad. This listener is called in addition to the listener set
+     * with {@link #setAdLoadedListener}. You can also set the listener to {@code null} to remove
+     * the listener.
+     *
+     * @param listener The listener.
+     */
+    public void setAdRangeListener(@Nullable final MoPubNativeAdRangeListener listener) {
+        mAdRangeListener = listener;
+    }
+
     /**
      * Start loading ads from the MoPub server.
      *
@@ -299,11 +330,13 @@ public class MoPubStreamAdPlacer {
     private void placeInitialAds(PlacementData placementData) {
         // Remove ads that may be present and immediately place ads again. This prevents the UI
         // from flashing grossly.
+        mPendingChanges.begin();
         removeAdsInRange(0, mItemCount);
 
         mPlacementData = placementData;
         placeAds();
         mHasPlacedAds = true;
+        mPendingChanges.end(mAdRangeListener);
     }
 
     /**
@@ -329,9 +362,99 @@ public class MoPubStreamAdPlacer {
     public void placeAdsInRange(final int startPosition, final int endPosition) {
         mVisibleRangeStart = startPosition;
         mVisibleRangeEnd = Math.min(endPosition, startPosition + MAX_VISIBLE_RANGE);
+        updatePrewarmCount(startPosition, SystemClock.uptimeMillis());
         notifyNeedsPlacement();
     }
 
+    /**
+     * Sets how many ads should be loaded ahead of time and kept ready for upcoming ad positions.
+     * The default is 1. Larger values reduce the chance that an ad position is skipped while the
+     * user scrolls quickly, at the cost of memory for each queued ad. Values are clamped to
+     * [1, 8].
+     *
+     * @param prefetchDepth The number of ads to keep ready.
+     */
+    public void setPrefetchDepth(final int prefetchDepth) {
+        mAdSource.setPrefetchDepth(prefetchDepth);
+    }
+
+    /**
+     * Sets how many ad requests may be in flight at the same time while filling the prefetch
+     * queue. The default is 1. Values are clamped to [1, 3].
+     *
+     * @param maxConcurrentRequests The maximum number of concurrent ad requests.
+     */
+    public void setMaxConcurrentAdRequests(final int maxConcurrentRequests) {
+        mAdSource.setMaxConcurrentRequests(maxConcurrentRequests);
+    }
+
+    /**
+     * Returns how many times an ad position was reached but no ad was ready to be placed there.
+     *
+     * @return The number of skipped ad positions since this ad placer was created.
+     */
+    public int getSkippedAdPositionCount() {
+        return mAdSource.getEmptyDequeueCount();
+    }
+
+    /**
+     * Returns how many times an ad position was reached and an ad was requested from the queue.
+     * Together with {@link #getSkippedAdPositionCount()} this gives the queue hit rate.
+     *
+     * @return The number of ad positions that were attempted since this ad placer was created.
+     */
+    public int getAttemptedAdPositionCount() {
+        return mAdSource.getDequeueCount();
+    }
+
+    /**
+     * Estimates the scroll velocity from consecutive calls to {@link #placeAdsInRange} and asks the
+     * ad source to pre-warm one ad for each ad position expected within the lookahead window.
+     */
+    @VisibleForTesting
+    void updatePrewarmCount(final int startPosition, final long nowMillis) {
+        final long elapsedMillis = nowMillis - mLastScrollTimeMillis;
+        final int distance = startPosition - mLastScrollPosition;
+        mLastScrollPosition = startPosition;
+        mLastScrollTimeMillis = nowMillis;
+
+        if (elapsedMillis <= 0) {
+            return;
+        }
+
+        // Scrolling backwards or stopping ends pre-warming. Ads above the visible range are
+        // already placed.
+        if (distance <= 0 || elapsedMillis > MAX_SCROLL_SAMPLE_INTERVAL_MILLIS) {
+            mAdSource.setPrewarmCount(0);
+            return;
+        }
+
+        final long lookaheadItems = distance * (long) PREWARM_LOOKAHEAD_MILLIS / elapsedMillis;
+        final int lookaheadEnd = (int) Math.min(Integer.MAX_VALUE,
+                mVisibleRangeEnd + RANGE_BUFFER + lookaheadItems);
+        mAdSource.setPrewarmCount(
+                countInsertionPositions(mVisibleRangeEnd + RANGE_BUFFER, lookaheadEnd,
+                        NativeAdSource.MAX_CACHE_LIMIT));
+    }
+
+    /**
+     * Counts the positions in [start, end) where an ad would be placed, up to maxCount.
+     */
+    private int countInsertionPositions(final int start, final int end, final int maxCount) {
+        int count = 0;
+        int position = start;
+        while (position < end && position != PlacementData.NOT_FOUND && count < maxCount) {
+            if (position >= mItemCount) {
+                break;
+            }
+            if (mPlacementData.shouldPlaceAd(position)) {
+                count++;
+            }
+            position = mPlacementData.nextInsertionPosition(position);
+        }
+        return count;
+    }
+
     /**
      * Whether the given position is an ad.
      *
@@ -356,6 +479,7 @@ public class MoPubStreamAdPlacer {
      * ad that is removed from the stream.
      */
     public void clearAds() {
+        cancelPrefetching();
         removeAdsInRange(0, mItemCount);
         mAdSource.clear();
     }
@@ -371,6 +495,7 @@ public class MoPubStreamAdPlacer {
      */
     public void destroy() {
         mPlacementHandler.removeMessages(0);
+        cancelPrefetching();
         mAdSource.clear();
         mPlacementData.clearAds();
     }
@@ -469,9 +594,12 @@ public class MoPubStreamAdPlacer {
         }
 
         int clearedAdsCount = mPlacementData.clearAdsInRange(adjustedStartRange, adjustedEndRange);
+        mPendingChanges.begin();
         for (int position : removedPositions) {
             mAdLoadedListener.onAdRemoved(position);
+            mPendingChanges.adRemoved(position);
         }
+        mPendingChanges.end(mAdRangeListener);
         return clearedAdsCount;
     }
 
@@ -593,6 +721,20 @@ public class MoPubStreamAdPlacer {
         mPlacementData.insertItem(originalPosition);
     }
 
+    /**
+     * Inserts itemCount content rows at the given position, adjusting ad positions accordingly.
+     *
+     * This is equivalent to calling {@link #insertItem(int)} itemCount times with the same
+     * position, but adjusts ad positions once for the whole range.
+     *
+     * @param originalPosition The position at which to add the items. If you have an adjusted
+     * position, you will need to call {@link #getOriginalPosition} to get this value.
+     * @param itemCount The number of items to add.
+     */
+    public void insertItems(final int originalPosition, final int itemCount) {
+        mPlacementData.insertItems(originalPosition, itemCount);
+    }
+
     /**
      * Removes the content row at the given position, adjusting ad positions accordingly.
      *
@@ -614,6 +756,21 @@ public class MoPubStreamAdPlacer {
         mPlacementData.removeItem(originalPosition);
     }
 
+    /**
+     * Removes itemCount content rows starting at the given position, adjusting ad positions
+     * accordingly.
+     *
+     * This is equivalent to calling {@link #removeItem(int)} itemCount times with the same
+     * position, but adjusts ad positions once for the whole range.
+     *
+     * @param originalPosition The position of the first item to remove. If you have an adjusted
+     * position, you will need to call {@link #getOriginalPosition} to get this value.
+     * @param itemCount The number of items to remove.
+     */
+    public void removeItems(final int originalPosition, final int itemCount) {
+        mPlacementData.removeItems(originalPosition, itemCount);
+    }
+
     /**
      * Moves the content row at the given position adjusting ad positions accordingly.
      *
@@ -651,15 +808,52 @@ public class MoPubStreamAdPlacer {
      * Places ads using the current visible range.
      */
     private void placeAds() {
-        // Place ads within the visible range
-        if (!tryPlaceAdsInRange(mVisibleRangeStart, mVisibleRangeEnd)) {
-            return;
+        mPendingChanges.begin();
+        // Place ads within the visible range. If that succeeds, place ads after the visible range
+        // so that user will see an ad if they scroll down. We don't place an ad before the visible
+        // range, because we are trying to be mindful of changes that will affect scrolling.
+        if (tryPlaceAdsInRange(mVisibleRangeStart, mVisibleRangeEnd)) {
+            tryPlaceAdsInRange(mVisibleRangeEnd, mVisibleRangeEnd + RANGE_BUFFER);
+        }
+        mPendingChanges.end(mAdRangeListener);
+        updatePrefetchingAds();
+    }
+
+    /**
+     * Asks the ads placed in the buffer after the visible range to fetch their assets, and tells
+     * the ones that have left it to stop. Ads that scrolled into view stop too; by then they are
+     * loading for display.
+     */
+    @VisibleForTesting
+    void updatePrefetchingAds() {
+        final Set<NativeAd> upcomingAds = new HashSet<>();
+        for (int position = mVisibleRangeEnd; position < mVisibleRangeEnd + RANGE_BUFFER;
+                position++) {
+            final NativeAd nativeAd = mPlacementData.getPlacedAd(position);
+            if (nativeAd != null) {
+                upcomingAds.add(nativeAd);
+            }
+        }
+
+        for (final NativeAd nativeAd : mPrefetchingAds) {
+            if (!upcomingAds.contains(nativeAd)) {
+                nativeAd.cancelPrefetch();
+            }
+        }
+        for (final NativeAd nativeAd : upcomingAds) {
+            if (!mPrefetchingAds.contains(nativeAd)) {
+                nativeAd.prefetch();
+            }
         }
+        mPrefetchingAds.clear();
+        mPrefetchingAds.addAll(upcomingAds);
+    }
 
-        // Place ads after the visible range so that user will see an ad if they scroll down. We
-        // don't place an ad before the visible range, because we are trying to be mindful of
-        // changes that will affect scrolling.
-        tryPlaceAdsInRange(mVisibleRangeEnd, mVisibleRangeEnd + RANGE_BUFFER);
+    private void cancelPrefetching() {
+        for (final NativeAd nativeAd : mPrefetchingAds) {
+            nativeAd.cancelPrefetch();
+        }
+        mPrefetchingAds.clear();
     }
 
     /**
@@ -705,6 +899,7 @@ public class MoPubStreamAdPlacer {
         mItemCount++;
 
         mAdLoadedListener.onAdLoaded(position);
+        mPendingChanges.adInserted(position);
         return true;
     }
 
@@ -213,6 +213,28 @@ public class NativeAd {
         mIsDestroyed = true;
     }
 
+    /**
+     * Lets the ad fetch its assets ahead of being shown. See {@link BaseNativeAd#prefetch()}.
+     */
+    void prefetch() {
+        if (mIsDestroyed) {
+            return;
+        }
+
+        mBaseNativeAd.prefetch();
+    }
+
+    /**
+     * Stops fetching started by {@link #prefetch()}.
+     */
+    void cancelPrefetch() {
+        if (mIsDestroyed) {
+            return;
+        }
+
+        mBaseNativeAd.cancelPrefetch();
+    }
+
     // Event Handlers
     @VisibleForTesting
     void recordImpression(@Nullable final View view) {
@@ -5,14 +5,18 @@
 package com.mopub.nativeads;
 
 import android.app.Activity;
+import android.content.Context;
 import android.os.Handler;
 import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.mopub.common.SdkMemoryManager;
 import com.mopub.common.VisibleForTesting;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.mopub.common.Constants.AD_EXPIRATION_DELAY;
@@ -32,13 +36,25 @@ import static com.mopub.nativeads.MoPubNative.MoPubNativeNetworkListener;
  * The ad source also takes care of retrying failed ad requests, with a reasonable back-off to
  * avoid spamming the server.
  *
+ * While loading, queued ads are dropped when {@link SdkMemoryManager} trims preloaded ads. The
+ * next dequeue starts replenishing the cache again.
+ *
  * This class is not thread safe and should only be called from the UI thread.
  */
 class NativeAdSource {
     /**
-     * Number of ads to cache
+     * Default number of ads to cache
      */
     private static final int CACHE_LIMIT = 1;
+    /**
+     * Upper bound for the prefetch depth, including scroll pre-warming. Every cached ad holds its
+     * images in memory, so this should stay small.
+     */
+    @VisibleForTesting static final int MAX_CACHE_LIMIT = 8;
+    /**
+     * Upper bound for the number of ad requests that may be in flight at the same time.
+     */
+    @VisibleForTesting static final int MAX_CONCURRENT_REQUESTS = 3;
 
     private static final int EXPIRATION_TIME_MILLISECONDS = AD_EXPIRATION_DELAY;
     private static final int MAXIMUM_RETRY_TIME_MILLISECONDS = 5 * 60 * 1000; // 5 minutes.
@@ -54,13 +70,27 @@ class NativeAdSource {
     @VisibleForTesting int mSequenceNumber;
     @VisibleForTesting int mCurrentRetries;
 
+    private int mCacheLimit = CACHE_LIMIT;
+    private int mMaxConcurrentRequests = 1;
+    private int mPrewarmCount;
+    // Loaders beyond the first, used only when more than one concurrent request is allowed.
+    @NonNull private final List<ConcurrentLoader> mConcurrentLoaders;
+
+    private int mDequeueCount;
+    private int mEmptyDequeueCount;
+    private int mExpiredAdCount;
+
     @Nullable private AdSourceListener mAdSourceListener;
 
     // We will need collections of these when we support multiple ad units.
     @Nullable private RequestParameters mRequestParameters;
     @Nullable private MoPubNative mMoPubNative;
+    @Nullable private Context mContext;
+    @Nullable private WeakReference<Activity> mActivity;
+    @Nullable private String mAdUnitId;
 
     @NonNull private final AdRendererRegistry mAdRendererRegistry;
+    @NonNull private final SdkMemoryManager.TrimmableCache mTrimmableCache;
 
     /**
      * A listener for when ads are available for dequeueing.
@@ -93,6 +123,33 @@ class NativeAdSource {
         };
 
         mAdRendererRegistry = adRendererRegistry;
+        mTrimmableCache = new SdkMemoryManager.TrimmableCache() {
+            @NonNull
+            @Override
+            public String getName() {
+                return "Native ad queue";
+            }
+
+            @Override
+            public int getEntryCount() {
+                return mNativeAdCache.size();
+            }
+
+            @Override
+            public long getMemoryBytes() {
+                return 0;
+            }
+
+            @Override
+            public long getDiskBytes() {
+                return 0;
+            }
+
+            @Override
+            public void trim() {
+                dropQueuedAds();
+            }
+        };
 
         // Construct native URL and start filling the cache
         mMoPubNativeNetworkListener = new MoPubNativeNetworkListener() {
@@ -105,39 +162,111 @@ class NativeAdSource {
                 }
 
                 mRequestInFlight = false;
-                mSequenceNumber++;
-                resetRetryTime();
-
-                mNativeAdCache.add(new TimestampWrapper<NativeAd>(nativeAd));
-                if (mNativeAdCache.size() == 1 && mAdSourceListener != null) {
-                    mAdSourceListener.onAdsAvailable();
-                }
-
-                replenishCache();
+                handleNativeLoad(nativeAd);
             }
 
             @Override
             public void onNativeFail(final NativeErrorCode errorCode) {
                 // Reset the retry time for the next time we dequeue.
                 mRequestInFlight = false;
-
-                // Stopping requests after the max retry count prevents us from using battery when
-                // the user is not interacting with the stream, eg. the app is backgrounded.
-                if (mCurrentRetries >= RETRY_TIME_ARRAY_MILLISECONDS.length - 1) {
-                    resetRetryTime();
-                    return;
-                }
-
-                updateRetryTime();
-                mRetryInFlight = true;
-                mReplenishCacheHandler.postDelayed(mReplenishCacheRunnable, getRetryTime());
+                handleNativeFail();
             }
         };
+        mConcurrentLoaders = new ArrayList<ConcurrentLoader>();
 
         mSequenceNumber = 0;
         resetRetryTime();
     }
 
+    private void handleNativeLoad(@NonNull final NativeAd nativeAd) {
+        mSequenceNumber++;
+        resetRetryTime();
+
+        mNativeAdCache.add(new TimestampWrapper<NativeAd>(nativeAd));
+        prefetchImages(nativeAd);
+        if (mNativeAdCache.size() == 1 && mAdSourceListener != null) {
+            mAdSourceListener.onAdsAvailable();
+        }
+
+        replenishCache();
+    }
+
+    private void handleNativeFail() {
+        // A retry is already scheduled by another concurrent request.
+        if (mRetryInFlight) {
+            return;
+        }
+
+        // Stopping requests after the max retry count prevents us from using battery when
+        // the user is not interacting with the stream, eg. the app is backgrounded.
+        if (mCurrentRetries >= RETRY_TIME_ARRAY_MILLISECONDS.length - 1) {
+            resetRetryTime();
+            return;
+        }
+
+        updateRetryTime();
+        mRetryInFlight = true;
+        mReplenishCacheHandler.postDelayed(mReplenishCacheRunnable, getRetryTime());
+    }
+
+    /**
+     * Sets how many ads the source tries to keep ready in its queue. Values are clamped to
+     * [1, {@link #MAX_CACHE_LIMIT}].
+     */
+    void setPrefetchDepth(final int prefetchDepth) {
+        mCacheLimit = Math.max(1, Math.min(prefetchDepth, MAX_CACHE_LIMIT));
+        replenishCache();
+    }
+
+    /**
+     * Sets how many ad requests may be in flight at the same time. Values are clamped to
+     * [1, {@link #MAX_CONCURRENT_REQUESTS}].
+     */
+    void setMaxConcurrentRequests(final int maxConcurrentRequests) {
+        mMaxConcurrentRequests = Math.max(1,
+                Math.min(maxConcurrentRequests, MAX_CONCURRENT_REQUESTS));
+        replenishCache();
+    }
+
+    /**
+     * Requests additional ads on top of the prefetch depth, typically because the user is
+     * scrolling quickly towards upcoming ad positions. Pass 0 to go back to the base depth.
+     */
+    void setPrewarmCount(final int prewarmCount) {
+        final int clamped = Math.max(0, prewarmCount);
+        if (clamped == mPrewarmCount) {
+            return;
+        }
+        mPrewarmCount = clamped;
+        replenishCache();
+    }
+
+    @VisibleForTesting
+    int getTargetCacheSize() {
+        return Math.min(mCacheLimit + mPrewarmCount, MAX_CACHE_LIMIT);
+    }
+
+    /**
+     * @return The number of times an ad was requested for a slot but the queue was empty.
+     */
+    int getEmptyDequeueCount() {
+        return mEmptyDequeueCount;
+    }
+
+    /**
+     * @return The total number of times an ad was requested for a slot.
+     */
+    int getDequeueCount() {
+        return mDequeueCount;
+    }
+
+    /**
+     * @return The number of queued ads that were dropped because they expired before use.
+     */
+    int getExpiredAdCount() {
+        return mExpiredAdCount;
+    }
+
     int getAdRendererCount() {
         return mAdRendererRegistry.getAdRendererCount();
     }
@@ -156,6 +285,9 @@ class NativeAdSource {
         if (mMoPubNative != null) {
             mMoPubNative.registerAdRenderer(moPubNativeAdRenderer);
         }
+        for (final ConcurrentLoader loader : mConcurrentLoaders) {
+            loader.mMoPubNative.registerAdRenderer(moPubNativeAdRenderer);
+        }
     }
 
     @Nullable
@@ -174,7 +306,13 @@ class NativeAdSource {
     void loadAds(@NonNull final Activity activity,
             @NonNull final String adUnitId,
             final RequestParameters requestParameters) {
+        mContext = activity.getApplicationContext();
         loadAds(requestParameters, new MoPubNative(activity, adUnitId, mMoPubNativeNetworkListener));
+
+        // Concurrent loaders need these to create their own MoPubNative instances.
+        mActivity = new WeakReference<Activity>(activity);
+        mAdUnitId = adUnitId;
+        replenishCache();
     }
 
     @VisibleForTesting
@@ -188,6 +326,7 @@ class NativeAdSource {
 
         mRequestParameters = requestParameters;
         mMoPubNative = moPubNative;
+        SdkMemoryManager.register(mTrimmableCache, SdkMemoryManager.PRIORITY_PRELOADED_ADS);
 
         replenishCache();
     }
@@ -196,25 +335,44 @@ class NativeAdSource {
      * Clears the ad source, removing any currently queued ads.
      */
     void clear() {
+        SdkMemoryManager.unregister(mTrimmableCache);
+
         // This will cleanup listeners to stop callbacks from handling old ad units
         if (mMoPubNative != null) {
             mMoPubNative.destroy();
             mMoPubNative = null;
         }
+        for (final ConcurrentLoader loader : mConcurrentLoaders) {
+            loader.mMoPubNative.destroy();
+        }
+        mConcurrentLoaders.clear();
+        mActivity = null;
+        mAdUnitId = null;
 
         mRequestParameters = null;
 
-        for (final TimestampWrapper<NativeAd> timestampWrapper : mNativeAdCache) {
-            timestampWrapper.mInstance.destroy();
-        }
-        mNativeAdCache.clear();
+        dropQueuedAds();
 
+        // This drops a pending retry as well, so nothing is waiting on it anymore.
         mReplenishCacheHandler.removeMessages(0);
+        mRetryInFlight = false;
         mRequestInFlight = false;
         mSequenceNumber = 0;
+        mPrewarmCount = 0;
         resetRetryTime();
     }
 
+    /**
+     * Destroys the queued ads without stopping the ad source.
+     */
+    @VisibleForTesting
+    void dropQueuedAds() {
+        for (final TimestampWrapper<NativeAd> timestampWrapper : mNativeAdCache) {
+            timestampWrapper.mInstance.destroy();
+        }
+        mNativeAdCache.clear();
+    }
+
     /**
      * Removes an ad from the front of the ad source cache.
      *
@@ -234,17 +392,55 @@ class NativeAdSource {
             mReplenishCacheHandler.post(mReplenishCacheRunnable);
         }
 
+        mDequeueCount++;
+
         // Dequeue the first ad that hasn't expired.
         while (!mNativeAdCache.isEmpty()) {
             TimestampWrapper<NativeAd> responseWrapper = mNativeAdCache.remove(0);
 
             if (now - responseWrapper.mCreatedTimestamp < EXPIRATION_TIME_MILLISECONDS) {
+                // The ad may have sat in the queue long enough for its images to be evicted from
+                // memory. Pull them back from disk while the ad view is being created.
+                prefetchImages(responseWrapper.mInstance);
                 return responseWrapper.mInstance;
             }
+            mExpiredAdCount++;
+            responseWrapper.mInstance.destroy();
         }
+        mEmptyDequeueCount++;
         return null;
     }
 
+    /**
+     * Drops queued ads that have outlived their TTL so they don't count towards the cache size.
+     */
+    @VisibleForTesting
+    void evictExpiredAds() {
+        final long now = SystemClock.uptimeMillis();
+        for (int i = mNativeAdCache.size() - 1; i >= 0; i--) {
+            final TimestampWrapper<NativeAd> responseWrapper = mNativeAdCache.get(i);
+            if (now - responseWrapper.mCreatedTimestamp >= EXPIRATION_TIME_MILLISECONDS) {
+                mNativeAdCache.remove(i);
+                mExpiredAdCount++;
+                responseWrapper.mInstance.destroy();
+            }
+        }
+    }
+
+    /**
+     * Warms the native image cache for a queued ad so that binding it does not wait on a disk
+     * read and decode.
+     */
+    private void prefetchImages(@NonNull final NativeAd nativeAd) {
+        if (mContext == null || !(nativeAd.getBaseNativeAd() instanceof StaticNativeAd)) {
+            return;
+        }
+
+        final StaticNativeAd staticNativeAd = (StaticNativeAd) nativeAd.getBaseNativeAd();
+        NativeImageCache.getInstance(mContext).prefetch(mContext,
+                Arrays.asList(staticNativeAd.getIconImageUrl(), staticNativeAd.getMainImageUrl()));
+    }
+
     @VisibleForTesting
     void updateRetryTime() {
         if (mCurrentRetries < RETRY_TIME_ARRAY_MILLISECONDS.length - 1) {
@@ -268,14 +464,99 @@ class NativeAdSource {
     /**
      * Replenish ads in the ad source cache.
      *
-     * Calling this method is useful for warming the cache without dequeueing an ad.
+     * Calling this method is useful for warming the cache without dequeueing an ad. Requests are
+     * issued until the number of queued plus in-flight ads reaches the target cache size, with at
+     * most {@link #setMaxConcurrentRequests} requests in flight.
      */
     @VisibleForTesting
     void replenishCache() {
-        if (!mRequestInFlight && mMoPubNative != null && mNativeAdCache.size() < CACHE_LIMIT) {
+        if (mMoPubNative == null) {
+            return;
+        }
+
+        evictExpiredAds();
+
+        final int targetCacheSize = getTargetCacheSize();
+        // Ads that concurrent loaders are still fetching count towards the target.
+        if (!mRequestInFlight
+                && mNativeAdCache.size() + getRequestsInFlightCount() < targetCacheSize) {
             mRequestInFlight = true;
             mMoPubNative.makeRequest(mRequestParameters, mSequenceNumber);
         }
+
+        // Additional loaders are held back while a failure backoff is pending.
+        final Activity activity = mActivity == null ? null : mActivity.get();
+        if (mMaxConcurrentRequests <= 1 || mRetryInFlight || activity == null
+                || mAdUnitId == null) {
+            return;
+        }
+
+        int inFlightCount = getRequestsInFlightCount();
+        while (inFlightCount < mMaxConcurrentRequests
+                && mNativeAdCache.size() + inFlightCount < targetCacheSize) {
+            final ConcurrentLoader loader = getIdleConcurrentLoader(activity, mAdUnitId);
+            loader.mRequestInFlight = true;
+            loader.mMoPubNative.makeRequest(mRequestParameters, mSequenceNumber + inFlightCount);
+            inFlightCount++;
+        }
+    }
+
+    @VisibleForTesting
+    int getRequestsInFlightCount() {
+        int count = mRequestInFlight ? 1 : 0;
+        for (final ConcurrentLoader loader : mConcurrentLoaders) {
+            if (loader.mRequestInFlight) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @NonNull
+    private ConcurrentLoader getIdleConcurrentLoader(@NonNull final Activity activity,
+            @NonNull final String adUnitId) {
+        for (final ConcurrentLoader loader : mConcurrentLoaders) {
+            if (!loader.mRequestInFlight) {
+                return loader;
+            }
+        }
+
+        final ConcurrentLoader loader = new ConcurrentLoader();
+        loader.mMoPubNative = new MoPubNative(activity, adUnitId, loader);
+        for (MoPubAdRenderer renderer : mAdRendererRegistry.getRendererIterable()) {
+            loader.mMoPubNative.registerAdRenderer(renderer);
+        }
+        mConcurrentLoaders.add(loader);
+        return loader;
+    }
+
+    /**
+     * A {@link MoPubNative} used in addition to the primary one. {@link MoPubNative} only supports
+     * one request at a time, so each concurrent request needs its own instance.
+     */
+    private class ConcurrentLoader implements MoPubNativeNetworkListener {
+        MoPubNative mMoPubNative;
+        boolean mRequestInFlight;
+
+        @Override
+        public void onNativeLoad(@NonNull final NativeAd nativeAd) {
+            // Drop responses that arrive after the ad source was cleared.
+            if (!mConcurrentLoaders.contains(this)) {
+                nativeAd.destroy();
+                return;
+            }
+
+            mRequestInFlight = false;
+            handleNativeLoad(nativeAd);
+        }
+
+        @Override
+        public void onNativeFail(final NativeErrorCode errorCode) {
+            mRequestInFlight = false;
+            if (mConcurrentLoaders.contains(this)) {
+                handleNativeFail();
+            }
+        }
     }
 
     @Deprecated
@@ -13,6 +13,7 @@ import android.view.View.OnClickListener;
 import android.view.ViewGroup;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.ResolvedUrlCache;
 import com.mopub.common.UrlAction;
 import com.mopub.common.UrlHandler;
 import com.mopub.common.VisibleForTesting;
@@ -96,7 +97,7 @@ public class NativeClickHandler {
 
     /**
      * Handles resolving and opening the click destination url. A spinning progress view is shown
-     * while the click destination is being resolved.
+     * while the click destination is being resolved, unless it was resolved ahead of time.
      *
      * @param clickDestinationUrl The click destination url
      * @param view The view on which to display the spinning progress view
@@ -123,7 +124,8 @@ public class NativeClickHandler {
         }
         mClickInProgress = true;
 
-        if (view != null) {
+        final boolean isResolved = ResolvedUrlCache.get(clickDestinationUrl) != null;
+        if (view != null && !isResolved) {
             spinningProgressView.addToRoot(view);
         }
 
@@ -155,7 +157,7 @@ public class NativeClickHandler {
                     }
 
                     private void removeSpinningProgressView() {
-                        if (view != null) {
+                        if (view != null && !isResolved) {
                             spinningProgressView.removeFromRoot();
                         }
                     }
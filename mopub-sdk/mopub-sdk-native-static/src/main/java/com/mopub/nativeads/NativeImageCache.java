@@ -0,0 +1,473 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Point;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.text.TextUtils;
+import android.view.Display;
+import android.view.WindowManager;
+
+import com.mopub.common.Constants;
+import com.mopub.common.DiskLruCache;
+import com.mopub.common.Preconditions;
+import com.mopub.common.SdkMemoryManager;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
+import com.mopub.common.util.DeviceUtils;
+import com.mopub.common.util.Streams;
+import com.mopub.common.util.Utils;
+import com.mopub.network.Networking;
+import com.mopub.volley.VolleyError;
+import com.mopub.volley.toolbox.ImageLoader;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Two-tier image cache for native ad assets.
+ *
+ * The memory tier holds decoded bitmaps keyed by url. The disk tier holds images that have
+ * already been downsampled to the display width and re-encoded, so a cold start or a memory
+ * eviction only costs a small decode instead of a full-size decode of the original download.
+ * Disk reads and decodes always happen off the main thread. Bitmaps still in the Volley memory
+ * cache are served from it before going to disk. Misses in both tiers fall through to the Volley
+ * {@link ImageLoader} from {@link Networking#getImageLoader(Context)}.
+ *
+ * Bitmaps handed out by the network tier are the same instances held by the Volley memory cache,
+ * so keeping a reference in the memory tier does not duplicate pixel memory.
+ */
+public class NativeImageCache {
+
+    public interface Listener {
+        /**
+         * Called on the main thread with a display-ready bitmap.
+         *
+         * @param isImmediate true if the bitmap was served from memory without any async work.
+         */
+        void onBitmapLoaded(@NonNull String url, @NonNull Bitmap bitmap, boolean isImmediate);
+
+        /**
+         * Called on the main thread when the image could not be loaded from any tier.
+         */
+        void onBitmapFailed(@NonNull String url, @Nullable VolleyError volleyError);
+    }
+
+    @VisibleForTesting
+    static final String UNIQUE_CACHE_NAME = "mopub-native-image-cache";
+    private static final int APP_VERSION = 1;
+    // The number of values per cache entry. Must be positive.
+    private static final int VALUE_COUNT = 1;
+    private static final int DISK_CACHE_INDEX = 0;
+    private static final int COMPRESS_QUALITY = 85;
+
+    private static volatile NativeImageCache sInstance;
+
+    @NonNull private final LruCache<String, Bitmap> mMemoryCache;
+    @NonNull private final File mDiskCacheDirectory;
+    private final int mMaxImageWidth;
+    @Nullable private DiskLruCache mDiskLruCache;
+    private boolean mDiskCacheUnavailable;
+
+    @NonNull private final AtomicLong mMemoryHits = new AtomicLong();
+    @NonNull private final AtomicLong mMemoryMisses = new AtomicLong();
+    @NonNull private final AtomicLong mDiskHits = new AtomicLong();
+    @NonNull private final AtomicLong mDiskMisses = new AtomicLong();
+    // Only the memory tier is trimmed; the disk tier is what it is rebuilt from.
+    @NonNull private final SdkMemoryManager.TrimmableCache mTrimmableCache =
+            new SdkMemoryManager.TrimmableCache() {
+                @NonNull
+                @Override
+                public String getName() {
+                    return "Native image cache";
+                }
+
+                @Override
+                public int getEntryCount() {
+                    return mMemoryCache.snapshot().size();
+                }
+
+                @Override
+                public long getMemoryBytes() {
+                    return mMemoryCache.size();
+                }
+
+                @Override
+                public long getDiskBytes() {
+                    return SdkMemoryManager.getDirectorySizeBytes(mDiskCacheDirectory);
+                }
+
+                @Override
+                public void trim() {
+                    mMemoryCache.evictAll();
+                }
+            };
+
+    @NonNull
+    public static NativeImageCache getInstance(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        NativeImageCache instance = sInstance;
+        // Double-check locking to initialize.
+        if (instance == null) {
+            synchronized (NativeImageCache.class) {
+                instance = sInstance;
+                if (instance == null) {
+                    final Context appContext = context.getApplicationContext();
+                    instance = new NativeImageCache(
+                            DeviceUtils.memoryCacheSizeBytes(appContext),
+                            new File(appContext.getCacheDir(), UNIQUE_CACHE_NAME),
+                            getMaxImageWidth(appContext));
+                    SdkMemoryManager.register(instance.mTrimmableCache,
+                            SdkMemoryManager.PRIORITY_DECODED_IMAGES);
+                    sInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    NativeImageCache(final int memoryCacheSizeBytes,
+            @NonNull final File diskCacheDirectory,
+            final int maxImageWidth) {
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheSizeBytes) {
+            @Override
+            protected int sizeOf(final String key, final Bitmap value) {
+                if (value != null) {
+                    return value.getRowBytes() * value.getHeight();
+                }
+                return super.sizeOf(key, value);
+            }
+        };
+        mDiskCacheDirectory = diskCacheDirectory;
+        mMaxImageWidth = maxImageWidth;
+    }
+
+    /**
+     * Synchronously checks the memory tier. Safe to call on the main thread.
+     */
+    @Nullable
+    public Bitmap getFromMemory(@Nullable final String url) {
+        if (TextUtils.isEmpty(url)) {
+            return null;
+        }
+
+        final Bitmap bitmap = mMemoryCache.get(getCacheKey(url));
+        if (bitmap != null) {
+            mMemoryHits.incrementAndGet();
+        } else {
+            mMemoryMisses.incrementAndGet();
+        }
+        return bitmap;
+    }
+
+    /**
+     * Loads an image through memory, then disk, then network. Must be called on the main thread.
+     * The listener is always called back on the main thread.
+     */
+    public void get(@NonNull final Context context, @NonNull final String url,
+            @NonNull final Listener listener) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(listener);
+
+        final Bitmap bitmap = getFromMemory(url);
+        if (bitmap != null) {
+            listener.onBitmapLoaded(url, bitmap, true);
+            return;
+        }
+
+        // The Volley memory cache may still hold the bitmap after the memory tier dropped it. It
+        // was written to disk when it was fetched, so it is served from there right away.
+        final ImageLoader imageLoader = Networking.getImageLoader(context);
+        if (imageLoader.isCached(url, mMaxImageWidth, 0)) {
+            getFromImageLoader(imageLoader, url, listener, false);
+            return;
+        }
+
+        AsyncTasks.safeExecuteOnExecutor(new DiskReadTask(context, url, listener));
+    }
+
+    /**
+     * Loads an image straight from the network tier, then populates the memory and disk tiers.
+     * This is used when pre-caching images for a newly loaded ad, which have to be fetched
+     * regardless.
+     */
+    public void getFromNetwork(@NonNull final Context context, @NonNull final String url,
+            @NonNull final Listener listener) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(listener);
+
+        getFromImageLoader(Networking.getImageLoader(context), url, listener, true);
+    }
+
+    private void getFromImageLoader(@NonNull final ImageLoader imageLoader,
+            @NonNull final String url, @NonNull final Listener listener,
+            final boolean writeToDisk) {
+        imageLoader.get(url, new ImageLoader.ImageListener() {
+            @Override
+            public void onResponse(final ImageLoader.ImageContainer imageContainer,
+                    final boolean isImmediate) {
+                final Bitmap bitmap = imageContainer.getBitmap();
+                // Image Loader returns a "default" response immediately. We want to ignore this
+                // unless the image is already cached.
+                if (bitmap == null) {
+                    return;
+                }
+                if (mMemoryCache.get(getCacheKey(url)) == null) {
+                    mMemoryCache.put(getCacheKey(url), bitmap);
+                    if (writeToDisk) {
+                        AsyncTasks.safeExecuteOnExecutor(new DiskWriteTask(url, bitmap));
+                    }
+                }
+                listener.onBitmapLoaded(url, bitmap, isImmediate);
+            }
+
+            @Override
+            public void onErrorResponse(final VolleyError volleyError) {
+                listener.onBitmapFailed(url, volleyError);
+            }
+        });
+    }
+
+    /**
+     * Warms the memory tier from the disk tier in the background. Urls that are not on disk are
+     * left alone; they will be fetched from the network when they are first displayed.
+     */
+    public void prefetch(@NonNull final Context context, @NonNull final List<String> urls) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(urls);
+
+        for (final String url : urls) {
+            if (TextUtils.isEmpty(url) || mMemoryCache.get(getCacheKey(url)) != null) {
+                continue;
+            }
+            AsyncTasks.safeExecuteOnExecutor(new DiskReadTask(context, url, null));
+        }
+    }
+
+    public long getMemoryHitCount() {
+        return mMemoryHits.get();
+    }
+
+    public long getMemoryMissCount() {
+        return mMemoryMisses.get();
+    }
+
+    public long getDiskHitCount() {
+        return mDiskHits.get();
+    }
+
+    public long getDiskMissCount() {
+        return mDiskMisses.get();
+    }
+
+    /**
+     * @return Fraction of memory tier lookups that were hits, or 0 if there were no lookups.
+     */
+    public double getMemoryHitRate() {
+        return getHitRate(mMemoryHits.get(), mMemoryMisses.get());
+    }
+
+    /**
+     * @return Fraction of disk tier lookups that were hits, or 0 if there were no lookups.
+     */
+    public double getDiskHitRate() {
+        return getHitRate(mDiskHits.get(), mDiskMisses.get());
+    }
+
+    private static double getHitRate(final long hits, final long misses) {
+        final long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @NonNull
+    @VisibleForTesting
+    String getCacheKey(@NonNull final String url) {
+        // Disk entries are downsampled to the max width, so the width is part of the identity.
+        return Utils.sha1(url + "#W" + mMaxImageWidth);
+    }
+
+    /**
+     * Opens the disk tier on first use. Only called from background threads.
+     */
+    @Nullable
+    private synchronized DiskLruCache getDiskLruCache() {
+        if (mDiskLruCache == null && !mDiskCacheUnavailable) {
+            try {
+                mDiskLruCache = DiskLruCache.open(mDiskCacheDirectory, APP_VERSION, VALUE_COUNT,
+                        Constants.TEN_MB);
+            } catch (IOException e) {
+                MoPubLog.log(CUSTOM, "Unable to create native image disk cache", e);
+                mDiskCacheUnavailable = true;
+            }
+        }
+        return mDiskLruCache;
+    }
+
+    @Nullable
+    @VisibleForTesting
+    Bitmap readFromDisk(@NonNull final String url) {
+        final DiskLruCache diskLruCache = getDiskLruCache();
+        if (diskLruCache == null) {
+            return null;
+        }
+
+        DiskLruCache.Snapshot snapshot = null;
+        try {
+            snapshot = diskLruCache.get(getCacheKey(url));
+            if (snapshot == null) {
+                return null;
+            }
+
+            final InputStream in = snapshot.getInputStream(DISK_CACHE_INDEX);
+            if (in == null) {
+                return null;
+            }
+            final byte[] bytes = new byte[(int) snapshot.getLength(DISK_CACHE_INDEX)];
+            try {
+                Streams.readStream(in, bytes);
+            } finally {
+                Streams.closeStream(in);
+            }
+            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM, "Unable to read from native image disk cache", e);
+            return null;
+        } finally {
+            if (snapshot != null) {
+                snapshot.close();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    boolean writeToDisk(@NonNull final String url, @NonNull final Bitmap bitmap) {
+        final DiskLruCache diskLruCache = getDiskLruCache();
+        if (diskLruCache == null) {
+            return false;
+        }
+
+        DiskLruCache.Editor editor = null;
+        try {
+            editor = diskLruCache.edit(getCacheKey(url));
+            if (editor == null) {
+                // another edit is in progress
+                return false;
+            }
+
+            final OutputStream outputStream =
+                    new BufferedOutputStream(editor.newOutputStream(DISK_CACHE_INDEX));
+            try {
+                // Opaque images compress much better as JPEG. Keep alpha images lossless.
+                bitmap.compress(bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG
+                        : Bitmap.CompressFormat.JPEG, COMPRESS_QUALITY, outputStream);
+                outputStream.flush();
+            } finally {
+                Streams.closeStream(outputStream);
+            }
+            editor.commit();
+            diskLruCache.flush();
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM, "Unable to write to native image disk cache", e);
+            if (editor != null) {
+                editor.abortUnlessCommitted();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private class DiskReadTask extends AsyncTask<Void, Void, Bitmap> {
+        @NonNull private final Context mContext;
+        @NonNull private final String mUrl;
+        @Nullable private final Listener mListener;
+
+        DiskReadTask(@NonNull final Context context, @NonNull final String url,
+                @Nullable final Listener listener) {
+            mContext = context.getApplicationContext();
+            mUrl = url;
+            mListener = listener;
+        }
+
+        @Override
+        protected Bitmap doInBackground(final Void... voids) {
+            return readFromDisk(mUrl);
+        }
+
+        @Override
+        protected void onPostExecute(@Nullable final Bitmap bitmap) {
+            if (bitmap != null) {
+                mDiskHits.incrementAndGet();
+                mMemoryCache.put(getCacheKey(mUrl), bitmap);
+                if (mListener != null) {
+                    mListener.onBitmapLoaded(mUrl, bitmap, false);
+                }
+                return;
+            }
+
+            mDiskMisses.incrementAndGet();
+            if (mListener != null) {
+                getFromNetwork(mContext, mUrl, mListener);
+            }
+        }
+    }
+
+    private class DiskWriteTask extends AsyncTask<Void, Void, Void> {
+        @NonNull private final String mUrl;
+        @NonNull private final Bitmap mBitmap;
+
+        DiskWriteTask(@NonNull final String url, @NonNull final Bitmap bitmap) {
+            mUrl = url;
+            mBitmap = bitmap;
+        }
+
+        @Override
+        protected Void doInBackground(final Void... voids) {
+            writeToDisk(mUrl, mBitmap);
+            return null;
+        }
+    }
+
+    private static int getMaxImageWidth(@NonNull final Context context) {
+        final WindowManager windowManager =
+                (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager == null) {
+            return 0;
+        }
+        final Display display = windowManager.getDefaultDisplay();
+        final Point size = new Point();
+        display.getSize(size);
+
+        // Same bound as MaxWidthImageLoader: no wider than the skinny side of the display.
+        return Math.min(size.x, size.y);
+    }
+
+    @VisibleForTesting
+    public static synchronized void clearForTesting() {
+        sInstance = null;
+    }
+
+    @VisibleForTesting
+    static synchronized void setInstanceForTesting(@Nullable final NativeImageCache instance) {
+        sInstance = instance;
+    }
+}
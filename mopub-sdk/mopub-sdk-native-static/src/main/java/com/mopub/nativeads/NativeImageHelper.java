@@ -5,6 +5,7 @@
 package com.mopub.nativeads;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
@@ -13,9 +14,7 @@ import android.widget.ImageView;
 import com.mopub.common.Preconditions;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.nativeads.CustomEventNative.CustomEventNativeListener;
-import com.mopub.network.Networking;
 import com.mopub.volley.VolleyError;
-import com.mopub.volley.toolbox.ImageLoader;
 
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -53,26 +52,24 @@ public class NativeImageHelper {
     public static void preCacheImages(@NonNull final Context context,
             @NonNull final List<String> imageUrls,
             @NonNull final ImageListener imageListener) {
-        final ImageLoader imageLoader = Networking.getImageLoader(context);
+        final NativeImageCache imageCache = NativeImageCache.getInstance(context);
         // These Atomics are only accessed on the main thread.
         // We use Atomics here so we can change their values while keeping a reference for the inner class.
         final AtomicInteger imageCounter = new AtomicInteger(imageUrls.size());
         final AtomicBoolean anyFailures = new AtomicBoolean(false);
-        ImageLoader.ImageListener volleyImageListener = new ImageLoader.ImageListener() {
+        final NativeImageCache.Listener cacheListener = new NativeImageCache.Listener() {
             @Override
-            public void onResponse(final ImageLoader.ImageContainer imageContainer, final boolean isImmediate) {
-                // Image Loader returns a "default" response immediately. We want to ignore this
-                // unless the image is already cached.
-                if (imageContainer.getBitmap() != null) {
-                    final int count = imageCounter.decrementAndGet();
-                    if (count == 0 && !anyFailures.get()) {
-                        imageListener.onImagesCached();
-                    }
+            public void onBitmapLoaded(@NonNull final String url, @NonNull final Bitmap bitmap,
+                    final boolean isImmediate) {
+                final int count = imageCounter.decrementAndGet();
+                if (count == 0 && !anyFailures.get()) {
+                    imageListener.onImagesCached();
                 }
             }
 
             @Override
-            public void onErrorResponse(final VolleyError volleyError) {
+            public void onBitmapFailed(@NonNull final String url,
+                    @Nullable final VolleyError volleyError) {
                 MoPubLog.log(ERROR, "Failed to download a native ads image:", volleyError);
                 boolean anyPreviousErrors = anyFailures.getAndSet(true);
                 imageCounter.decrementAndGet();
@@ -88,7 +85,9 @@ public class NativeImageHelper {
                 imageListener.onImagesFailedToCache(NativeErrorCode.IMAGE_DOWNLOAD_FAILURE);
                 return;
             }
-            imageLoader.get(url, volleyImageListener);
+            // Fresh ad assets are fetched through the network tier, which also persists a
+            // downsampled copy to the disk tier for later cold starts.
+            imageCache.getFromNetwork(context, url, cacheListener);
         }
     }
 
@@ -108,19 +107,20 @@ public class NativeImageHelper {
             return;
         }
 
-        final ImageLoader mImageLoader = Networking.getImageLoader(imageView.getContext());
-        mImageLoader.get(url, new ImageLoader.ImageListener() {
+        final NativeImageCache imageCache = NativeImageCache.getInstance(imageView.getContext());
+        imageCache.get(imageView.getContext(), url, new NativeImageCache.Listener() {
             @Override
-            public void onResponse(final ImageLoader.ImageContainer imageContainer,
+            public void onBitmapLoaded(@NonNull final String url, @NonNull final Bitmap bitmap,
                     final boolean isImmediate) {
                 if (!isImmediate) {
                     MoPubLog.log(CUSTOM, "Image was not loaded immediately into your ad view. You should call preCacheImages as part of your custom event loading process.");
                 }
-                imageView.setImageBitmap(imageContainer.getBitmap());
+                imageView.setImageBitmap(bitmap);
             }
 
             @Override
-            public void onErrorResponse(final VolleyError volleyError) {
+            public void onBitmapFailed(@NonNull final String url,
+                    @Nullable final VolleyError volleyError) {
                 MoPubLog.log(CUSTOM, "Failed to load image.", volleyError);
                 imageView.setImageDrawable(null);
             }
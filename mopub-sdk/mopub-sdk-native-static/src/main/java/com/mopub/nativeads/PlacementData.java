@@ -18,12 +18,18 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
  * A data that represents placed ads in a {@link com.mopub.nativeads.MoPubStreamAdPlacer},
  * useful for tracking insertion and placed ad positions.
  *
- * It maintains four lists of integers
+ * Conceptually, it maintains four lists of integers
  * 1) Desired insertion positions - positions to place ads
  * 2) Desired original positions - original position for each ad to place
  * 2) Adjusted ad positions - ad positions that were placed
  * 3) Original ad positions - original position of the item after each placed ad
  *
+ * Only the original positions are stored. The adjusted position of a content item is its original
+ * position plus the number of placed ads at or before it, so desired insertion positions and
+ * adjusted ad positions are derived from the original positions with a rank query. Repeating
+ * positions are never expanded past the furthest position a mutation has touched; beyond that
+ * they are computed arithmetically from the repeating interval.
+ *
  * For example, consider the following ad positions:
  * ORIGINAL LIST    ADJUSTED LIST
  *   Item 0           Item 0
@@ -119,10 +125,12 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
  * originalPositions: {3}
  * adjustedPositions: {3}
  *
- * Some runtime guarantees in terms of number of insertion ads:
+ * Some runtime guarantees in terms of number of ads:
  * - Finds the next or previous insertion position in O(logN)
  * - Maps from adjusted to original positions and vice versa in O(logN)
- * - Places an ad (moves positions from desired to placed) in O(N)
+ * - Places an ad in O(logN)
+ * - Inserts or removes a content item in O(logN), plus a one-time O(logN) per repeating position
+ *   that has to be materialized up to the mutated position
  */
 class PlacementData {
     /**
@@ -130,27 +138,29 @@ class PlacementData {
      */
     public final static int NOT_FOUND = -1;
 
-    // Cap the number of ads to avoid unrestrained memory usage. 200 allows the 5 positioning
-    // arrays to fit in less than 4K.
-    private final static int MAX_ADS = 200;
+    // Desired original positions that are explicitly stored: fixed positions, repeating positions
+    // that have been materialized, and positions of ads that were cleared.
+    @NonNull private final PositionTree mDesiredOriginalPositions = new PositionTree();
+    // Original positions of placed ads. Values are the NativeAds.
+    @NonNull private final PositionTree mPlacedOriginalPositions = new PositionTree();
 
-    // Initialize all of these to their max capacity. This prevents garbage collection when
-    // reallocating the list, which causes noticeable stuttering when scrolling on some devices.
-    @NonNull private final int[] mDesiredOriginalPositions = new int[MAX_ADS];
-    @NonNull private final int[] mDesiredInsertionPositions = new int[MAX_ADS];
-    private int mDesiredCount = 0;
-    @NonNull private final int[] mOriginalAdPositions = new int[MAX_ADS];
-    @NonNull private final int[] mAdjustedAdPositions = new int[MAX_ADS];
-    @NonNull private final NativeAd[] mNativeAds = new NativeAd[MAX_ADS];
-    private int mPlacedCount = 0;
+    // Repeating positions that have not been materialized yet are the arithmetic sequence
+    // mRepeatingStart + k * mRepeatingStep for k >= 0. mRepeatingStep is 0 if there is none.
+    private int mRepeatingStart;
+    private final int mRepeatingStep;
 
     /**
      * @param desiredInsertionPositions Insertion positions, expressed as original positions
+     * @param repeatingStart The first repeating original position not in the above array
+     * @param repeatingStep The distance between repeating original positions, or 0 for none
      */
-    private PlacementData(@NonNull final int[] desiredInsertionPositions) {
-        mDesiredCount = Math.min(desiredInsertionPositions.length, MAX_ADS);
-        System.arraycopy(desiredInsertionPositions, 0, mDesiredInsertionPositions, 0, mDesiredCount);
-        System.arraycopy(desiredInsertionPositions, 0, mDesiredOriginalPositions, 0, mDesiredCount);
+    private PlacementData(@NonNull final int[] desiredInsertionPositions,
+            final int repeatingStart, final int repeatingStep) {
+        for (final int position : desiredInsertionPositions) {
+            mDesiredOriginalPositions.add(position, null);
+        }
+        mRepeatingStart = repeatingStart;
+        mRepeatingStep = repeatingStep;
     }
 
     @NonNull
@@ -158,8 +168,7 @@ class PlacementData {
         final List<Integer> fixed = adPositioning.getFixedPositions();
         final int interval = adPositioning.getRepeatingInterval();
 
-        final int size = (interval == MoPubClientPositioning.NO_REPEAT ? fixed.size() : MAX_ADS);
-        final int[] desiredInsertionPositions = new int[size];
+        final int[] desiredInsertionPositions = new int[fixed.size()];
 
         // Fixed positions are in terms of final positions. Calculate current insertion positions
         // by decrementing numAds at each index.
@@ -170,25 +179,24 @@ class PlacementData {
             desiredInsertionPositions[numAds++] = lastPos;
         }
 
-        // Expand the repeating positions, if there are any
-        while (numAds < size) {
-            lastPos = lastPos + interval - 1;
-            desiredInsertionPositions[numAds++] = lastPos;
+        // Repeating positions are generated lazily, starting one interval after the last one
+        if (interval == MoPubClientPositioning.NO_REPEAT) {
+            return new PlacementData(desiredInsertionPositions, 0, 0);
         }
-        return new PlacementData(desiredInsertionPositions);
+        return new PlacementData(desiredInsertionPositions, lastPos + interval - 1, interval - 1);
     }
 
     @NonNull
     static PlacementData empty() {
-        return new PlacementData(new int[] {});
+        return new PlacementData(new int[] {}, 0, 0);
     }
 
     /**
      * Whether the given position should be an ad.
      */
     boolean shouldPlaceAd(final int position) {
-        final int index = binarySearch(mDesiredInsertionPositions, 0, mDesiredCount, position);
-        return index >= 0;
+        final int originalPosition = getOriginalPosition(position);
+        return originalPosition != NOT_FOUND && isDesired(originalPosition);
     }
 
     /**
@@ -196,25 +204,35 @@ class PlacementData {
      * more ads.
      */
     int nextInsertionPosition(final int position) {
-        final int index = binarySearchGreaterThan(
-                mDesiredInsertionPositions, mDesiredCount, position);
-        if (index == mDesiredCount) {
+        // Insertion positions are strictly increasing in original position, so find the first
+        // desired original position whose insertion position is after this position.
+        final int placedIndex = mPlacedOriginalPositions.indexOfKeyPlusIndex(position);
+        final int lastOriginalAtOrBefore = placedIndex >= 0
+                ? mPlacedOriginalPositions.keyAt(placedIndex) - 1
+                : position - ~placedIndex;
+
+        final long next = nextDesired(lastOriginalAtOrBefore);
+        if (next > Integer.MAX_VALUE) {
             return NOT_FOUND;
         }
-        return mDesiredInsertionPositions[index];
+        return getAdjustedPosition((int) next);
     }
 
     /**
-     * The next position after this position that should be an ad. Returns NOT_FOUND if there
-     * are no more ads.
+     * The previous position before this position that should be an ad. Returns NOT_FOUND if there
+     * are no previous ads.
      */
     int previousInsertionPosition(final int position) {
-        final int index = binarySearchFirstEquals(
-                mDesiredInsertionPositions,  mDesiredCount, position);
-        if (index == 0) {
+        final int placedIndex = mPlacedOriginalPositions.indexOfKeyPlusIndex(position);
+        final int firstOriginalAtOrAfter = placedIndex >= 0
+                ? mPlacedOriginalPositions.keyAt(placedIndex)
+                : position - ~placedIndex;
+
+        final long previous = previousDesired(firstOriginalAtOrAfter);
+        if (previous < Integer.MIN_VALUE) {
             return NOT_FOUND;
         }
-        return mDesiredInsertionPositions[index - 1];
+        return getAdjustedPosition((int) previous);
     }
 
     /**
@@ -222,54 +240,24 @@ class PlacementData {
      */
     void placeAd(final int adjustedPosition, final NativeAd nativeAd) {
         // See if this is a insertion ad
-        final int desiredIndex = binarySearchFirstEquals(
-                mDesiredInsertionPositions, mDesiredCount, adjustedPosition);
-        if (desiredIndex == mDesiredCount
-                || mDesiredInsertionPositions[desiredIndex] != adjustedPosition) {
+        final int originalPosition = getOriginalPosition(adjustedPosition);
+        if (originalPosition == NOT_FOUND || !isDesired(originalPosition)) {
             MoPubLog.log(CUSTOM, "Attempted to insert an ad at an invalid position");
             return;
         }
 
-        // Add to placed array
-        final int originalPosition = mDesiredOriginalPositions[desiredIndex];
-        int placeIndex = binarySearchGreaterThan(
-                mOriginalAdPositions, mPlacedCount, originalPosition);
-        if (placeIndex < mPlacedCount) {
-            final int num = mPlacedCount - placeIndex;
-            System.arraycopy(mOriginalAdPositions, placeIndex,
-                    mOriginalAdPositions, placeIndex + 1, num);
-            System.arraycopy(mAdjustedAdPositions, placeIndex,
-                    mAdjustedAdPositions, placeIndex + 1, num);
-            System.arraycopy(mNativeAds, placeIndex, mNativeAds, placeIndex + 1, num);
-        }
-        mOriginalAdPositions[placeIndex] = originalPosition;
-        mAdjustedAdPositions[placeIndex] = adjustedPosition;
-        mNativeAds[placeIndex] = nativeAd;
-        mPlacedCount++;
-
-        // Remove desired index
-        final int num = mDesiredCount - desiredIndex - 1;
-        System.arraycopy(mDesiredInsertionPositions, desiredIndex + 1,
-                mDesiredInsertionPositions, desiredIndex, num);
-        System.arraycopy(mDesiredOriginalPositions, desiredIndex + 1,
-                mDesiredOriginalPositions, desiredIndex, num);
-        mDesiredCount--;
-
-        // Increment adjusted positions
-        for (int i = desiredIndex; i < mDesiredCount; ++i) {
-            mDesiredInsertionPositions[i]++;
-        }
-        for (int i = placeIndex + 1; i < mPlacedCount; ++i) {
-            mAdjustedAdPositions[i]++;
-        }
+        // Move from desired to placed. Placed ads with equal original positions keep the order
+        // in which they were placed.
+        materializeRepeatingPositionsThrough(originalPosition);
+        mDesiredOriginalPositions.removeFirst(originalPosition);
+        mPlacedOriginalPositions.add(originalPosition, nativeAd);
     }
 
     /**
      * @see {@link com.mopub.nativeads.MoPubStreamAdPlacer#isAd(int)}
      */
     boolean isPlacedAd(final int position) {
-        final int index = binarySearch(mAdjustedAdPositions, 0, mPlacedCount, position);
-        return index >= 0;
+        return mPlacedOriginalPositions.indexOfKeyPlusIndex(position) >= 0;
     }
 
     /**
@@ -278,11 +266,11 @@ class PlacementData {
      */
     @Nullable
     NativeAd getPlacedAd(final int position) {
-        final int index = binarySearch(mAdjustedAdPositions, 0, mPlacedCount, position);
+        final int index = mPlacedOriginalPositions.indexOfKeyPlusIndex(position);
         if (index < 0) {
             return null;
         }
-        return mNativeAds[index];
+        return (NativeAd) mPlacedOriginalPositions.valueAt(index);
     }
 
     /**
@@ -291,8 +279,10 @@ class PlacementData {
      */
     @NonNull
     int[] getPlacedAdPositions() {
-        int[] positions = new int[mPlacedCount];
-        System.arraycopy(mAdjustedAdPositions, 0, positions, 0, mPlacedCount);
+        final int[] positions = mPlacedOriginalPositions.toKeyArray();
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] += i;
+        }
         return positions;
     }
 
@@ -300,7 +290,7 @@ class PlacementData {
      * @see com.mopub.nativeads.MoPubStreamAdPlacer#getOriginalPosition(int)
      */
     int getOriginalPosition(final int position) {
-        final int index = binarySearch(mAdjustedAdPositions, 0, mPlacedCount, position);
+        final int index = mPlacedOriginalPositions.indexOfKeyPlusIndex(position);
 
         // No match, ~index is the number of ads before this pos.
         if (index < 0) {
@@ -315,9 +305,9 @@ class PlacementData {
      * @see com.mopub.nativeads.MoPubStreamAdPlacer#getAdjustedPosition(int)
      */
     int getAdjustedPosition(final int originalPosition) {
-        // This is an ad. Since binary search doesn't properly handle dups, find the first non-ad.
-        int index = binarySearchGreaterThan(mOriginalAdPositions, mPlacedCount, originalPosition);
-        return originalPosition + index;
+        // Ads share the original position of the item after them, so count ads at this position.
+        return originalPosition
+                + mPlacedOriginalPositions.countLessThanOrEqual(originalPosition);
     }
 
     /**
@@ -349,61 +339,30 @@ class PlacementData {
      * positions.
      */
     int clearAdsInRange(final int adjustedStartRange, final int adjustedEndRange) {
-        // Temporary arrays to store the cleared positions. Using temporary arrays makes it
-        // easy to debug what positions are being cleared.
-        int[] clearOriginalPositions = new int[mPlacedCount];
-        int[] clearAdjustedPositions = new int[mPlacedCount];
-        int clearCount = 0;
-
-        // Add to the clear position arrays any positions that fall inside
-        // [adjustedRangeStart, adjustedRangeEnd).
-        for (int i = 0; i < mPlacedCount; ++i) {
-            int originalPosition = mOriginalAdPositions[i];
-            int adjustedPosition = mAdjustedAdPositions[i];
-            if (adjustedStartRange <= adjustedPosition && adjustedPosition < adjustedEndRange) {
-                // When copying adjusted positions, subtract the current clear count because there
-                // is no longer an ad incrementing the desired insertion position.
-                clearOriginalPositions[clearCount] = originalPosition;
-                clearAdjustedPositions[clearCount] = adjustedPosition - clearCount;
-
-                // Destroying and nulling out the ad objects to avoids a memory leak.
-                mNativeAds[i].destroy();
-                mNativeAds[i] = null;
-                clearCount++;
-            } else if (clearCount > 0) {
-                // The position is not in the range; shift it by the number of cleared ads.
-                int newIndex = i - clearCount;
-                mOriginalAdPositions[newIndex] = originalPosition;
-                mAdjustedAdPositions[newIndex] = adjustedPosition - clearCount;
-                mNativeAds[newIndex] = mNativeAds[i];
-            }
-        }
+        // Placed ads are ordered by adjusted position, so the ads in
+        // [adjustedRangeStart, adjustedRangeEnd) are a contiguous run of indices.
+        final int startIndex = toInsertionIndex(
+                mPlacedOriginalPositions.indexOfKeyPlusIndex(adjustedStartRange));
+        final int endIndex = toInsertionIndex(
+                mPlacedOriginalPositions.indexOfKeyPlusIndex(adjustedEndRange));
+        final int clearCount = endIndex - startIndex;
 
         // If we have cleared nothing, this method was a no-op.
-        if (clearCount == 0) {
+        if (clearCount <= 0) {
             return 0;
         }
 
-        // Modify the desired positions arrays in order to make space to put back the
-        // cleared ad positions. For example if the desired array was {1, 10,
-        // 15} and we need to insert {3, 7} we'll shift the desired array to be {1, ?, ? , 10, 15}.
-        int firstCleared = clearAdjustedPositions[0];
-        int desiredIndex = binarySearchFirstEquals(
-                mDesiredInsertionPositions, mDesiredCount, firstCleared);
-        for (int i = mDesiredCount - 1; i >= desiredIndex; --i) {
-            mDesiredOriginalPositions[i + clearCount] = mDesiredOriginalPositions[i];
-            mDesiredInsertionPositions[i + clearCount] = mDesiredInsertionPositions[i] - clearCount;
-        }
+        for (int i = 0; i < clearCount; i++) {
+            final int originalPosition = mPlacedOriginalPositions.keyAt(startIndex);
+            final NativeAd nativeAd = (NativeAd) mPlacedOriginalPositions.valueAt(startIndex);
 
-        // Copy the cleared ad positions into the desired arrays.
-        for (int i = 0; i < clearCount; ++i) {
-            mDesiredOriginalPositions[desiredIndex + i] = clearOriginalPositions[i];
-            mDesiredInsertionPositions[desiredIndex + i] = clearAdjustedPositions[i];
+            // Destroying the ad objects avoids a memory leak.
+            if (nativeAd != null) {
+                nativeAd.destroy();
+            }
+            mPlacedOriginalPositions.removeAt(startIndex);
+            mDesiredOriginalPositions.add(originalPosition, null);
         }
-
-        // Update the array counts, and we're done.
-        mDesiredCount = mDesiredCount + clearCount;
-        mPlacedCount = mPlacedCount - clearCount;
         return clearCount;
     }
 
@@ -412,32 +371,37 @@ class PlacementData {
      * will be back to the desired insertion positions.
      */
     void clearAds() {
-        if (mPlacedCount == 0) {
+        final int placedCount = mPlacedOriginalPositions.size();
+        if (placedCount == 0) {
             return;
         }
 
-        clearAdsInRange(0, mAdjustedAdPositions[mPlacedCount - 1] + 1);
+        final int lastAdjustedPosition =
+                mPlacedOriginalPositions.keyAt(placedCount - 1) + placedCount - 1;
+        clearAdsInRange(0, lastAdjustedPosition + 1);
     }
 
     /**
      * @see com.mopub.nativeads.MoPubStreamAdPlacer#insertItem(int)
      */
     void insertItem(final int originalPosition) {
+        insertItems(originalPosition, 1);
+    }
 
-        // Increment desired arrays.
-        int indexToIncrement = binarySearchFirstEquals(
-                mDesiredOriginalPositions, mDesiredCount, originalPosition);
-        for (int i = indexToIncrement; i < mDesiredCount; ++i) {
-            mDesiredOriginalPositions[i]++;
-            mDesiredInsertionPositions[i]++;
+    /**
+     * @see com.mopub.nativeads.MoPubStreamAdPlacer#insertItems(int, int)
+     */
+    void insertItems(final int originalPosition, final int itemCount) {
+        if (itemCount <= 0) {
+            return;
         }
 
-        // Increment placed arrays.
-        indexToIncrement = binarySearchFirstEquals(
-                mOriginalAdPositions, mPlacedCount, originalPosition);
-        for (int i = indexToIncrement; i < mPlacedCount; ++i) {
-            mOriginalAdPositions[i]++;
-            mAdjustedAdPositions[i]++;
+        // Everything at or after the original position moves down by itemCount.
+        materializeRepeatingPositionsThrough(originalPosition);
+        mDesiredOriginalPositions.shiftKeysGreaterThan(originalPosition - 1, itemCount);
+        mPlacedOriginalPositions.shiftKeysGreaterThan(originalPosition - 1, itemCount);
+        if (hasRepeatingPositions()) {
+            mRepeatingStart += itemCount;
         }
     }
 
@@ -445,25 +409,28 @@ class PlacementData {
      * @see com.mopub.nativeads.MoPubStreamAdPlacer#removeItem(int)
      */
     void removeItem(final int originalPosition) {
+        removeItems(originalPosition, 1);
+    }
+
+    /**
+     * @see com.mopub.nativeads.MoPubStreamAdPlacer#removeItems(int, int)
+     */
+    void removeItems(final int originalPosition, final int itemCount) {
+        if (itemCount <= 0) {
+            return;
+        }
+
         // When removing items, we only decrement ad position values *greater* than the original
         // position we're removing. The original position associated with an ad is the original
         // position of the first content item after the ad, so we shouldn't change the original
-        // position of an ad that matches the original position removed.
-        int indexToDecrement = binarySearchGreaterThan(
-                mDesiredOriginalPositions, mDesiredCount, originalPosition);
-
-        // Decrement desired arrays.
-        for (int i = indexToDecrement; i < mDesiredCount; ++i) {
-            mDesiredOriginalPositions[i]--;
-            mDesiredInsertionPositions[i]--;
-        }
-
-        indexToDecrement = binarySearchGreaterThan(
-                mOriginalAdPositions, mPlacedCount, originalPosition);
-
-        for (int i = indexToDecrement; i < mPlacedCount; ++i) {
-            mOriginalAdPositions[i]--;
-            mAdjustedAdPositions[i]--;
+        // position of an ad that matches the original position removed. Ads attached to the
+        // other removed items end up clumped at the original position.
+        final int lastRemoved = originalPosition + itemCount - 1;
+        materializeRepeatingPositionsThrough(lastRemoved + 1);
+        collapseRemovedRange(mDesiredOriginalPositions, originalPosition, lastRemoved, itemCount);
+        collapseRemovedRange(mPlacedOriginalPositions, originalPosition, lastRemoved, itemCount);
+        if (hasRepeatingPositions()) {
+            mRepeatingStart -= itemCount;
         }
     }
 
@@ -475,59 +442,106 @@ class PlacementData {
         insertItem(newPosition);
     }
 
-    private static int binarySearchFirstEquals(int[] array, int count, int value) {
-        int index = binarySearch(array, 0, count, value);
+    private boolean hasRepeatingPositions() {
+        return mRepeatingStep > 0;
+    }
 
-        // If not found, binarySearch returns the 2's complement of the index of the nearest
-        // value higher than the target value, which is also the insertion index.
-        if (index < 0) {
-            return ~index;
+    private boolean isDesired(final int originalPosition) {
+        if (mDesiredOriginalPositions.contains(originalPosition)) {
+            return true;
         }
+        return hasRepeatingPositions()
+                && originalPosition >= mRepeatingStart
+                && (originalPosition - mRepeatingStart) % mRepeatingStep == 0;
+    }
 
-        int duplicateValue = array[index];
-        while (index >= 0 && array[index] == duplicateValue) {
-            index--;
+    /**
+     * Returns the smallest desired original position greater than the given one, or a value
+     * greater than {@link Integer#MAX_VALUE} if there is none.
+     */
+    private long nextDesired(final int originalPosition) {
+        long next = Long.MAX_VALUE;
+        final int index = mDesiredOriginalPositions.countLessThanOrEqual(originalPosition);
+        if (index < mDesiredOriginalPositions.size()) {
+            next = mDesiredOriginalPositions.keyAt(index);
         }
 
-        return index + 1;
+        if (hasRepeatingPositions()) {
+            final long repeating;
+            if (originalPosition < mRepeatingStart) {
+                repeating = mRepeatingStart;
+            } else {
+                final long steps = ((long) originalPosition - mRepeatingStart) / mRepeatingStep;
+                repeating = mRepeatingStart + (steps + 1) * mRepeatingStep;
+            }
+            next = Math.min(next, repeating);
+        }
+        return next;
     }
 
-    private static int binarySearchGreaterThan(int[] array, int count, int value) {
-        int index = binarySearch(array, 0, count, value);
-
-        // If not found, binarySearch returns the 2's complement of the index of the nearest
-        // value higher than the target value, which is also the insertion index.
-        if (index < 0) {
-            return ~index;
+    /**
+     * Returns the largest desired original position less than the given one, or a value less
+     * than {@link Integer#MIN_VALUE} if there is none.
+     */
+    private long previousDesired(final int originalPosition) {
+        long previous = Long.MIN_VALUE;
+        final int index = mDesiredOriginalPositions.countLessThan(originalPosition);
+        if (index > 0) {
+            previous = mDesiredOriginalPositions.keyAt(index - 1);
         }
 
-        int duplicateValue = array[index];
-        while (index < count && array[index] == duplicateValue) {
-            index++;
+        if (hasRepeatingPositions() && originalPosition > mRepeatingStart) {
+            final long steps = ((long) originalPosition - 1 - mRepeatingStart) / mRepeatingStep;
+            previous = Math.max(previous, mRepeatingStart + steps * mRepeatingStep);
         }
+        return previous;
+    }
 
-        return index;
+    /**
+     * Moves repeating positions up to and including the given original position into the explicit
+     * desired positions, so that the remaining repeating positions all lie after it. Content
+     * mutations and placements at or after the given position can then treat the remaining
+     * sequence as a whole.
+     */
+    private void materializeRepeatingPositionsThrough(final int originalPosition) {
+        if (!hasRepeatingPositions()) {
+            return;
+        }
+        while (mRepeatingStart <= originalPosition) {
+            mDesiredOriginalPositions.add(mRepeatingStart, null);
+            mRepeatingStart += mRepeatingStep;
+        }
     }
 
     /**
-     * Copied from Arrays.java, which isn't available until Gingerbread.
+     * Moves entries in (firstRemoved, lastRemoved + 1] to firstRemoved, and shifts entries after
+     * that back by itemCount. Entries keep their relative order.
      */
-    private static int binarySearch(int[] array, int startIndex, int endIndex, int value) {
-        int lo = startIndex;
-        int hi = endIndex - 1;
-
-        while (lo <= hi) {
-            int mid = (lo + hi) >>> 1;
-            int midVal = array[mid];
-
-            if (midVal < value) {
-                lo = mid + 1;
-            } else if (midVal > value) {
-                hi = mid - 1;
-            } else {
-                return mid;  // value found
-            }
+    private static void collapseRemovedRange(@NonNull final PositionTree tree,
+            final int firstRemoved, final int lastRemoved, final int itemCount) {
+        final int startIndex = tree.countLessThanOrEqual(firstRemoved);
+        final int endIndex = tree.countLessThanOrEqual(lastRemoved + 1);
+        final int collapsedCount = endIndex - startIndex;
+
+        if (collapsedCount == 0) {
+            tree.shiftKeysGreaterThan(firstRemoved, -itemCount);
+            return;
+        }
+
+        // These are the ads and desired positions attached to the removed items and the first
+        // remaining item after them, so there are only a few of them.
+        final Object[] collapsedValues = new Object[collapsedCount];
+        for (int i = 0; i < collapsedCount; i++) {
+            collapsedValues[i] = tree.valueAt(startIndex);
+            tree.removeAt(startIndex);
         }
-        return ~lo;  // value not present
+        tree.shiftKeysGreaterThan(lastRemoved + 1, -itemCount);
+        for (final Object value : collapsedValues) {
+            tree.add(firstRemoved, value);
+        }
+    }
+
+    private static int toInsertionIndex(final int searchResult) {
+        return searchResult >= 0 ? searchResult : ~searchResult;
     }
 }
@@ -0,0 +1,374 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A sorted multiset of int positions with an optional value per position, used by {@link
+ * PlacementData}.
+ *
+ * This is a treap stored in parallel primitive arrays, so it does not allocate per entry and
+ * only reallocates when it has to grow. Positions are kept in non-decreasing order and entries
+ * with equal positions keep their insertion order. Besides the usual rank queries, it supports
+ * shifting every position after a given value in O(log n) using lazy propagation, which is what
+ * content inserts and removes need.
+ *
+ * Expected runtime, in terms of the number of entries:
+ * - add, removeAt, rank queries and lookups by index are O(log n)
+ * - shifting positions after a value is O(log n)
+ *
+ * This class is not thread safe.
+ */
+class PositionTree {
+    private static final int NIL = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Node 0 is the NIL sentinel. Its size is always 0.
+    @NonNull private int[] mKeys;
+    @NonNull private int[] mLazy;
+    @NonNull private int[] mSizes;
+    @NonNull private int[] mLeft;
+    @NonNull private int[] mRight;
+    @NonNull private int[] mPriorities;
+    @NonNull private Object[] mValues;
+
+    private int mRoot = NIL;
+    // Number of node slots that have ever been handed out, including the sentinel.
+    private int mAllocated = 1;
+    // Head of the free list of removed nodes, linked through mLeft.
+    private int mFreeHead = NIL;
+    private int mSeed = 0x2545F491;
+
+    // Results of the last split. Java has no tuples and splits are recursive.
+    private int mSplitLeft;
+    private int mSplitRight;
+
+    PositionTree() {
+        mKeys = new int[INITIAL_CAPACITY];
+        mLazy = new int[INITIAL_CAPACITY];
+        mSizes = new int[INITIAL_CAPACITY];
+        mLeft = new int[INITIAL_CAPACITY];
+        mRight = new int[INITIAL_CAPACITY];
+        mPriorities = new int[INITIAL_CAPACITY];
+        mValues = new Object[INITIAL_CAPACITY];
+    }
+
+    int size() {
+        return mSizes[mRoot];
+    }
+
+    /**
+     * Adds a position. If there are entries with an equal position, the new entry goes after them.
+     */
+    void add(final int key, @Nullable final Object value) {
+        final int node = allocate(key, value);
+        splitByKey(mRoot, key);
+        final int right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, node), right);
+    }
+
+    /**
+     * Removes the entry at the given index.
+     */
+    void removeAt(final int index) {
+        if (index < 0 || index >= size()) {
+            return;
+        }
+        splitBySize(mRoot, index);
+        final int left = mSplitLeft;
+        splitBySize(mSplitRight, 1);
+        free(mSplitLeft);
+        mRoot = merge(left, mSplitRight);
+    }
+
+    /**
+     * Removes the first entry with the given position. Returns false if there is none.
+     */
+    boolean removeFirst(final int key) {
+        final int index = countLessThan(key);
+        if (index >= size() || keyAt(index) != key) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    boolean contains(final int key) {
+        final int index = countLessThan(key);
+        return index < size() && keyAt(index) == key;
+    }
+
+    int countLessThan(final int key) {
+        int count = 0;
+        int node = mRoot;
+        while (node != NIL) {
+            push(node);
+            if (mKeys[node] < key) {
+                count += mSizes[mLeft[node]] + 1;
+                node = mRight[node];
+            } else {
+                node = mLeft[node];
+            }
+        }
+        return count;
+    }
+
+    int countLessThanOrEqual(final int key) {
+        int count = 0;
+        int node = mRoot;
+        while (node != NIL) {
+            push(node);
+            if (mKeys[node] <= key) {
+                count += mSizes[mLeft[node]] + 1;
+                node = mRight[node];
+            } else {
+                node = mLeft[node];
+            }
+        }
+        return count;
+    }
+
+    int keyAt(final int index) {
+        return mKeys[nodeAt(index)];
+    }
+
+    @Nullable
+    Object valueAt(final int index) {
+        return mValues[nodeAt(index)];
+    }
+
+    /**
+     * Looks for the index i such that keyAt(i) + i == target. Since positions are non-decreasing,
+     * keyAt(i) + i is strictly increasing, so there is at most one such index. This is how placed
+     * ads map their original position to their adjusted position.
+     *
+     * @return The index if found. Otherwise, the two's complement of the number of entries with
+     * keyAt(i) + i < target, in the style of {@link java.util.Arrays#binarySearch}.
+     */
+    int indexOfKeyPlusIndex(final int target) {
+        int before = 0;
+        int node = mRoot;
+        while (node != NIL) {
+            push(node);
+            final int index = before + mSizes[mLeft[node]];
+            final long value = (long) mKeys[node] + index;
+            if (value == target) {
+                return index;
+            } else if (value < target) {
+                before = index + 1;
+                node = mRight[node];
+            } else {
+                node = mLeft[node];
+            }
+        }
+        return ~before;
+    }
+
+    /**
+     * Adds delta to every position strictly greater than the given key.
+     */
+    void shiftKeysGreaterThan(final int key, final int delta) {
+        splitByKey(mRoot, key);
+        final int left = mSplitLeft;
+        final int right = mSplitRight;
+        apply(right, delta);
+        mRoot = merge(left, right);
+    }
+
+    /**
+     * Copies all positions, in order, into a new array.
+     */
+    @NonNull
+    int[] toKeyArray() {
+        final int[] keys = new int[size()];
+        collectKeys(mRoot, keys, 0);
+        return keys;
+    }
+
+    void clear() {
+        Arrays.fill(mValues, null);
+        mRoot = NIL;
+        mAllocated = 1;
+        mFreeHead = NIL;
+    }
+
+    private int collectKeys(final int node, @NonNull final int[] keys, int index) {
+        if (node == NIL) {
+            return index;
+        }
+        push(node);
+        index = collectKeys(mLeft[node], keys, index);
+        keys[index++] = mKeys[node];
+        return collectKeys(mRight[node], keys, index);
+    }
+
+    private int nodeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size "
+                    + size());
+        }
+        int node = mRoot;
+        while (true) {
+            push(node);
+            final int leftSize = mSizes[mLeft[node]];
+            if (index < leftSize) {
+                node = mLeft[node];
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = mRight[node];
+            }
+        }
+    }
+
+    /**
+     * Splits into entries with position <= key (mSplitLeft) and the rest (mSplitRight).
+     */
+    private void splitByKey(final int node, final int key) {
+        if (node == NIL) {
+            mSplitLeft = NIL;
+            mSplitRight = NIL;
+            return;
+        }
+        push(node);
+        if (mKeys[node] <= key) {
+            splitByKey(mRight[node], key);
+            mRight[node] = mSplitLeft;
+            update(node);
+            mSplitLeft = node;
+        } else {
+            splitByKey(mLeft[node], key);
+            mLeft[node] = mSplitRight;
+            update(node);
+            mSplitRight = node;
+        }
+    }
+
+    /**
+     * Splits into the first count entries (mSplitLeft) and the rest (mSplitRight).
+     */
+    private void splitBySize(final int node, final int count) {
+        if (node == NIL) {
+            mSplitLeft = NIL;
+            mSplitRight = NIL;
+            return;
+        }
+        push(node);
+        final int leftSize = mSizes[mLeft[node]];
+        if (leftSize < count) {
+            splitBySize(mRight[node], count - leftSize - 1);
+            mRight[node] = mSplitLeft;
+            update(node);
+            mSplitLeft = node;
+        } else {
+            splitBySize(mLeft[node], count);
+            mLeft[node] = mSplitRight;
+            update(node);
+            mSplitRight = node;
+        }
+    }
+
+    /**
+     * Merges two trees where every position in left is <= every position in right.
+     */
+    private int merge(final int left, final int right) {
+        if (left == NIL) {
+            return right;
+        }
+        if (right == NIL) {
+            return left;
+        }
+        if (mPriorities[left] > mPriorities[right]) {
+            push(left);
+            mRight[left] = merge(mRight[left], right);
+            update(left);
+            return left;
+        }
+        push(right);
+        mLeft[right] = merge(left, mLeft[right]);
+        update(right);
+        return right;
+    }
+
+    private void apply(final int node, final int delta) {
+        if (node == NIL || delta == 0) {
+            return;
+        }
+        mKeys[node] += delta;
+        mLazy[node] += delta;
+    }
+
+    private void push(final int node) {
+        final int lazy = mLazy[node];
+        if (lazy != 0) {
+            apply(mLeft[node], lazy);
+            apply(mRight[node], lazy);
+            mLazy[node] = 0;
+        }
+    }
+
+    private void update(final int node) {
+        mSizes[node] = mSizes[mLeft[node]] + mSizes[mRight[node]] + 1;
+    }
+
+    private int allocate(final int key, @Nullable final Object value) {
+        final int node;
+        if (mFreeHead != NIL) {
+            node = mFreeHead;
+            mFreeHead = mLeft[node];
+        } else {
+            if (mAllocated == mKeys.length) {
+                grow();
+            }
+            node = mAllocated++;
+        }
+        mKeys[node] = key;
+        mLazy[node] = 0;
+        mSizes[node] = 1;
+        mLeft[node] = NIL;
+        mRight[node] = NIL;
+        mPriorities[node] = nextPriority();
+        mValues[node] = value;
+        return node;
+    }
+
+    private void free(final int node) {
+        if (node == NIL) {
+            return;
+        }
+        mValues[node] = null;
+        mRight[node] = NIL;
+        mLeft[node] = mFreeHead;
+        mFreeHead = node;
+    }
+
+    private void grow() {
+        final int capacity = mKeys.length * 2;
+        mKeys = Arrays.copyOf(mKeys, capacity);
+        mLazy = Arrays.copyOf(mLazy, capacity);
+        mSizes = Arrays.copyOf(mSizes, capacity);
+        mLeft = Arrays.copyOf(mLeft, capacity);
+        mRight = Arrays.copyOf(mRight, capacity);
+        mPriorities = Arrays.copyOf(mPriorities, capacity);
+        mValues = Arrays.copyOf(mValues, capacity);
+    }
+
+    /**
+     * Xorshift. Deterministic so placement behaves the same from run to run.
+     */
+    private int nextPriority() {
+        int x = mSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        mSeed = x;
+        return x;
+    }
+}
@@ -10,6 +10,7 @@ import android.support.annotation.NonNull;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.network.MoPubNetworkError;
 import com.mopub.network.MoPubRequestUtils;
+import com.mopub.network.RequestCategory;
 import com.mopub.volley.NetworkResponse;
 import com.mopub.volley.Response;
 import com.mopub.volley.VolleyError;
@@ -26,7 +27,8 @@ import java.util.Map;
 
 import static com.mopub.nativeads.MoPubNativeAdPositioning.MoPubClientPositioning;
 
-public class PositioningRequest extends JsonRequest<MoPubClientPositioning> {
+public class PositioningRequest extends JsonRequest<MoPubClientPositioning>
+        implements RequestCategory.Categorized {
     private static final String FIXED_KEY = "fixed";
     private static final String SECTION_KEY = "section";
     private static final String POSITION_KEY = "position";
@@ -59,6 +61,12 @@ public class PositioningRequest extends JsonRequest<MoPubClientPositioning> {
         super.deliverResponse(response);
     }
 
+    @NonNull
+    @Override
+    public RequestCategory getRequestCategory() {
+        return RequestCategory.POSITIONING;
+    }
+
     @Override
     protected Response<MoPubClientPositioning> parseNetworkResponse(final NetworkResponse response) {
         if (response.statusCode != HttpURLConnection.HTTP_OK) {
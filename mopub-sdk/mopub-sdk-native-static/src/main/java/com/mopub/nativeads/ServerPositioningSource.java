@@ -15,12 +15,15 @@ import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.DeviceUtils;
 import com.mopub.mobileads.MoPubErrorCode;
 import com.mopub.nativeads.MoPubNativeAdPositioning.MoPubClientPositioning;
+import com.mopub.network.AdUnitConfigStore;
 import com.mopub.network.MoPubNetworkError;
 import com.mopub.network.Networking;
 import com.mopub.volley.RequestQueue;
 import com.mopub.volley.Response;
 import com.mopub.volley.VolleyError;
 
+import java.util.List;
+
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR;
 
@@ -50,6 +53,10 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR;
  *
  * The JSON parsing logic treats any violations to the above spec as invalid,
  * rather than trying to continue with a partially valid response.
+ *
+ * Positioning is saved in {@link AdUnitConfigStore}. When saved positioning hasn't expired, it is
+ * delivered right away. The server's response still updates the saved copy, and is delivered as
+ * well if it differs from what was saved.
  */
 class ServerPositioningSource implements PositioningSource {
 
@@ -73,6 +80,10 @@ class ServerPositioningSource implements PositioningSource {
     private int mRetryCount;
     @Nullable private String mRetryUrl;
     @Nullable private PositioningRequest mRequest;
+    @Nullable private String mAdUnitId;
+    @Nullable private Runnable mStoredPositioningRunnable;
+    // The saved positioning delivered for the current load, if any.
+    @Nullable private AdUnitConfigStore.Positioning mStoredPositioning;
 
     ServerPositioningSource(@NonNull final Context context) {
         mContext = context.getApplicationContext();
@@ -123,7 +134,27 @@ class ServerPositioningSource implements PositioningSource {
             mRetryCount = 0;
         }
 
+        // If saved positioning is about to be delivered, don't deliver it.
+        if (mStoredPositioningRunnable != null) {
+            mRetryHandler.removeCallbacks(mStoredPositioningRunnable);
+            mStoredPositioningRunnable = null;
+        }
+
+        mAdUnitId = adUnitId;
         mListener = listener;
+        mStoredPositioning = AdUnitConfigStore.getInstance(mContext).getPositioning(adUnitId);
+        if (mStoredPositioning != null) {
+            final MoPubClientPositioning positioning = fromStoredPositioning(mStoredPositioning);
+            mStoredPositioningRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    mStoredPositioningRunnable = null;
+                    listener.onLoad(positioning);
+                }
+            };
+            mRetryHandler.post(mStoredPositioningRunnable);
+        }
+
         mRetryUrl = new PositioningUrlGenerator(mContext)
                 .withAdUnitId(adUnitId)
                 .generateUrlString(Constants.HOST);
@@ -139,14 +170,32 @@ class ServerPositioningSource implements PositioningSource {
     }
 
     private void handleSuccess(@NonNull MoPubClientPositioning positioning) {
-        if (mListener != null) {
+        final AdUnitConfigStore.Positioning storedPositioning = toStoredPositioning(positioning);
+        AdUnitConfigStore.getInstance(mContext).putPositioning(mAdUnitId, storedPositioning);
+
+        if (mStoredPositioningRunnable != null) {
+            // The saved positioning hasn't been delivered yet. Deliver only this one.
+            mRetryHandler.removeCallbacks(mStoredPositioningRunnable);
+            mStoredPositioningRunnable = null;
+            mStoredPositioning = null;
+        }
+        if (mListener != null && !storedPositioning.equals(mStoredPositioning)) {
             mListener.onLoad(positioning);
         }
         mListener = null;
+        mStoredPositioning = null;
         mRetryCount = 0;
     }
 
     private void handleFailure() {
+        if (mStoredPositioning != null) {
+            // Saved positioning is delivered instead. Try again on the next load.
+            mListener = null;
+            mStoredPositioning = null;
+            mRetryCount = 0;
+            return;
+        }
+
         double multiplier = Math.pow(EXPONENTIAL_BACKOFF_FACTOR, mRetryCount + 1);
         int delay = (int) (DEFAULT_RETRY_TIME_MILLISECONDS * multiplier);
         if (delay >= mMaximumRetryTimeMillis) {
@@ -162,6 +211,30 @@ class ServerPositioningSource implements PositioningSource {
         mRetryHandler.postDelayed(mRetryRunnable, delay);
     }
 
+    @NonNull
+    static MoPubClientPositioning fromStoredPositioning(
+            @NonNull final AdUnitConfigStore.Positioning storedPositioning) {
+        final MoPubClientPositioning positioning = new MoPubClientPositioning();
+        for (final int position : storedPositioning.fixedPositions) {
+            positioning.addFixedPosition(position);
+        }
+        if (storedPositioning.repeatingInterval != MoPubClientPositioning.NO_REPEAT) {
+            positioning.enableRepeatingPositions(storedPositioning.repeatingInterval);
+        }
+        return positioning;
+    }
+
+    @NonNull
+    static AdUnitConfigStore.Positioning toStoredPositioning(
+            @NonNull final MoPubClientPositioning positioning) {
+        final List<Integer> fixedPositions = positioning.getFixedPositions();
+        final int[] positions = new int[fixedPositions.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = fixedPositions.get(i);
+        }
+        return new AdUnitConfigStore.Positioning(positions, positioning.getRepeatingInterval());
+    }
+
     @Deprecated
     @VisibleForTesting
     void setMaximumRetryTimeMilliseconds(int millis) {
@@ -7,7 +7,9 @@ package com.mopub.nativeads.factories;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.mopub.common.CustomEventRegistry;
 import com.mopub.common.Preconditions;
+import com.mopub.common.util.Reflection;
 import com.mopub.nativeads.CustomEventNative;
 import com.mopub.nativeads.MoPubCustomEventNative;
 
@@ -18,8 +20,17 @@ public class CustomEventNativeFactory {
 
     public static CustomEventNative create(@Nullable final String className) throws Exception {
         if (className != null) {
-            final Class<? extends CustomEventNative> nativeClass = Class.forName(className)
-                    .asSubclass(CustomEventNative.class);
+            // Registered custom events are created without any reflection.
+            final CustomEventRegistry.Factory<?> factory = CustomEventRegistry.getFactory(className);
+            if (factory != null) {
+                final Object customEventNative = factory.create();
+                if (customEventNative instanceof CustomEventNative) {
+                    return (CustomEventNative) customEventNative;
+                }
+            }
+
+            final Class<? extends CustomEventNative> nativeClass =
+                    Reflection.getClassForName(className).asSubclass(CustomEventNative.class);
             return instance.internalCreate(nativeClass);
         } else {
             return new MoPubCustomEventNative();
@@ -39,8 +50,9 @@ public class CustomEventNativeFactory {
             @NonNull final Class<? extends CustomEventNative> nativeClass) throws Exception {
         Preconditions.checkNotNull(nativeClass);
 
-        final Constructor<?> nativeConstructor = nativeClass.getDeclaredConstructor((Class[]) null);
-        nativeConstructor.setAccessible(true);
-        return (CustomEventNative) nativeConstructor.newInstance();
+        // The registry was already checked by create(), so go straight to the constructor.
+        final Constructor<? extends CustomEventNative> nativeConstructor =
+                Reflection.getDeclaredConstructor(nativeClass);
+        return nativeConstructor.newInstance();
     }
 }
@@ -0,0 +1,84 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.mopub.common.BandwidthEstimator;
+import com.mopub.common.VisibleForTesting;
+
+/**
+ * Reports ExoPlayer network transfers to the {@link BandwidthEstimator}. The player stops reading
+ * while its buffer is full but keeps the connection open, so a transfer is split into bursts of
+ * reads and only the time spent within a burst is counted.
+ *
+ * Each instance must only be added to one {@link DataSource}.
+ */
+class BandwidthTransferListener implements TransferListener {
+    // A longer pause between reads means the player stopped loading.
+    @VisibleForTesting
+    static final long MAX_READ_GAP_MILLIS = 500;
+
+    private long mBurstStartMillis;
+    private long mLastReadMillis;
+    private long mBurstBytes;
+
+    @Override
+    public void onTransferInitializing(final DataSource source, final DataSpec dataSpec,
+            final boolean isNetwork) {
+    }
+
+    @Override
+    public void onTransferStart(final DataSource source, final DataSpec dataSpec,
+            final boolean isNetwork) {
+        if (!isNetwork) {
+            return;
+        }
+
+        startBurst(SystemClock.elapsedRealtime());
+    }
+
+    @Override
+    public void onBytesTransferred(final DataSource source, final DataSpec dataSpec,
+            final boolean isNetwork, final int bytesTransferred) {
+        if (!isNetwork) {
+            return;
+        }
+
+        final long nowMillis = SystemClock.elapsedRealtime();
+        if (nowMillis - mLastReadMillis > MAX_READ_GAP_MILLIS) {
+            // The wait for these bytes included the pause, so they start the next burst.
+            endBurst();
+            startBurst(nowMillis);
+            return;
+        }
+        mBurstBytes += bytesTransferred;
+        mLastReadMillis = nowMillis;
+    }
+
+    @Override
+    public void onTransferEnd(final DataSource source, final DataSpec dataSpec,
+            final boolean isNetwork) {
+        if (!isNetwork) {
+            return;
+        }
+
+        endBurst();
+    }
+
+    private void startBurst(final long nowMillis) {
+        mBurstStartMillis = nowMillis;
+        mLastReadMillis = nowMillis;
+        mBurstBytes = 0;
+    }
+
+    private void endBurst() {
+        BandwidthEstimator.addSample(mBurstBytes, mLastReadMillis - mBurstStartMillis);
+        mBurstBytes = 0;
+    }
+}
@@ -0,0 +1,347 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.content.Context;
+import android.media.MediaPlayer;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.ExoPlayerFactory;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.PlayerMessage;
+import com.google.android.exoplayer2.Renderer;
+import com.google.android.exoplayer2.audio.MediaCodecAudioRenderer;
+import com.google.android.exoplayer2.decoder.DecoderCounters;
+import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.ExtractorsFactory;
+import com.google.android.exoplayer2.extractor.mp4.Mp4Extractor;
+import com.google.android.exoplayer2.mediacodec.MediaCodecSelector;
+import com.google.android.exoplayer2.source.ExtractorMediaSource;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.video.MediaCodecVideoRenderer;
+import com.google.android.exoplayer2.video.VideoRendererEventListener;
+import com.mopub.common.Preconditions;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.mobileads.VastVideoView;
+import com.mopub.network.Networking;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
+
+/**
+ * A {@link VastVideoView} that plays full-screen VAST videos with ExoPlayer instead of
+ * {@link MediaPlayer}. Network videos are read through {@link MoPubCache}, so playback can start
+ * as soon as the beginning of the file is cached instead of after the whole file is downloaded.
+ *
+ * The VideoView playback methods and listeners are backed by the ExoPlayer, so
+ * VastVideoViewController tracks progress, quartiles and viewability the same way for both
+ * views. The {@link MediaPlayer} passed to the listeners is always null.
+ *
+ * The base module creates this view through reflection when the ad unit asks for ExoPlayer.
+ */
+public class ExoVastVideoView extends VastVideoView {
+    @NonNull private final Context mContext;
+    @NonNull private final Handler mHandler;
+    @Nullable private ExoPlayer mExoPlayer;
+    @Nullable private MediaCodecVideoRenderer mVideoRenderer;
+    @Nullable private Surface mSurface;
+    @Nullable private MediaPlayer.OnPreparedListener mOnPreparedListener;
+    @Nullable private MediaPlayer.OnCompletionListener mOnCompletionListener;
+    @Nullable private MediaPlayer.OnErrorListener mOnErrorListener;
+    private boolean mPrepared;
+    private boolean mCompleted;
+    private int mVideoWidth;
+    private int mVideoHeight;
+
+    public ExoVastVideoView(@NonNull final Context context) {
+        super(context);
+        mContext = context.getApplicationContext();
+        mHandler = new Handler(Looper.getMainLooper());
+        getHolder().addCallback(new SurfaceHolder.Callback() {
+            @Override
+            public void surfaceCreated(final SurfaceHolder holder) {
+                mSurface = holder.getSurface();
+                setExoSurface(mSurface);
+            }
+
+            @Override
+            public void surfaceChanged(final SurfaceHolder holder, final int format,
+                    final int width, final int height) {
+            }
+
+            @Override
+            public void surfaceDestroyed(final SurfaceHolder holder) {
+                mSurface = null;
+                setExoSurface(null);
+            }
+        });
+    }
+
+    /**
+     * Starts caching the beginning of the video, so that playback can start from the cache.
+     * Called by the base module through reflection.
+     */
+    public static void prefetch(@NonNull final Context context, @Nullable final String mediaUrl) {
+        NativeVideoPrefetcher.prefetch(context, mediaUrl);
+    }
+
+    @Override
+    public void setVideoPath(final String path) {
+        setVideoURI(Uri.parse(path));
+    }
+
+    /**
+     * Prepares the ExoPlayer. VideoView's own {@link MediaPlayer} is never opened.
+     */
+    @Override
+    public void setVideoURI(final Uri uri) {
+        Preconditions.checkNotNull(uri);
+
+        releasePlayer();
+        mPrepared = false;
+        mCompleted = false;
+
+        final MediaCodecVideoRenderer videoRenderer = new MediaCodecVideoRenderer(mContext,
+                MediaCodecSelector.DEFAULT, 0, mHandler, new VideoSizeListener(), 10);
+        final MediaCodecAudioRenderer audioRenderer = new MediaCodecAudioRenderer(mContext,
+                MediaCodecSelector.DEFAULT);
+        final ExoPlayer exoPlayer = ExoPlayerFactory.newInstance(
+                new Renderer[]{videoRenderer, audioRenderer}, new DefaultTrackSelector());
+        exoPlayer.addListener(new PlayerEventListener());
+        mExoPlayer = exoPlayer;
+        mVideoRenderer = videoRenderer;
+        setExoSurface(mSurface);
+
+        final ExtractorMediaSource.Factory mediaSourceFactory =
+                new ExtractorMediaSource.Factory(createDataSourceFactory(uri));
+        mediaSourceFactory.setExtractorsFactory(new ExtractorsFactory() {
+            @Override
+            public Extractor[] createExtractors() {
+                return new Extractor[]{new Mp4Extractor()};
+            }
+        });
+        exoPlayer.prepare(mediaSourceFactory.createMediaSource(uri));
+    }
+
+    @Override
+    public void setOnPreparedListener(@Nullable final MediaPlayer.OnPreparedListener listener) {
+        mOnPreparedListener = listener;
+    }
+
+    @Override
+    public void setOnCompletionListener(
+            @Nullable final MediaPlayer.OnCompletionListener listener) {
+        mOnCompletionListener = listener;
+    }
+
+    @Override
+    public void setOnErrorListener(@Nullable final MediaPlayer.OnErrorListener listener) {
+        mOnErrorListener = listener;
+    }
+
+    @Override
+    public void start() {
+        if (mExoPlayer != null) {
+            mExoPlayer.setPlayWhenReady(true);
+        }
+    }
+
+    @Override
+    public void pause() {
+        if (mExoPlayer != null) {
+            mExoPlayer.setPlayWhenReady(false);
+        }
+    }
+
+    @Override
+    public void seekTo(final int msec) {
+        if (mExoPlayer != null) {
+            mExoPlayer.seekTo(msec);
+        }
+    }
+
+    /**
+     * A video that is stalled waiting for data is still playing, like it is for VideoView, so the
+     * controller doesn't take the stall for a pause.
+     */
+    @Override
+    public boolean isPlaying() {
+        if (mExoPlayer == null || !mExoPlayer.getPlayWhenReady()) {
+            return false;
+        }
+        final int playbackState = mExoPlayer.getPlaybackState();
+        return playbackState == Player.STATE_READY || playbackState == Player.STATE_BUFFERING;
+    }
+
+    @Override
+    public int getDuration() {
+        if (mExoPlayer == null || !mPrepared) {
+            return -1;
+        }
+        final long duration = mExoPlayer.getDuration();
+        return duration == C.TIME_UNSET ? -1 : (int) duration;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        if (mExoPlayer == null) {
+            return 0;
+        }
+        return (int) mExoPlayer.getCurrentPosition();
+    }
+
+    @Override
+    public void stopPlayback() {
+        releasePlayer();
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        releasePlayer();
+    }
+
+    /**
+     * Letterboxes the video like VideoView does, using the size reported by ExoPlayer.
+     */
+    @Override
+    protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+        if (mVideoWidth <= 0 || mVideoHeight <= 0) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+
+        int width = getDefaultSize(mVideoWidth, widthMeasureSpec);
+        int height = getDefaultSize(mVideoHeight, heightMeasureSpec);
+        if (mVideoWidth * height > width * mVideoHeight) {
+            height = width * mVideoHeight / mVideoWidth;
+        } else if (mVideoWidth * height < width * mVideoHeight) {
+            width = height * mVideoWidth / mVideoHeight;
+        }
+        setMeasuredDimension(width, height);
+    }
+
+    @NonNull
+    private DataSource.Factory createDataSourceFactory(@NonNull final Uri uri) {
+        final String scheme = uri.getScheme();
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+            return new DefaultDataSourceFactory(mContext, Networking.getCachedUserAgent());
+        }
+
+        return new DataSource.Factory() {
+            @Override
+            public DataSource createDataSource() {
+                final DefaultHttpDataSource httpDataSource =
+                        new DefaultHttpDataSource(Networking.getCachedUserAgent(), null);
+                httpDataSource.addTransferListener(new BandwidthTransferListener());
+                final Cache cache = MoPubCache.getCacheInstance(mContext);
+                if (cache == null) {
+                    return httpDataSource;
+                }
+                return new CacheDataSource(cache, httpDataSource);
+            }
+        };
+    }
+
+    private void setExoSurface(@Nullable final Surface surface) {
+        final ExoPlayer exoPlayer = mExoPlayer;
+        final MediaCodecVideoRenderer videoRenderer = mVideoRenderer;
+        if (exoPlayer == null || videoRenderer == null) {
+            return;
+        }
+
+        final PlayerMessage playerMessage = exoPlayer.createMessage(videoRenderer);
+        if (playerMessage == null) {
+            MoPubLog.log(CUSTOM, "ExoPlayer.createMessage returned null.");
+            return;
+        }
+        playerMessage.setType(C.MSG_SET_SURFACE)
+                .setPayload(surface)
+                .send();
+    }
+
+    private void releasePlayer() {
+        if (mExoPlayer != null) {
+            mExoPlayer.release();
+            mExoPlayer = null;
+        }
+        mVideoRenderer = null;
+    }
+
+    private class PlayerEventListener extends Player.DefaultEventListener {
+        @Override
+        public void onPlayerStateChanged(final boolean playWhenReady, final int playbackState) {
+            if (playbackState == Player.STATE_READY && !mPrepared) {
+                mPrepared = true;
+                if (mOnPreparedListener != null) {
+                    mOnPreparedListener.onPrepared(null);
+                }
+            } else if (playbackState == Player.STATE_ENDED && !mCompleted) {
+                mCompleted = true;
+                if (mOnCompletionListener != null) {
+                    mOnCompletionListener.onCompletion(null);
+                }
+            }
+        }
+
+        @Override
+        public void onPlayerError(final ExoPlaybackException error) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "ExoPlayer failed to play VAST video.", error);
+            if (mOnErrorListener != null) {
+                mOnErrorListener.onError(null, MediaPlayer.MEDIA_ERROR_UNKNOWN, 0);
+            }
+        }
+    }
+
+    private class VideoSizeListener implements VideoRendererEventListener {
+        @Override
+        public void onVideoEnabled(final DecoderCounters counters) {
+        }
+
+        @Override
+        public void onVideoDecoderInitialized(final String decoderName,
+                final long initializedTimestampMs, final long initializationDurationMs) {
+        }
+
+        @Override
+        public void onVideoInputFormatChanged(final Format format) {
+        }
+
+        @Override
+        public void onDroppedFrames(final int count, final long elapsedMs) {
+        }
+
+        @Override
+        public void onVideoSizeChanged(final int width, final int height,
+                final int unappliedRotationDegrees, final float pixelWidthHeightRatio) {
+            mVideoWidth = (int) (width * pixelWidthHeightRatio);
+            mVideoHeight = height;
+            requestLayout();
+        }
+
+        @Override
+        public void onRenderedFirstFrame(@Nullable final Surface surface) {
+        }
+
+        @Override
+        public void onVideoDisabled(final DecoderCounters counters) {
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.google.android.exoplayer2.upstream.cache.Cache;
 import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
 import com.google.android.exoplayer2.upstream.cache.SimpleCache;
 import com.mopub.common.Preconditions;
+import com.mopub.common.SdkMemoryManager;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.util.DeviceUtils;
 
@@ -23,6 +24,37 @@ class MoPubCache {
 
     private volatile static Cache sInstance = null;
 
+    // The cache is on disk, so it is only reported, never trimmed.
+    @NonNull private static final SdkMemoryManager.TrimmableCache sTrimmableCache =
+            new SdkMemoryManager.TrimmableCache() {
+                @NonNull
+                @Override
+                public String getName() {
+                    return "Native video cache";
+                }
+
+                @Override
+                public int getEntryCount() {
+                    final Cache instance = sInstance;
+                    return instance == null ? 0 : instance.getKeys().size();
+                }
+
+                @Override
+                public long getMemoryBytes() {
+                    return 0;
+                }
+
+                @Override
+                public long getDiskBytes() {
+                    final Cache instance = sInstance;
+                    return instance == null ? 0 : instance.getCacheSpace();
+                }
+
+                @Override
+                public void trim() {
+                }
+            };
+
     @Nullable
     static Cache getCacheInstance(@NonNull final Context context) {
         Preconditions.checkNotNull(context);
@@ -42,6 +74,8 @@ class MoPubCache {
                         final LeastRecentlyUsedCacheEvictor lruEvictor = new LeastRecentlyUsedCacheEvictor(cacheSize);
                         instance = new SimpleCache(nativeCacheDir, lruEvictor);
                         sInstance = instance;
+                        SdkMemoryManager.register(sTrimmableCache,
+                                SdkMemoryManager.PRIORITY_NEVER);
                     }
                 }
             }
@@ -15,6 +15,7 @@ import android.view.View;
 
 import com.mopub.common.DataKeys;
 import com.mopub.common.Preconditions;
+import com.mopub.common.ResolvedUrlCache;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.Utils;
@@ -611,6 +612,7 @@ public class MoPubCustomEventVideoNative extends CustomEventNative {
         @Override
         public void destroy() {
             invalidate();
+            cancelPrefetch();
             cleanUpMediaLayout();
             mNativeVideoController.setPlayWhenReady(false);
             mNativeVideoController.release(this);
@@ -618,6 +620,25 @@ public class MoPubCustomEventVideoNative extends CustomEventNative {
             mVideoVisibleTracking.destroy();
         }
 
+        /**
+         * Warms the start of the video into the cache so it can play as soon as it's in view.
+         */
+        @Override
+        public void prefetch() {
+            if (mVastVideoConfig == null || mMediaLayout != null) {
+                return;
+            }
+            NativeVideoPrefetcher.prefetch(mContext, mVastVideoConfig.getNetworkMediaFileUrl());
+        }
+
+        @Override
+        public void cancelPrefetch() {
+            if (mVastVideoConfig == null) {
+                return;
+            }
+            NativeVideoPrefetcher.cancel(mVastVideoConfig.getNetworkMediaFileUrl());
+        }
+
         @Override
         public void onStateChanged(final boolean playWhenReady, final int playbackState) {
             mLatestVideoControllerState = playbackState;
@@ -928,6 +949,7 @@ public class MoPubCustomEventVideoNative extends CustomEventNative {
             final MoPubVideoNativeAd moPubVideoNativeAd = mMoPubVideoNativeAd.get();
             if (moPubVideoNativeAd != null) {
                 moPubVideoNativeAd.notifyAdImpressed();
+                ResolvedUrlCache.preResolve(moPubVideoNativeAd.getClickDestinationUrl());
             }
         }
     }
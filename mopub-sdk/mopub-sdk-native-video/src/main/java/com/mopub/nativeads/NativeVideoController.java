@@ -18,7 +18,6 @@ import android.view.Surface;
 import android.view.TextureView;
 
 import com.google.android.exoplayer2.C;
-import com.google.android.exoplayer2.DefaultLoadControl;
 import com.google.android.exoplayer2.ExoPlaybackException;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.ExoPlayerFactory;
@@ -31,21 +30,19 @@ import com.google.android.exoplayer2.audio.MediaCodecAudioRenderer;
 import com.google.android.exoplayer2.extractor.Extractor;
 import com.google.android.exoplayer2.extractor.ExtractorsFactory;
 import com.google.android.exoplayer2.extractor.mp4.Mp4Extractor;
-import com.google.android.exoplayer2.mediacodec.MediaCodecSelector;
 import com.google.android.exoplayer2.source.ExtractorMediaSource;
 import com.google.android.exoplayer2.source.MediaSource;
 import com.google.android.exoplayer2.source.TrackGroupArray;
-import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
 import com.google.android.exoplayer2.trackselection.TrackSelector;
 import com.google.android.exoplayer2.upstream.DataSource;
-import com.google.android.exoplayer2.upstream.DefaultAllocator;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
 import com.google.android.exoplayer2.upstream.cache.Cache;
 import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
 import com.google.android.exoplayer2.video.MediaCodecVideoRenderer;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.SdkMemoryManager;
 import com.mopub.common.VisibilityTracker.VisibilityChecker;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
@@ -76,6 +73,35 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
 
     @NonNull private final static Map<Long, NativeVideoController> sManagerMap =
             new HashMap<Long, NativeVideoController>(4);
+    // The controllers belong to ads that are still in use, so they are only reported. Their players
+    // are trimmed through the NativeVideoPlayerPool.
+    @NonNull private final static SdkMemoryManager.TrimmableCache sTrimmableCache =
+            new SdkMemoryManager.TrimmableCache() {
+                @NonNull
+                @Override
+                public String getName() {
+                    return "Native video controllers";
+                }
+
+                @Override
+                public int getEntryCount() {
+                    return sManagerMap.size();
+                }
+
+                @Override
+                public long getMemoryBytes() {
+                    return 0;
+                }
+
+                @Override
+                public long getDiskBytes() {
+                    return 0;
+                }
+
+                @Override
+                public void trim() {
+                }
+            };
 
     public static final int STATE_READY = Player.STATE_READY;
     public static final int STATE_BUFFERING = Player.STATE_BUFFERING;
@@ -85,11 +111,7 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
 
     public static final long RESUME_FINISHED_THRESHOLD = 750L;
 
-    private static final int BUFFER_SEGMENT_SIZE = 64 * 1024; // 64 kB
-    private static final int BUFFER_SEGMENT_COUNT = 32; // 64 kB * 32 ~= 2 MB
-
     @NonNull private final Context mContext;
-    @NonNull private final Handler mHandler;
     @NonNull private final MoPubExoPlayerFactory mMoPubExoPlayerFactory;
     @NonNull private VastVideoConfig mVastVideoConfig;
     @NonNull private NativeVideoProgressRunnable mNativeVideoProgressRunnable;
@@ -104,12 +126,15 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
     @Nullable private BitmapDrawable mFinalFrame;
     @Nullable private MediaCodecAudioRenderer mAudioRenderer;
     @Nullable private MediaCodecVideoRenderer mVideoRenderer;
+    @Nullable private NativeVideoPlayerPool.PooledPlayer mPooledPlayer;
 
     private boolean mPlayWhenReady;
     private boolean mAudioEnabled;
     private boolean mAppAudioEnabled;
     private int mPreviousExoPlayerState = Player.STATE_IDLE;
     private boolean mExoPlayerStateStartedFromIdle = true;
+    private boolean mWaitingForPlayer;
+    private long mResumePositionMs = C.TIME_UNSET;
 
     /**
      * Create a new {@link NativeVideoController} for this id with the given parameters.
@@ -126,6 +151,7 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
         NativeVideoController nvc = new NativeVideoController(context, visibilityTrackingEvents,
                 vastVideoConfig);
         sManagerMap.put(id, nvc);
+        SdkMemoryManager.register(sTrimmableCache, SdkMemoryManager.PRIORITY_NEVER);
         return nvc;
     }
 
@@ -140,6 +166,7 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
         NativeVideoController nvc = new NativeVideoController(context, vastVideoConfig,
                 nativeVideoProgressRunnable, moPubExoPlayerFactory, audioManager);
         sManagerMap.put(id, nvc);
+        SdkMemoryManager.register(sTrimmableCache, SdkMemoryManager.PRIORITY_NEVER);
         return nvc;
     }
 
@@ -182,7 +209,6 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
         Preconditions.checkNotNull(audioManager);
 
         mContext = context.getApplicationContext();
-        mHandler = new Handler(Looper.getMainLooper());
         mVastVideoConfig = vastVideoConfig;
         mNativeVideoProgressRunnable = nativeVideoProgressRunnable;
         mMoPubExoPlayerFactory = moPubExoPlayerFactory;
@@ -207,6 +233,13 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
         }
 
         mPlayWhenReady = playWhenReady;
+        if (playWhenReady && mWaitingForPlayer) {
+            // The ad became visible while its player was leased to another one. Ask again, which
+            // may take a player back from a paused ad.
+            preparePlayer();
+            setExoSurface(mSurface);
+            return;
+        }
         setExoPlayWhenReady();
     }
 
@@ -273,6 +306,8 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
         Preconditions.checkNotNull(owner);
 
         mOwnerRef = new WeakReference<Object>(owner);
+        // The player reads whatever was prefetched from the cache and fetches the rest itself.
+        NativeVideoPrefetcher.cancel(mVastVideoConfig.getNetworkMediaFileUrl());
         clearExistingPlayer();
         preparePlayer();
         setExoSurface(mSurface);
@@ -383,34 +418,90 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
         mNativeVideoProgressRunnable.checkImpressionTrackers(true);
     }
 
+    /**
+     * Called by the {@link NativeVideoPlayerPool} when it takes this controller's player back for
+     * another ad. The controller remembers where it was and picks up from there once
+     * {@link #onPlayerAvailable()} is called.
+     */
+    void onPlayerReclaimed() {
+        final ExoPlayer exoPlayer = mExoPlayer;
+        if (exoPlayer == null) {
+            return;
+        }
+
+        mResumePositionMs = exoPlayer.getCurrentPosition();
+        setExoSurface(null);
+        detachPlayer();
+        mWaitingForPlayer = true;
+
+        if (mListener != null) {
+            mListener.onStateChanged(mPlayWhenReady, STATE_IDLE);
+        }
+    }
+
+    /**
+     * Called by the {@link NativeVideoPlayerPool} when a player this controller was waiting for
+     * can be leased.
+     */
+    void onPlayerAvailable() {
+        if (!mWaitingForPlayer) {
+            return;
+        }
+
+        preparePlayer();
+        setExoSurface(mSurface);
+    }
+
+    boolean isPlayRequested() {
+        return mPlayWhenReady;
+    }
+
     private void clearExistingPlayer() {
-        if (mExoPlayer == null) {
+        if (mWaitingForPlayer) {
+            mWaitingForPlayer = false;
+            NativeVideoPlayerPool.getInstance(mContext).cancelWaiting(this);
+        }
+        mResumePositionMs = C.TIME_UNSET;
+
+        final NativeVideoPlayerPool.PooledPlayer pooledPlayer = mPooledPlayer;
+        if (mExoPlayer == null || pooledPlayer == null) {
             return;
         }
 
         setExoSurface(null);
-        mExoPlayer.stop();
-        mExoPlayer.release();
+        detachPlayer();
+        NativeVideoPlayerPool.getInstance(mContext).release(pooledPlayer);
+    }
+
+    private void detachPlayer() {
+        final ExoPlayer exoPlayer = mExoPlayer;
+        if (exoPlayer != null) {
+            exoPlayer.removeListener(this);
+        }
         mExoPlayer = null;
+        mPooledPlayer = null;
+        mVideoRenderer = null;
+        mAudioRenderer = null;
         mNativeVideoProgressRunnable.stop();
         mNativeVideoProgressRunnable.setExoPlayer(null);
     }
 
     private void preparePlayer() {
         if (mExoPlayer == null) {
-            mVideoRenderer = new MediaCodecVideoRenderer(mContext,
-                    MediaCodecSelector.DEFAULT, 0, mHandler, null, 10);
-            mAudioRenderer = new MediaCodecAudioRenderer(mContext, MediaCodecSelector.DEFAULT);
-            final DefaultAllocator allocator = new DefaultAllocator(true, BUFFER_SEGMENT_SIZE,
-                    BUFFER_SEGMENT_COUNT);
-
-            final DefaultLoadControl.Builder defaultLoadControlBuilder = new DefaultLoadControl.Builder();
-            defaultLoadControlBuilder.setAllocator(allocator);
+            final NativeVideoPlayerPool.PooledPlayer pooledPlayer =
+                    NativeVideoPlayerPool.getInstance(mContext).acquire(this,
+                            mMoPubExoPlayerFactory);
+            if (pooledPlayer == null) {
+                MoPubLog.log(CUSTOM, "All native video players are in use. Waiting for one.");
+                mWaitingForPlayer = true;
+                return;
+            }
 
-            mExoPlayer = mMoPubExoPlayerFactory.newInstance(
-                    new Renderer[]{mVideoRenderer, mAudioRenderer},
-                    new DefaultTrackSelector(),
-                    defaultLoadControlBuilder.createDefaultLoadControl());
+            mWaitingForPlayer = false;
+            mPooledPlayer = pooledPlayer;
+            mExoPlayer = pooledPlayer.exoPlayer;
+            mVideoRenderer = pooledPlayer.videoRenderer;
+            mAudioRenderer = pooledPlayer.audioRenderer;
 
             mNativeVideoProgressRunnable.setExoPlayer(mExoPlayer);
             mExoPlayer.addListener(this);
@@ -418,8 +509,10 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
             final DataSource.Factory dataSourceFactory = new DataSource.Factory() {
                 @Override
                 public DataSource createDataSource() {
-                    DataSource dataSource = new DefaultHttpDataSource("exo_demo",
-                            null);
+                    final DefaultHttpDataSource httpDataSource = new DefaultHttpDataSource(
+                            "exo_demo", null);
+                    httpDataSource.addTransferListener(new BandwidthTransferListener());
+                    DataSource dataSource = httpDataSource;
                     final Cache cache = MoPubCache.getCacheInstance(mContext);
 
                     if (cache != null) {
@@ -443,6 +536,10 @@ public class NativeVideoController extends ExoPlayer.DefaultEventListener implem
             final MediaSource mediaSource = extractorMediaSourceFactory.createMediaSource(Uri.parse(mVastVideoConfig.getNetworkMediaFileUrl()));
 
             mExoPlayer.prepare(mediaSource);
+            if (mResumePositionMs != C.TIME_UNSET) {
+                mExoPlayer.seekTo(mResumePositionMs);
+                mResumePositionMs = C.TIME_UNSET;
+            }
             mNativeVideoProgressRunnable.startRepeating(50);
         }
 
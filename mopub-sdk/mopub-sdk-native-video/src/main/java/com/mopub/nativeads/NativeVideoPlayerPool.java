@@ -0,0 +1,278 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.Renderer;
+import com.google.android.exoplayer2.audio.MediaCodecAudioRenderer;
+import com.google.android.exoplayer2.mediacodec.MediaCodecSelector;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.google.android.exoplayer2.video.MediaCodecVideoRenderer;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.SdkMemoryManager;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.nativeads.NativeVideoController.MoPubExoPlayerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A fixed number of {@link ExoPlayer}s shared by all the {@link NativeVideoController}s, so a feed
+ * uses the same number of players, codecs and buffers no matter how many video ads it has. The
+ * players share one {@link DefaultAllocator}. A player returned to the pool keeps its renderers
+ * and playback thread, so the next video doesn't pay for setting them up.
+ *
+ * When every player is leased, a player is taken back from the controller that least recently
+ * got one among those that aren't playing. Controllers that are playing are never interrupted;
+ * if they hold every player, a new controller waits for one to be returned. A waiting controller
+ * asks again as soon as it is asked to play. As players are returned, waiting controllers that are
+ * asked to play get them first, then the others, most recent first.
+ *
+ * Players that aren't leased are released when {@link SdkMemoryManager} trims idle resources.
+ *
+ * This class must only be used on the main thread.
+ */
+public class NativeVideoPlayerPool {
+    @VisibleForTesting
+    static final int MAX_PLAYERS = 2;
+
+    private static final int BUFFER_SEGMENT_SIZE = 64 * 1024; // 64 kB
+    private static final int BUFFER_SEGMENT_COUNT = 32; // 64 kB * 32 ~= 2 MB
+
+    @Nullable private static NativeVideoPlayerPool sInstance;
+
+    @NonNull private final Context mContext;
+    @NonNull private final Handler mHandler;
+    @NonNull private final DefaultAllocator mAllocator;
+    @NonNull private final List<PooledPlayer> mPlayers;
+    // Most recently added first.
+    @NonNull private final LinkedList<NativeVideoController> mWaitingControllers;
+    // SdkMemoryManager only holds it weakly.
+    @NonNull private final SdkMemoryManager.TrimmableCache mTrimmableCache;
+    private long mLeaseCount;
+
+    static class PooledPlayer {
+        @NonNull final ExoPlayer exoPlayer;
+        @NonNull final MediaCodecVideoRenderer videoRenderer;
+        @NonNull final MediaCodecAudioRenderer audioRenderer;
+        @Nullable private NativeVideoController mLessee;
+        private long mLeaseNumber;
+
+        PooledPlayer(@NonNull final ExoPlayer exoPlayer,
+                @NonNull final MediaCodecVideoRenderer videoRenderer,
+                @NonNull final MediaCodecAudioRenderer audioRenderer) {
+            this.exoPlayer = exoPlayer;
+            this.videoRenderer = videoRenderer;
+            this.audioRenderer = audioRenderer;
+        }
+    }
+
+    @NonNull
+    static NativeVideoPlayerPool getInstance(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        if (sInstance == null) {
+            sInstance = new NativeVideoPlayerPool(context);
+        }
+        return sInstance;
+    }
+
+    private NativeVideoPlayerPool(@NonNull final Context context) {
+        mContext = context.getApplicationContext();
+        mHandler = new Handler(Looper.getMainLooper());
+        // Preallocate enough for one player; the allocator grows if both players buffer at once.
+        mAllocator = new DefaultAllocator(true, BUFFER_SEGMENT_SIZE, BUFFER_SEGMENT_COUNT);
+        mPlayers = new ArrayList<PooledPlayer>(MAX_PLAYERS);
+        mWaitingControllers = new LinkedList<NativeVideoController>();
+        mTrimmableCache = new SdkMemoryManager.TrimmableCache() {
+            @NonNull
+            @Override
+            public String getName() {
+                return "Native video player pool";
+            }
+
+            @Override
+            public int getEntryCount() {
+                return mPlayers.size();
+            }
+
+            @Override
+            public long getMemoryBytes() {
+                return mAllocator.getTotalBytesAllocated();
+            }
+
+            @Override
+            public long getDiskBytes() {
+                return 0;
+            }
+
+            @Override
+            public void trim() {
+                NativeVideoPlayerPool.this.trim();
+            }
+        };
+        SdkMemoryManager.register(mTrimmableCache, SdkMemoryManager.PRIORITY_IDLE_RESOURCES);
+    }
+
+    /**
+     * Leases a player to the controller. If none can be leased right now, the controller is
+     * queued and {@link NativeVideoController#onPlayerAvailable()} is called once one can.
+     *
+     * @param controller The controller that wants a player.
+     * @param factory    Used if a new player has to be created.
+     * @return The leased player, or null if the controller has to wait.
+     */
+    @Nullable
+    PooledPlayer acquire(@NonNull final NativeVideoController controller,
+            @NonNull final MoPubExoPlayerFactory factory) {
+        Preconditions.checkNotNull(controller);
+        Preconditions.checkNotNull(factory);
+
+        mWaitingControllers.remove(controller);
+
+        PooledPlayer player = findIdlePlayer();
+        if (player == null && mPlayers.size() < MAX_PLAYERS) {
+            player = createPlayer(factory);
+            mPlayers.add(player);
+        }
+        if (player == null) {
+            player = reclaimPlayer();
+        }
+        if (player == null) {
+            mWaitingControllers.addFirst(controller);
+            return null;
+        }
+
+        player.mLessee = controller;
+        player.mLeaseNumber = ++mLeaseCount;
+        return player;
+    }
+
+    /**
+     * Takes the player back from its controller, which has already stopped using it, and passes
+     * it on to a waiting controller if there is one.
+     */
+    void release(@NonNull final PooledPlayer player) {
+        Preconditions.checkNotNull(player);
+
+        resetPlayer(player);
+        final NativeVideoController waitingController = pollWaitingController();
+        if (waitingController != null) {
+            waitingController.onPlayerAvailable();
+        }
+    }
+
+    /**
+     * Stops the controller from waiting for a player.
+     */
+    void cancelWaiting(@NonNull final NativeVideoController controller) {
+        mWaitingControllers.remove(controller);
+    }
+
+    /**
+     * Releases the players that aren't leased. They are created again as needed.
+     */
+    void trim() {
+        final Iterator<PooledPlayer> iterator = mPlayers.iterator();
+        while (iterator.hasNext()) {
+            final PooledPlayer player = iterator.next();
+            if (player.mLessee == null) {
+                player.exoPlayer.release();
+                iterator.remove();
+            }
+        }
+        mAllocator.trim();
+    }
+
+    @Nullable
+    private NativeVideoController pollWaitingController() {
+        final Iterator<NativeVideoController> iterator = mWaitingControllers.iterator();
+        while (iterator.hasNext()) {
+            final NativeVideoController controller = iterator.next();
+            if (controller.isPlayRequested()) {
+                iterator.remove();
+                return controller;
+            }
+        }
+        return mWaitingControllers.poll();
+    }
+
+    @Nullable
+    private PooledPlayer findIdlePlayer() {
+        for (final PooledPlayer player : mPlayers) {
+            if (player.mLessee == null) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private PooledPlayer reclaimPlayer() {
+        PooledPlayer oldest = null;
+        for (final PooledPlayer player : mPlayers) {
+            final NativeVideoController lessee = player.mLessee;
+            if (lessee != null && !lessee.isPlayRequested()
+                    && (oldest == null || player.mLeaseNumber < oldest.mLeaseNumber)) {
+                oldest = player;
+            }
+        }
+        if (oldest == null) {
+            return null;
+        }
+
+        final NativeVideoController lessee = oldest.mLessee;
+        if (lessee != null) {
+            lessee.onPlayerReclaimed();
+            mWaitingControllers.addLast(lessee);
+        }
+        resetPlayer(oldest);
+        return oldest;
+    }
+
+    private void resetPlayer(@NonNull final PooledPlayer player) {
+        player.mLessee = null;
+        player.exoPlayer.stop(true);
+    }
+
+    @NonNull
+    private PooledPlayer createPlayer(@NonNull final MoPubExoPlayerFactory factory) {
+        final MediaCodecVideoRenderer videoRenderer = new MediaCodecVideoRenderer(mContext,
+                MediaCodecSelector.DEFAULT, 0, mHandler, null, 10);
+        final MediaCodecAudioRenderer audioRenderer = new MediaCodecAudioRenderer(mContext,
+                MediaCodecSelector.DEFAULT);
+
+        final DefaultLoadControl.Builder defaultLoadControlBuilder = new DefaultLoadControl.Builder();
+        defaultLoadControlBuilder.setAllocator(mAllocator);
+        defaultLoadControlBuilder.setTargetBufferBytes(BUFFER_SEGMENT_SIZE * BUFFER_SEGMENT_COUNT);
+
+        final ExoPlayer exoPlayer = factory.newInstance(
+                new Renderer[]{videoRenderer, audioRenderer},
+                new DefaultTrackSelector(),
+                defaultLoadControlBuilder.createDefaultLoadControl());
+        return new PooledPlayer(exoPlayer, videoRenderer, audioRenderer);
+    }
+
+    @VisibleForTesting
+    int getPlayerCount() {
+        return mPlayers.size();
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sInstance = null;
+    }
+}
@@ -0,0 +1,244 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import com.mopub.common.ClientMetadata;
+import com.mopub.common.ClientMetadata.MoPubNetworkType;
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.network.Networking;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
+
+/**
+ * Downloads the start of native video media files into {@link MoPubCache} before the ad is shown,
+ * so playback can start from the cache when the ad comes into view. The player reads the cache
+ * through the same keys, so it only goes to the network for the rest of the file.
+ *
+ * Prefetching is kept cheap: files are downloaded one at a time, only the first few seconds of
+ * each are fetched, less on mobile networks and none on 2G, and the total downloaded within
+ * {@link #BUDGET_WINDOW_MILLIS} is capped at {@link #BUDGET_BYTES}. Bytes that were already
+ * cached don't count against the budget.
+ *
+ * {@link #prefetch(Context, String)} and {@link #cancel(String)} must be called on the main thread.
+ */
+class NativeVideoPrefetcher {
+    // Roughly the first few seconds of a typical native video.
+    @VisibleForTesting
+    static final long UNMETERED_PREFETCH_BYTES = 1024 * 1024;
+    @VisibleForTesting
+    static final long METERED_PREFETCH_BYTES = 256 * 1024;
+    @VisibleForTesting
+    static final long BUDGET_BYTES = 8 * 1024 * 1024;
+    @VisibleForTesting
+    static final long BUDGET_WINDOW_MILLIS = 10 * 60 * 1000;
+
+    // Guarded by the class lock.
+    @NonNull private static final Map<String, PrefetchTask> sTasks =
+            new HashMap<String, PrefetchTask>();
+    private static long sBudgetWindowStartMillis = -BUDGET_WINDOW_MILLIS;
+    private static long sBudgetUsedBytes;
+
+    @Nullable private static volatile Executor sExecutor;
+
+    /**
+     * Starts downloading the start of the media file, unless it's already being downloaded or the
+     * network or budget doesn't allow it.
+     */
+    static void prefetch(@NonNull final Context context, @Nullable final String mediaUrl) {
+        Preconditions.checkNotNull(context);
+
+        if (TextUtils.isEmpty(mediaUrl)) {
+            return;
+        }
+
+        final long bytes = getPrefetchBytes(
+                ClientMetadata.getInstance(context).getActiveNetworkType());
+        if (bytes <= 0) {
+            return;
+        }
+
+        final Cache cache = MoPubCache.getCacheInstance(context);
+        if (cache == null) {
+            return;
+        }
+
+        final PrefetchTask task;
+        synchronized (NativeVideoPrefetcher.class) {
+            if (sTasks.containsKey(mediaUrl)) {
+                return;
+            }
+            if (!reserveBudget(bytes, SystemClock.elapsedRealtime())) {
+                MoPubLog.log(CUSTOM, "Native video prefetch budget used up. Skipping prefetch.");
+                return;
+            }
+            task = new PrefetchTask(mediaUrl, bytes, cache);
+            sTasks.put(mediaUrl, task);
+        }
+        getExecutor().execute(task);
+    }
+
+    /**
+     * Stops downloading the media file. What has been downloaded so far stays in the cache.
+     */
+    static void cancel(@Nullable final String mediaUrl) {
+        if (TextUtils.isEmpty(mediaUrl)) {
+            return;
+        }
+
+        final PrefetchTask task;
+        synchronized (NativeVideoPrefetcher.class) {
+            task = sTasks.remove(mediaUrl);
+        }
+        if (task != null) {
+            task.mCanceled.set(true);
+        }
+    }
+
+    static synchronized boolean isPrefetching(@Nullable final String mediaUrl) {
+        return sTasks.containsKey(mediaUrl);
+    }
+
+    @VisibleForTesting
+    static long getPrefetchBytes(@NonNull final MoPubNetworkType networkType) {
+        switch (networkType) {
+            case ETHERNET:
+            case WIFI:
+                return UNMETERED_PREFETCH_BYTES;
+            case GG:
+                return 0;
+            default:
+                return METERED_PREFETCH_BYTES;
+        }
+    }
+
+    /**
+     * Takes bytes from the budget for the current window.
+     *
+     * @return Whether there were enough bytes left.
+     */
+    @VisibleForTesting
+    static synchronized boolean reserveBudget(final long bytes, final long nowMillis) {
+        if (nowMillis - sBudgetWindowStartMillis >= BUDGET_WINDOW_MILLIS) {
+            sBudgetWindowStartMillis = nowMillis;
+            sBudgetUsedBytes = 0;
+        }
+        if (sBudgetUsedBytes + bytes > BUDGET_BYTES) {
+            return false;
+        }
+        sBudgetUsedBytes += bytes;
+        return true;
+    }
+
+    /**
+     * Gives back reserved bytes that weren't downloaded.
+     */
+    private static synchronized void refundBudget(final long bytes) {
+        sBudgetUsedBytes = Math.max(0, sBudgetUsedBytes - bytes);
+    }
+
+    private static synchronized void onTaskFinished(@NonNull final PrefetchTask task) {
+        refundBudget(task.mBytes - task.mCounters.newlyCachedBytes);
+        if (sTasks.get(task.mMediaUrl) == task) {
+            sTasks.remove(task.mMediaUrl);
+        }
+    }
+
+    @NonNull
+    private static Executor getExecutor() {
+        Executor executor = sExecutor;
+        if (executor == null) {
+            synchronized (NativeVideoPrefetcher.class) {
+                executor = sExecutor;
+                if (executor == null) {
+                    // One download at a time, so prefetching never competes with itself for
+                    // bandwidth.
+                    executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "mopub-video-prefetch");
+                            thread.setDaemon(true);
+                            thread.setPriority(Thread.MIN_PRIORITY);
+                            return thread;
+                        }
+                    });
+                    sExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static class PrefetchTask implements Runnable {
+        @NonNull final String mMediaUrl;
+        final long mBytes;
+        @NonNull private final Cache mCache;
+        @NonNull final AtomicBoolean mCanceled = new AtomicBoolean();
+        @NonNull final CacheUtil.CachingCounters mCounters = new CacheUtil.CachingCounters();
+
+        PrefetchTask(@NonNull final String mediaUrl, final long bytes, @NonNull final Cache cache) {
+            mMediaUrl = mediaUrl;
+            mBytes = bytes;
+            mCache = cache;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (mCanceled.get()) {
+                    return;
+                }
+                final DataSpec dataSpec = new DataSpec(Uri.parse(mMediaUrl), 0, mBytes, null);
+                final DefaultHttpDataSource httpDataSource =
+                        new DefaultHttpDataSource(Networking.getCachedUserAgent(), null);
+                httpDataSource.addTransferListener(new BandwidthTransferListener());
+                CacheUtil.cache(dataSpec, mCache, httpDataSource, mCounters, mCanceled);
+            } catch (IOException e) {
+                MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to prefetch native video.", e);
+            } catch (InterruptedException e) {
+                MoPubLog.log(CUSTOM, "Native video prefetch canceled.");
+            } finally {
+                onTaskFinished(this);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static void setExecutor(@Nullable final Executor executor) {
+        sExecutor = executor;
+    }
+
+    @VisibleForTesting
+    static synchronized void clearForTesting() {
+        for (final PrefetchTask task : sTasks.values()) {
+            task.mCanceled.set(true);
+        }
+        sTasks.clear();
+        sBudgetWindowStartMillis = -BUDGET_WINDOW_MILLIS;
+        sBudgetUsedBytes = 0;
+        sExecutor = null;
+    }
+}
@@ -9,6 +9,8 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.mopub.common.AdFormat;
+import com.mopub.common.AdLatencyMetrics;
+import com.mopub.common.AdLifecyclePhase;
 import com.mopub.common.Preconditions;
 import com.mopub.network.AdLoader;
 import com.mopub.network.AdResponse;
@@ -70,6 +72,10 @@ class AdLoaderRewardedVideo extends AdLoader {
         }
 
         mImpressionTrackerFired = true;
+        if (mCreativeLoadedMillis != 0) {
+            AdLatencyMetrics.record(AdFormat.REWARDED_VIDEO, AdLifecyclePhase.FIRST_IMPRESSION,
+                    mCreativeLoadedMillis);
+        }
         TrackingRequest.makeTrackingHttpRequest(
                 getImpressionUrls(),
                 context);
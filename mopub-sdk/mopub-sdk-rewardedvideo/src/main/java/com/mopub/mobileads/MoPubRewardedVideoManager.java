@@ -18,6 +18,9 @@ import android.text.TextUtils;
 import android.view.Window;
 import android.view.WindowInsets;
 
+import com.mopub.common.AdFormat;
+import com.mopub.common.AdLatencyMetrics;
+import com.mopub.common.AdLifecyclePhase;
 import com.mopub.common.AdReport;
 import com.mopub.common.AdUrlGenerator;
 import com.mopub.common.ClientMetadata;
@@ -84,6 +87,8 @@ public class MoPubRewardedVideoManager {
     @NonNull private final Map<String, Set<MediationSettings>> mInstanceMediationSettings;
 
     @NonNull private final Handler mCustomEventTimeoutHandler;
+    // The timeout of the custom event each ad unit is loading. It also identifies the load, so
+    // a timeout from an earlier load of the ad unit does nothing.
     @NonNull private final Map<String, Runnable> mTimeoutMap;
 
     @NonNull private final RewardedAdsLoaders rewardedAdsLoaders;
@@ -139,6 +144,9 @@ public class MoPubRewardedVideoManager {
 
         sCustomEventSharedPrefs =
                 SharedPreferencesHelper.getSharedPreferences(mContext, CUSTOM_EVENT_PREF_NAME);
+
+        // Send the server-side rewards that didn't reach the server before the app was closed.
+        RewardedVideoCompletionOutbox.getInstance(mContext).replay();
     }
 
     public static synchronized void init(@NonNull Activity mainActivity, MediationSettings... mediationSettings) {
@@ -285,6 +293,7 @@ public class MoPubRewardedVideoManager {
             sInstance.mRewardedAdData.setCustomerId(customerId);
         }
 
+        final long requestBuildStartMillis = AdLatencyMetrics.now();
         final AdUrlGenerator urlGenerator = new WebViewAdUrlGenerator(sInstance.mContext, false);
         urlGenerator.withAdUnitId(adUnitId)
                 .withKeywords(requestParameters == null ? null : requestParameters.mKeywords)
@@ -294,7 +303,10 @@ public class MoPubRewardedVideoManager {
 
         setSafeAreaValues(urlGenerator);
 
-        loadVideo(adUnitId, urlGenerator.generateUrlString(Constants.HOST), null);
+        final String adUrlString = urlGenerator.generateUrlString(Constants.HOST);
+        AdLatencyMetrics.record(AdFormat.REWARDED_VIDEO, AdLifecyclePhase.REQUEST_BUILD,
+                requestBuildStartMillis);
+        loadVideo(adUnitId, adUrlString, null);
     }
 
     private static void loadVideo(@NonNull String adUnitId, @NonNull String adUrlString, @Nullable MoPubErrorCode errorCode) {
@@ -451,6 +463,7 @@ public class MoPubRewardedVideoManager {
 
         // We only allow one rewarded ad to be loaded at a time for each ad unit. This should
         // clear out the old rewarded ad if there already was one loaded and not played.
+        cancelTimeouts(adUnitId);
         final CustomEventRewardedAd oldRewardedVideo = mRewardedAdData.getCustomEvent(
                 adUnitId);
         if (oldRewardedVideo != null) {
@@ -521,14 +534,18 @@ public class MoPubRewardedVideoManager {
                 return;
             }
 
-            // Set up timeout calls.
+            // Set up timeout calls. Only this ad unit fails over, even if other ad units are
+            // loading the same network and ad network id.
             Runnable timeout = new Runnable() {
                 @Override
                 public void run() {
+                    if (mTimeoutMap.get(adUnitId) != this) {
+                        return;
+                    }
+                    mTimeoutMap.remove(adUnitId);
                     MoPubLog.log(CUSTOM, "Custom Event failed to load rewarded ad in a timely fashion.");
-                    onRewardedVideoLoadFailure(customEvent.getClass(), customEvent.getAdNetworkId(),
-                            MoPubErrorCode.NETWORK_TIMEOUT);
                     customEvent.onInvalidate();
+                    failover(adUnitId, MoPubErrorCode.NETWORK_TIMEOUT);
                 }
             };
             mCustomEventTimeoutHandler.postDelayed(timeout, timeoutMillis);
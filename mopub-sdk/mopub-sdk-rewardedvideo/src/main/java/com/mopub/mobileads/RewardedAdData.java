@@ -21,7 +21,6 @@ import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
@@ -50,11 +49,11 @@ class RewardedAdData {
 
 
     RewardedAdData() {
-        mAdUnitToCustomEventMap = new TreeMap<String, CustomEventRewardedAd>();
-        mAdUnitToRewardMap = new TreeMap<String, MoPubReward>();
-        mAdUnitToAvailableRewardsMap = new TreeMap<String, Set<MoPubReward>>();
-        mAdUnitToServerCompletionUrlMap = new TreeMap<String, String>();
-        mAdUnitToCustomDataMap = new TreeMap<String, String>();
+        mAdUnitToCustomEventMap = new HashMap<String, CustomEventRewardedAd>();
+        mAdUnitToRewardMap = new HashMap<String, MoPubReward>();
+        mAdUnitToAvailableRewardsMap = new HashMap<String, Set<MoPubReward>>();
+        mAdUnitToServerCompletionUrlMap = new HashMap<String, String>();
+        mAdUnitToCustomDataMap = new HashMap<String, String>();
         mCustomEventToRewardMap = new HashMap<Class<? extends CustomEventRewardedAd>, MoPubReward>();
         mCustomEventToMoPubIdMap = new HashMap<TwoPartKey, Set<String>>();
     }
@@ -0,0 +1,260 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.SharedPreferencesHelper;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Makes sure server-side rewarded video completions reach the server even if the app is killed
+ * or offline when the video finishes. Each completion is written to a journal on disk before it
+ * is sent, and is only removed once the server has answered. Pending completions are sent again
+ * when rewarded video is initialized on the next launch, and when the device reconnects.
+ *
+ * Every completion gets an idempotency key that is sent with each attempt, so the server can
+ * tell retries of the same completion apart from new ones. A completion that is already pending
+ * isn't journaled twice. Completions older than {@link #MAX_AGE_MILLIS} are dropped.
+ *
+ * This class must only be used on the main thread.
+ */
+public class RewardedVideoCompletionOutbox {
+    @VisibleForTesting
+    static final String PREF_NAME = "mopubRewardedVideoCompletionOutbox";
+    @VisibleForTesting
+    static final long MAX_AGE_MILLIS = 3 * 24 * 60 * 60 * 1000L;
+
+    private static final String URL_KEY = "url";
+    private static final String CREATED_MILLIS_KEY = "created";
+
+    @Nullable private static RewardedVideoCompletionOutbox sInstance;
+
+    @NonNull private final Context mContext;
+    @NonNull private final SharedPreferences mJournal;
+    // Idempotency keys of the completions that a handler is currently sending.
+    @NonNull private final Set<String> mSendingKeys;
+    @Nullable private BroadcastReceiver mConnectivityReceiver;
+    private int mSentCount;
+    private int mFailedCount;
+
+    @NonNull
+    public static RewardedVideoCompletionOutbox getInstance(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        if (sInstance == null) {
+            sInstance = new RewardedVideoCompletionOutbox(context);
+        }
+        return sInstance;
+    }
+
+    private RewardedVideoCompletionOutbox(@NonNull final Context context) {
+        mContext = context.getApplicationContext();
+        mJournal = SharedPreferencesHelper.getSharedPreferences(mContext, PREF_NAME);
+        mSendingKeys = new HashSet<String>();
+    }
+
+    /**
+     * @return The number of completions that haven't reached the server yet.
+     */
+    public int getPendingCount() {
+        return mJournal.getAll().size();
+    }
+
+    /**
+     * @return The number of completions the server accepted since the app started.
+     */
+    public int getSentCount() {
+        return mSentCount;
+    }
+
+    /**
+     * @return The number of completions the server rejected or that expired since the app
+     * started.
+     */
+    public int getFailedCount() {
+        return mFailedCount;
+    }
+
+    /**
+     * Writes the completion to the journal and sends it.
+     *
+     * @param url The completion url with all its parameters.
+     */
+    void enqueue(@NonNull final String url) {
+        Preconditions.checkNotNull(url);
+
+        String key = findPendingKey(url);
+        if (key == null) {
+            key = UUID.randomUUID().toString();
+            final JSONObject entry = new JSONObject();
+            try {
+                entry.put(URL_KEY, url);
+                entry.put(CREATED_MILLIS_KEY, System.currentTimeMillis());
+            } catch (JSONException e) {
+                MoPubLog.log(CUSTOM, "Unable to journal rewarded video completion.");
+            }
+            // Written synchronously, so the completion survives the app being killed right after.
+            mJournal.edit().putString(key, entry.toString()).commit();
+        }
+
+        send(key, url);
+        updateConnectivityReceiver();
+    }
+
+    /**
+     * Sends every pending completion that isn't already being sent, and drops the expired ones.
+     */
+    void replay() {
+        final long nowMillis = System.currentTimeMillis();
+        final Map<String, String> pending = new HashMap<String, String>();
+        final SharedPreferences.Editor editor = mJournal.edit();
+        for (final Map.Entry<String, ?> journalEntry : mJournal.getAll().entrySet()) {
+            final String key = journalEntry.getKey();
+            final JSONObject entry = parseEntry(journalEntry.getValue());
+            final String url = entry == null ? null : entry.optString(URL_KEY, null);
+            if (TextUtils.isEmpty(url)) {
+                editor.remove(key);
+                continue;
+            }
+            if (nowMillis - entry.optLong(CREATED_MILLIS_KEY, nowMillis) >= MAX_AGE_MILLIS) {
+                MoPubLog.log(CUSTOM, "Dropping expired rewarded video completion.");
+                editor.remove(key);
+                mFailedCount++;
+                continue;
+            }
+            pending.put(key, url);
+        }
+        editor.apply();
+
+        for (final Map.Entry<String, String> entry : pending.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+        updateConnectivityReceiver();
+    }
+
+    /**
+     * Called when the server accepted the completion.
+     */
+    void onSent(@NonNull final String key) {
+        if (remove(key)) {
+            mSentCount++;
+        }
+    }
+
+    /**
+     * Called when the server rejected the completion. Sending it again won't help.
+     */
+    void onRejected(@NonNull final String key) {
+        if (remove(key)) {
+            mFailedCount++;
+        }
+    }
+
+    /**
+     * Called when the handler gave up retrying. The completion stays in the journal and is sent
+     * again on reconnect or on the next launch.
+     */
+    void onRetriesExhausted(@NonNull final String key) {
+        mSendingKeys.remove(key);
+    }
+
+    private void send(@NonNull final String key, @NonNull final String url) {
+        if (!mSendingKeys.add(key)) {
+            return;
+        }
+
+        new RewardedVideoCompletionRequestHandler(mContext, url, key, new Handler())
+                .makeRewardedVideoCompletionRequest();
+    }
+
+    private boolean remove(@NonNull final String key) {
+        mSendingKeys.remove(key);
+        if (!mJournal.contains(key)) {
+            return false;
+        }
+
+        mJournal.edit().remove(key).apply();
+        updateConnectivityReceiver();
+        return true;
+    }
+
+    @Nullable
+    private String findPendingKey(@NonNull final String url) {
+        for (final Map.Entry<String, ?> journalEntry : mJournal.getAll().entrySet()) {
+            final JSONObject entry = parseEntry(journalEntry.getValue());
+            if (entry != null && url.equals(entry.optString(URL_KEY, null))) {
+                return journalEntry.getKey();
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static JSONObject parseEntry(@Nullable final Object value) {
+        if (!(value instanceof String)) {
+            return null;
+        }
+        try {
+            return new JSONObject((String) value);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Listens for connectivity changes only while there are pending completions.
+     */
+    private void updateConnectivityReceiver() {
+        final boolean hasPending = getPendingCount() > 0;
+        if (hasPending && mConnectivityReceiver == null) {
+            mConnectivityReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(final Context context, final Intent intent) {
+                    if (intent != null && !intent.getBooleanExtra(
+                            ConnectivityManager.EXTRA_NO_CONNECTIVITY, false)) {
+                        replay();
+                    }
+                }
+            };
+            mContext.registerReceiver(mConnectivityReceiver,
+                    new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+        } else if (!hasPending && mConnectivityReceiver != null) {
+            try {
+                mContext.unregisterReceiver(mConnectivityReceiver);
+            } catch (Exception e) {
+                MoPubLog.log(CUSTOM, "Failed to unregister connectivity broadcast receiver.");
+            }
+            mConnectivityReceiver = null;
+        }
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sInstance = null;
+    }
+}
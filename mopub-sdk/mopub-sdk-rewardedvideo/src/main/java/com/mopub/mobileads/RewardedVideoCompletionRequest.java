@@ -6,13 +6,18 @@ package com.mopub.mobileads;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.mopub.common.util.ResponseHeader;
 import com.mopub.network.MoPubRequest;
+import com.mopub.network.RequestCategory;
 import com.mopub.volley.NetworkResponse;
 import com.mopub.volley.Response;
 import com.mopub.volley.RetryPolicy;
 import com.mopub.volley.toolbox.HttpHeaderParser;
 
+import java.util.Map;
+
 /**
  * The actual class making the video completion request. Since we actually only care about the
  * status code of the request, that's the only thing that is delivered.
@@ -24,6 +29,7 @@ public class RewardedVideoCompletionRequest extends MoPubRequest<Integer> {
     }
 
     @NonNull final RewardedVideoCompletionRequestListener mListener;
+    @Nullable private String mIdempotencyKey;
 
     public RewardedVideoCompletionRequest(@NonNull final Context context,
             @NonNull final String url,
@@ -35,6 +41,29 @@ public class RewardedVideoCompletionRequest extends MoPubRequest<Integer> {
         mListener = listener;
     }
 
+    /**
+     * Sets the key sent with every attempt of the same completion, so the server can recognize
+     * retries.
+     */
+    void setIdempotencyKey(@Nullable final String idempotencyKey) {
+        mIdempotencyKey = idempotencyKey;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        final Map<String, String> headers = super.getHeaders();
+        if (mIdempotencyKey != null) {
+            headers.put(ResponseHeader.IDEMPOTENCY_KEY.getKey(), mIdempotencyKey);
+        }
+        return headers;
+    }
+
+    @NonNull
+    @Override
+    public RequestCategory getRequestCategory() {
+        return RequestCategory.TRACKING;
+    }
+
     @Override
     protected Response<Integer> parseNetworkResponse(final NetworkResponse networkResponse) {
         return Response.success(networkResponse.statusCode,
@@ -23,7 +23,8 @@ import com.mopub.volley.VolleyError;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 /**
- * Handles the server-to-server rewarded video completion handshake.
+ * Handles the server-to-server rewarded video completion handshake. Completions are journaled by
+ * {@link RewardedVideoCompletionOutbox}, which is told when the server answers.
  */
 public class RewardedVideoCompletionRequestHandler implements
         RewardedVideoCompletionRequest.RewardedVideoCompletionRequestListener {
@@ -53,6 +54,7 @@ public class RewardedVideoCompletionRequestHandler implements
     @NonNull private final Handler mHandler;
     @NonNull private final RequestQueue mRequestQueue;
     @NonNull private final Context mContext;
+    @Nullable private final String mIdempotencyKey;
     private int mRetryCount;
     private volatile boolean mShouldStop;
 
@@ -76,13 +78,26 @@ public class RewardedVideoCompletionRequestHandler implements
             @Nullable final String className,
             @Nullable final String customData,
             @NonNull final Handler handler) {
+        this(context,
+                appendParameters(url, customerId, rewardName, rewardAmount, className, customData),
+                null, handler);
+    }
+
+    /**
+     * @param completionUrl  The completion url with all its parameters.
+     * @param idempotencyKey The key of the completion in {@link RewardedVideoCompletionOutbox},
+     *                       or null if it isn't journaled.
+     */
+    RewardedVideoCompletionRequestHandler(@NonNull final Context context,
+            @NonNull final String completionUrl,
+            @Nullable final String idempotencyKey,
+            @NonNull final Handler handler) {
         Preconditions.checkNotNull(context);
-        Preconditions.checkNotNull(url);
-        Preconditions.checkNotNull(rewardName);
-        Preconditions.checkNotNull(rewardAmount);
+        Preconditions.checkNotNull(completionUrl);
         Preconditions.checkNotNull(handler);
 
-        mUrl = appendParameters(url, customerId, rewardName, rewardAmount, className, customData);
+        mUrl = completionUrl;
+        mIdempotencyKey = idempotencyKey;
         mRetryCount = 0;
         mHandler = handler;
         mRequestQueue = Networking.getRequestQueue(context);
@@ -100,11 +115,16 @@ public class RewardedVideoCompletionRequestHandler implements
                 new RewardedVideoCompletionRequest(mContext, mUrl,
                         new DefaultRetryPolicy(getTimeout(mRetryCount) - REQUEST_TIMEOUT_DELAY,
                                 0, 0f), this);
+        rewardedVideoCompletionRequest.setIdempotencyKey(mIdempotencyKey);
         rewardedVideoCompletionRequest.setTag(mUrl);
         mRequestQueue.add(rewardedVideoCompletionRequest);
 
         if (mRetryCount >= MAX_RETRIES) {
             MoPubLog.log(CUSTOM, "Exceeded number of retries for rewarded video completion request.");
+            if (mIdempotencyKey != null) {
+                RewardedVideoCompletionOutbox.getInstance(mContext)
+                        .onRetriesExhausted(mIdempotencyKey);
+            }
             return;
         }
 
@@ -120,17 +140,24 @@ public class RewardedVideoCompletionRequestHandler implements
     @Override
     public void onResponse(final Integer response) {
         // Only consider it a failure if we get a 5xx status code.
-        if (response != null && !(response >= 500 && response < 600)) {
+        if (!mShouldStop && response != null && !(response >= 500 && response < 600)) {
             mShouldStop = true;
+            if (mIdempotencyKey != null) {
+                RewardedVideoCompletionOutbox.getInstance(mContext).onSent(mIdempotencyKey);
+            }
         }
     }
 
     @Override
     public void onErrorResponse(final VolleyError volleyError) {
-        if (volleyError != null && volleyError.networkResponse != null &&
+        if (!mShouldStop && volleyError != null && volleyError.networkResponse != null &&
                 !(volleyError.networkResponse.statusCode >= 500
                         && volleyError.networkResponse.statusCode < 600)) {
             mShouldStop = true;
+            if (mIdempotencyKey != null) {
+                RewardedVideoCompletionOutbox.getInstance(mContext)
+                        .onRejected(mIdempotencyKey);
+            }
         }
     }
 
@@ -146,9 +173,8 @@ public class RewardedVideoCompletionRequestHandler implements
             return;
         }
 
-        new RewardedVideoCompletionRequestHandler(context, url, customerId, rewardName,
-                rewardAmount, rewardedAd, customData)
-                .makeRewardedVideoCompletionRequest();
+        RewardedVideoCompletionOutbox.getInstance(context).enqueue(appendParameters(url,
+                customerId, rewardName, rewardAmount, rewardedAd, customData));
     }
 
     static int getTimeout(int retryCount) {
@@ -0,0 +1,77 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(SdkTestRunner.class)
+public class AdLatencyMetricsTest {
+
+    @Test
+    public void record_shouldRecordTimeSinceStart() {
+        final long startMillis = AdLatencyMetrics.now();
+        ShadowLooper.idleMainLooper(20);
+
+        AdLatencyMetrics.record(AdFormat.BANNER, AdLifecyclePhase.TIME_TO_AD, startMillis);
+
+        final LatencyHistogram histogram =
+                AdLatencyMetrics.getHistogram(AdFormat.BANNER, AdLifecyclePhase.TIME_TO_AD);
+        assertThat(histogram.getCount()).isEqualTo(1);
+        assertThat(histogram.getMaxMillis()).isEqualTo(20);
+        assertThat(AdLatencyMetrics.getHistogram(AdFormat.NATIVE, AdLifecyclePhase.TIME_TO_AD))
+                .isNull();
+    }
+
+    @Test
+    public void setExporter_shouldExportHistogramsWithSamples_everyInterval() {
+        final AdLatencyExporter exporter = mock(AdLatencyExporter.class);
+        AdLatencyMetrics.recordDuration(AdFormat.NATIVE, AdLifecyclePhase.PARSE, 5);
+
+        AdLatencyMetrics.setExporter(exporter, 1000);
+        verifyZeroInteractions(exporter);
+
+        ShadowLooper.idleMainLooper(1000);
+        verify(exporter).export(eq(AdFormat.NATIVE), eq(AdLifecyclePhase.PARSE),
+                any(LatencyHistogram.class));
+
+        ShadowLooper.idleMainLooper(1000);
+        verify(exporter, times(2)).export(any(AdFormat.class), any(AdLifecyclePhase.class),
+                any(LatencyHistogram.class));
+    }
+
+    @Test
+    public void setExporter_withNull_shouldStopExporting() {
+        final AdLatencyExporter exporter = mock(AdLatencyExporter.class);
+        AdLatencyMetrics.recordDuration(AdFormat.NATIVE, AdLifecyclePhase.PARSE, 5);
+        AdLatencyMetrics.setExporter(exporter, 1000);
+
+        AdLatencyMetrics.setExporter(null, 0);
+        ShadowLooper.idleMainLooper(2000);
+
+        verifyZeroInteractions(exporter);
+    }
+
+    @Test
+    public void reset_shouldClearHistograms() {
+        AdLatencyMetrics.recordDuration(AdFormat.BANNER, AdLifecyclePhase.NETWORK, 5);
+
+        AdLatencyMetrics.reset();
+
+        assertThat(AdLatencyMetrics.getHistogram(AdFormat.BANNER, AdLifecyclePhase.NETWORK)
+                .getCount()).isEqualTo(0);
+    }
+}
@@ -7,6 +7,7 @@ package com.mopub.common;
 import android.app.Activity;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
@@ -17,16 +18,23 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
 
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import static com.mopub.common.BaseAdapterConfiguration.CUSTOM_EVENT_PREF_NAME;
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @RunWith(SdkTestRunner.class)
 public class AdapterConfigurationManagerTest {
@@ -45,6 +53,9 @@ public class AdapterConfigurationManagerTest {
 
     @Test
     public void initialize_getTokensAsJsonString_withAdapterConfigurationClass_shouldAddOneMoPubAdvancedBidder_shouldSetUpAdapterConfiguration() {
+        // Bidding tokens aren't waited for on the main thread, so collect them synchronously.
+        subject = new AdapterConfigurationManager(mockInitializationListener, null, 1000,
+                new SynchronousExecutor(), createSynchronousBiddingTokenService());
         final Set<String> set = new HashSet<>();
         set.add(ACMTestAdapterConfiguration.class.getName());
         set.add(ACMNoTokenAdapterConfiguration.class.getName());
@@ -118,6 +129,100 @@ public class AdapterConfigurationManagerTest {
         assertThat(actualMoPubRequestOptions.get("key4")).isEqualTo("value4");
     }
 
+    @Test
+    public void initialize_withMetricsListener_shouldReportEachAdapter_shouldFlagFailedAdapters() {
+        final AdapterInitializationMetricsListener mockMetricsListener =
+                mock(AdapterInitializationMetricsListener.class);
+        subject = new AdapterConfigurationManager(mockInitializationListener, mockMetricsListener,
+                1000, new SynchronousExecutor());
+        final Set<String> set = new HashSet<>();
+        set.add(ACMTestAdapterConfiguration.class.getName());
+        set.add("com.mopub.common.NonexistentAdapterConfiguration");
+
+        subject.initialize(context, set, new HashMap<String, Map<String, String>>(),
+                new HashMap<String, Map<String, String>>());
+        ShadowLooper.runUiThreadTasks();
+
+        verify(mockMetricsListener).onAdapterInitializationFinished(
+                eq(ACMTestAdapterConfiguration.class.getName()), anyLong(), eq(false), eq(false));
+        verify(mockMetricsListener).onAdapterInitializationFinished(
+                eq("com.mopub.common.NonexistentAdapterConfiguration"), anyLong(), eq(false),
+                eq(true));
+        verifyNoMoreInteractions(mockMetricsListener);
+        verify(mockInitializationListener).onInitializationFinished();
+    }
+
+    @Test
+    public void onAdapterConfigurationInitialized_whenTimedOut_shouldAddAdapterConfiguration() {
+        subject = new AdapterConfigurationManager(mockInitializationListener, null, 1000,
+                new SynchronousExecutor(), createSynchronousBiddingTokenService());
+        subject.initialize(context, new HashSet<String>(),
+                new HashMap<String, Map<String, String>>(),
+                new HashMap<String, Map<String, String>>());
+        assertThat(subject.getAdapterConfiguration(ACMTestAdapterConfiguration.class)).isNull();
+
+        subject.onAdapterConfigurationInitialized(ACMTestAdapterConfiguration.class.getName(),
+                new ACMTestAdapterConfiguration(), 10, true);
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(subject.getAdapterConfiguration(ACMTestAdapterConfiguration.class)).isNotNull();
+        assertThat(subject.getTokensAsJsonString(context)).isEqualTo(
+                "{\"AdapterConfigurationTest\":{\"token\":\"AdapterConfigurationTestToken\"}}");
+    }
+
+    @Test
+    public void adapterInitializationJob_awaitResult_whenDeadlinePassesBeforeJobRuns_shouldTimeOut_thenReportLateResult() {
+        final AdapterConfigurationsInitializationListener mockListener =
+                mock(AdapterConfigurationsInitializationListener.class);
+        final Set<String> initializingAdapters = new HashSet<>();
+        final String adapterClass = ACMTestAdapterConfiguration.class.getName();
+        final AdapterConfigurationManager.AdapterInitializationJob job =
+                new AdapterConfigurationManager.AdapterInitializationJob(adapterClass,
+                        new WeakReference<Context>(context), null, null, mockListener,
+                        initializingAdapters);
+
+        assertThat(job.awaitResult(1000, SystemClock.elapsedRealtime())).isNull();
+        assertThat(initializingAdapters).containsOnly(adapterClass);
+
+        job.run();
+
+        verify(mockListener).onAdapterConfigurationInitialized(eq(adapterClass),
+                any(AdapterConfiguration.class), anyLong(), eq(true));
+        assertThat(initializingAdapters).isEmpty();
+    }
+
+    @Test
+    public void adapterInitializationJob_awaitResult_whenFinished_shouldReturnAdapterConfiguration() {
+        final AdapterConfigurationsInitializationListener mockListener =
+                mock(AdapterConfigurationsInitializationListener.class);
+        final String adapterClass = ACMTestAdapterConfiguration.class.getName();
+        final AdapterConfigurationManager.AdapterInitializationJob job =
+                new AdapterConfigurationManager.AdapterInitializationJob(adapterClass,
+                        new WeakReference<Context>(context), null, null, mockListener,
+                        new HashSet<String>());
+
+        job.run();
+
+        assertThat(job.awaitResult(1000, SystemClock.elapsedRealtime()))
+                .isInstanceOf(ACMTestAdapterConfiguration.class);
+        verify(mockListener).onAdapterConfigurationInitialized(eq(adapterClass),
+                any(AdapterConfiguration.class), anyLong(), eq(false));
+    }
+
+    @NonNull
+    private static BiddingTokenService createSynchronousBiddingTokenService() {
+        return new BiddingTokenService(new SynchronousExecutor(),
+                BiddingTokenService.DEFAULT_TOKEN_TTL_MILLIS,
+                BiddingTokenService.DEFAULT_COLLECTION_DEADLINE_MILLIS);
+    }
+
+    private static class SynchronousExecutor implements Executor {
+        @Override
+        public void execute(@NonNull final Runnable runnable) {
+            runnable.run();
+        }
+    }
+
     private static class ACMTestAdapterConfiguration extends BaseAdapterConfiguration {
 
         @NonNull
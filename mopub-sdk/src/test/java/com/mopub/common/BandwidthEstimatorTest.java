@@ -0,0 +1,79 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import com.mopub.common.ClientMetadata.MoPubNetworkType;
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class BandwidthEstimatorTest {
+
+    @Test
+    public void getEstimateKbps_withNoSamples_shouldReturnNoEstimate() {
+        assertThat(BandwidthEstimator.getEstimateKbps(MoPubNetworkType.WIFI))
+                .isEqualTo(BandwidthEstimator.NO_ESTIMATE);
+    }
+
+    @Test
+    public void addSample_withSmallTransfer_shouldBeIgnored() {
+        BandwidthEstimator.addSample(MoPubNetworkType.WIFI,
+                BandwidthEstimator.MIN_SAMPLE_BYTES - 1, 10);
+
+        assertThat(BandwidthEstimator.getEstimateKbps(MoPubNetworkType.WIFI))
+                .isEqualTo(BandwidthEstimator.NO_ESTIMATE);
+    }
+
+    @Test
+    public void addSample_withFirstSample_shouldUseSampleAsEstimate() {
+        // 125,000 bytes in 1 second is 1000 kbps.
+        BandwidthEstimator.addSample(MoPubNetworkType.WIFI, 125000, 1000);
+
+        assertThat(BandwidthEstimator.getEstimateKbps(MoPubNetworkType.WIFI)).isEqualTo(1000);
+    }
+
+    @Test
+    public void addSample_withMoreSamples_shouldWeighInNewestSample() {
+        BandwidthEstimator.addSample(MoPubNetworkType.WIFI, 125000, 1000);
+        BandwidthEstimator.addSample(MoPubNetworkType.WIFI, 250000, 1000);
+
+        // 0.3 * 2000 + 0.7 * 1000
+        assertThat(BandwidthEstimator.getEstimateKbps(MoPubNetworkType.WIFI)).isEqualTo(1300);
+    }
+
+    @Test
+    public void addSample_shouldKeepEstimatesPerNetworkType() {
+        BandwidthEstimator.addSample(MoPubNetworkType.WIFI, 1250000, 1000);
+        BandwidthEstimator.addSample(MoPubNetworkType.MOBILE, 125000, 1000);
+
+        assertThat(BandwidthEstimator.getEstimateKbps(MoPubNetworkType.WIFI)).isEqualTo(10000);
+        assertThat(BandwidthEstimator.getEstimateKbps(MoPubNetworkType.MOBILE)).isEqualTo(1000);
+        assertThat(BandwidthEstimator.getEstimateKbps(MoPubNetworkType.ETHERNET))
+                .isEqualTo(BandwidthEstimator.NO_ESTIMATE);
+    }
+
+    @Test
+    public void meter_shouldRecordSampleWhenStreamIsRead() throws Exception {
+        final InputStream inputStream =
+                BandwidthEstimator.meter(new ByteArrayInputStream(new byte[125000]));
+        ShadowLooper.idleMainLooper(1000);
+
+        final byte[] buffer = new byte[8192];
+        while (inputStream.read(buffer, 0, buffer.length) != -1) {
+            // Read to the end.
+        }
+        inputStream.close();
+
+        assertThat(BandwidthEstimator.getEstimateKbps()).isEqualTo(1000);
+    }
+}
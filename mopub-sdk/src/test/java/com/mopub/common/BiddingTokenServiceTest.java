@@ -0,0 +1,206 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.app.Activity;
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+public class BiddingTokenServiceTest {
+    private static final long TTL_MILLIS = 60000;
+    private static final long DEADLINE_MILLIS = 10;
+    private static final String TOKENS_JSON = "{\"network\":{\"token\":\"token\"}}";
+
+    private Context context;
+    private AdapterConfiguration mockAdapterConfiguration;
+    private List<AdapterConfiguration> adapterConfigurations;
+    private QueueingExecutor executor;
+    private BiddingTokenService subject;
+
+    @Before
+    public void setUp() {
+        context = Robolectric.buildActivity(Activity.class).create().get();
+        mockAdapterConfiguration = mock(AdapterConfiguration.class);
+        when(mockAdapterConfiguration.getMoPubNetworkName()).thenReturn("network");
+        when(mockAdapterConfiguration.getBiddingToken(any(Context.class))).thenReturn("token");
+        adapterConfigurations = Collections.singletonList(mockAdapterConfiguration);
+        executor = new QueueingExecutor();
+        executor.runImmediately = true;
+        subject = new BiddingTokenService(executor, TTL_MILLIS, DEADLINE_MILLIS);
+    }
+
+    @Test
+    public void getTokensJson_shouldCollectTokens_thenServeThemFromCache() {
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(TOKENS_JSON);
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(TOKENS_JSON);
+
+        verify(mockAdapterConfiguration, times(1)).getBiddingToken(any(Context.class));
+    }
+
+    @Test
+    public void getTokensJson_withEmptyToken_shouldSkipIt() {
+        final AdapterConfiguration noTokenAdapterConfiguration =
+                mock(BaseAdapterConfiguration.class);
+        when(noTokenAdapterConfiguration.getMoPubNetworkName()).thenReturn("noToken");
+        when(noTokenAdapterConfiguration.getBiddingToken(any(Context.class))).thenReturn("");
+
+        assertThat(subject.getTokensJson(context, Arrays.asList(mockAdapterConfiguration,
+                noTokenAdapterConfiguration))).isEqualTo(TOKENS_JSON);
+    }
+
+    @Test
+    public void getTokensJson_withNoTokens_shouldReturnNull_andCacheTheResult() {
+        when(mockAdapterConfiguration.getBiddingToken(any(Context.class))).thenReturn(null);
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isNull();
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isNull();
+
+        verify(mockAdapterConfiguration, times(1)).getBiddingToken(any(Context.class));
+    }
+
+    @Test
+    public void getTokensJson_whenAdapterThrows_shouldSkipIt() {
+        when(mockAdapterConfiguration.getBiddingToken(any(Context.class)))
+                .thenThrow(new IllegalStateException());
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isNull();
+    }
+
+    @Test
+    public void getTokensJson_afterHalfTheTtl_shouldReturnCachedTokens_andRefreshInBackground() {
+        subject.getTokensJson(context, adapterConfigurations);
+        executor.runImmediately = false;
+        ShadowLooper.idleMainLooper(TTL_MILLIS / 2);
+        when(mockAdapterConfiguration.getBiddingToken(any(Context.class))).thenReturn("newToken");
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(TOKENS_JSON);
+        assertThat(executor.runnables).hasSize(1);
+
+        executor.runAll();
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(
+                "{\"network\":{\"token\":\"newToken\"}}");
+    }
+
+    @Test
+    public void getTokensJson_afterTheTtl_shouldCollectAgain() {
+        subject.getTokensJson(context, adapterConfigurations);
+        ShadowLooper.idleMainLooper(TTL_MILLIS);
+        when(mockAdapterConfiguration.getBiddingToken(any(Context.class))).thenReturn("newToken");
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(
+                "{\"network\":{\"token\":\"newToken\"}}");
+        verify(mockAdapterConfiguration, times(2)).getBiddingToken(any(Context.class));
+    }
+
+    @Test
+    public void getTokensJson_whenAdapterMissesTheDeadline_shouldReturnWithoutIt_thenCacheItLater() {
+        executor.runImmediately = false;
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isNull();
+
+        executor.runAll();
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(TOKENS_JSON);
+        verify(mockAdapterConfiguration, times(1)).getBiddingToken(any(Context.class));
+    }
+
+    @Test
+    public void getTokensJson_onMainThread_withNothingCached_shouldNotWaitForTheDeadline() {
+        final long deadlineMillis = 10000;
+        subject = new BiddingTokenService(executor, TTL_MILLIS, deadlineMillis);
+        executor.runImmediately = false;
+
+        final long startMillis = System.currentTimeMillis();
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isNull();
+
+        assertThat(System.currentTimeMillis() - startMillis).isLessThan(deadlineMillis / 2);
+        assertThat(executor.runnables).hasSize(1);
+    }
+
+    @Test
+    public void getTokensJson_whileCollectionIsInFlight_shouldNotCallAdapterAgain() {
+        executor.runImmediately = false;
+
+        subject.getTokensJson(context, adapterConfigurations);
+        subject.getTokensJson(context, adapterConfigurations);
+
+        assertThat(executor.runnables).hasSize(1);
+    }
+
+    @Test
+    public void invalidate_shouldDropCachedTokens_andDiscardCollectionsInFlight() {
+        subject.getTokensJson(context, adapterConfigurations);
+        executor.runImmediately = false;
+        ShadowLooper.idleMainLooper(TTL_MILLIS / 2);
+        subject.getTokensJson(context, adapterConfigurations);
+
+        subject.invalidate();
+        when(mockAdapterConfiguration.getBiddingToken(any(Context.class))).thenReturn("newToken");
+        // Results from before the invalidation are dropped.
+        executor.runAll();
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isNull();
+
+        executor.runAll();
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(
+                "{\"network\":{\"token\":\"newToken\"}}");
+    }
+
+    @Test
+    public void refresh_shouldCollectTokensWithoutWaiting() {
+        executor.runImmediately = false;
+
+        subject.refresh(context, adapterConfigurations);
+        assertThat(executor.runnables).hasSize(1);
+        executor.runAll();
+
+        assertThat(subject.getTokensJson(context, adapterConfigurations)).isEqualTo(TOKENS_JSON);
+        verify(mockAdapterConfiguration, times(1)).getBiddingToken(any(Context.class));
+    }
+
+    private static class QueueingExecutor implements Executor {
+        boolean runImmediately;
+        final List<Runnable> runnables = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull final Runnable runnable) {
+            if (runImmediately) {
+                runnable.run();
+            } else {
+                runnables.add(runnable);
+            }
+        }
+
+        void runAll() {
+            final List<Runnable> toRun = new ArrayList<>(runnables);
+            runnables.clear();
+            for (final Runnable runnable : toRun) {
+                runnable.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class LatencyHistogramTest {
+    private LatencyHistogram subject;
+
+    @Before
+    public void setUp() {
+        subject = new LatencyHistogram();
+    }
+
+    @Test
+    public void getBucketIndex_shouldBeContiguous_andCoverEachValueOnce() {
+        int previousIndex = 0;
+        for (long value = 1; value <= LatencyHistogram.MAX_TRACKABLE_MILLIS; value++) {
+            final int index = LatencyHistogram.getBucketIndex(value);
+            assertThat(index - previousIndex).isIn(0, 1);
+            assertThat(LatencyHistogram.getHighestValueInBucket(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.getHighestValueInBucket(index - 1)).isLessThan(value);
+            }
+            previousIndex = index;
+        }
+        assertThat(previousIndex).isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+    }
+
+    @Test
+    public void getHighestValueInBucket_shouldBeWithinSevenPercentOfValue() {
+        for (long value = 32; value <= LatencyHistogram.MAX_TRACKABLE_MILLIS; value += 97) {
+            final long highest = LatencyHistogram.getHighestValueInBucket(
+                    LatencyHistogram.getBucketIndex(value));
+            assertThat((double) (highest - value) / value).isLessThan(0.07);
+        }
+    }
+
+    @Test
+    public void getValueAtPercentile_shouldReturnRecordedDistribution() {
+        for (int i = 1; i <= 100; i++) {
+            subject.record(i);
+        }
+
+        assertThat(subject.getCount()).isEqualTo(100);
+        assertThat(subject.getMaxMillis()).isEqualTo(100);
+        assertThat(subject.getMeanMillis()).isEqualTo(50.5);
+        assertThat(subject.getValueAtPercentile(0)).isEqualTo(1);
+        assertThat(subject.getValueAtPercentile(25)).isEqualTo(25);
+        assertThat(subject.getValueAtPercentile(50)).isIn(50L, 51L);
+        assertThat(subject.getValueAtPercentile(99)).isIn(99L, 100L);
+        assertThat(subject.getValueAtPercentile(100)).isEqualTo(100);
+    }
+
+    @Test
+    public void getValueAtPercentile_withNoSamples_shouldReturnZero() {
+        assertThat(subject.getValueAtPercentile(50)).isEqualTo(0);
+        assertThat(subject.getMeanMillis()).isEqualTo(0);
+    }
+
+    @Test
+    public void record_shouldClampValues() {
+        subject.record(-5);
+        subject.record(LatencyHistogram.MAX_TRACKABLE_MILLIS * 2);
+
+        assertThat(subject.getValueAtPercentile(50)).isEqualTo(0);
+        assertThat(subject.getMaxMillis()).isEqualTo(LatencyHistogram.MAX_TRACKABLE_MILLIS);
+        assertThat(subject.getValueAtPercentile(100))
+                .isEqualTo(LatencyHistogram.MAX_TRACKABLE_MILLIS);
+    }
+
+    @Test
+    public void reset_shouldClearSamples() {
+        subject.record(10);
+
+        subject.reset();
+
+        assertThat(subject.getCount()).isEqualTo(0);
+        assertThat(subject.getMaxMillis()).isEqualTo(0);
+        assertThat(subject.getValueAtPercentile(50)).isEqualTo(0);
+    }
+}
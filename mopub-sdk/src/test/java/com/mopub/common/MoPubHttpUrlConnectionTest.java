@@ -9,19 +9,27 @@ import android.content.Context;
 import android.webkit.WebView;
 
 import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.network.HttpTransport;
 import com.mopub.network.Networking;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.robolectric.Robolectric;
 
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.List;
 
 import static com.mopub.common.MoPubHttpUrlConnection.urlEncode;
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(SdkTestRunner.class)
 public class MoPubHttpUrlConnectionTest {
@@ -35,6 +43,11 @@ public class MoPubHttpUrlConnectionTest {
         Networking.setUserAgentForTesting(userAgent);
     }
 
+    @After
+    public void tearDown() {
+        Networking.setHttpTransport(null);
+    }
+
     @Test
     public void getHttpUrlConnection_shouldReturnHttpUrlConnectionWithUserAgent() throws Exception {
         HttpURLConnection urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(url);
@@ -43,6 +56,22 @@ public class MoPubHttpUrlConnectionTest {
         assertThat(userAgentHeaders).containsExactly(userAgent);
     }
 
+    @Test
+    public void getHttpUrlConnection_shouldOpenConnectionThroughHttpTransport() throws Exception {
+        final HttpTransport mockTransport = mock(HttpTransport.class);
+        final HttpURLConnection mockConnection = mock(HttpURLConnection.class);
+        when(mockTransport.openConnection(any(URL.class))).thenReturn(mockConnection);
+        Networking.setHttpTransport(mockTransport);
+
+        final HttpURLConnection urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(url);
+
+        final ArgumentCaptor<URL> urlCaptor = ArgumentCaptor.forClass(URL.class);
+        assertThat(urlConnection).isSameAs(mockConnection);
+        verify(mockTransport).openConnection(urlCaptor.capture());
+        assertThat(urlCaptor.getValue().toString()).isEqualTo(url);
+        verify(mockConnection).setRequestProperty("user-agent", userAgent);
+    }
+
     @Test
     public void getHttpUrlConnection_shouldSetConnectAndReadTimeoutTo10Seconds() throws Exception {
         HttpURLConnection urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(url);
@@ -44,6 +44,8 @@ import java.util.Map;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -243,7 +245,7 @@ public class MoPubTest {
         MoPub.initializeSdk(mActivity, sdkConfiguration, null);
 
         ShadowLooper.runUiThreadTasks();
-        assertThat(MoPub.getAdvancedBiddingTokensJson(mActivity)).isEqualTo(
+        assertThat(awaitAdvancedBiddingTokensJson()).isEqualTo(
                 "{\"AdvancedBidderTestClassName\":{\"token\":\"AdvancedBidderTestClassToken\"}}");
     }
 
@@ -256,7 +258,7 @@ public class MoPubTest {
         MoPub.initializeSdk(mActivity, sdkConfiguration, null);
 
         ShadowLooper.runUiThreadTasks();
-        assertThat(MoPub.getAdvancedBiddingTokensJson(mActivity)).isEqualTo(
+        assertThat(awaitAdvancedBiddingTokensJson()).isEqualTo(
                 "{\"AdvancedBidderTestClassName\":{\"token\":\"AdvancedBidderTestClassToken\"}}");
 
         // Attempting to initialize twice
@@ -279,6 +281,30 @@ public class MoPubTest {
         verify(mockInitializationListener).onInitializationFinished();
     }
 
+    @Test
+    public void initializeSdk_withStartupTimingListener_shouldReportStartupPhases() throws Exception {
+        final SdkStartupTimingListener mockStartupTimingListener =
+                org.mockito.Mockito.mock(SdkStartupTimingListener.class);
+
+        MoPub.initializeSdk(mActivity, new SdkConfiguration.Builder(INIT_ADUNIT)
+                .withStartupTimingListener(mockStartupTimingListener)
+                .build(), mockInitializationListener);
+        ShadowLooper.runUiThreadTasks();
+
+        verify(mockInitializationListener).onInitializationFinished();
+        verify(mockStartupTimingListener).onStartupPhaseFinished(
+                eq(SdkStartupPhase.MAIN_THREAD), anyLong());
+        verify(mockStartupTimingListener).onStartupPhaseFinished(
+                eq(SdkStartupPhase.USER_AGENT), anyLong());
+        verify(mockStartupTimingListener).onStartupPhaseFinished(
+                eq(SdkStartupPhase.CLIENT_METADATA), anyLong());
+        verify(mockStartupTimingListener).onStartupPhaseFinished(
+                eq(SdkStartupPhase.ADAPTERS), anyLong());
+        verify(mockStartupTimingListener).onStartupPhaseFinished(
+                eq(SdkStartupPhase.TOTAL), anyLong());
+        assertThat(ClientMetadata.getInstance()).isNotNull();
+    }
+
     @Test
     public void initializeSdk_withNoLegitimateInterestAllowedValue_shouldCallPersonalInfoManagerSetAllowLegitimateInterest_withLegitimateInterestAllowedFalse() throws Exception {
         MoPub.initializeSdk(mActivity, new SdkConfiguration.Builder(
@@ -449,4 +475,20 @@ public class MoPubTest {
             super(param);
         }
     }
+
+    /**
+     * Bidding tokens are collected in the background and not waited for on the main thread, so
+     * poll until they arrive.
+     */
+    @Nullable
+    private String awaitAdvancedBiddingTokensJson() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            final String tokensJson = MoPub.getAdvancedBiddingTokensJson(mActivity);
+            if (tokensJson != null) {
+                return tokensJson;
+            }
+            Thread.sleep(10);
+        }
+        return MoPub.getAdvancedBiddingTokensJson(mActivity);
+    }
 }
@@ -0,0 +1,75 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.test.support.ShadowAsyncTasks;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+@Config(shadows = {ShadowAsyncTasks.class})
+public class ResolvedUrlCacheTest {
+    private static final String CLICK_URL = "https://ads.example.com/click?id=1";
+    private static final String RESOLVED_URL = "https://www.mopub.com/";
+
+    @Test
+    public void get_beforeTtl_shouldReturnResolvedUrl() {
+        ResolvedUrlCache.put(CLICK_URL, RESOLVED_URL, 1000);
+
+        assertThat(ResolvedUrlCache.get(CLICK_URL, 1000 + ResolvedUrlCache.TTL_MILLIS - 1))
+                .isEqualTo(RESOLVED_URL);
+    }
+
+    @Test
+    public void get_afterTtl_shouldReturnNull() {
+        ResolvedUrlCache.put(CLICK_URL, RESOLVED_URL, 1000);
+
+        assertThat(ResolvedUrlCache.get(CLICK_URL, 1000 + ResolvedUrlCache.TTL_MILLIS)).isNull();
+    }
+
+    @Test
+    public void put_withMoreThanMaxEntries_shouldEvictLeastRecentlyUsed() {
+        for (int i = 0; i < ResolvedUrlCache.MAX_ENTRIES; i++) {
+            ResolvedUrlCache.put(CLICK_URL + i, RESOLVED_URL, 0);
+        }
+        ResolvedUrlCache.get(CLICK_URL + 0, 0);
+
+        ResolvedUrlCache.put(CLICK_URL, RESOLVED_URL, 0);
+
+        assertThat(ResolvedUrlCache.get(CLICK_URL + 0, 0)).isEqualTo(RESOLVED_URL);
+        assertThat(ResolvedUrlCache.get(CLICK_URL + 1, 0)).isNull();
+        assertThat(ResolvedUrlCache.get(CLICK_URL, 0)).isEqualTo(RESOLVED_URL);
+    }
+
+    @Test
+    public void preResolve_whenDisabled_shouldNotResolve() {
+        ResolvedUrlCache.preResolve(CLICK_URL);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void preResolve_whenEnabled_shouldCacheResolvedUrl_shouldOnlyResolveOnce() {
+        ResolvedUrlCache.setPreResolutionEnabled(true);
+
+        ResolvedUrlCache.preResolve(CLICK_URL);
+        final UrlResolutionTask task =
+                (UrlResolutionTask) ShadowAsyncTasks.getLatestAsyncTask();
+        ShadowAsyncTasks.reset();
+        ResolvedUrlCache.preResolve(CLICK_URL);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+        assertThat(ResolvedUrlCache.get(CLICK_URL)).isNull();
+
+        task.onPostExecute(RESOLVED_URL);
+
+        assertThat(ResolvedUrlCache.get(CLICK_URL)).isEqualTo(RESOLVED_URL);
+    }
+}
@@ -0,0 +1,171 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.content.ComponentCallbacks2;
+import android.support.annotation.NonNull;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class SdkMemoryManagerTest {
+    private List<String> trimmed;
+    // The manager holds caches weakly, so the test keeps them alive.
+    private List<TestCache> caches;
+    private List<SdkMemoryManager.CacheUsage> cacheUsages;
+
+    @Before
+    public void setUp() {
+        trimmed = new ArrayList<String>();
+        caches = new ArrayList<TestCache>();
+        cacheUsages = null;
+    }
+
+    @Test
+    public void trim_shouldTrimInPriorityOrder_shouldStopAtMaxPriority() {
+        SdkMemoryManager.register(new TestCache("preloaded"),
+                SdkMemoryManager.PRIORITY_PRELOADED_ADS);
+        SdkMemoryManager.register(new TestCache("images"),
+                SdkMemoryManager.PRIORITY_DECODED_IMAGES);
+        SdkMemoryManager.register(new TestCache("disk"), SdkMemoryManager.PRIORITY_NEVER);
+        SdkMemoryManager.register(new TestCache("idle"),
+                SdkMemoryManager.PRIORITY_IDLE_RESOURCES);
+
+        SdkMemoryManager.trim(SdkMemoryManager.PRIORITY_DECODED_IMAGES);
+
+        assertThat(trimmed).containsExactly("idle", "images");
+    }
+
+    @Test
+    public void register_withSameCacheTwice_shouldOnlyTrimItOnce() {
+        final TestCache cache = new TestCache("idle");
+        SdkMemoryManager.register(cache, SdkMemoryManager.PRIORITY_IDLE_RESOURCES);
+        SdkMemoryManager.register(cache, SdkMemoryManager.PRIORITY_IDLE_RESOURCES);
+
+        SdkMemoryManager.trim(SdkMemoryManager.PRIORITY_PRELOADED_ADS);
+
+        assertThat(trimmed).containsExactly("idle");
+    }
+
+    @Test
+    public void unregister_shouldStopTrimmingCache() {
+        final TestCache cache = new TestCache("preloaded");
+        SdkMemoryManager.register(cache, SdkMemoryManager.PRIORITY_PRELOADED_ADS);
+
+        SdkMemoryManager.unregister(cache);
+        SdkMemoryManager.trim(SdkMemoryManager.PRIORITY_PRELOADED_ADS);
+
+        assertThat(trimmed).isEmpty();
+        assertThat(getCacheUsages()).isEmpty();
+    }
+
+    @Test
+    public void register_shouldNotKeepCacheAlive() {
+        TestCache cache = new TestCache("idle");
+        SdkMemoryManager.register(cache, SdkMemoryManager.PRIORITY_IDLE_RESOURCES);
+        final WeakReference<TestCache> cacheReference = new WeakReference<TestCache>(cache);
+        caches.clear();
+        //noinspection UnusedAssignment
+        cache = null;
+
+        for (int i = 0; i < 10 && cacheReference.get() != null; i++) {
+            System.gc();
+        }
+
+        assertThat(cacheReference.get()).isNull();
+        assertThat(getCacheUsages()).isEmpty();
+    }
+
+    @Test
+    public void getMaxPriority_shouldMapEachTrimLevelToHighestPriorityToTrim() {
+        assertThat(SdkMemoryManager.getMaxPriority(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE))
+                .isEqualTo(SdkMemoryManager.PRIORITY_IDLE_RESOURCES);
+        assertThat(SdkMemoryManager.getMaxPriority(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW))
+                .isEqualTo(SdkMemoryManager.PRIORITY_DECODED_IMAGES);
+        assertThat(SdkMemoryManager.getMaxPriority(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL))
+                .isEqualTo(SdkMemoryManager.PRIORITY_PRELOADED_ADS);
+        assertThat(SdkMemoryManager.getMaxPriority(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN))
+                .isEqualTo(SdkMemoryManager.PRIORITY_DECODED_IMAGES);
+        assertThat(SdkMemoryManager.getMaxPriority(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND))
+                .isEqualTo(SdkMemoryManager.PRIORITY_DECODED_IMAGES);
+        assertThat(SdkMemoryManager.getMaxPriority(ComponentCallbacks2.TRIM_MEMORY_COMPLETE))
+                .isEqualTo(SdkMemoryManager.PRIORITY_PRELOADED_ADS);
+        assertThat(SdkMemoryManager.getMaxPriority(0)).isEqualTo(-1);
+    }
+
+    @Test
+    public void getCacheUsages_shouldReportEachCache() {
+        SdkMemoryManager.register(new TestCache("images"),
+                SdkMemoryManager.PRIORITY_DECODED_IMAGES);
+
+        final List<SdkMemoryManager.CacheUsage> usages = getCacheUsages();
+
+        assertThat(usages).hasSize(1);
+        assertThat(usages.get(0).getName()).isEqualTo("images");
+        assertThat(usages.get(0).getEntryCount()).isEqualTo(3);
+        assertThat(usages.get(0).getMemoryBytes()).isEqualTo(1024);
+        assertThat(usages.get(0).getDiskBytes()).isEqualTo(2048);
+    }
+
+    private List<SdkMemoryManager.CacheUsage> getCacheUsages() {
+        SdkMemoryManager.getCacheUsages(new SdkMemoryManager.CacheUsageListener() {
+            @Override
+            public void onCacheUsages(
+                    @NonNull final List<SdkMemoryManager.CacheUsage> usages) {
+                cacheUsages = usages;
+            }
+        });
+        // Robolectric runs the background task and the callback right away.
+        assertThat(cacheUsages).isNotNull();
+        return cacheUsages;
+    }
+
+    private class TestCache implements SdkMemoryManager.TrimmableCache {
+        @NonNull private final String mName;
+
+        TestCache(@NonNull final String name) {
+            mName = name;
+            caches.add(this);
+        }
+
+        @NonNull
+        @Override
+        public String getName() {
+            return mName;
+        }
+
+        @Override
+        public int getEntryCount() {
+            return 3;
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 1024;
+        }
+
+        @Override
+        public long getDiskBytes() {
+            return 2048;
+        }
+
+        @Override
+        public void trim() {
+            trimmed.add(mName);
+        }
+    }
+}
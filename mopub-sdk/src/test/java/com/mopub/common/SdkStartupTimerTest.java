@@ -0,0 +1,59 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(SdkTestRunner.class)
+public class SdkStartupTimerTest {
+    @Mock private SdkStartupTimingListener mockListener;
+
+    @Test
+    public void phaseFinished_shouldRecordDurationAndNotifyListener() {
+        SdkStartupTimer.setListener(mockListener);
+
+        SdkStartupTimer.phaseFinished(SdkStartupPhase.DISK_CACHE, SdkStartupTimer.now() - 50);
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(SdkStartupTimer.getDurationMillis(SdkStartupPhase.DISK_CACHE))
+                .isGreaterThanOrEqualTo(50L);
+        verify(mockListener).onStartupPhaseFinished(eq(SdkStartupPhase.DISK_CACHE), anyLong());
+    }
+
+    @Test
+    public void phaseFinished_twice_shouldOnlyRecordFirstTime() {
+        SdkStartupTimer.setListener(mockListener);
+
+        SdkStartupTimer.phaseFinished(SdkStartupPhase.USER_AGENT, SdkStartupTimer.now());
+        SdkStartupTimer.phaseFinished(SdkStartupPhase.USER_AGENT, SdkStartupTimer.now() - 1000);
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(SdkStartupTimer.getDurationMillis(SdkStartupPhase.USER_AGENT))
+                .isLessThan(1000L);
+        verify(mockListener).onStartupPhaseFinished(eq(SdkStartupPhase.USER_AGENT), anyLong());
+        verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void phaseFinished_withStartInTheFuture_shouldRecordZero() {
+        SdkStartupTimer.phaseFinished(SdkStartupPhase.TOTAL, SdkStartupTimer.now() + 1000);
+
+        assertThat(SdkStartupTimer.getDurationMillis(SdkStartupPhase.TOTAL)).isEqualTo(0L);
+        assertThat(SdkStartupTimer.getDurationMillis(SdkStartupPhase.ADAPTERS)).isNull();
+        verifyZeroInteractions(mockListener);
+    }
+}
@@ -9,6 +9,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ResolveInfo;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 
 import com.mopub.common.test.support.SdkTestRunner;
@@ -78,6 +79,23 @@ public class UrlHandlerTest {
         assertThat(startedActivity).isNull();
     }
 
+    @Test
+    public void handleUrl_withPreResolvedUrl_shouldHandleResolvedUrlImmediately() {
+        final String clickUrl = "https://ads.example.com/click?id=1";
+        final String resolvedUrl = "https://www.mopub.com/";
+        ResolvedUrlCache.put(clickUrl, resolvedUrl, SystemClock.elapsedRealtime());
+
+        new UrlHandler.Builder()
+                .withSupportedUrlActions(OPEN_IN_APP_BROWSER)
+                .withResultActions(mockResultActions)
+                .withMoPubSchemeListener(mockMoPubSchemeListener)
+                .withoutMoPubBrowser()
+                .build().handleUrl(context, clickUrl);
+
+        verify(mockResultActions).urlHandlingSucceeded(resolvedUrl, OPEN_IN_APP_BROWSER);
+        verifyNoMoreCallbacks();
+    }
+
     @Test
     public void urlHandler_withMatchingMoPubSchemeFinishLoad_shouldCallOnFinishLoad() {
         final String url = "mopub://finishLoad";
@@ -5,13 +5,16 @@
 package com.mopub.common.privacy;
 
 import android.app.Activity;
+import android.content.SharedPreferences;
 
+import com.mopub.common.SharedPreferencesHelper;
 import com.mopub.common.test.support.SdkTestRunner;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -58,4 +61,125 @@ public class PersonalInfoDataTest {
 
         assertThat(subject.chooseAdUnit()).isEqualTo("adunit");
     }
+
+    @Test
+    public void writeToDisk_shouldPublishNewSnapshot() {
+        final ConsentDataSnapshot initialSnapshot = subject.getSnapshot();
+        subject.setConsentedVendorListVersion("1");
+        subject.setForceGdprApplies(true);
+
+        assertThat(subject.getSnapshot()).isSameAs(initialSnapshot);
+        assertThat(initialSnapshot.getConsentedVendorListVersion()).isNull();
+
+        subject.writeToDisk();
+
+        final ConsentDataSnapshot snapshot = subject.getSnapshot();
+        assertThat(snapshot.getVersion()).isEqualTo(initialSnapshot.getVersion() + 1);
+        assertThat(snapshot.getConsentedVendorListVersion()).isEqualTo("1");
+        assertThat(snapshot.isForceGdprApplies()).isTrue();
+        assertThat(initialSnapshot.getConsentedVendorListVersion()).isNull();
+    }
+
+    @Test
+    public void writeToDisk_shouldSaveStateThatIsReadBack() {
+        subject.setAdUnit("adunit");
+        subject.setConsentStatus(ConsentStatus.EXPLICIT_YES);
+        subject.setLastSuccessfullySyncedConsentStatus(ConsentStatus.EXPLICIT_NO);
+        subject.setWhitelisted(true);
+        subject.setCurrentPrivacyPolicyLink("https://www.mopub.com/%%LANGUAGE%%/privacy");
+        subject.setGdprApplies(false);
+        subject.setLastChangedMs("1234");
+
+        subject.writeToDisk();
+        final PersonalInfoData readBack = new PersonalInfoData(activity);
+
+        assertThat(readBack.getAdUnitId()).isEqualTo("adunit");
+        assertThat(readBack.getConsentStatus()).isEqualTo(ConsentStatus.EXPLICIT_YES);
+        assertThat(readBack.getLastSuccessfullySyncedConsentStatus())
+                .isEqualTo(ConsentStatus.EXPLICIT_NO);
+        assertThat(readBack.isWhitelisted()).isTrue();
+        assertThat(readBack.getCurrentPrivacyPolicyLink("fr"))
+                .isEqualTo("https://www.mopub.com/fr/privacy");
+        assertThat(readBack.getGdprApplies()).isFalse();
+        assertThat(readBack.getLastChangedMs()).isEqualTo("1234");
+        assertThat(readBack.getUdid()).isNull();
+        assertThat(readBack.getConsentStatusBeforeDnt()).isNull();
+    }
+
+    @Test
+    public void writeToDisk_shouldSaveBeforeReturning() {
+        ShadowLooper.pauseMainLooper();
+        subject.setAdUnit("adunit");
+        subject.writeToDisk();
+
+        assertThat(getSharedPreferences().getString("info/adunit", null)).isEqualTo("adunit");
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    @Test
+    public void writeToDisk_withNothingChanged_shouldNotRewritePreferences() {
+        subject.setAdUnit("adunit");
+        subject.writeToDisk();
+        // Changed behind the subject's back, so a rewrite would restore it.
+        getSharedPreferences().edit().putString("info/adunit", "other").commit();
+
+        subject.writeToDisk();
+
+        assertThat(getSharedPreferences().getString("info/adunit", null)).isEqualTo("other");
+        assertThat(subject.getSnapshot().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void writeToDisk_shouldKeepStateReadableByOlderSdk() {
+        subject.setAdUnit("adunit");
+        subject.setConsentStatus(ConsentStatus.EXPLICIT_YES);
+        subject.setWhitelisted(true);
+        subject.setGdprApplies(true);
+        subject.writeToDisk();
+        subject.setConsentStatus(ConsentStatus.EXPLICIT_NO);
+        subject.setGdprApplies(null);
+        subject.writeToDisk();
+
+        // Read the way older SDKs read it.
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        assertThat(sharedPreferences.getString("info/adunit", "")).isEqualTo("adunit");
+        assertThat(sharedPreferences.getString("info/consent_status",
+                ConsentStatus.UNKNOWN.name())).isEqualTo(ConsentStatus.EXPLICIT_NO.name());
+        assertThat(sharedPreferences.getBoolean("info/is_whitelisted", false)).isTrue();
+        assertThat(sharedPreferences.getString("info/gdpr_applies", null)).isNull();
+    }
+
+    @Test
+    public void constructor_withOnlyStateRecord_shouldReadIt_shouldMigrateItToPreferences() {
+        getSharedPreferences().edit()
+                .putString(PersonalInfoData.STATE_SP_KEY, "{\"info/adunit\":\"record_adunit\","
+                        + "\"info/is_whitelisted\":true}")
+                .commit();
+
+        subject = new PersonalInfoData(activity);
+
+        assertThat(subject.getAdUnitId()).isEqualTo("record_adunit");
+        assertThat(subject.isWhitelisted()).isTrue();
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        assertThat(sharedPreferences.contains(PersonalInfoData.STATE_SP_KEY)).isFalse();
+        assertThat(sharedPreferences.getString("info/adunit", null)).isEqualTo("record_adunit");
+        assertThat(sharedPreferences.getBoolean("info/is_whitelisted", false)).isTrue();
+    }
+
+    @Test
+    public void constructor_withStateRecordAndPreferences_shouldUsePreferences_shouldRemoveRecord() {
+        getSharedPreferences().edit()
+                .putString(PersonalInfoData.STATE_SP_KEY, "{\"info/adunit\":\"record_adunit\"}")
+                .putString("info/adunit", "legacy_adunit")
+                .commit();
+
+        subject = new PersonalInfoData(activity);
+
+        assertThat(subject.getAdUnitId()).isEqualTo("legacy_adunit");
+        assertThat(getSharedPreferences().contains(PersonalInfoData.STATE_SP_KEY)).isFalse();
+    }
+
+    private SharedPreferences getSharedPreferences() {
+        return SharedPreferencesHelper.getSharedPreferences(activity, "com.mopub.privacy");
+    }
 }
@@ -6,13 +6,20 @@ package com.mopub.common.test.support;
 
 import android.support.annotation.NonNull;
 
+import com.mopub.common.AdLatencyMetrics;
+import com.mopub.common.BandwidthEstimator;
 import com.mopub.common.CacheService;
 import com.mopub.common.ClientMetadata;
+import com.mopub.common.CustomEventRegistry;
 import com.mopub.common.MoPub;
 import com.mopub.common.Preconditions;
+import com.mopub.common.ResolvedUrlCache;
+import com.mopub.common.SdkMemoryManager;
+import com.mopub.common.SdkStartupTimer;
 import com.mopub.common.factories.MethodBuilderFactory;
 import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.DateAndTime;
+import com.mopub.common.util.Reflection;
 import com.mopub.common.util.test.support.ShadowAsyncTasks;
 import com.mopub.common.util.test.support.ShadowAvidAdSessionManager;
 import com.mopub.common.util.test.support.ShadowAvidManager;
@@ -21,6 +28,7 @@ import com.mopub.common.util.test.support.ShadowMoatFactory;
 import com.mopub.common.util.test.support.ShadowReflection;
 import com.mopub.common.util.test.support.TestDateAndTime;
 import com.mopub.common.util.test.support.TestMethodBuilderFactory;
+import com.mopub.mobileads.RewardedVideoCompletionOutbox;
 import com.mopub.mobileads.factories.AdViewControllerFactory;
 import com.mopub.mobileads.factories.CustomEventBannerAdapterFactory;
 import com.mopub.mobileads.factories.CustomEventBannerFactory;
@@ -41,8 +49,11 @@ import com.mopub.mobileads.test.support.TestHtmlInterstitialWebViewFactory;
 import com.mopub.mobileads.test.support.TestMoPubViewFactory;
 import com.mopub.mobileads.test.support.TestMraidControllerFactory;
 import com.mopub.mobileads.test.support.TestVastManagerFactory;
+import com.mopub.nativeads.NativeImageCache;
+import com.mopub.nativeads.NativeVideoPlayerPool;
 import com.mopub.nativeads.factories.CustomEventNativeFactory;
 import com.mopub.nativeads.test.support.TestCustomEventNativeFactory;
+import com.mopub.network.AdUnitConfigStore;
 
 import org.junit.runners.model.InitializationError;
 import org.mockito.MockitoAnnotations;
@@ -103,6 +114,17 @@ public class SdkTestRunner extends RobolectricTestRunner {
 
             AsyncTasks.setExecutor(new RoboExecutorService());
             CacheService.clearAndNullCaches();
+            NativeImageCache.clearForTesting();
+            AdLatencyMetrics.clearForTesting();
+            BandwidthEstimator.clearForTesting();
+            ResolvedUrlCache.clearForTesting();
+            SdkStartupTimer.clearForTesting();
+            Reflection.clearCacheForTesting();
+            CustomEventRegistry.clearForTesting();
+            AdUnitConfigStore.clearForTesting();
+            NativeVideoPlayerPool.clearForTesting();
+            RewardedVideoCompletionOutbox.clearForTesting();
+            SdkMemoryManager.clearForTesting();
         }
     }
 }
@@ -7,12 +7,16 @@ package com.mopub.common.util;
 import android.app.Activity;
 import android.view.View;
 
+import com.mopub.common.CustomEventRegistry;
+
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 
+import java.lang.reflect.Constructor;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -35,6 +39,12 @@ public class ReflectionTest {
         string = "goat";
     }
 
+    @After
+    public void tearDown() {
+        Reflection.clearCacheForTesting();
+        CustomEventRegistry.clearForTesting();
+    }
+
     @Test
     public void execute_withCorrectVoidMethodThatHasNoParameters_shouldPass() throws Exception {
         methodBuilder = new MethodBuilder(activity, "finish");
@@ -209,4 +219,77 @@ public class ReflectionTest {
 
         Reflection.instantiateClassWithConstructor("java.lang.Integer", Number.class, classes, parameters);
     }
+
+    @Test
+    public void execute_calledTwice_shouldReuseMethod() throws Exception {
+        assertThat(new MethodBuilder(string, "length").execute()).isEqualTo(4);
+        assertThat(new MethodBuilder("cheese", "length").execute()).isEqualTo(6);
+    }
+
+    @Test
+    public void execute_withNoSuchMethod_calledTwice_shouldThrowBothTimes() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                new MethodBuilder(activity, "noSuchMethod").execute();
+                fail("Should fail because method did not exist");
+            } catch (NoSuchMethodException e) {
+                // pass
+            }
+        }
+    }
+
+    @Test
+    public void getClassForName_shouldReturnClass() throws Exception {
+        assertThat(Reflection.getClassForName("java.lang.String")).isEqualTo(String.class);
+        assertThat(Reflection.getClassForName("java.lang.String")).isEqualTo(String.class);
+    }
+
+    @Test
+    public void getClassForName_withClassNotFound_shouldThrowEveryTime() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                Reflection.getClassForName("java.lang.FakeClass123");
+                fail("Should fail because the class does not exist");
+            } catch (ClassNotFoundException e) {
+                assertThat(e.getMessage()).isEqualTo("java.lang.FakeClass123");
+            }
+        }
+        assertThat(Reflection.classFound("java.lang.FakeClass123")).isFalse();
+    }
+
+    @Test
+    public void getDeclaredConstructor_shouldReturnSameAccessibleConstructor() throws Exception {
+        final Constructor<? extends Number> constructor =
+                Reflection.getDeclaredConstructor(Integer.class, int.class);
+
+        assertThat(constructor.isAccessible()).isTrue();
+        assertThat(Reflection.getDeclaredConstructor(Integer.class, int.class))
+                .isSameAs(constructor);
+    }
+
+    @Test
+    public void instantiateClassWithEmptyConstructor_withRegisteredFactory_shouldUseFactory() throws Exception {
+        final StringBuilder registered = new StringBuilder("registered");
+        CustomEventRegistry.register(StringBuilder.class,
+                new CustomEventRegistry.Factory<StringBuilder>() {
+                    @Override
+                    public StringBuilder create() {
+                        return registered;
+                    }
+                });
+
+        final CharSequence result = Reflection.instantiateClassWithEmptyConstructor(
+                StringBuilder.class.getName(), CharSequence.class);
+
+        assertThat(result).isSameAs(registered);
+    }
+
+    @Test
+    public void instantiateClassWithEmptyConstructor_withoutRegisteredFactory_shouldUseConstructor() throws Exception {
+        final CharSequence result = Reflection.instantiateClassWithEmptyConstructor(
+                StringBuilder.class.getName(), CharSequence.class);
+
+        assertThat(result).isInstanceOf(StringBuilder.class);
+        assertThat(result.length()).isEqualTo(0);
+    }
 }
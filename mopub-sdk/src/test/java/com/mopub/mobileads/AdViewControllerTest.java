@@ -30,6 +30,7 @@ import com.mopub.mobileads.test.support.MoPubShadowTelephonyManager;
 import com.mopub.mobileads.test.support.ThreadUtils;
 import com.mopub.network.AdLoader;
 import com.mopub.network.AdResponse;
+import com.mopub.network.AdUnitConfigStore;
 import com.mopub.network.ImpressionData;
 import com.mopub.network.ImpressionListener;
 import com.mopub.network.ImpressionsEmitter;
@@ -154,6 +155,26 @@ public class AdViewControllerTest {
         assertThat(subject.generateAdUrl()).isNull();
     }
 
+    @Test
+    public void setAdUnitId_withStoredRefreshTime_shouldUseItUntilFirstResponse() {
+        AdUnitConfigStore.getInstance(activity).putRefreshTimeMillis("stored_ad_unit", 45000);
+
+        subject.setAdUnitId("stored_ad_unit");
+
+        assertThat(subject.getRefreshTimeMillis()).isEqualTo(45000);
+    }
+
+    @Test
+    public void onAdLoadSuccess_shouldStoreRefreshTime() {
+        subject.setAdUnitId("stored_ad_unit");
+        response = response.toBuilder().setRefreshTimeMilliseconds(30000).build();
+
+        subject.onAdLoadSuccess(response);
+
+        assertThat(AdUnitConfigStore.getInstance(activity).getRefreshTimeMillis("stored_ad_unit"))
+                .isEqualTo(30000);
+    }
+
     @Test
     public void setUserDataKeywords_shouldNotSetKeywordIfNoUserConsent() {
         when(mockPersonalInfoManager.canCollectPersonalInformation()).thenReturn(false);
@@ -11,6 +11,7 @@ import android.support.annotation.Nullable;
 
 import com.mopub.common.AdFormat;
 import com.mopub.common.AdType;
+import com.mopub.common.Constants;
 import com.mopub.common.DataKeys;
 import com.mopub.common.LifecycleListener;
 import com.mopub.common.MoPub;
@@ -1173,6 +1174,79 @@ public class
         verifyNoMoreInteractions(mockVideoListener);
     }
 
+    @Test
+    public void loadVideo_withManyAdUnits_shouldLoadAndShowEachAdUnit() throws Exception {
+        final int adUnitCount = 20;
+        for (int i = 0; i < adUnitCount; i++) {
+            ShadowLooper.pauseMainLooper();
+            MoPubRewardedVideoManager.loadVideo(adUnitId + i, null);
+            requestListener.onSuccessResponse(createCustomEventResponse(adUnitId + i,
+                    AdUnitNetworkIdCustomEvent.class));
+            ShadowLooper.unPauseMainLooper();
+        }
+
+        for (int i = 0; i < adUnitCount; i++) {
+            assertThat(MoPubRewardedVideoManager.hasVideo(adUnitId + i)).isTrue();
+            verify(mockVideoListener).onRewardedVideoLoadSuccess(adUnitId + i);
+        }
+
+        for (int i = 0; i < adUnitCount; i++) {
+            MoPubRewardedVideoManager.showVideo(adUnitId + i);
+            MoPubRewardedVideoManager.onRewardedVideoClosed(AdUnitNetworkIdCustomEvent.class,
+                    adUnitId + i);
+
+            verify(mockVideoListener).onRewardedVideoStarted(adUnitId + i);
+            verify(mockVideoListener).onRewardedVideoClosed(adUnitId + i);
+            assertThat(MoPubRewardedVideoManager.hasVideo(adUnitId + i)).isFalse();
+            if (i + 1 < adUnitCount) {
+                assertThat(MoPubRewardedVideoManager.hasVideo(adUnitId + (i + 1))).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void onAdSuccess_whenCustomEventTimesOut_shouldOnlyFailAdUnitThatTimedOut() throws Exception {
+        MoPubRewardedVideoManager.loadVideo("testAdUnit1", null);
+        requestListener.onSuccessResponse(createCustomEventResponse("testAdUnit1",
+                NeverLoadsCustomEvent.class));
+        ShadowLooper.idleMainLooper(Constants.THIRTY_SECONDS_MILLIS / 2);
+        MoPubRewardedVideoManager.loadVideo("testAdUnit2", null);
+        requestListener.onSuccessResponse(createCustomEventResponse("testAdUnit2",
+                NeverLoadsCustomEvent.class));
+
+        ShadowLooper.idleMainLooper(Constants.THIRTY_SECONDS_MILLIS / 2);
+
+        verify(mockVideoListener).onRewardedVideoLoadFailure("testAdUnit1",
+                MoPubErrorCode.NETWORK_TIMEOUT);
+        verifyNoMoreInteractions(mockVideoListener);
+
+        ShadowLooper.idleMainLooper(Constants.THIRTY_SECONDS_MILLIS / 2);
+
+        verify(mockVideoListener).onRewardedVideoLoadFailure("testAdUnit2",
+                MoPubErrorCode.NETWORK_TIMEOUT);
+    }
+
+    @Test
+    public void onAdSuccess_withNewResponseForAdUnit_shouldCancelPreviousTimeout() throws Exception {
+        MoPubRewardedVideoManager.loadVideo(adUnitId, null);
+        requestListener.onSuccessResponse(createCustomEventResponse(adUnitId,
+                NeverLoadsCustomEvent.class));
+        ShadowLooper.idleMainLooper(Constants.THIRTY_SECONDS_MILLIS / 2);
+
+        MoPubRewardedVideoManager.getAdRequestStatusMapping().markFail(adUnitId);
+        MoPubRewardedVideoManager.loadVideo(adUnitId, null);
+        requestListener.onSuccessResponse(createCustomEventResponse(adUnitId,
+                NeverLoadsCustomEvent.class));
+        ShadowLooper.idleMainLooper(Constants.THIRTY_SECONDS_MILLIS / 2);
+
+        verifyZeroInteractions(mockVideoListener);
+
+        ShadowLooper.idleMainLooper(Constants.THIRTY_SECONDS_MILLIS / 2);
+
+        verify(mockVideoListener).onRewardedVideoLoadFailure(adUnitId,
+                MoPubErrorCode.NETWORK_TIMEOUT);
+    }
+
     @Test
     public void chooseReward_shouldReturnMoPubRewardOverNetworkReward() {
         MoPubReward moPubReward = MoPubReward.success(MOPUB_REWARD, 123);
@@ -1458,6 +1532,34 @@ public class
         }
     }
 
+    public static class AdUnitNetworkIdCustomEvent extends TestCustomEvent {
+        @Nullable private String mAdUnitId;
+
+        @NonNull
+        @Override
+        protected String getAdNetworkId() {
+            return mAdUnitId == null ? AD_NETWORK_ID : mAdUnitId;
+        }
+
+        @Override
+        protected void loadWithSdkInitialized(@NonNull final Activity activity,
+                @NonNull final Map<String, Object> localExtras,
+                @NonNull final Map<String, String> serverExtras) throws Exception {
+            mPlayable = true;
+            mAdUnitId = (String) localExtras.get(DataKeys.AD_UNIT_ID_KEY);
+            MoPubRewardedVideoManager.onRewardedVideoLoadSuccess(AdUnitNetworkIdCustomEvent.class,
+                    getAdNetworkId());
+        }
+    }
+
+    public static class NeverLoadsCustomEvent extends TestCustomEvent {
+        @Override
+        protected void loadWithSdkInitialized(@NonNull final Activity activity,
+                @NonNull final Map<String, Object> localExtras,
+                @NonNull final Map<String, String> serverExtras) throws Exception {
+        }
+    }
+
     private static class RequestBodyContains extends ArgumentMatcher<Request> {
 
         private final String mMustContain;
@@ -1477,6 +1579,20 @@ public class
         }
     }
 
+    private MultiAdResponse createCustomEventResponse(@NonNull final String adUnitId,
+            @NonNull final Class<? extends CustomEventRewardedAd> customEventClass)
+            throws JSONException, MoPubNetworkError {
+        final JSONObject jsonResponse = createRewardedJsonResponse();
+        final JSONObject firstResponse = jsonResponse.getJSONArray(
+                ResponseHeader.AD_RESPONSES.getKey()).getJSONObject(0);
+        final JSONObject metadata = firstResponse.getJSONObject(ResponseHeader.METADATA.getKey());
+        metadata.put(ResponseHeader.CUSTOM_EVENT_NAME.getKey(), customEventClass.getName());
+        metadata.put(ResponseHeader.AD_TYPE.getKey(), AdType.CUSTOM);
+
+        final NetworkResponse netResponse = new NetworkResponse(jsonResponse.toString().getBytes());
+        return new MultiAdResponse(mActivity, netResponse, AdFormat.REWARDED_VIDEO, adUnitId);
+    }
+
     private static JSONObject createRewardedJsonResponse() throws JSONException {
         final String jsonString = "{\n" +
                 "  \"ad-responses\": [\n" +
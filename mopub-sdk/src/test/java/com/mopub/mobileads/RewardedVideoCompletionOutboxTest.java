@@ -0,0 +1,155 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.mopub.common.SharedPreferencesHelper;
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.ResponseHeader;
+import com.mopub.network.MoPubRequestQueue;
+import com.mopub.network.Networking;
+import com.mopub.volley.NetworkResponse;
+import com.mopub.volley.VolleyError;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(SdkTestRunner.class)
+public class RewardedVideoCompletionOutboxTest {
+    private static final String URL = "https://www.example.com/reward?req=1";
+
+    @Mock private MoPubRequestQueue mockRequestQueue;
+    private Context context;
+    private RewardedVideoCompletionOutbox subject;
+
+    @Before
+    public void setUp() {
+        context = Robolectric.buildActivity(Activity.class).create().get();
+        Networking.setRequestQueueForTesting(mockRequestQueue);
+        subject = RewardedVideoCompletionOutbox.getInstance(context);
+    }
+
+    @Test
+    public void enqueue_shouldJournalCompletion_shouldSendItWithIdempotencyKey() throws Exception {
+        subject.enqueue(URL);
+
+        final RewardedVideoCompletionRequest request = captureRequest(1);
+        assertThat(request.getUrl()).isEqualTo(URL);
+        assertThat(request.getHeaders().get(ResponseHeader.IDEMPOTENCY_KEY.getKey())).isNotEmpty();
+        assertThat(subject.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void enqueue_withSameUrlPending_shouldCoalesce() throws Exception {
+        subject.enqueue(URL);
+        subject.enqueue(URL);
+
+        captureRequest(1);
+        assertThat(subject.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void onResponse_withSuccess_shouldRemoveCompletion_shouldCountSent() throws Exception {
+        subject.enqueue(URL);
+
+        captureRequest(1).deliverResponse(200);
+
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+        assertThat(subject.getSentCount()).isEqualTo(1);
+        assertThat(subject.getFailedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onResponse_withServerError_shouldKeepCompletionPending() throws Exception {
+        subject.enqueue(URL);
+
+        captureRequest(1).deliverResponse(503);
+
+        assertThat(subject.getPendingCount()).isEqualTo(1);
+        assertThat(subject.getSentCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onErrorResponse_withClientError_shouldRemoveCompletion_shouldCountFailed() throws Exception {
+        subject.enqueue(URL);
+
+        captureRequest(1).mListener.onErrorResponse(
+                new VolleyError(new NetworkResponse(400, null, null, true)));
+
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+        assertThat(subject.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void replay_afterRestart_shouldResendPendingCompletionWithSameIdempotencyKey() throws Exception {
+        subject.enqueue(URL);
+        final String idempotencyKey = captureRequest(1).getHeaders()
+                .get(ResponseHeader.IDEMPOTENCY_KEY.getKey());
+
+        RewardedVideoCompletionOutbox.clearForTesting();
+        subject = RewardedVideoCompletionOutbox.getInstance(context);
+        subject.replay();
+
+        final RewardedVideoCompletionRequest request = captureRequest(2);
+        assertThat(request.getUrl()).isEqualTo(URL);
+        assertThat(request.getHeaders().get(ResponseHeader.IDEMPOTENCY_KEY.getKey()))
+                .isEqualTo(idempotencyKey);
+    }
+
+    @Test
+    public void replay_withCompletionBeingSent_shouldNotSendItAgain() throws Exception {
+        subject.enqueue(URL);
+
+        subject.replay();
+
+        captureRequest(1);
+    }
+
+    @Test
+    public void replay_withExpiredCompletion_shouldDropIt_shouldCountFailed() throws Exception {
+        final JSONObject entry = new JSONObject();
+        entry.put("url", URL);
+        entry.put("created", System.currentTimeMillis()
+                - RewardedVideoCompletionOutbox.MAX_AGE_MILLIS);
+        SharedPreferencesHelper.getSharedPreferences(context,
+                RewardedVideoCompletionOutbox.PREF_NAME)
+                .edit().putString("key", entry.toString()).commit();
+
+        subject.replay();
+
+        verifyZeroInteractions(mockRequestQueue);
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+        assertThat(subject.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void makeRewardedVideoCompletionRequest_shouldGoThroughOutbox() throws Exception {
+        RewardedVideoCompletionRequestHandler.makeRewardedVideoCompletionRequest(context, URL,
+                null, "coins", "10", null, null);
+
+        assertThat(captureRequest(1).getUrl())
+                .startsWith(URL + "&customer_id=&rcn=coins&rca=10");
+        assertThat(subject.getPendingCount()).isEqualTo(1);
+    }
+
+    private RewardedVideoCompletionRequest captureRequest(final int times) {
+        final ArgumentCaptor<RewardedVideoCompletionRequest> captor =
+                ArgumentCaptor.forClass(RewardedVideoCompletionRequest.class);
+        verify(mockRequestQueue, times(times)).add(captor.capture());
+        return captor.getValue();
+    }
+}
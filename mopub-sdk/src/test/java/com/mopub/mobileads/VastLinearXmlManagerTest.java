@@ -396,6 +396,22 @@ public class VastLinearXmlManagerTest {
         assertThat(subject.getSkipOffset()).isNull();
     }
 
+    @Test
+    public void getDurationMs_shouldReturnTheCorrectValue() {
+        subject = new VastLinearXmlManager(linearNode);
+
+        assertThat(subject.getDurationMs()).isEqualTo(58 * 1000);
+    }
+
+    @Test
+    public void getDurationMs_withInvalidDuration_shouldReturnNull() throws Exception {
+        subject = new VastLinearXmlManager(createNode("<Linear><Duration>0:ab:12</Duration></Linear>"));
+        assertThat(subject.getDurationMs()).isNull();
+
+        subject = new VastLinearXmlManager(createNode("<Linear></Linear>"));
+        assertThat(subject.getDurationMs()).isNull();
+    }
+
     @Test
     public void getMediaXmlManagers_shouldReturnMediaXmlManagers() {
         subject = new VastLinearXmlManager(linearNode);
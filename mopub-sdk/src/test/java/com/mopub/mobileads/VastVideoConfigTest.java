@@ -47,6 +47,23 @@ public class VastVideoConfigTest {
         subject.setNetworkMediaFileUrl("video_url");
     }
 
+    @Test
+    public void switchToFallbackMediaFile_shouldUseFallbacksInOrder() throws Exception {
+        subject.setFallbackMediaFileUrls(Arrays.asList("fallback_1", "fallback_2"));
+
+        assertThat(subject.switchToFallbackMediaFile()).isTrue();
+        assertThat(subject.getNetworkMediaFileUrl()).isEqualTo("fallback_1");
+        assertThat(subject.switchToFallbackMediaFile()).isTrue();
+        assertThat(subject.getNetworkMediaFileUrl()).isEqualTo("fallback_2");
+        assertThat(subject.getFallbackMediaFileUrls()).isEmpty();
+    }
+
+    @Test
+    public void switchToFallbackMediaFile_withNoFallbacks_shouldKeepNetworkMediaFileUrl() throws Exception {
+        assertThat(subject.switchToFallbackMediaFile()).isFalse();
+        assertThat(subject.getNetworkMediaFileUrl()).isEqualTo("video_url");
+    }
+
     @Test
     public void addFractionalTrackers_multipleTimes_shouldBeSorted() throws Exception {
         ArrayList<VastFractionalProgressTracker> testSet1 = new ArrayList<VastFractionalProgressTracker>();
@@ -219,6 +219,28 @@ public class VastVideoInterstitialTest extends ResponseBodyInterstitialTest {
         verify(customEventInterstitialListener).onInterstitialLoaded();
     }
 
+    @Test
+    public void onVastVideoConfigurationPrepared_withExoPlayerRenderer_shouldEnableExoPlayer() throws Exception {
+        serverExtras.put(DataKeys.VIDEO_RENDERER_KEY, "exoplayer");
+        final VastVideoConfig vastVideoConfig = mock(VastVideoConfig.class);
+
+        subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+        ((VastVideoInterstitial) subject).onVastVideoConfigurationPrepared(vastVideoConfig);
+
+        verify(vastVideoConfig).setIsExoPlayerEnabled(true);
+        verify(customEventInterstitialListener).onInterstitialLoaded();
+    }
+
+    @Test
+    public void onVastVideoConfigurationPrepared_withoutVideoRenderer_shouldNotEnableExoPlayer() throws Exception {
+        final VastVideoConfig vastVideoConfig = mock(VastVideoConfig.class);
+
+        subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+        ((VastVideoInterstitial) subject).onVastVideoConfigurationPrepared(vastVideoConfig);
+
+        verify(vastVideoConfig).setIsExoPlayerEnabled(false);
+    }
+
     @Test
     public void onVastVideoConfigurationPrepared_withNullVastVideoConfiguration_shouldSignalOnInterstitialFailed() throws Exception {
         subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
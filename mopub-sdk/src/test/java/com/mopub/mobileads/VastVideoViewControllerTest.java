@@ -30,6 +30,7 @@ import com.mopub.mobileads.resource.CloseButtonDrawable;
 import com.mopub.mobileads.test.support.GestureUtils;
 import com.mopub.mobileads.test.support.ShadowVastVideoView;
 import com.mopub.mobileads.test.support.VastUtils;
+import com.mopub.nativeads.ExoVastVideoView;
 import com.mopub.network.MaxWidthImageLoader;
 import com.mopub.network.MoPubRequestQueue;
 import com.mopub.network.Networking;
@@ -416,6 +417,32 @@ public class VastVideoViewControllerTest {
         }
     }
 
+    @Test
+    public void constructor_withExoPlayerEnabled_withOnlyNetworkMediaFileUrl_shouldStreamWithExoPlayer() throws Exception {
+        VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setNetworkMediaFileUrl("https://www.example.com/video.mp4");
+        vastVideoConfig.setIsExoPlayerEnabled(true);
+        bundle.putSerializable(VAST_VIDEO_CONFIG, vastVideoConfig);
+
+        initializeSubject();
+
+        assertThat(subject.getVastVideoView()).isInstanceOf(ExoVastVideoView.class);
+        subject.getVastVideoView().stopPlayback();
+    }
+
+    @Test
+    public void constructor_withExoPlayerDisabled_withOnlyNetworkMediaFileUrl_shouldThrowIllegalStateException() throws Exception {
+        VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setNetworkMediaFileUrl("https://www.example.com/video.mp4");
+        bundle.putSerializable(VAST_VIDEO_CONFIG, vastVideoConfig);
+        try {
+            initializeSubject();
+            fail("VastVideoViewController didn't throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            // pass
+        }
+    }
+
     @Test
     public void constructor_whenCustomCtaTextNotSpecified_shouldUseDefaultCtaText() throws Exception {
         VastVideoConfig vastVideoConfig = new VastVideoConfig();
@@ -11,6 +11,7 @@ import android.graphics.Point;
 import android.view.Display;
 import android.view.WindowManager;
 
+import com.mopub.common.BandwidthEstimator;
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection;
 import com.mopub.mobileads.test.support.VastUtils;
@@ -473,6 +474,52 @@ public class VastXmlManagerAggregatorTest {
         assertThat(bestMediaFileUrl).isNull();
     }
 
+    @Test
+    public void getMediaFileUrlsByPreference_withNoBandwidthEstimate_shouldPickFittest_shouldFallBackToLowerBitrates() {
+        final List<VastMediaXmlManager> managers = initializeBitrateLadder();
+
+        assertThat(subject.getMediaFileUrlsByPreference(managers, 30 * 1000,
+                BandwidthEstimator.NO_ESTIMATE))
+                .containsExactly("video_1000", "video_400");
+    }
+
+    @Test
+    public void getMediaFileUrlsByPreference_withFastNetwork_shouldPickFittest() {
+        final List<VastMediaXmlManager> managers = initializeBitrateLadder();
+
+        assertThat(subject.getMediaFileUrlsByPreference(managers, 30 * 1000, 10000))
+                .containsExactly("video_1000", "video_400");
+    }
+
+    @Test
+    public void getMediaFileUrlsByPreference_withSlowNetwork_shouldPickFileThatDownloadsInTime() {
+        final List<VastMediaXmlManager> managers = initializeBitrateLadder();
+
+        // A 30 second video at 1000 kbps takes 30 seconds to download at 1000 kbps.
+        assertThat(subject.getMediaFileUrlsByPreference(managers, 30 * 1000, 1000))
+                .containsExactly("video_400");
+        // A shorter video downloads in time.
+        assertThat(subject.getMediaFileUrlsByPreference(managers, 10 * 1000, 1000))
+                .containsExactly("video_1000", "video_400");
+    }
+
+    @Test
+    public void getMediaFileUrlsByPreference_withNoFileDownloadingInTime_shouldPickLowestBitrate() {
+        final List<VastMediaXmlManager> managers = initializeBitrateLadder();
+
+        assertThat(subject.getMediaFileUrlsByPreference(managers, null, 100))
+                .containsExactly("video_400");
+    }
+
+    @Test
+    public void getMediaFileUrlsByPreference_withNoPlayableFiles_shouldReturnEmptyList() {
+        final VastMediaXmlManager mediaXmlManager = initializeMediaXmlManagerMock(800, 480,
+                "video/rubbish", "video_url");
+
+        assertThat(subject.getMediaFileUrlsByPreference(Arrays.asList(mediaXmlManager), null,
+                BandwidthEstimator.NO_ESTIMATE)).isEmpty();
+    }
+
     @Test
     public void getBestMediaFileUrl_withSameAspectRatios_shouldReturnUrlWithAreaCloserToScreenArea1() throws Exception {
         final Display display = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
@@ -1737,6 +1784,19 @@ public class VastXmlManagerAggregatorTest {
         return mediaXmlManager;
     }
 
+    private List<VastMediaXmlManager> initializeBitrateLadder() {
+        final VastMediaXmlManager high = initializeMediaXmlManagerMock(800, 480, "video/mp4",
+                "video_2000");
+        when(high.getBitrate()).thenReturn(2000);
+        final VastMediaXmlManager medium = initializeMediaXmlManagerMock(800, 480, "video/mp4",
+                "video_1000");
+        when(medium.getBitrate()).thenReturn(1000);
+        final VastMediaXmlManager low = initializeMediaXmlManagerMock(800, 480, "video/mp4",
+                "video_400");
+        when(low.getBitrate()).thenReturn(400);
+        return Arrays.asList(high, medium, low);
+    }
+
     private VastCompanionAdXmlManager initializeCompanionXmlManagerMock(
             final Integer width,
             final Integer height,
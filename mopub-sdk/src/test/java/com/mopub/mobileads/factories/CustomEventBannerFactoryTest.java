@@ -4,6 +4,9 @@
 
 package com.mopub.mobileads.factories;
 
+import android.content.Context;
+
+import com.mopub.common.CustomEventRegistry;
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.mobileads.AdTypeTranslator;
 import com.mopub.mobileads.CustomEventBanner;
@@ -12,6 +15,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Map;
+
 import static com.mopub.mobileads.AdTypeTranslator.CustomEventType.HTML_BANNER;
 import static com.mopub.mobileads.AdTypeTranslator.CustomEventType.MRAID_BANNER;
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -32,8 +37,41 @@ public class CustomEventBannerFactoryTest {
         assertCustomEventClassCreated(HTML_BANNER);
     }
 
+    @Test
+    public void internalCreate_withRegisteredFactory_shouldReturnFactoryInstance() throws Exception {
+        final TestBanner registeredBanner = new TestBanner();
+        CustomEventRegistry.register(TestBanner.class, new CustomEventRegistry.Factory<TestBanner>() {
+            @Override
+            public TestBanner create() {
+                return registeredBanner;
+            }
+        });
+
+        assertThat(subject.internalCreate(TestBanner.class.getName())).isSameAs(registeredBanner);
+    }
+
+    @Test
+    public void internalCreate_withoutRegisteredFactory_shouldFallBackToReflection() throws Exception {
+        final CustomEventBanner customEventBanner =
+                subject.internalCreate(TestBanner.class.getName());
+
+        assertThat(customEventBanner).isInstanceOf(TestBanner.class);
+    }
+
     private void assertCustomEventClassCreated(AdTypeTranslator.CustomEventType customEventType) throws Exception {
         CustomEventBanner customEventBanner = subject.internalCreate(customEventType.toString());
         assertThat(customEventBanner.getClass().getName()).isEqualTo(customEventType.toString());
     }
+
+    public static class TestBanner extends CustomEventBanner {
+        @Override
+        protected void loadBanner(final Context context,
+                final CustomEventBannerListener customEventBannerListener,
+                final Map<String, Object> localExtras, final Map<String, String> serverExtras) {
+        }
+
+        @Override
+        protected void onInvalidate() {
+        }
+    }
 }
@@ -0,0 +1,143 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(SdkTestRunner.class)
+public class AdPositionChangeBatchTest {
+    private AdPositionChangeBatch subject;
+
+    @Mock private MoPubNativeAdRangeListener mockListener;
+
+    @Before
+    public void setup() {
+        subject = new AdPositionChangeBatch();
+    }
+
+    @Test
+    public void adInserted_withAdjacentPositions_shouldMergeIntoOneRange() {
+        subject.begin();
+        subject.adInserted(3);
+        subject.adInserted(4);
+        subject.adInserted(3);
+        subject.end(mockListener);
+
+        verify(mockListener).onAdRangeLoaded(3, 3);
+        verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void adInserted_withGap_shouldDispatchSeparateRangesInOrder() {
+        subject.begin();
+        subject.adInserted(1);
+        subject.adInserted(3);
+        subject.end(mockListener);
+
+        final InOrder inOrder = inOrder(mockListener);
+        inOrder.verify(mockListener).onAdRangeLoaded(1, 1);
+        inOrder.verify(mockListener).onAdRangeLoaded(3, 1);
+        verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void adRemoved_inDescendingOrder_shouldMergeIntoOneRange() {
+        subject.begin();
+        subject.adRemoved(6);
+        subject.adRemoved(5);
+        subject.adRemoved(4);
+        subject.end(mockListener);
+
+        verify(mockListener).onAdRangeRemoved(4, 3);
+        verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void adRemoved_atSamePosition_shouldMergeIntoOneRange() {
+        subject.begin();
+        subject.adRemoved(2);
+        subject.adRemoved(2);
+        subject.end(mockListener);
+
+        verify(mockListener).onAdRangeRemoved(2, 2);
+        verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void adRemoved_withAdInsertedInSameBatch_shouldCancelOut() {
+        subject.begin();
+        subject.adInserted(2);
+        subject.adRemoved(2);
+        subject.end(mockListener);
+
+        verifyZeroInteractions(mockListener);
+    }
+
+    @Test
+    public void removeThenInsert_shouldNotMerge() {
+        subject.begin();
+        subject.adRemoved(2);
+        subject.adInserted(2);
+        subject.end(mockListener);
+
+        final InOrder inOrder = inOrder(mockListener);
+        inOrder.verify(mockListener).onAdRangeRemoved(2, 1);
+        inOrder.verify(mockListener).onAdRangeLoaded(2, 1);
+        verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void end_withNestedBatch_shouldOnlyDispatchAtOutermostEnd() {
+        subject.begin();
+        subject.begin();
+        subject.adInserted(1);
+        subject.end(mockListener);
+
+        verifyZeroInteractions(mockListener);
+        assertThat(subject.isInBatch()).isTrue();
+        assertThat(subject.getPendingOperationCount()).isEqualTo(1);
+
+        subject.end(mockListener);
+
+        verify(mockListener).onAdRangeLoaded(1, 1);
+        assertThat(subject.isInBatch()).isFalse();
+        assertThat(subject.getPendingOperationCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void end_withManyRanges_shouldGrowAndDispatchAll() {
+        subject.begin();
+        for (int i = 0; i < 20; i++) {
+            subject.adInserted(i * 2);
+        }
+        subject.end(mockListener);
+
+        for (int i = 0; i < 20; i++) {
+            verify(mockListener).onAdRangeLoaded(i * 2, 1);
+        }
+        verifyNoMoreInteractions(mockListener);
+    }
+
+    @Test
+    public void end_withNullListener_shouldResetBatch() {
+        subject.begin();
+        subject.adInserted(1);
+        subject.end(null);
+
+        assertThat(subject.getPendingOperationCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,185 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.test.support.ShadowAsyncTasks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+@Config(shadows = {ShadowAsyncTasks.class})
+public class AdViewPoolTest {
+    private static final int VIEW_TYPE = 1;
+
+    private Activity activity;
+    private AdViewPool subject;
+
+    @Mock private MoPubAdRenderer mockAdRenderer;
+    @Mock private ViewGroup mockParent;
+    @Mock private View mockView1;
+    @Mock private View mockView2;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).create().get();
+        subject = new AdViewPool();
+        when(mockAdRenderer.createAdView(any(Context.class), any(ViewGroup.class)))
+                .thenReturn(mockView1, mockView2);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowAsyncTasks.reset();
+    }
+
+    @Test
+    public void fill_shouldInflateViewsInBackgroundWithPrivateInflater() {
+        subject.setPoolSize(2);
+
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+        assertThat(subject.getPooledCount(VIEW_TYPE)).isEqualTo(0);
+        runLatestTask();
+
+        final ArgumentCaptor<Context> contextCaptor = ArgumentCaptor.forClass(Context.class);
+        verify(mockAdRenderer, times(2)).createAdView(contextCaptor.capture(), any(ViewGroup.class));
+        final Context context = contextCaptor.getValue();
+        assertThat(context).isInstanceOf(AdViewPool.PreInflationContext.class);
+        assertThat(LayoutInflater.from(context)).isNotSameAs(LayoutInflater.from(activity));
+        assertThat(subject.getPooledCount(VIEW_TYPE)).isEqualTo(2);
+    }
+
+    @Test
+    public void obtain_shouldReturnPooledViewsInOrder_thenNull() {
+        subject.setPoolSize(2);
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+        runLatestTask();
+
+        assertThat(subject.obtain(VIEW_TYPE)).isSameAs(mockView1);
+        assertThat(subject.obtain(VIEW_TYPE)).isSameAs(mockView2);
+        assertThat(subject.obtain(VIEW_TYPE)).isNull();
+        assertThat(subject.getHitCount()).isEqualTo(2);
+        assertThat(subject.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void fill_withPoolSizeZero_shouldNotStartTask() {
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void fill_whileInflating_shouldNotStartAnotherTask() {
+        subject.setPoolSize(2);
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+        ShadowAsyncTasks.reset();
+
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void fill_withPartiallyFullPool_shouldOnlyInflateMissingViews() {
+        subject.setPoolSize(2);
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+        runLatestTask();
+        subject.obtain(VIEW_TYPE);
+
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+        runLatestTask();
+
+        verify(mockAdRenderer, times(3)).createAdView(any(Context.class), any(ViewGroup.class));
+        assertThat(subject.getPooledCount(VIEW_TYPE)).isEqualTo(2);
+    }
+
+    @Test
+    public void fill_whenInflationFails_shouldDisableViewType() {
+        final MoPubAdRenderer failingRenderer = mock(MoPubAdRenderer.class);
+        when(failingRenderer.createAdView(any(Context.class), any(ViewGroup.class)))
+                .thenThrow(new RuntimeException("Can't create handler inside thread"));
+        subject.setPoolSize(2);
+
+        subject.fill(activity, mockParent, VIEW_TYPE, failingRenderer);
+        runLatestTask();
+
+        assertThat(subject.isDisabled(VIEW_TYPE)).isTrue();
+        assertThat(subject.getPooledCount(VIEW_TYPE)).isEqualTo(0);
+
+        ShadowAsyncTasks.reset();
+        subject.fill(activity, mockParent, VIEW_TYPE, failingRenderer);
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void clear_withTaskInFlight_shouldDropItsViews() {
+        subject.setPoolSize(2);
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+        final AdViewPool.PreInflateTask task =
+                (AdViewPool.PreInflateTask) ShadowAsyncTasks.getLatestAsyncTask();
+
+        subject.clear();
+        task.onPostExecute(task.doInBackground());
+
+        assertThat(subject.getPooledCount(VIEW_TYPE)).isEqualTo(0);
+    }
+
+    @Test
+    public void setPoolSize_shouldClampAndDropExtraViews() {
+        subject.setPoolSize(100);
+        assertThat(subject.getPoolSize()).isEqualTo(AdViewPool.MAX_POOL_SIZE);
+
+        subject.setPoolSize(2);
+        subject.fill(activity, mockParent, VIEW_TYPE, mockAdRenderer);
+        runLatestTask();
+        subject.setPoolSize(1);
+
+        assertThat(subject.getPooledCount(VIEW_TYPE)).isEqualTo(1);
+        assertThat(subject.obtain(VIEW_TYPE)).isSameAs(mockView1);
+    }
+
+    @Test
+    public void fill_withStaticNativeAdRenderer_shouldResolveViewHolders() {
+        final View view = new View(activity);
+        final MoPubStaticNativeAdRenderer renderer =
+                spy(new MoPubStaticNativeAdRenderer(new ViewBinder.Builder(1).build()));
+        when(renderer.createAdView(any(Context.class), any(ViewGroup.class))).thenReturn(view);
+        subject.setPoolSize(1);
+
+        subject.fill(activity, mockParent, VIEW_TYPE, renderer);
+        runLatestTask();
+
+        assertThat(subject.obtain(VIEW_TYPE)).isSameAs(view);
+        assertThat(renderer.mViewHolderMap.get(view).mainView).isSameAs(view);
+    }
+
+    private void runLatestTask() {
+        final AdViewPool.PreInflateTask task =
+                (AdViewPool.PreInflateTask) ShadowAsyncTasks.getLatestAsyncTask();
+        task.onPostExecute(task.doInBackground());
+    }
+}
@@ -32,8 +32,10 @@ import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -79,11 +81,12 @@ public class MoPubAdAdapterTest {
     private boolean originalItemsAreEnabled = false;
     private ArrayAdapter<String> originalAdapter;
     private MoPubAdAdapter subject;
+    private Activity activity;
 
     @Before
     public void setup() {
         // Set up original adapter with 2 items
-        Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        activity = Robolectric.buildActivity(Activity.class).create().get();
         originalAdapter = new ArrayAdapter<String>(activity, android.R.layout.simple_list_item_1) {
             @Override
             public boolean isEnabled(final int position) {
@@ -348,6 +351,61 @@ public class MoPubAdAdapterTest {
                 Matchers.isNull(Integer.class));
     }
 
+    @Test
+    public void getView_withListViewParent_shouldNotTrackVisibility_shouldPlaceAdsInScrollRange() {
+        final ListView listView = spy(new ListView(activity));
+        doReturn(0).when(listView).getFirstVisiblePosition();
+        doReturn(3).when(listView).getChildCount();
+
+        subject.getView(AD_POSITION, null, listView);
+        subject.handleScrollChanged();
+
+        verify(mockVisibilityTracker, never()).addView(any(View.class), anyInt(),
+                Matchers.isNull(Integer.class));
+        verify(mockStreamAdPlacer).placeAdsInRange(0, 3);
+    }
+
+    @Test
+    public void handleScrollChanged_withUnchangedRange_shouldNotPlaceAdsAgain() {
+        final ListView listView = spy(new ListView(activity));
+        doReturn(0).when(listView).getFirstVisiblePosition();
+        doReturn(2).when(listView).getChildCount();
+        subject.getView(AD_POSITION, null, listView);
+
+        subject.handleScrollChanged();
+        subject.handleScrollChanged();
+        doReturn(1).when(listView).getFirstVisiblePosition();
+        subject.handleScrollChanged();
+
+        verify(mockStreamAdPlacer).placeAdsInRange(0, 2);
+        verify(mockStreamAdPlacer).placeAdsInRange(1, 3);
+    }
+
+    @Test
+    public void handleScrollChanged_withHeaderViews_shouldUseAdapterPositions() {
+        final ListView listView = spy(new ListView(activity));
+        doReturn(1).when(listView).getHeaderViewsCount();
+        doReturn(0).when(listView).getFirstVisiblePosition();
+        doReturn(3).when(listView).getChildCount();
+        subject.getView(AD_POSITION, null, listView);
+
+        subject.handleScrollChanged();
+
+        verify(mockStreamAdPlacer).placeAdsInRange(0, 2);
+    }
+
+    @Test
+    public void handleScrollChanged_afterDestroy_shouldNotPlaceAds() {
+        final ListView listView = spy(new ListView(activity));
+        doReturn(3).when(listView).getChildCount();
+        subject.getView(AD_POSITION, null, listView);
+
+        subject.destroy();
+        subject.handleScrollChanged();
+
+        verify(mockStreamAdPlacer, never()).placeAdsInRange(anyInt(), anyInt());
+    }
+
     @Test
     public void getItemViewType_withAdPosition_shouldReturnOneGreaterThanViewType() {
         originalItemViewType = 0;
@@ -6,6 +6,7 @@ package com.mopub.nativeads;
 
 import android.app.Activity;
 import android.content.Context;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
@@ -13,16 +14,22 @@ import android.view.ViewGroup;
 
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.common.VisibilityTracker;
+import com.mopub.common.util.test.support.ShadowAsyncTasks;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.mopub.nativeads.MoPubRecyclerAdapter.ContentChangeStrategy.INSERT_AT_END;
@@ -31,6 +38,8 @@ import static com.mopub.nativeads.MoPubRecyclerAdapter.ContentChangeStrategy.MOV
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -237,6 +246,27 @@ public class MoPubRecyclerAdapterTest {
         verifyZeroInteractions(originalAdapter);
     }
 
+    @Test
+    @Config(shadows = {ShadowAsyncTasks.class})
+    public void onCreateViewHolder_whenAdType_withPooledView_shouldUsePooledViewAndRefill() {
+        final View pooledView = mock(View.class);
+        final List<View> pooledViews = new ArrayList<View>();
+        pooledViews.add(pooledView);
+        when(mockStreamAdPlacer.getAdRendererForViewType(0)).thenReturn(mockAdRenderer);
+        when(mockParent.getContext()).thenReturn(Robolectric.buildActivity(Activity.class).get());
+        subject.setAdViewPoolSize(1);
+        subject.getAdViewPool().onViewsInflated(0, 0, mockAdRenderer, pooledViews,
+                new ArrayList<StaticNativeViewHolder>(), false);
+
+        final RecyclerView.ViewHolder result = subject.onCreateViewHolder(mockParent,
+                MoPubRecyclerAdapter.NATIVE_AD_VIEW_TYPE_BASE);
+
+        assertThat(result.itemView).isSameAs(pooledView);
+        verify(mockAdRenderer, never()).createAdView(any(Context.class), any(ViewGroup.class));
+        assertThat(ShadowAsyncTasks.wasCalled()).isTrue();
+        ShadowAsyncTasks.reset();
+    }
+
     @Test
     public void onCreateViewHolder_whenNotAdType_shouldCallOriginalAdapter() {
         when(mockParent.getContext()).thenReturn(mock(Context.class));
@@ -355,6 +385,71 @@ public class MoPubRecyclerAdapterTest {
         verifyZeroInteractions(mockAdLoadedListener);
     }
 
+    @Test
+    public void handleAdRangeLoaded_shouldNotifyRangeOnce_shouldCallListenerForEachAd() {
+        subject.registerAdapterDataObserver(mockObserver);
+        subject.setAdLoadedListener(mockAdLoadedListener);
+        subject.handleAdRangeLoaded(3, 2);
+
+        verify(mockObserver).onItemRangeInserted(3, 2);
+        verifyNoMoreInteractions(mockObserver);
+        final InOrder inOrder = inOrder(mockAdLoadedListener);
+        inOrder.verify(mockAdLoadedListener).onAdLoaded(3);
+        inOrder.verify(mockAdLoadedListener).onAdLoaded(4);
+    }
+
+    @Test
+    public void handleAdRangeRemoved_shouldNotifyRangeOnce_shouldCallListenerFromTheEnd() {
+        subject.registerAdapterDataObserver(mockObserver);
+        subject.setAdLoadedListener(mockAdLoadedListener);
+        subject.handleAdRangeRemoved(3, 2);
+
+        verify(mockObserver).onItemRangeRemoved(3, 2);
+        verifyNoMoreInteractions(mockObserver);
+        final InOrder inOrder = inOrder(mockAdLoadedListener);
+        inOrder.verify(mockAdLoadedListener).onAdRemoved(4);
+        inOrder.verify(mockAdLoadedListener).onAdRemoved(3);
+    }
+
+    @Test
+    public void dispatchContentUpdates_withMoveAdsStrategy_shouldMapInsertionThroughAds() {
+        subject.registerAdapterDataObserver(mockObserver);
+        subject.setContentChangeStrategy(MOVE_ALL_ADS_WITH_CONTENT);
+        final List<Integer> oldItems = createItems(18);
+        final List<Integer> newItems = new ArrayList<Integer>(oldItems);
+        newItems.add(3, 100);
+        newItems.add(4, 101);
+        originalAdapter.setItemCount(newItems.size());
+
+        subject.dispatchContentUpdates(DiffUtil.calculateDiff(new ItemsDiffCallback(oldItems,
+                newItems)));
+
+        verify(mockStreamAdPlacer).insertItems(3, 2);
+        verify(mockObserver).onItemRangeInserted(4, 2);
+        verifyNoMoreInteractions(mockObserver);
+    }
+
+    @Test
+    public void dispatchContentUpdates_withKeepAdsStrategy_shouldNotifyDataChangedOnce() {
+        subject.registerAdapterDataObserver(mockObserver);
+        subject.setContentChangeStrategy(KEEP_ADS_FIXED);
+        final List<Integer> oldItems = createItems(18);
+        final List<Integer> newItems = new ArrayList<Integer>(oldItems);
+        newItems.add(3, 100);
+        newItems.add(10, 101);
+        newItems.remove(15);
+        originalAdapter.setItemCount(newItems.size());
+
+        subject.dispatchContentUpdates(DiffUtil.calculateDiff(new ItemsDiffCallback(oldItems,
+                newItems)));
+
+        verify(mockObserver).onChanged();
+        verifyNoMoreInteractions(mockObserver);
+        verify(mockStreamAdPlacer, never()).insertItems(anyInt(), anyInt());
+        verify(mockStreamAdPlacer, never()).removeItems(anyInt(), anyInt());
+        verify(mockStreamAdPlacer, atLeastOnce()).setItemCount(19);
+    }
+
     @Test
     public void loadAds_shouldCallLoadOnAdPlacer() {
         subject.loadAds("testId");
@@ -485,7 +580,7 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockObserver);
         verify(mockStreamAdPlacer).getAdjustedPosition(originalItemCount);
         verify(mockStreamAdPlacer).setItemCount(originalItemCount + 3);
-        verify(mockStreamAdPlacer, times(3)).insertItem(anyInt());
+        verify(mockStreamAdPlacer).insertItems(originalItemCount, 3);
         verifyNoMoreInteractions(mockStreamAdPlacer);
     }
 
@@ -518,7 +613,7 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockObserver);
         verify(mockStreamAdPlacer).getAdjustedPosition(originalItemCount - 7);
         verify(mockStreamAdPlacer).setItemCount(originalItemCount + 3);
-        verify(mockStreamAdPlacer, times(3)).insertItem(anyInt());
+        verify(mockStreamAdPlacer).insertItems(originalItemCount - 7, 3);
         verifyNoMoreInteractions(mockStreamAdPlacer);
     }
 
@@ -535,7 +630,7 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockObserver);
         verify(mockStreamAdPlacer).getAdjustedPosition(originalItemCount - 7);
         verify(mockStreamAdPlacer).setItemCount(originalItemCount + 3);
-        verify(mockStreamAdPlacer, times(3)).insertItem(anyInt());
+        verify(mockStreamAdPlacer).insertItems(originalItemCount - 7, 3);
         verifyNoMoreInteractions(mockStreamAdPlacer);
     }
 
@@ -584,7 +679,7 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockObserver);
 
         verify(mockStreamAdPlacer).setItemCount(originalItemCount - 3);
-        verify(mockStreamAdPlacer, times(3)).removeItem(originalItemCount - 4);
+        verify(mockStreamAdPlacer).removeItems(originalItemCount - 4, 3);
     }
 
     @Test
@@ -603,7 +698,7 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockObserver);
 
         verify(mockStreamAdPlacer).setItemCount(originalItemCount - 3);
-        verify(mockStreamAdPlacer, times(3)).removeItem(originalItemCount - 4);
+        verify(mockStreamAdPlacer).removeItems(originalItemCount - 4, 3);
     }
 
     @Test
@@ -634,7 +729,7 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockObserver);
 
         verify(mockStreamAdPlacer).setItemCount(originalItemCount - 3);
-        verify(mockStreamAdPlacer, times(3)).removeItem(originalItemCount - 8);
+        verify(mockStreamAdPlacer).removeItems(originalItemCount - 8, 3);
     }
 
     @Test
@@ -650,7 +745,7 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockObserver);
 
         verify(mockStreamAdPlacer).setItemCount(originalItemCount - 3);
-        verify(mockStreamAdPlacer, times(3)).removeItem(originalItemCount - 8);
+        verify(mockStreamAdPlacer).removeItems(originalItemCount - 8, 3);
     }
 
     @Test
@@ -669,6 +764,44 @@ public class MoPubRecyclerAdapterTest {
         verifyNoMoreInteractions(mockStreamAdPlacer);
     }
 
+    private static List<Integer> createItems(final int count) {
+        final List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    private static class ItemsDiffCallback extends DiffUtil.Callback {
+        private final List<Integer> mOldItems;
+        private final List<Integer> mNewItems;
+
+        ItemsDiffCallback(final List<Integer> oldItems, final List<Integer> newItems) {
+            mOldItems = oldItems;
+            mNewItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(final int oldItemPosition, final int newItemPosition) {
+            return mOldItems.get(oldItemPosition).equals(mNewItems.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(final int oldItemPosition, final int newItemPosition) {
+            return true;
+        }
+    }
+
     private class TestAdapter extends RecyclerView.Adapter<TestHolder> {
         private int mItems = 18;
 
@@ -49,6 +49,8 @@ public class MoPubStreamAdPlacerTest {
     @Mock
     MoPubNativeAdLoadedListener mockAdLoadedListener;
     @Mock
+    MoPubNativeAdRangeListener mockAdRangeListener;
+    @Mock
     ImpressionTracker mockImpressionTracker;
 
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
@@ -303,6 +305,57 @@ public class MoPubStreamAdPlacerTest {
         verify(mockAdLoadedListener, never()).onAdLoaded(50);
     }
 
+    @Test
+    public void placeAdsInRange_shouldPrefetchAdsAfterVisibleRange_shouldCancelWhenTheyLeave() {
+        final NativeAd nativeAd1 = mock(NativeAd.class);
+        final NativeAd nativeAd2 = mock(NativeAd.class);
+        final NativeAd nativeAd3 = mock(NativeAd.class);
+        when(mockAdSource.dequeueAd()).thenReturn(nativeAd1, nativeAd2, nativeAd3, mStubNativeAd);
+        subject.registerAdRenderer(mockAdRenderer);
+        subject.loadAds("test-ad-unit-id");
+        subject.handlePositioningLoad(positioning);
+        subject.handleAdsAvailable();
+
+        Robolectric.getForegroundThreadScheduler().pause();
+        subject.setItemCount(100);
+        subject.placeAdsInRange(50, 50);
+        Robolectric.getForegroundThreadScheduler().advanceToLastPostedRunnable();
+
+        verify(nativeAd1).prefetch();
+        verify(nativeAd2).prefetch();
+        verify(nativeAd3).prefetch();
+
+        subject.placeAdsInRange(52, 52);
+        Robolectric.getForegroundThreadScheduler().advanceToLastPostedRunnable();
+
+        // The ad at 50 has left the buffer; the others keep prefetching.
+        verify(nativeAd1).cancelPrefetch();
+        verify(nativeAd2, never()).cancelPrefetch();
+        verify(nativeAd3, never()).cancelPrefetch();
+        verify(nativeAd2, times(1)).prefetch();
+        verify(nativeAd3, times(1)).prefetch();
+    }
+
+    @Test
+    public void destroy_shouldCancelPrefetchingAds() {
+        final NativeAd nativeAd = mock(NativeAd.class);
+        when(mockAdSource.dequeueAd()).thenReturn(nativeAd, mStubNativeAd);
+        subject.registerAdRenderer(mockAdRenderer);
+        subject.loadAds("test-ad-unit-id");
+        subject.handlePositioningLoad(positioning);
+        subject.handleAdsAvailable();
+
+        Robolectric.getForegroundThreadScheduler().pause();
+        subject.setItemCount(100);
+        subject.placeAdsInRange(50, 50);
+        Robolectric.getForegroundThreadScheduler().advanceToLastPostedRunnable();
+        verify(nativeAd).prefetch();
+
+        subject.destroy();
+
+        verify(nativeAd).cancelPrefetch();
+    }
+
     @Test
     public void getAdView_withNoAds_returnsNull() {
         assertThat(subject.getAdView(1, null, null)).isNull();
@@ -463,6 +516,64 @@ public class MoPubStreamAdPlacerTest {
         checkAdPositions(1, 3, 5);
     }
 
+    @Test
+    public void placeAds_withAdjacentPositions_shouldCallRangeListenerOnce() {
+        when(mockAdSource.dequeueAd()).thenReturn(mStubNativeAd);
+        subject.setAdRangeListener(mockAdRangeListener);
+        subject.loadAds("test-ad-unit-id");
+        subject.handlePositioningLoad(MoPubNativeAdPositioning.clientPositioning()
+                .addFixedPosition(1)
+                .addFixedPosition(2)
+                .addFixedPosition(5));
+        subject.handleAdsAvailable();
+        subject.setItemCount(10);
+
+        checkAdPositions(1, 2, 5);
+        verify(mockAdRangeListener).onAdRangeLoaded(1, 2);
+        verify(mockAdRangeListener).onAdRangeLoaded(5, 1);
+        verify(mockAdRangeListener, never()).onAdRangeRemoved(anyInt(), anyInt());
+        // The per-ad listener is still called for every ad.
+        verify(mockAdLoadedListener).onAdLoaded(1);
+        verify(mockAdLoadedListener).onAdLoaded(2);
+        verify(mockAdLoadedListener).onAdLoaded(5);
+    }
+
+    @Test
+    public void clearAds_withAdjacentAds_shouldCallRangeListenerOnce() {
+        when(mockAdSource.dequeueAd()).thenReturn(mStubNativeAd);
+        subject.loadAds("test-ad-unit-id");
+        subject.handlePositioningLoad(MoPubNativeAdPositioning.clientPositioning()
+                .addFixedPosition(1)
+                .addFixedPosition(2)
+                .addFixedPosition(5));
+        subject.handleAdsAvailable();
+        subject.setItemCount(10);
+        subject.setAdRangeListener(mockAdRangeListener);
+
+        subject.clearAds();
+
+        checkAdPositions();
+        verify(mockAdRangeListener).onAdRangeRemoved(5, 1);
+        verify(mockAdRangeListener).onAdRangeRemoved(1, 2);
+        verify(mockAdRangeListener, never()).onAdRangeLoaded(anyInt(), anyInt());
+    }
+
+    @Test
+    public void insertItems_removeItems_shouldShiftAdsByItemCount() {
+        when(mockAdSource.dequeueAd()).thenReturn(mStubNativeAd);
+        subject.loadAds("test-ad-unit-id");
+        subject.handlePositioningLoad(positioning);
+        subject.handleAdsAvailable();
+        subject.setItemCount(4);
+        checkAdPositions(1, 3, 5);
+
+        subject.insertItems(1, 3);
+        checkAdPositions(4, 6, 8);
+
+        subject.removeItems(0, 4);
+        checkAdPositions(0, 2, 4);
+    }
+
     void checkAdPositions(Integer... positions) {
         List<Integer> expected = Arrays.asList(positions);
         List<Integer> actual = new ArrayList<Integer>();
@@ -477,4 +588,51 @@ public class MoPubStreamAdPlacerTest {
 
         assertThat(actual).isEqualTo(expected);
     }
+
+    @Test
+    public void updatePrewarmCount_whenScrollingForwardQuickly_shouldPrewarmUpcomingAdPositions() {
+        subject.handlePositioningLoad(positioning);
+        subject.handleAdsAvailable();
+        subject.setItemCount(100);
+
+        subject.updatePrewarmCount(0, 1000);
+        subject.updatePrewarmCount(10, 1500);
+
+        // 40 items of lookahead with an ad every other item is capped at the max cache limit.
+        verify(mockAdSource).setPrewarmCount(NativeAdSource.MAX_CACHE_LIMIT);
+    }
+
+    @Test
+    public void updatePrewarmCount_whenScrollingBackwards_shouldResetPrewarmCount() {
+        subject.updatePrewarmCount(10, 1000);
+        subject.updatePrewarmCount(5, 1200);
+
+        verify(mockAdSource).setPrewarmCount(0);
+    }
+
+    @Test
+    public void updatePrewarmCount_afterLongPause_shouldResetPrewarmCount() {
+        subject.updatePrewarmCount(0, 1000);
+        subject.updatePrewarmCount(10, 5000);
+
+        verify(mockAdSource).setPrewarmCount(0);
+    }
+
+    @Test
+    public void getSkippedAdPositionCount_shouldReturnAdSourceEmptyDequeueCount() {
+        when(mockAdSource.getEmptyDequeueCount()).thenReturn(3);
+        when(mockAdSource.getDequeueCount()).thenReturn(7);
+
+        assertThat(subject.getSkippedAdPositionCount()).isEqualTo(3);
+        assertThat(subject.getAttemptedAdPositionCount()).isEqualTo(7);
+    }
+
+    @Test
+    public void setPrefetchDepth_setMaxConcurrentAdRequests_shouldForwardToAdSource() {
+        subject.setPrefetchDepth(4);
+        subject.setMaxConcurrentAdRequests(2);
+
+        verify(mockAdSource).setPrefetchDepth(4);
+        verify(mockAdSource).setMaxConcurrentRequests(2);
+    }
 }
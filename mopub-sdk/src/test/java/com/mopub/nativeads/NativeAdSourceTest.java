@@ -174,6 +174,19 @@ public class NativeAdSourceTest {
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
     }
 
+    @Test
+    public void clear_withRetryPending_shouldResetRetryInFlight_shouldLetDequeueAdReplenish() {
+        subject.setMoPubNative(mockMoPubNative);
+        subject.mRetryInFlight = true;
+
+        subject.clear();
+        assertThat(subject.mRetryInFlight).isFalse();
+
+        subject.setMoPubNative(mockMoPubNative);
+        subject.dequeueAd();
+        verify(mockReplenishCacheHandler).post(any(Runnable.class));
+    }
+
     @Test
     public void dequeueAd_withNonStaleAd_shouldReturnNativeAd() {
         subject.setMoPubNative(mockMoPubNative);
@@ -382,4 +395,76 @@ public class NativeAdSourceTest {
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
         verify(mockReplenishCacheHandler, never()).postDelayed(any(Runnable.class), anyLong());
     }
+
+    @Test
+    public void setPrefetchDepth_shouldClampToMaxCacheLimit() {
+        subject.setPrefetchDepth(100);
+        assertThat(subject.getTargetCacheSize()).isEqualTo(NativeAdSource.MAX_CACHE_LIMIT);
+
+        subject.setPrefetchDepth(0);
+        assertThat(subject.getTargetCacheSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void setPrewarmCount_shouldAddToPrefetchDepth_shouldBeResetByClear() {
+        subject.setPrefetchDepth(2);
+        subject.setPrewarmCount(3);
+        assertThat(subject.getTargetCacheSize()).isEqualTo(5);
+
+        subject.clear();
+        assertThat(subject.getTargetCacheSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void replenishCache_withPrefetchDepth_withSingleConcurrentRequest_shouldOnlyUsePrimaryLoader() {
+        subject.setMoPubNative(mockMoPubNative);
+        subject.setPrefetchDepth(3);
+
+        subject.replenishCache();
+
+        verify(mockMoPubNative).makeRequest(any(RequestParameters.class), eq(0));
+        assertThat(subject.getRequestsInFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void moPubNativeNetworkListener_onNativeLoad_withPrefetchDepth_shouldRequestNextAd() {
+        subject.setMoPubNative(mockMoPubNative);
+        subject.setPrefetchDepth(2);
+        subject.mRequestInFlight = true;
+
+        subject.getMoPubNativeNetworkListener().onNativeLoad(mMockNativeAd);
+
+        assertThat(nativeAdCache).hasSize(1);
+        assertThat(subject.mRequestInFlight).isTrue();
+        verify(mockMoPubNative).makeRequest(any(RequestParameters.class), eq(1));
+    }
+
+    @Test
+    public void evictExpiredAds_shouldRemoveAndDestroyOnlyExpiredAds() {
+        final NativeAd expiredAd = mock(NativeAd.class);
+        final TimestampWrapper<NativeAd> expired = new TimestampWrapper<NativeAd>(expiredAd);
+        expired.mCreatedTimestamp = SystemClock.uptimeMillis() - (4*60*60*1000+1);
+        nativeAdCache.add(expired);
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+
+        subject.evictExpiredAds();
+
+        assertThat(nativeAdCache).hasSize(1);
+        assertThat(nativeAdCache.get(0).mInstance).isEqualTo(mMockNativeAd);
+        verify(expiredAd).destroy();
+        verify(mMockNativeAd, never()).destroy();
+        assertThat(subject.getExpiredAdCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void dequeueAd_withEmptyCache_shouldCountEmptyDequeue() {
+        subject.setMoPubNative(mockMoPubNative);
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+
+        subject.dequeueAd();
+        subject.dequeueAd();
+
+        assertThat(subject.getDequeueCount()).isEqualTo(2);
+        assertThat(subject.getEmptyDequeueCount()).isEqualTo(1);
+    }
 }
@@ -0,0 +1,213 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.test.support.ShadowAsyncTasks;
+import com.mopub.network.MaxWidthImageLoader;
+import com.mopub.network.Networking;
+import com.mopub.volley.VolleyError;
+import com.mopub.volley.toolbox.ImageLoader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+@Config(shadows = {ShadowAsyncTasks.class})
+public class NativeImageCacheTest {
+    private static final String URL = "https://example.com/icon.png";
+
+    private Activity activity;
+    private NativeImageCache subject;
+
+    @Mock private MaxWidthImageLoader mockImageLoader;
+    @Mock private ImageLoader.ImageContainer mockImageContainer;
+    @Mock private NativeImageCache.Listener mockListener;
+    @Mock private Bitmap mockBitmap;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).create().get();
+        subject = new NativeImageCache(1024 * 1024,
+                new File(activity.getCacheDir(), NativeImageCache.UNIQUE_CACHE_NAME), 320);
+
+        Networking.setImageLoaderForTesting(mockImageLoader);
+        when(mockBitmap.getRowBytes()).thenReturn(4);
+        when(mockBitmap.getHeight()).thenReturn(4);
+        when(mockImageContainer.getBitmap()).thenReturn(mockBitmap);
+    }
+
+    @After
+    public void tearDown() {
+        Networking.clearForTesting();
+    }
+
+    @Test
+    public void getFromMemory_withEmptyCache_shouldReturnNull_shouldCountMiss() {
+        assertThat(subject.getFromMemory(URL)).isNull();
+
+        assertThat(subject.getMemoryHitCount()).isEqualTo(0);
+        assertThat(subject.getMemoryMissCount()).isEqualTo(1);
+        assertThat(subject.getMemoryHitRate()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void getFromMemory_withNullUrl_shouldReturnNull_shouldNotCountLookup() {
+        assertThat(subject.getFromMemory(null)).isNull();
+
+        assertThat(subject.getMemoryMissCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getFromNetwork_shouldPopulateMemoryTier_shouldScheduleDiskWrite() {
+        respondWithBitmap();
+
+        subject.getFromNetwork(activity, URL, mockListener);
+
+        verify(mockImageLoader).get(eq(URL), any(ImageLoader.ImageListener.class));
+        verify(mockListener).onBitmapLoaded(URL, mockBitmap, false);
+        assertThat(ShadowAsyncTasks.wasCalled()).isTrue();
+        assertThat(subject.getFromMemory(URL)).isEqualTo(mockBitmap);
+        assertThat(subject.getMemoryHitRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void getFromNetwork_withDefaultResponse_shouldNotCallListener() {
+        when(mockImageContainer.getBitmap()).thenReturn(null);
+        respondWithBitmap();
+
+        subject.getFromNetwork(activity, URL, mockListener);
+
+        verify(mockListener, never()).onBitmapLoaded(anyString(), any(Bitmap.class), anyBoolean());
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void getFromNetwork_withError_shouldCallOnBitmapFailed() {
+        final VolleyError volleyError = new VolleyError();
+        when(mockImageLoader.get(anyString(), any(ImageLoader.ImageListener.class)))
+                .then(new Answer<Void>() {
+                    @Override
+                    public Void answer(final InvocationOnMock invocationOnMock) throws Throwable {
+                        ((ImageLoader.ImageListener) invocationOnMock.getArguments()[1])
+                                .onErrorResponse(volleyError);
+                        return null;
+                    }
+                });
+
+        subject.getFromNetwork(activity, URL, mockListener);
+
+        verify(mockListener).onBitmapFailed(URL, volleyError);
+    }
+
+    @Test
+    public void get_withMemoryHit_shouldCallListenerImmediately_shouldNotGoToDisk() {
+        respondWithBitmap();
+        subject.getFromNetwork(activity, URL, mock(NativeImageCache.Listener.class));
+        ShadowAsyncTasks.reset();
+
+        subject.get(activity, URL, mockListener);
+
+        verify(mockListener).onBitmapLoaded(URL, mockBitmap, true);
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void get_withMemoryMiss_shouldScheduleDiskRead() {
+        subject.get(activity, URL, mockListener);
+
+        verify(mockListener, never()).onBitmapLoaded(anyString(), any(Bitmap.class), anyBoolean());
+        assertThat(ShadowAsyncTasks.wasCalled()).isTrue();
+    }
+
+    @Test
+    public void get_withMemoryMiss_withBitmapInVolleyMemoryCache_shouldServeIt_shouldNotGoToDisk() {
+        when(mockImageLoader.isCached(URL, 320, 0)).thenReturn(true);
+        when(mockImageLoader.get(anyString(), any(ImageLoader.ImageListener.class)))
+                .then(new Answer<Void>() {
+                    @Override
+                    public Void answer(final InvocationOnMock invocationOnMock) throws Throwable {
+                        ((ImageLoader.ImageListener) invocationOnMock.getArguments()[1])
+                                .onResponse(mockImageContainer, true);
+                        return null;
+                    }
+                });
+
+        subject.get(activity, URL, mockListener);
+
+        verify(mockListener).onBitmapLoaded(URL, mockBitmap, true);
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+        assertThat(subject.getFromMemory(URL)).isEqualTo(mockBitmap);
+    }
+
+    @Test
+    public void prefetch_shouldSkipEmptyAndInMemoryUrls() {
+        respondWithBitmap();
+        subject.getFromNetwork(activity, URL, mockListener);
+        ShadowAsyncTasks.reset();
+
+        subject.prefetch(activity, Arrays.asList(URL, "", null));
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void prefetch_withUncachedUrl_shouldScheduleDiskRead() {
+        subject.prefetch(activity, Arrays.asList(URL));
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isTrue();
+    }
+
+    @Test
+    public void getCacheKey_shouldDependOnMaxImageWidth() {
+        final NativeImageCache otherWidth = new NativeImageCache(1024,
+                new File(activity.getCacheDir(), NativeImageCache.UNIQUE_CACHE_NAME), 640);
+
+        assertThat(subject.getCacheKey(URL)).isNotEqualTo(otherWidth.getCacheKey(URL));
+        assertThat(subject.getCacheKey(URL)).isEqualTo(subject.getCacheKey(URL));
+    }
+
+    @Test
+    public void getDiskHitRate_withNoLookups_shouldReturnZero() {
+        assertThat(subject.getDiskHitRate()).isEqualTo(0.0);
+        assertThat(subject.getDiskHitCount()).isEqualTo(0);
+        assertThat(subject.getDiskMissCount()).isEqualTo(0);
+    }
+
+    private void respondWithBitmap() {
+        when(mockImageLoader.get(anyString(), any(ImageLoader.ImageListener.class)))
+                .then(new Answer<Void>() {
+                    @Override
+                    public Void answer(final InvocationOnMock invocationOnMock) throws Throwable {
+                        ((ImageLoader.ImageListener) invocationOnMock.getArguments()[1])
+                                .onResponse(mockImageContainer, false);
+                        return null;
+                    }
+                });
+    }
+}
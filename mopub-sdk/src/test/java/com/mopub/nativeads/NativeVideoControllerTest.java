@@ -378,8 +378,8 @@ public class NativeVideoControllerTest {
         assertThat(targets.get(0)).isInstanceOf(MediaCodecVideoRenderer.class);
         assertThat(targets.get(1)).isInstanceOf(MediaCodecAudioRenderer.class);
 
-        verify(mockExoPlayer).stop();
-        verify(mockExoPlayer).release();
+        verify(mockExoPlayer).stop(true);
+        verify(mockExoPlayer, never()).release();
         verify(mockNativeVideoProgressRunnable).stop();
         verify(mockNativeVideoProgressRunnable).setExoPlayer(null);
     }
@@ -460,8 +460,8 @@ public class NativeVideoControllerTest {
         assertThat(playerMessage.getType()).isEqualTo(C.MSG_SET_SURFACE);
         assertThat(playerMessage.getPayload()).isNull();
 
-        verify(mockExoPlayer).stop();
-        verify(mockExoPlayer).release();
+        verify(mockExoPlayer).stop(true);
+        verify(mockExoPlayer, never()).release();
         verify(mockNativeVideoProgressRunnable).setExoPlayer(null);
     }
 
@@ -487,8 +487,8 @@ public class NativeVideoControllerTest {
         assertThat(message.getType()).isEqualTo(C.MSG_SET_SURFACE);
         assertThat(message.getPayload()).isNull();
 
-        verify(mockExoPlayer).stop();
-        verify(mockExoPlayer).release();
+        verify(mockExoPlayer).stop(true);
+        verify(mockExoPlayer, never()).release();
         verify(mockNativeVideoProgressRunnable).setExoPlayer(null);
     }
 
@@ -898,4 +898,36 @@ public class NativeVideoControllerTest {
         verify(mockRequestQueue).add(argThat(isUrl("trackingUrl4")));
         verify(spyNativeVideoProgressRunnable).stop();
     }
+
+    @Test
+    public void setPlayWhenReady_afterPlayerWasReclaimed_shouldTakePlayerBackFromPausedAd() {
+        final MoPubExoPlayerFactory factory = new MoPubExoPlayerFactory() {
+            @Override
+            public ExoPlayer newInstance(@NonNull final Renderer[] renderers,
+                    @NonNull final TrackSelector trackSelector,
+                    @Nullable LoadControl loadControl) {
+                return mock(ExoPlayer.class);
+            }
+        };
+        final NativeVideoController first = createForId(1, activity, vastVideoConfig,
+                mockNativeVideoProgressRunnable, factory, mockAudioManager);
+        final NativeVideoController second = createForId(2, activity, vastVideoConfig,
+                mockNativeVideoProgressRunnable, factory, mockAudioManager);
+        final NativeVideoController third = createForId(3, activity, vastVideoConfig,
+                mockNativeVideoProgressRunnable, factory, mockAudioManager);
+        first.prepare(this);
+        second.prepare(this);
+
+        // Two players, so the third ad takes the oldest paused one.
+        third.prepare(this);
+        third.setPlayWhenReady(true);
+        assertThat(first.getPlaybackState()).isEqualTo(STATE_CLEARED);
+
+        // The first ad scrolls back into view.
+        first.setPlayWhenReady(true);
+
+        assertThat(first.getPlaybackState()).isNotEqualTo(STATE_CLEARED);
+        assertThat(second.getPlaybackState()).isEqualTo(STATE_CLEARED);
+        assertThat(third.getPlaybackState()).isNotEqualTo(STATE_CLEARED);
+    }
 }
@@ -0,0 +1,164 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.app.Activity;
+
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.Renderer;
+import com.google.android.exoplayer2.trackselection.TrackSelector;
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.nativeads.NativeVideoController.MoPubExoPlayerFactory;
+import com.mopub.nativeads.NativeVideoPlayerPool.PooledPlayer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+public class NativeVideoPlayerPoolTest {
+
+    private NativeVideoPlayerPool subject;
+    @Mock private MoPubExoPlayerFactory mockFactory;
+    @Mock private NativeVideoController mockController1;
+    @Mock private NativeVideoController mockController2;
+    @Mock private NativeVideoController mockController3;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        subject = NativeVideoPlayerPool.getInstance(activity);
+
+        when(mockFactory.newInstance(any(Renderer[].class), any(TrackSelector.class),
+                any(LoadControl.class))).thenAnswer(new Answer<ExoPlayer>() {
+            @Override
+            public ExoPlayer answer(final InvocationOnMock invocation) {
+                return mock(ExoPlayer.class);
+            }
+        });
+    }
+
+    @Test
+    public void acquire_shouldCreatePlayersThatShareOneAllocator() {
+        final PooledPlayer player1 = subject.acquire(mockController1, mockFactory);
+        final PooledPlayer player2 = subject.acquire(mockController2, mockFactory);
+
+        assertThat(player1).isNotNull();
+        assertThat(player2).isNotNull();
+        assertThat(player1.exoPlayer).isNotSameAs(player2.exoPlayer);
+        assertThat(subject.getPlayerCount()).isEqualTo(2);
+
+        final ArgumentCaptor<LoadControl> captor = ArgumentCaptor.forClass(LoadControl.class);
+        verify(mockFactory, times(2)).newInstance(any(Renderer[].class),
+                any(TrackSelector.class), captor.capture());
+        assertThat(captor.getAllValues().get(0).getAllocator())
+                .isSameAs(captor.getAllValues().get(1).getAllocator());
+    }
+
+    @Test
+    public void acquire_afterRelease_shouldReuseThePlayer() {
+        final PooledPlayer player = subject.acquire(mockController1, mockFactory);
+        subject.release(player);
+
+        final PooledPlayer reused = subject.acquire(mockController2, mockFactory);
+
+        assertThat(reused).isSameAs(player);
+        verify(player.exoPlayer).stop(true);
+        verify(player.exoPlayer, never()).release();
+        verify(mockFactory, times(1)).newInstance(any(Renderer[].class),
+                any(TrackSelector.class), any(LoadControl.class));
+    }
+
+    @Test
+    public void acquire_withAllPlayersLeased_shouldReclaimOldestPausedPlayer() {
+        when(mockController1.isPlayRequested()).thenReturn(false);
+        when(mockController2.isPlayRequested()).thenReturn(false);
+        final PooledPlayer player1 = subject.acquire(mockController1, mockFactory);
+        subject.acquire(mockController2, mockFactory);
+
+        final PooledPlayer reclaimed = subject.acquire(mockController3, mockFactory);
+
+        assertThat(reclaimed).isSameAs(player1);
+        assertThat(subject.getPlayerCount()).isEqualTo(NativeVideoPlayerPool.MAX_PLAYERS);
+        verify(mockController1).onPlayerReclaimed();
+        verify(mockController2, never()).onPlayerReclaimed();
+        verify(player1.exoPlayer).stop(true);
+    }
+
+    @Test
+    public void acquire_withAllPlayersPlaying_shouldReturnNull_shouldHandOverPlayerOnRelease() {
+        when(mockController1.isPlayRequested()).thenReturn(true);
+        when(mockController2.isPlayRequested()).thenReturn(true);
+        final PooledPlayer player1 = subject.acquire(mockController1, mockFactory);
+        subject.acquire(mockController2, mockFactory);
+
+        assertThat(subject.acquire(mockController3, mockFactory)).isNull();
+        verify(mockController1, never()).onPlayerReclaimed();
+        verify(mockController2, never()).onPlayerReclaimed();
+
+        subject.release(player1);
+
+        verify(mockController3).onPlayerAvailable();
+    }
+
+    @Test
+    public void release_withSeveralWaitingControllers_shouldPreferOneThatIsAskedToPlay() {
+        final NativeVideoController mockController4 = mock(NativeVideoController.class);
+        when(mockController1.isPlayRequested()).thenReturn(true);
+        when(mockController2.isPlayRequested()).thenReturn(true);
+        when(mockController3.isPlayRequested()).thenReturn(true);
+        when(mockController4.isPlayRequested()).thenReturn(false);
+        final PooledPlayer player1 = subject.acquire(mockController1, mockFactory);
+        subject.acquire(mockController2, mockFactory);
+        subject.acquire(mockController3, mockFactory);
+        subject.acquire(mockController4, mockFactory);
+
+        subject.release(player1);
+
+        verify(mockController3).onPlayerAvailable();
+        verify(mockController4, never()).onPlayerAvailable();
+    }
+
+    @Test
+    public void cancelWaiting_shouldNotHandOverPlayerOnRelease() {
+        when(mockController1.isPlayRequested()).thenReturn(true);
+        when(mockController2.isPlayRequested()).thenReturn(true);
+        final PooledPlayer player1 = subject.acquire(mockController1, mockFactory);
+        subject.acquire(mockController2, mockFactory);
+        subject.acquire(mockController3, mockFactory);
+
+        subject.cancelWaiting(mockController3);
+        subject.release(player1);
+
+        verify(mockController3, never()).onPlayerAvailable();
+    }
+
+    @Test
+    public void trim_shouldReleaseOnlyIdlePlayers() {
+        final PooledPlayer player1 = subject.acquire(mockController1, mockFactory);
+        final PooledPlayer player2 = subject.acquire(mockController2, mockFactory);
+        subject.release(player1);
+
+        subject.trim();
+
+        assertThat(subject.getPlayerCount()).isEqualTo(1);
+        verify(player1.exoPlayer).release();
+        verify(player2.exoPlayer, never()).release();
+    }
+}
@@ -0,0 +1,105 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.app.Activity;
+import android.support.annotation.NonNull;
+
+import com.mopub.common.ClientMetadata.MoPubNetworkType;
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.mopub.nativeads.NativeVideoPrefetcher.BUDGET_BYTES;
+import static com.mopub.nativeads.NativeVideoPrefetcher.BUDGET_WINDOW_MILLIS;
+import static com.mopub.nativeads.NativeVideoPrefetcher.METERED_PREFETCH_BYTES;
+import static com.mopub.nativeads.NativeVideoPrefetcher.UNMETERED_PREFETCH_BYTES;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class NativeVideoPrefetcherTest {
+    private static final String MEDIA_URL = "https://example.com/video.mp4";
+
+    private Activity activity;
+    private List<Runnable> queuedTasks;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).create().get();
+        queuedTasks = new ArrayList<Runnable>();
+        NativeVideoPrefetcher.setExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                queuedTasks.add(command);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        NativeVideoPrefetcher.clearForTesting();
+        MoPubCache.resetInstance();
+    }
+
+    @Test
+    public void prefetch_shouldQueueOneTaskPerUrl() {
+        NativeVideoPrefetcher.prefetch(activity, MEDIA_URL);
+        NativeVideoPrefetcher.prefetch(activity, MEDIA_URL);
+
+        assertThat(queuedTasks).hasSize(1);
+        assertThat(NativeVideoPrefetcher.isPrefetching(MEDIA_URL)).isTrue();
+    }
+
+    @Test
+    public void prefetch_withEmptyUrl_shouldDoNothing() {
+        NativeVideoPrefetcher.prefetch(activity, "");
+        NativeVideoPrefetcher.prefetch(activity, null);
+
+        assertThat(queuedTasks).isEmpty();
+    }
+
+    @Test
+    public void cancel_beforeTaskRuns_shouldStopPrefetching_shouldRefundBudget() {
+        NativeVideoPrefetcher.prefetch(activity, MEDIA_URL);
+
+        NativeVideoPrefetcher.cancel(MEDIA_URL);
+        assertThat(NativeVideoPrefetcher.isPrefetching(MEDIA_URL)).isFalse();
+
+        // The canceled task returns without touching the network and gives its bytes back.
+        queuedTasks.get(0).run();
+        assertThat(NativeVideoPrefetcher.reserveBudget(BUDGET_BYTES, 0)).isTrue();
+    }
+
+    @Test
+    public void getPrefetchBytes_shouldFetchLessOnMeteredNetworks_shouldSkip2G() {
+        assertThat(NativeVideoPrefetcher.getPrefetchBytes(MoPubNetworkType.WIFI))
+                .isEqualTo(UNMETERED_PREFETCH_BYTES);
+        assertThat(NativeVideoPrefetcher.getPrefetchBytes(MoPubNetworkType.ETHERNET))
+                .isEqualTo(UNMETERED_PREFETCH_BYTES);
+        assertThat(NativeVideoPrefetcher.getPrefetchBytes(MoPubNetworkType.GGGG))
+                .isEqualTo(METERED_PREFETCH_BYTES);
+        assertThat(NativeVideoPrefetcher.getPrefetchBytes(MoPubNetworkType.UNKNOWN))
+                .isEqualTo(METERED_PREFETCH_BYTES);
+        assertThat(NativeVideoPrefetcher.getPrefetchBytes(MoPubNetworkType.GG)).isEqualTo(0);
+    }
+
+    @Test
+    public void reserveBudget_shouldLimitBytesPerWindow() {
+        assertThat(NativeVideoPrefetcher.reserveBudget(BUDGET_BYTES - 1, 1000)).isTrue();
+        assertThat(NativeVideoPrefetcher.reserveBudget(2, 2000)).isFalse();
+        assertThat(NativeVideoPrefetcher.reserveBudget(1, 2000)).isTrue();
+
+        assertThat(NativeVideoPrefetcher.reserveBudget(BUDGET_BYTES, 1000 + BUDGET_WINDOW_MILLIS))
+                .isTrue();
+    }
+}
@@ -16,6 +16,7 @@ import org.mockito.Mock;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static com.mopub.nativeads.PlacementData.NOT_FOUND;
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -797,6 +798,155 @@ public class PlacementDataTest {
         checkPlacedPositions(20, adsAt15repeating);
     }
 
+    @Test
+    public void insertItems_removeItems_shouldMatchRepeatedSingleItemChanges() {
+        final PlacementData single = PlacementData.fromAdPositioning(
+                MoPubNativeAdPositioning.clientPositioning()
+                        .addFixedPosition(1)
+                        .addFixedPosition(5)
+                        .enableRepeatingPositions(3));
+        adsAt15repeating.placeAd(1, mMockNativeAd);
+        adsAt15repeating.placeAd(5, mMockNativeAd);
+        adsAt15repeating.placeAd(8, mMockNativeAd);
+        single.placeAd(1, mMockNativeAd);
+        single.placeAd(5, mMockNativeAd);
+        single.placeAd(8, mMockNativeAd);
+
+        adsAt15repeating.insertItems(2, 3);
+        adsAt15repeating.removeItems(3, 5);
+        for (int i = 0; i < 3; i++) {
+            single.insertItem(2);
+        }
+        for (int i = 0; i < 5; i++) {
+            single.removeItem(3);
+        }
+
+        checkPlacedPositions(30, adsAt15repeating, 1, 4, 6);
+        checkPlacedPositions(30, single, 1, 4, 6);
+        for (int i = 0; i < 30; i++) {
+            assertThat(adsAt15repeating.shouldPlaceAd(i)).isEqualTo(single.shouldPlaceAd(i));
+        }
+    }
+
+    @Test
+    public void placeAds_withRepeatingPositions_shouldNotBeCapped() {
+        final int itemCount = 10000;
+        int position = adsRepeating.nextInsertionPosition(-1);
+        int placed = 0;
+        while (position != NOT_FOUND && position < adsRepeating.getAdjustedCount(itemCount)) {
+            adsRepeating.placeAd(position, mMockNativeAd);
+            placed++;
+            position = adsRepeating.nextInsertionPosition(position);
+        }
+
+        assertThat(placed).isEqualTo(4999);
+        assertThat(adsRepeating.getPlacedAdPositions().length).isEqualTo(placed);
+        assertThat(adsRepeating.getAdjustedCount(itemCount)).isEqualTo(itemCount + placed);
+        assertThat(adsRepeating.isPlacedAd(3 * 4000 + 2)).isTrue();
+        assertThat(adsRepeating.getOriginalPosition(3 * 4000 + 3)).isEqualTo(2 * 4000 + 2);
+    }
+
+    @Test(timeout = 10000)
+    public void largeFeed_withRandomMutations_shouldMatchModel() {
+        final Random random = new Random(42);
+        final PlacementData placementData = PlacementData.fromAdPositioning(
+                MoPubNativeAdPositioning.clientPositioning()
+                        .addFixedPosition(1)
+                        .addFixedPosition(4)
+                        .enableRepeatingPositions(5));
+
+        // Model: the number of ads directly before each item, with one extra slot for ads at
+        // the end of the list.
+        final List<Integer> adsBefore = new ArrayList<Integer>();
+        for (int i = 0; i <= 100000; i++) {
+            adsBefore.add(0);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            final int itemCount = adsBefore.size() - 1;
+            final int adjustedCount = placementData.getAdjustedCount(itemCount);
+            final int operation = random.nextInt(5);
+            if (operation == 0) {
+                final int position = placementData.nextInsertionPosition(
+                        random.nextInt(adjustedCount));
+                if (position != NOT_FOUND && position < adjustedCount) {
+                    final int originalPosition = placementData.getOriginalPosition(position);
+                    placementData.placeAd(position, mMockNativeAd);
+                    adsBefore.set(originalPosition, adsBefore.get(originalPosition) + 1);
+                }
+            } else if (operation == 1) {
+                final int originalPosition = random.nextInt(itemCount + 1);
+                placementData.insertItem(originalPosition);
+                adsBefore.add(originalPosition, 0);
+            } else if (operation == 2) {
+                final int originalPosition = random.nextInt(itemCount);
+                placementData.removeItem(originalPosition);
+                final int removedAds = adsBefore.remove(originalPosition);
+                adsBefore.set(originalPosition, adsBefore.get(originalPosition) + removedAds);
+            } else if (operation == 3) {
+                final int from = random.nextInt(itemCount);
+                final int to = random.nextInt(itemCount);
+                placementData.moveItem(from, to);
+                final int removedAds = adsBefore.remove(from);
+                adsBefore.set(from, adsBefore.get(from) + removedAds);
+                adsBefore.add(to, 0);
+            } else {
+                final int start = random.nextInt(adjustedCount);
+                final int end = start + random.nextInt(20);
+                final int cleared = placementData.clearAdsInRange(start, end);
+                assertThat(cleared).isEqualTo(clearModelRange(adsBefore, start, end));
+            }
+
+            if (i % 200 == 0) {
+                checkAgainstModel(placementData, adsBefore);
+            }
+        }
+        checkAgainstModel(placementData, adsBefore);
+    }
+
+    private static int clearModelRange(final List<Integer> adsBefore, final int start,
+            final int end) {
+        int cleared = 0;
+        int adjusted = 0;
+        for (int i = 0; i < adsBefore.size() && adjusted < end; i++) {
+            final int ads = adsBefore.get(i);
+            final int clearFrom = Math.max(adjusted, start);
+            final int clearTo = Math.min(adjusted + ads, end);
+            if (clearFrom < clearTo) {
+                adsBefore.set(i, ads - (clearTo - clearFrom));
+                cleared += clearTo - clearFrom;
+            }
+            adjusted += ads + 1;
+        }
+        return cleared;
+    }
+
+    private static void checkAgainstModel(final PlacementData placementData,
+            final List<Integer> adsBefore) {
+        final int itemCount = adsBefore.size() - 1;
+        final List<Integer> expectedAdPositions = new ArrayList<Integer>();
+        int adjusted = 0;
+        for (int i = 0; i < itemCount; i++) {
+            for (int j = 0; j < adsBefore.get(i); j++) {
+                expectedAdPositions.add(adjusted++);
+            }
+            assertThat(placementData.getAdjustedPosition(i)).isEqualTo(adjusted);
+            assertThat(placementData.getOriginalPosition(adjusted)).isEqualTo(i);
+            adjusted++;
+        }
+        for (int j = 0; j < adsBefore.get(itemCount); j++) {
+            expectedAdPositions.add(adjusted++);
+        }
+
+        final List<Integer> actualAdPositions = new ArrayList<Integer>();
+        for (final int position : placementData.getPlacedAdPositions()) {
+            actualAdPositions.add(position);
+            assertThat(placementData.isPlacedAd(position)).isTrue();
+            assertThat(placementData.getOriginalPosition(position)).isEqualTo(NOT_FOUND);
+        }
+        assertThat(actualAdPositions).isEqualTo(expectedAdPositions);
+    }
+
     void checkInsertionPositions(int maxValue, PlacementData placementData, Integer... positions) {
         List<Integer> expected = Arrays.asList(positions);
         List<Integer> actual = new ArrayList<Integer>();
@@ -0,0 +1,137 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class PositionTreeTest {
+    private PositionTree subject;
+
+    @Before
+    public void setup() {
+        subject = new PositionTree();
+    }
+
+    @Test
+    public void add_shouldKeepPositionsSorted() {
+        subject.add(5, "five");
+        subject.add(1, "one");
+        subject.add(3, "three");
+
+        assertThat(subject.size()).isEqualTo(3);
+        assertThat(subject.toKeyArray()).isEqualTo(new int[] {1, 3, 5});
+        assertThat(subject.valueAt(0)).isEqualTo("one");
+        assertThat(subject.valueAt(1)).isEqualTo("three");
+        assertThat(subject.valueAt(2)).isEqualTo("five");
+    }
+
+    @Test
+    public void add_withEqualPositions_shouldKeepInsertionOrder() {
+        subject.add(2, "first");
+        subject.add(2, "second");
+        subject.add(1, "zero");
+
+        assertThat(subject.valueAt(1)).isEqualTo("first");
+        assertThat(subject.valueAt(2)).isEqualTo("second");
+    }
+
+    @Test
+    public void add_beyondInitialCapacity_shouldGrow() {
+        for (int i = 999; i >= 0; i--) {
+            subject.add(i, null);
+        }
+
+        assertThat(subject.size()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(subject.keyAt(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void rankQueries_shouldCountEntries() {
+        subject.add(1, null);
+        subject.add(3, null);
+        subject.add(3, null);
+        subject.add(7, null);
+
+        assertThat(subject.countLessThan(3)).isEqualTo(1);
+        assertThat(subject.countLessThanOrEqual(3)).isEqualTo(3);
+        assertThat(subject.countLessThan(0)).isEqualTo(0);
+        assertThat(subject.countLessThanOrEqual(100)).isEqualTo(4);
+        assertThat(subject.contains(7)).isTrue();
+        assertThat(subject.contains(4)).isFalse();
+    }
+
+    @Test
+    public void removeFirst_shouldRemoveOneMatchingEntry() {
+        subject.add(2, "first");
+        subject.add(2, "second");
+
+        assertThat(subject.removeFirst(2)).isTrue();
+        assertThat(subject.size()).isEqualTo(1);
+        assertThat(subject.valueAt(0)).isEqualTo("second");
+        assertThat(subject.removeFirst(4)).isFalse();
+    }
+
+    @Test
+    public void removeAt_thenAdd_shouldReuseNodes() {
+        for (int i = 0; i < 10; i++) {
+            subject.add(i, null);
+        }
+        subject.removeAt(0);
+        subject.removeAt(8);
+        subject.add(20, null);
+
+        assertThat(subject.toKeyArray()).isEqualTo(new int[] {1, 2, 3, 4, 5, 6, 7, 8, 20});
+    }
+
+    @Test
+    public void shiftKeysGreaterThan_shouldOnlyShiftLaterPositions() {
+        subject.add(1, null);
+        subject.add(4, null);
+        subject.add(4, null);
+        subject.add(9, null);
+
+        subject.shiftKeysGreaterThan(3, 2);
+        assertThat(subject.toKeyArray()).isEqualTo(new int[] {1, 6, 6, 11});
+
+        subject.shiftKeysGreaterThan(6, -1);
+        assertThat(subject.toKeyArray()).isEqualTo(new int[] {1, 6, 6, 10});
+        assertThat(subject.countLessThanOrEqual(6)).isEqualTo(3);
+    }
+
+    @Test
+    public void indexOfKeyPlusIndex_shouldFindExactMatchOrInsertionPoint() {
+        // Key plus index: 1, 5, 6, 12
+        subject.add(1, null);
+        subject.add(4, null);
+        subject.add(4, null);
+        subject.add(9, null);
+
+        assertThat(subject.indexOfKeyPlusIndex(5)).isEqualTo(1);
+        assertThat(subject.indexOfKeyPlusIndex(6)).isEqualTo(2);
+        assertThat(subject.indexOfKeyPlusIndex(0)).isEqualTo(~0);
+        assertThat(subject.indexOfKeyPlusIndex(3)).isEqualTo(~1);
+        assertThat(subject.indexOfKeyPlusIndex(20)).isEqualTo(~4);
+    }
+
+    @Test
+    public void clear_shouldRemoveEverything() {
+        subject.add(1, "one");
+        subject.clear();
+
+        assertThat(subject.size()).isEqualTo(0);
+        assertThat(subject.toKeyArray()).isEmpty();
+        subject.add(2, "two");
+        assertThat(subject.valueAt(0)).isEqualTo("two");
+    }
+}
@@ -14,6 +14,7 @@ import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.mobileads.MoPubErrorCode;
 import com.mopub.nativeads.MoPubNativeAdPositioning.MoPubClientPositioning;
 import com.mopub.nativeads.PositioningSource.PositioningListener;
+import com.mopub.network.AdUnitConfigStore;
 import com.mopub.network.MoPubRequestQueue;
 import com.mopub.network.Networking;
 import com.mopub.volley.NoConnectionError;
@@ -28,6 +29,7 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.robolectric.Robolectric;
 import org.robolectric.shadows.ShadowLog;
+import org.robolectric.shadows.ShadowLooper;
 
 import java.util.HashSet;
 import java.util.List;
@@ -128,6 +130,73 @@ public class ServerPositioningSourceTest {
         verify(mockPositioningListener).onLoad(eq(response));
     }
 
+    @Test
+    public void loadPositions_thenComplete_withValidResponse_shouldStorePositioning() {
+        subject.loadPositions("test_ad_unit", mockPositioningListener);
+        verify(mockRequestQueue).add(positionRequestCaptor.capture());
+
+        positionRequestCaptor.getValue().deliverResponse(
+                new MoPubClientPositioning().addFixedPosition(2).enableRepeatingPositions(3));
+
+        final AdUnitConfigStore.Positioning stored =
+                AdUnitConfigStore.getInstance(spyActivity).getPositioning("test_ad_unit");
+        assertThat(stored.fixedPositions).containsOnly(2);
+        assertThat(stored.repeatingInterval).isEqualTo(3);
+    }
+
+    @Test
+    public void loadPositions_withStoredPositioning_shouldDeliverIt_thenDeliverDifferentResponse() {
+        AdUnitConfigStore.getInstance(spyActivity).putPositioning("test_ad_unit",
+                new AdUnitConfigStore.Positioning(new int[]{1}, 5));
+        ShadowLooper.pauseMainLooper();
+
+        subject.loadPositions("test_ad_unit", mockPositioningListener);
+        verify(mockPositioningListener, never()).onLoad(any(MoPubClientPositioning.class));
+        ShadowLooper.unPauseMainLooper();
+
+        verify(mockPositioningListener).onLoad(positioningCaptor.capture());
+        assertThat(positioningCaptor.getValue().getFixedPositions()).containsOnly(1);
+        assertThat(positioningCaptor.getValue().getRepeatingInterval()).isEqualTo(5);
+
+        verify(mockRequestQueue).add(positionRequestCaptor.capture());
+        positionRequestCaptor.getValue().deliverResponse(
+                new MoPubClientPositioning().enableRepeatingPositions(3));
+
+        verify(mockPositioningListener, times(2)).onLoad(positioningCaptor.capture());
+        assertThat(positioningCaptor.getValue().getRepeatingInterval()).isEqualTo(3);
+        assertThat(AdUnitConfigStore.getInstance(spyActivity).getPositioning("test_ad_unit")
+                .repeatingInterval).isEqualTo(3);
+    }
+
+    @Test
+    public void loadPositions_withStoredPositioning_withSameResponse_shouldOnlyDeliverOnce() {
+        AdUnitConfigStore.getInstance(spyActivity).putPositioning("test_ad_unit",
+                new AdUnitConfigStore.Positioning(new int[]{1}, 5));
+
+        subject.loadPositions("test_ad_unit", mockPositioningListener);
+        verify(mockRequestQueue).add(positionRequestCaptor.capture());
+        positionRequestCaptor.getValue().deliverResponse(
+                new MoPubClientPositioning().addFixedPosition(1).enableRepeatingPositions(5));
+
+        verify(mockPositioningListener).onLoad(any(MoPubClientPositioning.class));
+    }
+
+    @Test
+    public void loadPositions_withStoredPositioning_withResponseBeforeItIsDelivered_shouldOnlyDeliverResponse() {
+        AdUnitConfigStore.getInstance(spyActivity).putPositioning("test_ad_unit",
+                new AdUnitConfigStore.Positioning(new int[]{1}, 5));
+        ShadowLooper.pauseMainLooper();
+
+        subject.loadPositions("test_ad_unit", mockPositioningListener);
+        verify(mockRequestQueue).add(positionRequestCaptor.capture());
+        positionRequestCaptor.getValue().deliverResponse(
+                new MoPubClientPositioning().enableRepeatingPositions(3));
+        ShadowLooper.unPauseMainLooper();
+
+        verify(mockPositioningListener).onLoad(positioningCaptor.capture());
+        assertThat(positioningCaptor.getValue().getRepeatingInterval()).isEqualTo(3);
+    }
+
     @Test
     public void loadPositions_thenComplete_withErrorResponse_shouldRetry() throws Exception {
         subject.loadPositions("test_ad_unit", mockPositioningListener);
@@ -4,8 +4,10 @@
 
 package com.mopub.nativeads.factories;
 
+import com.mopub.common.CustomEventRegistry;
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.nativeads.CustomEventNative;
+import com.mopub.nativeads.MoPubCustomEventNative;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +44,38 @@ public class CustomEventNativeFactoryTest {
         assertThat(CustomEventNativeFactory.create(null).getClass().getName()).isEqualTo("com.mopub.nativeads.MoPubCustomEventNative");
     }
 
+    @Test
+    public void create_withRegisteredFactory_shouldReturnFactoryInstance() throws Exception {
+        final MoPubCustomEventNative registeredNative = new MoPubCustomEventNative();
+        CustomEventRegistry.register(MoPubCustomEventNative.class,
+                new CustomEventRegistry.Factory<MoPubCustomEventNative>() {
+                    @Override
+                    public MoPubCustomEventNative create() {
+                        return registeredNative;
+                    }
+                });
+
+        assertThat(CustomEventNativeFactory.create(MoPubCustomEventNative.class.getName()))
+                .isSameAs(registeredNative);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void create_withRegisteredFactoryOfWrongType_shouldCallItOnce_shouldFallBackToReflection() throws Exception {
+        final int[] createCount = new int[1];
+        CustomEventRegistry.register((Class) MoPubCustomEventNative.class,
+                new CustomEventRegistry.Factory<Object>() {
+                    @Override
+                    public Object create() {
+                        createCount[0]++;
+                        return new Object();
+                    }
+                });
+
+        assertCustomEventClassCreated(MoPubCustomEventNative.class.getName());
+        assertThat(createCount[0]).isEqualTo(1);
+    }
+
     private void assertCustomEventClassCreated(final String className) throws Exception {
         final CustomEventNative customEventNative = CustomEventNativeFactory.create(className);
         assertThat(customEventNative.getClass().getName()).isEqualTo(className);
@@ -8,11 +8,14 @@ import android.app.Activity;
 import android.content.Context;
 
 import com.mopub.common.AdFormat;
+import com.mopub.common.AdLatencyMetrics;
+import com.mopub.common.AdLifecyclePhase;
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.common.util.ResponseHeader;
 import com.mopub.volley.NetworkResponse;
 import com.mopub.volley.Request;
 import com.mopub.volley.RequestQueue;
+import com.mopub.volley.Response;
 import com.mopub.volley.VolleyError;
 
 import org.json.JSONArray;
@@ -210,6 +213,30 @@ public class AdLoaderTest {
         verify(requestQueue).add(request);
     }
 
+    @Test
+    public void creativeDownloadSuccess_shouldRecordLatencyMetrics() throws Exception {
+        subject.loadNextAd(null);
+        final MultiAdRequest request = (MultiAdRequest) getPrivateField("mMultiAdRequest").get(subject);
+        ShadowLooper.idleMainLooper(100);
+        byte[] body = createResponseBody(null,
+                new JSONObject[]{createAdResponseJson("trackingUrl", "content_data")});
+        Response<MultiAdResponse> response =
+                request.parseNetworkResponse(new NetworkResponse(200, body, headers, false));
+        request.deliverResponse(response.result);
+        ShadowLooper.idleMainLooper(50);
+
+        subject.creativeDownloadSuccess();
+
+        assertThat(AdLatencyMetrics.getHistogram(AdFormat.BANNER, AdLifecyclePhase.NETWORK)
+                .getValueAtPercentile(50)).isEqualTo(100);
+        assertThat(AdLatencyMetrics.getHistogram(AdFormat.BANNER, AdLifecyclePhase.PARSE)
+                .getCount()).isEqualTo(1);
+        assertThat(AdLatencyMetrics.getHistogram(AdFormat.BANNER, AdLifecyclePhase.ADAPTER_LOAD)
+                .getValueAtPercentile(50)).isEqualTo(50);
+        assertThat(AdLatencyMetrics.getHistogram(AdFormat.BANNER, AdLifecyclePhase.TIME_TO_AD)
+                .getValueAtPercentile(50)).isEqualTo(150);
+    }
+
     @Test
     public void oneAdResponseWaterfall_shouldSucceed() throws JSONException, MoPubNetworkError, NoSuchFieldException, IllegalAccessException {
         JSONObject adResponseJson = createAdResponseJson("trackingUrl", "content_data");
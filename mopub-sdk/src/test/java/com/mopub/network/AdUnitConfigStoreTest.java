@@ -0,0 +1,279 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.app.Activity;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class AdUnitConfigStoreTest {
+    private static final String AD_UNIT_ID = "ad_unit_id";
+
+    private File file;
+    private AdUnitConfigStore subject;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        file = new File(activity.getCacheDir(), AdUnitConfigStore.FILE_NAME);
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        subject = new AdUnitConfigStore(file);
+        subject.load();
+    }
+
+    @After
+    public void tearDown() {
+        Robolectric.getBackgroundThreadScheduler().unPause();
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        RequestRateTrackerTest.clearRequestRateTracker();
+    }
+
+    @Test
+    public void putRefreshTimeMillis_shouldSurviveReload() {
+        subject.putRefreshTimeMillis(AD_UNIT_ID, 30000);
+        subject.writePendingToDisk();
+
+        final AdUnitConfigStore reloaded = new AdUnitConfigStore(file);
+        reloaded.load();
+
+        assertThat(reloaded.getRefreshTimeMillis(AD_UNIT_ID)).isEqualTo(30000);
+        assertThat(reloaded.getRefreshTimeMillis("other_ad_unit_id")).isNull();
+    }
+
+    @Test
+    public void putRefreshTimeMillis_withNull_shouldStoreNoRefresh() {
+        subject.putRefreshTimeMillis(AD_UNIT_ID, null);
+
+        assertThat(subject.getRefreshTimeMillis(AD_UNIT_ID)).isEqualTo(0);
+    }
+
+    @Test
+    public void putPositioning_shouldSurviveReload() {
+        subject.putPositioning(AD_UNIT_ID, new AdUnitConfigStore.Positioning(new int[]{1, 4}, 7));
+        subject.writePendingToDisk();
+
+        final AdUnitConfigStore reloaded = new AdUnitConfigStore(file);
+        reloaded.load();
+
+        final AdUnitConfigStore.Positioning positioning = reloaded.getPositioning(AD_UNIT_ID);
+        assertThat(positioning.fixedPositions).containsOnly(1, 4);
+        assertThat(positioning.repeatingInterval).isEqualTo(7);
+    }
+
+    @Test
+    public void putRateLimit_thenLoad_shouldRestoreRateLimit() {
+        subject.putRateLimit(AD_UNIT_ID, 60000, "reason");
+        subject.writePendingToDisk();
+        RequestRateTrackerTest.clearRequestRateTracker();
+
+        new AdUnitConfigStore(file).load();
+
+        final RequestRateTracker.TimeRecord record =
+                RequestRateTracker.getInstance().getRecordForAdUnit(AD_UNIT_ID);
+        assertThat(record.mBlockIntervalMs).isEqualTo(60000);
+        assertThat(record.mReason).isEqualTo("reason");
+        assertThat(RequestRateTracker.getInstance().isBlockedByRateLimit(AD_UNIT_ID)).isTrue();
+    }
+
+    @Test
+    public void putRateLimit_withNoInterval_shouldClearRateLimit() {
+        subject.putRateLimit(AD_UNIT_ID, 60000, "reason");
+        subject.putRateLimit(AD_UNIT_ID, null, null);
+        subject.writePendingToDisk();
+        RequestRateTrackerTest.clearRequestRateTracker();
+
+        new AdUnitConfigStore(file).load();
+
+        assertThat(RequestRateTracker.getInstance().getRecordForAdUnit(AD_UNIT_ID)).isNull();
+    }
+
+    @Test
+    public void deserialize_shouldDropExpiredValues() {
+        final AdUnitConfigStore.Entry entry = new AdUnitConfigStore.Entry();
+        entry.mFlags = 1 | 1 << 2;
+        entry.mRefreshTimeMillis = 30000;
+        entry.mRefreshTimeExpirationMillis = 2000;
+        entry.mFixedPositions = new int[]{2};
+        entry.mPositioningExpirationMillis = 1000;
+        final Map<String, AdUnitConfigStore.Entry> entries =
+                new LinkedHashMap<String, AdUnitConfigStore.Entry>();
+        entries.put(AD_UNIT_ID, entry);
+        final byte[] bytes = AdUnitConfigStore.serialize(entries, 0);
+
+        final Map<String, AdUnitConfigStore.Entry> result =
+                AdUnitConfigStore.deserialize(ByteBuffer.wrap(bytes), 1500);
+
+        assertThat(result.get(AD_UNIT_ID).mFlags).isEqualTo(1);
+        assertThat(AdUnitConfigStore.deserialize(ByteBuffer.wrap(bytes), 2500)).isEmpty();
+    }
+
+    @Test
+    public void load_withInvalidFile_shouldIgnoreIt() throws Exception {
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        outputStream.close();
+
+        subject.load();
+
+        assertThat(subject.getRefreshTimeMillis(AD_UNIT_ID)).isNull();
+    }
+
+    @Test
+    public void load_withTruncatedFile_shouldIgnoreIt() throws Exception {
+        final AdUnitConfigStore.Entry entry = new AdUnitConfigStore.Entry();
+        entry.mFlags = 1;
+        entry.mRefreshTimeMillis = 30000;
+        entry.mRefreshTimeExpirationMillis = Long.MAX_VALUE;
+        final Map<String, AdUnitConfigStore.Entry> entries =
+                new LinkedHashMap<String, AdUnitConfigStore.Entry>();
+        entries.put(AD_UNIT_ID, entry);
+        final byte[] bytes = AdUnitConfigStore.serialize(entries, 0);
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(bytes, 0, bytes.length - 1);
+        outputStream.close();
+
+        final AdUnitConfigStore reloaded = new AdUnitConfigStore(file);
+        reloaded.load();
+
+        assertThat(reloaded.getRefreshTimeMillis(AD_UNIT_ID)).isNull();
+    }
+
+    @Test
+    public void putRefreshTimeMillis_withTooManyAdUnits_shouldEvictLeastRecentlyUpdated() {
+        for (int i = 0; i <= AdUnitConfigStore.MAX_AD_UNITS; i++) {
+            subject.putRefreshTimeMillis("ad_unit_" + i, 30000);
+        }
+
+        assertThat(subject.getRefreshTimeMillis("ad_unit_0")).isNull();
+        assertThat(subject.getRefreshTimeMillis("ad_unit_1")).isEqualTo(30000);
+        assertThat(subject.getRefreshTimeMillis(
+                "ad_unit_" + AdUnitConfigStore.MAX_AD_UNITS)).isEqualTo(30000);
+    }
+
+    @Test
+    public void getInstance_shouldLoadFromCacheDirectory() {
+        subject.putRefreshTimeMillis(AD_UNIT_ID, 45000);
+        subject.writePendingToDisk();
+        AdUnitConfigStore.clearForTesting();
+
+        final Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+
+        assertThat(AdUnitConfigStore.getInstance(activity).getRefreshTimeMillis(AD_UNIT_ID))
+                .isEqualTo(45000);
+    }
+
+    @Test
+    public void getInstance_beforeLoadFinishes_shouldNotBlock_shouldReturnNull() {
+        subject.putRefreshTimeMillis(AD_UNIT_ID, 45000);
+        subject.writePendingToDisk();
+        AdUnitConfigStore.clearForTesting();
+        final Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        Robolectric.getBackgroundThreadScheduler().pause();
+
+        final AdUnitConfigStore store = AdUnitConfigStore.getInstance(activity);
+
+        assertThat(store.getRefreshTimeMillis(AD_UNIT_ID)).isNull();
+
+        Robolectric.getBackgroundThreadScheduler().unPause();
+
+        assertThat(store.getRefreshTimeMillis(AD_UNIT_ID)).isEqualTo(45000);
+    }
+
+    @Test
+    public void putRefreshTimeMillis_beforeLoad_shouldKeepNewerValue_shouldWriteOnceLoaded() {
+        subject.putRefreshTimeMillis(AD_UNIT_ID, 30000);
+        subject.putRefreshTimeMillis("other_ad_unit_id", 60000);
+        subject.writePendingToDisk();
+
+        final AdUnitConfigStore unloaded = new AdUnitConfigStore(file);
+        unloaded.putRefreshTimeMillis(AD_UNIT_ID, 45000);
+        unloaded.writePendingToDisk();
+        unloaded.load();
+        unloaded.writePendingToDisk();
+
+        final AdUnitConfigStore reloaded = new AdUnitConfigStore(file);
+        reloaded.load();
+        assertThat(reloaded.getRefreshTimeMillis(AD_UNIT_ID)).isEqualTo(45000);
+        assertThat(reloaded.getRefreshTimeMillis("other_ad_unit_id")).isEqualTo(60000);
+    }
+
+    @Test
+    public void putRateLimit_beforeLoad_shouldKeepSavedFieldsOfSameAdUnit() {
+        subject.putRefreshTimeMillis(AD_UNIT_ID, 30000);
+        subject.putPositioning(AD_UNIT_ID, new AdUnitConfigStore.Positioning(new int[]{2}, 9));
+        subject.writePendingToDisk();
+
+        final AdUnitConfigStore unloaded = new AdUnitConfigStore(file);
+        unloaded.putRateLimit(AD_UNIT_ID, 60000, "reason");
+        unloaded.load();
+
+        assertThat(unloaded.getRefreshTimeMillis(AD_UNIT_ID)).isEqualTo(30000);
+        assertThat(unloaded.getPositioning(AD_UNIT_ID).repeatingInterval).isEqualTo(9);
+        unloaded.writePendingToDisk();
+        final AdUnitConfigStore reloaded = new AdUnitConfigStore(file);
+        reloaded.load();
+        assertThat(reloaded.getRefreshTimeMillis(AD_UNIT_ID)).isEqualTo(30000);
+        assertThat(reloaded.getPositioning(AD_UNIT_ID).fixedPositions).containsOnly(2);
+    }
+
+    @Test
+    public void putRateLimit_withNoInterval_beforeLoad_shouldNotRestoreSavedRateLimit() {
+        subject.putRateLimit(AD_UNIT_ID, 60000, "reason");
+        subject.putRefreshTimeMillis(AD_UNIT_ID, 30000);
+        subject.writePendingToDisk();
+
+        final AdUnitConfigStore unloaded = new AdUnitConfigStore(file);
+        unloaded.putRateLimit(AD_UNIT_ID, null, null);
+        unloaded.load();
+
+        assertThat(RequestRateTracker.getInstance().getRecordForAdUnit(AD_UNIT_ID)).isNull();
+        assertThat(unloaded.getRefreshTimeMillis(AD_UNIT_ID)).isEqualTo(30000);
+        unloaded.writePendingToDisk();
+        new AdUnitConfigStore(file).load();
+        assertThat(RequestRateTracker.getInstance().getRecordForAdUnit(AD_UNIT_ID)).isNull();
+    }
+
+    @Test
+    public void positioning_withSameValues_shouldBeEqual() {
+        final AdUnitConfigStore.Positioning positioning =
+                new AdUnitConfigStore.Positioning(new int[]{1, 4}, 7);
+
+        assertThat(positioning).isEqualTo(new AdUnitConfigStore.Positioning(new int[]{1, 4}, 7));
+        assertThat(positioning.hashCode()).isEqualTo(
+                new AdUnitConfigStore.Positioning(new int[]{1, 4}, 7).hashCode());
+        assertThat(positioning).isNotEqualTo(new AdUnitConfigStore.Positioning(new int[]{1}, 7));
+        assertThat(positioning).isNotEqualTo(new AdUnitConfigStore.Positioning(new int[]{1, 4}, 8));
+    }
+
+    @Test
+    public void getUtf8Boundary_shouldNotSplitCharacters() throws Exception {
+        // "a" is one byte, "\u00e9" is two, "\u20ac" is three.
+        final byte[] bytes = "a\u00e9\u20ac".getBytes("UTF-8");
+
+        assertThat(AdUnitConfigStore.getUtf8Boundary(bytes, 1)).isEqualTo(1);
+        assertThat(AdUnitConfigStore.getUtf8Boundary(bytes, 2)).isEqualTo(1);
+        assertThat(AdUnitConfigStore.getUtf8Boundary(bytes, 3)).isEqualTo(3);
+        assertThat(AdUnitConfigStore.getUtf8Boundary(bytes, 5)).isEqualTo(3);
+        assertThat(AdUnitConfigStore.getUtf8Boundary(bytes, 6)).isEqualTo(6);
+        assertThat(AdUnitConfigStore.getUtf8Boundary(bytes, 10)).isEqualTo(6);
+    }
+}
@@ -79,6 +79,18 @@ public class ImpressionDataTest {
         compareObjects(subject, copy);
     }
 
+    @Test
+    public void getJsonString_shouldMatchJsonRepresentation() throws JSONException {
+        assertEquals(subject.getJsonRepresentation().toString(), subject.getJsonString());
+        assertEquals("test_ID", new JSONObject(subject.getJsonString()).getString("id"));
+    }
+
+    @Test
+    public void getJsonString_afterDeserialize_shouldMatchOriginal() {
+        ImpressionData copy = SerializationUtils.clone(subject);
+        assertEquals(subject.getJsonString(), copy.getJsonString());
+    }
+
     private final String SAMPLE_JSON = "{\n" +
             "                \"id\": \"test_ID\",\n" +
             "                \"adunit_id\": \"test_adunit_id\",\n" +
@@ -12,13 +12,20 @@ import com.mopub.common.test.support.SdkTestRunner;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -34,10 +41,13 @@ public class ImpressionEmitterTest {
     ImpressionListener listener2;
     @Mock
     ImpressionData impression;
+    @Mock
+    BatchImpressionListener batchListener;
 
     @After
     public void tearDown() {
         ImpressionsEmitter.clear();
+        ImpressionsEmitter.setExecutor(null);
     }
 
     @Test
@@ -138,9 +148,139 @@ public class ImpressionEmitterTest {
         assertTrue(t2 - t1 < 100);
     }
 
+    @Test
+    public void send_withBatchListener_shouldDeliverSingleImpressionBatch() {
+        ImpressionsEmitter.addBatchListener(batchListener);
+
+        ImpressionsEmitter.send(mAdUnitId, impression);
+
+        final List<Impression> impressions = captureBatch(1).get(0);
+        assertThat(impressions).hasSize(1);
+        assertThat(impressions.get(0).getAdUnitId()).isEqualTo(mAdUnitId);
+        assertThat(impressions.get(0).getImpressionData()).isSameAs(impression);
+    }
+
+    @Test
+    public void send_withAsyncDelivery_shouldDeliverOnExecutor_inOneBatch() {
+        final QueueingExecutor executor = new QueueingExecutor();
+        ImpressionsEmitter.setExecutor(executor);
+        ImpressionsEmitter.setAsyncDelivery(true);
+        ImpressionsEmitter.addListener(listener1);
+        ImpressionsEmitter.addBatchListener(batchListener);
+        final ImpressionData impression2 = mock(ImpressionData.class);
+
+        ImpressionsEmitter.send(mAdUnitId, impression);
+        ImpressionsEmitter.send("ad_unit_id_2", impression2);
+
+        verify(listener1, never()).onImpression(anyString(), any(ImpressionData.class));
+        assertThat(executor.runnables).hasSize(1);
+
+        executor.runAll();
+
+        verify(listener1).onImpression(mAdUnitId, impression);
+        verify(listener1).onImpression("ad_unit_id_2", impression2);
+        final List<Impression> impressions = captureBatch(1).get(0);
+        assertThat(impressions).hasSize(2);
+        assertThat(impressions.get(0).getImpressionData()).isSameAs(impression);
+        assertThat(impressions.get(1).getImpressionData()).isSameAs(impression2);
+    }
+
+    @Test
+    public void send_withAsyncDelivery_afterFlush_shouldScheduleAnotherFlush() {
+        final QueueingExecutor executor = new QueueingExecutor();
+        ImpressionsEmitter.setExecutor(executor);
+        ImpressionsEmitter.setAsyncDelivery(true);
+        ImpressionsEmitter.addBatchListener(batchListener);
+
+        ImpressionsEmitter.send(mAdUnitId, impression);
+        executor.runAll();
+        ImpressionsEmitter.send(mAdUnitId, impression);
+        assertThat(executor.runnables).hasSize(1);
+        executor.runAll();
+
+        assertThat(captureBatch(2)).hasSize(2);
+    }
+
+    @Test
+    public void send_withAsyncDelivery_whenBufferIsFull_shouldDropOldestImpressions() {
+        final QueueingExecutor executor = new QueueingExecutor();
+        ImpressionsEmitter.setExecutor(executor);
+        ImpressionsEmitter.setAsyncDelivery(true);
+        ImpressionsEmitter.addBatchListener(batchListener);
+
+        for (int i = 0; i < ImpressionsEmitter.MAX_PENDING_IMPRESSIONS + 2; i++) {
+            ImpressionsEmitter.send("ad_unit_" + i, impression);
+        }
+        executor.runAll();
+
+        final List<Impression> impressions = captureBatch(1).get(0);
+        assertThat(impressions).hasSize(ImpressionsEmitter.MAX_PENDING_IMPRESSIONS);
+        assertThat(impressions.get(0).getAdUnitId()).isEqualTo("ad_unit_2");
+    }
+
+    @Test
+    public void send_withAsyncDelivery_whenListenerThrows_shouldStillCallOtherListeners() {
+        final QueueingExecutor executor = new QueueingExecutor();
+        ImpressionsEmitter.setExecutor(executor);
+        ImpressionsEmitter.setAsyncDelivery(true);
+        doThrow(new IllegalStateException()).when(listener1)
+                .onImpression(anyString(), any(ImpressionData.class));
+        ImpressionsEmitter.addListener(listener1);
+        ImpressionsEmitter.addBatchListener(batchListener);
+
+        ImpressionsEmitter.send(mAdUnitId, impression);
+        executor.runAll();
+
+        assertThat(captureBatch(1)).hasSize(1);
+    }
+
+    @Test
+    public void setAsyncDelivery_withFalse_shouldStillDeliverPendingImpressions() {
+        final QueueingExecutor executor = new QueueingExecutor();
+        ImpressionsEmitter.setExecutor(executor);
+        ImpressionsEmitter.setAsyncDelivery(true);
+        ImpressionsEmitter.addListener(listener1);
+        ImpressionsEmitter.send(mAdUnitId, impression);
+
+        ImpressionsEmitter.setAsyncDelivery(false);
+        ImpressionsEmitter.send(mAdUnitId, impression);
+
+        verify(listener1, times(1)).onImpression(mAdUnitId, impression);
+        executor.runAll();
+        verify(listener1, times(2)).onImpression(mAdUnitId, impression);
+    }
+
     /*
     Unit test utility functions
      */
+    @SuppressWarnings("unchecked")
+    private List<List<Impression>> captureBatch(final int times) {
+        final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchListener, times(times)).onImpressions(captor.capture());
+        final List<List<Impression>> batches = new ArrayList<>();
+        for (final List batch : captor.getAllValues()) {
+            batches.add((List<Impression>) batch);
+        }
+        return batches;
+    }
+
+    private static class QueueingExecutor implements Executor {
+        final List<Runnable> runnables = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull final Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            final List<Runnable> toRun = new ArrayList<>(runnables);
+            runnables.clear();
+            for (final Runnable runnable : toRun) {
+                runnable.run();
+            }
+        }
+    }
+
     private Thread createTestThread() {
 
         return new Thread(new Runnable() {
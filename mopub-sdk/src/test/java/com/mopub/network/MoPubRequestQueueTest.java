@@ -4,10 +4,246 @@
 
 package com.mopub.network;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.volley.Cache;
+import com.mopub.volley.ExecutorDelivery;
 import com.mopub.volley.Network;
+import com.mopub.volley.NetworkResponse;
+import com.mopub.volley.Request;
+import com.mopub.volley.RequestQueue;
+import com.mopub.volley.Response;
+import com.mopub.volley.ResponseDelivery;
+import com.mopub.volley.VolleyError;
+import com.mopub.volley.toolbox.NoCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+@RunWith(SdkTestRunner.class)
 public class MoPubRequestQueueTest {
+    @Mock private Cache mockCache;
+    @Mock private Network mockNetwork;
+    @Mock private RequestQueue mockDedicatedQueue;
+
+    private MoPubRequestQueue subject;
+
+    @Before
+    public void setUp() {
+        subject = new MoPubRequestQueue(mockCache, mockNetwork);
+        subject.addDedicatedQueue(RequestCategory.TRACKING, mockDedicatedQueue);
+    }
+
+    @After
+    public void tearDown() {
+        RequestMetricsTracker.clearForTesting();
+    }
+
+    @Test
+    public void addDedicatedQueue_shouldReportFinishedRequestsFromDedicatedQueue() {
+        verify(mockDedicatedQueue).addRequestFinishedListener(
+                any(RequestQueue.RequestFinishedListener.class));
+    }
+
+    @Test
+    public void add_withDedicatedQueueForCategory_shouldAddToDedicatedQueue() {
+        final TrackingRequest request = mock(TrackingRequest.class);
+        when(request.getRequestCategory()).thenReturn(RequestCategory.TRACKING);
+
+        subject.add(request);
+
+        verify(mockDedicatedQueue).add(request);
+        verify(request, never()).setRequestQueue(subject);
+    }
+
+    @Test
+    public void add_withoutDedicatedQueueForCategory_shouldAddToMainQueue() {
+        final MultiAdRequest request = mock(MultiAdRequest.class);
+        when(request.getRequestCategory()).thenReturn(RequestCategory.AD);
+
+        subject.add(request);
+
+        verify(mockDedicatedQueue, never()).add(any(Request.class));
+        verify(request).setRequestQueue(subject);
+    }
+
+    @Test
+    public void cancelAll_shouldCancelInDedicatedQueues() {
+        final RequestQueue.RequestFilter filter = mock(RequestQueue.RequestFilter.class);
+
+        subject.cancelAll(filter);
+
+        verify(mockDedicatedQueue).cancelAll(filter);
+    }
+
+    @Test
+    public void startAndStop_shouldStartAndStopDedicatedQueues() {
+        subject.start();
+        verify(mockDedicatedQueue).start();
+
+        subject.stop();
+        verify(mockDedicatedQueue, atLeastOnce()).stop();
+    }
+
+    @Test
+    public void add_whileHoldingRequests_shouldDispatchOnlyOnceReleased() {
+        final TrackingRequest request = mock(TrackingRequest.class);
+        when(request.getRequestCategory()).thenReturn(RequestCategory.TRACKING);
+        subject.holdRequests();
+
+        subject.add(request);
+        verify(mockDedicatedQueue, never()).add(any(Request.class));
+
+        subject.releaseHeldRequests();
+        verify(mockDedicatedQueue).add(request);
+    }
+
+    @Test
+    public void cancelAll_withHeldRequest_shouldCancelIt_shouldNotDispatchIt() {
+        final TrackingRequest request = mock(TrackingRequest.class);
+        when(request.getRequestCategory()).thenReturn(RequestCategory.TRACKING);
+        subject.holdRequests();
+        subject.add(request);
+
+        subject.cancel(request);
+        subject.releaseHeldRequests();
+
+        verify(request).cancel();
+        verify(mockDedicatedQueue, never()).add(any(Request.class));
+    }
+
+    @Test
+    public void cancelAll_withHeldRequest_shouldReportItAsCanceled() {
+        final RequestMetricsListener mockListener = mock(RequestMetricsListener.class);
+        RequestMetricsTracker.setListener(mockListener);
+        final TrackingRequest request = mock(TrackingRequest.class);
+        when(request.getRequestCategory()).thenReturn(RequestCategory.TRACKING);
+        when(request.isCanceled()).thenReturn(true);
+        subject.holdRequests();
+        subject.add(request);
+        assertThat(RequestMetricsTracker.getWaitingCount()).isEqualTo(1);
+
+        subject.cancel(request);
+
+        final ArgumentCaptor<RequestMetrics> metricsCaptor =
+                ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(mockListener).onRequestFinished(metricsCaptor.capture());
+        assertThat(metricsCaptor.getValue().isCanceled()).isTrue();
+        assertThat(RequestMetricsTracker.getWaitingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void add_withTrackingBacklog_withDedicatedTrackingQueue_shouldSendAdRequestWhileTrackingIsBlocked()
+            throws Exception {
+        final CountDownLatch trackingBlocked = new CountDownLatch(1);
+        final Cache cache = new NoCache();
+        final Network network = new BlockingNetwork(trackingBlocked);
+        final ResponseDelivery delivery = new ExecutorDelivery(new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable runnable) {
+                runnable.run();
+            }
+        });
+        // One network thread each, so a shared thread busy with tracking would hold the ad back.
+        final MoPubRequestQueue queue = new MoPubRequestQueue(cache, network, 1, delivery);
+        queue.addDedicatedQueue(RequestCategory.TRACKING,
+                new RequestQueue(cache, network, 1, delivery));
+        queue.start();
+
+        try {
+            final TestRequest trackingRequest = new TestRequest("https://tracking.mopub.com/0",
+                    RequestCategory.TRACKING, null);
+            queue.add(trackingRequest);
+            queue.add(new TestRequest("https://tracking.mopub.com/1",
+                    RequestCategory.TRACKING, null));
+            final CountDownLatch adDelivered = new CountDownLatch(1);
+            queue.add(new TestRequest("https://ads.mopub.com/m/gen_ad", RequestCategory.AD,
+                    adDelivered));
+
+            assertThat(adDelivered.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(trackingRequest.mDelivered).isFalse();
+        } finally {
+            trackingBlocked.countDown();
+            queue.stop();
+        }
+    }
+
+    /**
+     * Answers ad requests right away, and blocks tracking requests until the latch is released.
+     */
+    private static class BlockingNetwork implements Network {
+        @NonNull private final CountDownLatch mTrackingBlocked;
+
+        BlockingNetwork(@NonNull final CountDownLatch trackingBlocked) {
+            mTrackingBlocked = trackingBlocked;
+        }
+
+        @Override
+        public NetworkResponse performRequest(final Request<?> request) throws VolleyError {
+            if (RequestCategory.of(request) == RequestCategory.TRACKING) {
+                try {
+                    mTrackingBlocked.await();
+                } catch (InterruptedException e) {
+                    throw new VolleyError(e);
+                }
+            }
+            return new NetworkResponse(200, new byte[0],
+                    Collections.<String, String>emptyMap(), false);
+        }
+    }
+
+    private static class TestRequest extends Request<Void>
+            implements RequestCategory.Categorized {
+        @NonNull private final RequestCategory mCategory;
+        @Nullable private final CountDownLatch mLatch;
+        volatile boolean mDelivered;
+
+        TestRequest(@NonNull final String url, @NonNull final RequestCategory category,
+                @Nullable final CountDownLatch latch) {
+            super(Method.GET, url, null);
+            mCategory = category;
+            mLatch = latch;
+            setShouldCache(false);
+        }
+
+        @NonNull
+        @Override
+        public RequestCategory getRequestCategory() {
+            return mCategory;
+        }
+
+        @Override
+        protected Response<Void> parseNetworkResponse(final NetworkResponse response) {
+            return Response.success(null, null);
+        }
+
+        @Override
+        protected void deliverResponse(final Void response) {
+            mDelivered = true;
+            if (mLatch != null) {
+                mLatch.countDown();
+            }
+        }
+    }
 
     public static class TestMoPubRequestQueue extends MoPubRequestQueue {
 
@@ -8,7 +8,12 @@ import android.annotation.TargetApi;
 import android.app.Activity;
 import android.os.Build;
 
+import com.mopub.common.SdkStartupPhase;
+import com.mopub.common.SdkStartupTimer;
+import com.mopub.common.SharedPreferencesHelper;
 import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.volley.RequestQueue;
+import com.mopub.volley.toolbox.NoCache;
 
 import org.junit.After;
 import org.junit.Before;
@@ -16,11 +21,17 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 
+import java.net.URL;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @RunWith(SdkTestRunner.class)
 public class NetworkingTest {
@@ -83,6 +94,40 @@ public class NetworkingTest {
 
     }
 
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    @Config(sdk = Build.VERSION_CODES.JELLY_BEAN_MR1)
+    @Test
+    public void getUserAgent_afterResolvingOnMainThread_shouldPersistUserAgentForLaterStarts() throws InterruptedException {
+        final String userAgent = Networking.getUserAgent(context);
+        Networking.clearForTesting();
+
+        assertThat(getUserAgentOnBackgroundThread()).isEqualTo(userAgent);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    @Config(sdk = Build.VERSION_CODES.JELLY_BEAN_MR1)
+    @Test
+    public void getUserAgent_withUserAgentPersistedForDifferentWebViewVersion_shouldIgnoreIt() throws InterruptedException {
+        SharedPreferencesHelper.getSharedPreferences(context).edit()
+                .putString(PersistedUserAgent.PREF_USER_AGENT, "old user agent")
+                .putString(PersistedUserAgent.PREF_USER_AGENT_VERSION_KEY, "old version")
+                .commit();
+
+        assertThat(getUserAgentOnBackgroundThread()).isEqualTo("");
+    }
+
+    @Test
+    public void getUserAgent_withPersistedUserAgent_shouldReportUserAgentPhase() {
+        SharedPreferencesHelper.getSharedPreferences(context).edit()
+                .putString(PersistedUserAgent.PREF_USER_AGENT, "persisted user agent")
+                .putString(PersistedUserAgent.PREF_USER_AGENT_VERSION_KEY,
+                        PersistedUserAgent.getVersionKey(context))
+                .commit();
+
+        assertThat(Networking.getUserAgent(context)).isEqualTo("persisted user agent");
+        assertThat(SdkStartupTimer.getDurationMillis(SdkStartupPhase.USER_AGENT)).isNotNull();
+    }
+
     @Test
     public void getCachedUserAgent_usesCachedUserAgent() {
         Networking.setUserAgentForTesting("some cached user agent");
@@ -90,4 +135,134 @@ public class NetworkingTest {
 
         assertThat(userAgent).isEqualTo("some cached user agent");
     }
+
+    @Test
+    public void getHttpTransport_byDefault_shouldUseCustomSSLSocketFactory() {
+        final HttpTransport httpTransport = Networking.getHttpTransport();
+
+        assertThat(httpTransport).isInstanceOf(UrlConnectionTransport.class);
+        assertThat(((UrlConnectionTransport) httpTransport).getSslSocketFactory())
+                .isInstanceOf(CustomSSLSocketFactory.class);
+        assertThat(Networking.getHttpTransport()).isSameAs(httpTransport);
+    }
+
+    @Test
+    public void setHttpTransport_shouldBeUsedUntilReset() throws Exception {
+        final HttpTransport defaultTransport = Networking.getHttpTransport();
+        final HttpTransport mockTransport = mock(HttpTransport.class);
+
+        Networking.setHttpTransport(mockTransport);
+        assertThat(Networking.getHttpTransport()).isSameAs(mockTransport);
+
+        Networking.setHttpTransport(null);
+        assertThat(Networking.getHttpTransport()).isSameAs(defaultTransport);
+    }
+
+    @Test
+    public void requestQueueHttpStack_shouldOpenConnectionsThroughHttpTransport() throws Exception {
+        final HttpTransport mockTransport = mock(HttpTransport.class);
+        final URL url = new URL("https://ads.mopub.com/m/gen_ad");
+        Networking.setHttpTransport(mockTransport);
+
+        new RequestQueueHttpStack("user agent").createConnection(url);
+
+        verify(mockTransport).openConnection(same(url));
+    }
+
+    @Test
+    public void getRequestQueue_shouldOnlyGiveMainQueueTheDiskCache() {
+        Networking.setUserAgentForTesting("user agent");
+
+        final MoPubRequestQueue requestQueue = Networking.getRequestQueue(context);
+
+        try {
+            assertThat(requestQueue.getCache()).isInstanceOf(LazyDiskBasedCache.class);
+            assertThat(requestQueue.getDedicatedQueues()).isNotEmpty();
+            for (final RequestQueue dedicatedQueue : requestQueue.getDedicatedQueues().values()) {
+                assertThat(dedicatedQueue.getCache()).isInstanceOf(NoCache.class);
+            }
+        } finally {
+            requestQueue.stop();
+        }
+    }
+
+    @Test
+    public void getRequestQueue_withoutPersistedUserAgent_shouldNotHoldRequestsUntilWebViewLoads() {
+        ShadowLooper.pauseMainLooper();
+
+        final MoPubRequestQueue requestQueue = Networking.getRequestQueue(context);
+
+        try {
+            assertThat(requestQueue.isHoldingRequests()).isFalse();
+            assertThat(Networking.getCachedUserAgent()).isEqualTo("");
+        } finally {
+            requestQueue.stop();
+            ShadowLooper.unPauseMainLooper();
+        }
+    }
+
+    @Test
+    public void getRequestQueue_shouldHoldRequestsUntilPersistedUserAgentIsRead() {
+        persistUserAgent("persisted user agent");
+        Robolectric.getBackgroundThreadScheduler().pause();
+
+        final MoPubRequestQueue requestQueue = Networking.getRequestQueue(context);
+
+        try {
+            assertThat(requestQueue.isHoldingRequests()).isTrue();
+
+            Robolectric.getBackgroundThreadScheduler().advanceToLastPostedRunnable();
+
+            assertThat(requestQueue.isHoldingRequests()).isFalse();
+            assertThat(Networking.getCachedUserAgent()).isEqualTo("persisted user agent");
+        } finally {
+            requestQueue.stop();
+            Robolectric.getBackgroundThreadScheduler().unPause();
+        }
+    }
+
+    @Test
+    public void resolveUserAgent_shouldReadPersistedUserAgentOffMainThread() {
+        persistUserAgent("persisted user agent");
+        final Runnable onResolved = mock(Runnable.class);
+        Robolectric.getBackgroundThreadScheduler().pause();
+
+        try {
+            Networking.resolveUserAgent(context, onResolved);
+
+            assertThat(Networking.getCachedUserAgent()).isEqualTo("");
+            verify(onResolved, never()).run();
+
+            Robolectric.getBackgroundThreadScheduler().advanceToLastPostedRunnable();
+
+            assertThat(Networking.getCachedUserAgent()).isEqualTo("persisted user agent");
+            verify(onResolved).run();
+        } finally {
+            Robolectric.getBackgroundThreadScheduler().unPause();
+        }
+    }
+
+    private void persistUserAgent(final String userAgent) {
+        SharedPreferencesHelper.getSharedPreferences(context).edit()
+                .putString(PersistedUserAgent.PREF_USER_AGENT, userAgent)
+                .putString(PersistedUserAgent.PREF_USER_AGENT_VERSION_KEY,
+                        PersistedUserAgent.getVersionKey(context))
+                .commit();
+    }
+
+    private String getUserAgentOnBackgroundThread() throws InterruptedException {
+        final String[] userAgent = new String[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Thread() {
+            @Override
+            public void run() {
+                userAgent[0] = Networking.getUserAgent(context);
+
+                latch.countDown();
+            }
+        }.start();
+
+        latch.await(500, TimeUnit.MILLISECONDS);
+        return userAgent[0];
+    }
 }
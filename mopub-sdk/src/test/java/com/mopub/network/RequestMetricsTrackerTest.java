@@ -0,0 +1,178 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.volley.Request;
+import com.mopub.volley.toolbox.ImageRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLSocket;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+public class RequestMetricsTrackerTest {
+    private static final String URL = "https://ads.mopub.com/m/ad";
+
+    @Mock private RequestMetricsListener mockListener;
+    @Mock private MultiAdRequest mockRequest;
+
+    @Before
+    public void setUp() {
+        when(mockRequest.getUrl()).thenReturn(URL);
+        when(mockRequest.getRequestCategory()).thenReturn(RequestCategory.AD);
+        RequestMetricsTracker.setListener(mockListener);
+    }
+
+    @After
+    public void tearDown() {
+        RequestMetricsTracker.clearForTesting();
+    }
+
+    @Test
+    public void onFinished_afterNetworkRequest_shouldReportTimingsAndBytes() throws Exception {
+        RequestMetricsTracker.onEnqueued(mockRequest);
+        assertThat(RequestMetricsTracker.getWaitingCount()).isEqualTo(1);
+        ShadowLooper.idleMainLooper(10);
+
+        final RequestMetrics metrics = RequestMetricsTracker.onNetworkDispatch(mockRequest);
+        assertThat(RequestMetricsTracker.getWaitingCount()).isEqualTo(0);
+        ShadowLooper.idleMainLooper(20);
+        RequestMetricsTracker.onHeadersReceived(metrics, 200);
+        final InputStream body = RequestMetricsTracker.wrapResponseBody(
+                new ByteArrayInputStream(new byte[5]), metrics);
+        while (body.read(new byte[2]) != -1) {
+            // Read the whole body.
+        }
+        body.close();
+        RequestMetricsTracker.onFinished(mockRequest);
+
+        verify(mockListener).onRequestFinished(metrics);
+        assertThat(metrics.getCategory()).isEqualTo(RequestCategory.AD);
+        assertThat(metrics.getHost()).isEqualTo("ads.mopub.com");
+        assertThat(metrics.getQueueWaitMillis()).isEqualTo(10);
+        assertThat(metrics.getFirstByteTimeMillis() - metrics.getDispatchTimeMillis())
+                .isEqualTo(20);
+        assertThat(metrics.getBytesReceived()).isEqualTo(5);
+        assertThat(metrics.getStatusCode()).isEqualTo(200);
+        assertThat(metrics.getHostRequestsInFlight()).isEqualTo(1);
+        assertThat(metrics.isCacheHit()).isFalse();
+        assertThat(metrics.isConnectionReused()).isTrue();
+        assertThat(metrics.getTlsHandshakeMillis()).isEqualTo(RequestMetrics.NOT_SET);
+    }
+
+    @Test
+    public void onFinished_withoutNetworkDispatch_shouldReportCacheHit() {
+        RequestMetricsTracker.onEnqueued(mockRequest);
+
+        RequestMetricsTracker.onFinished(mockRequest);
+
+        final ArgumentCaptor<RequestMetrics> captor = ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(mockListener).onRequestFinished(captor.capture());
+        assertThat(captor.getValue().isCacheHit()).isTrue();
+        assertThat(captor.getValue().getQueueWaitMillis()).isEqualTo(RequestMetrics.NOT_SET);
+        assertThat(captor.getValue().isConnectionReused()).isNull();
+        assertThat(RequestMetricsTracker.getWaitingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onFinished_whenCanceledBeforeDispatch_shouldNotReportCacheHit() {
+        when(mockRequest.isCanceled()).thenReturn(true);
+        RequestMetricsTracker.onEnqueued(mockRequest);
+
+        RequestMetricsTracker.onFinished(mockRequest);
+
+        final ArgumentCaptor<RequestMetrics> captor = ArgumentCaptor.forClass(RequestMetrics.class);
+        verify(mockListener).onRequestFinished(captor.capture());
+        assertThat(captor.getValue().isCacheHit()).isFalse();
+        assertThat(captor.getValue().isCanceled()).isTrue();
+    }
+
+    @Test
+    public void onSocketCreated_whileSending_shouldRecordNewConnectionAndHandshakeTime() {
+        final SSLSocket mockSocket = mock(SSLSocket.class);
+        RequestMetricsTracker.onEnqueued(mockRequest);
+        final RequestMetrics metrics = RequestMetricsTracker.onNetworkDispatch(mockRequest);
+
+        RequestMetricsTracker.onSocketCreated(mockSocket);
+        ShadowLooper.idleMainLooper(30);
+        final ArgumentCaptor<HandshakeCompletedListener> captor =
+                ArgumentCaptor.forClass(HandshakeCompletedListener.class);
+        verify(mockSocket).addHandshakeCompletedListener(captor.capture());
+        captor.getValue().handshakeCompleted(null);
+
+        assertThat(metrics.isConnectionReused()).isFalse();
+        assertThat(metrics.getTlsHandshakeMillis()).isEqualTo(30);
+    }
+
+    @Test
+    public void onSocketCreated_afterHeadersReceived_shouldNotAttributeConnection() {
+        final SSLSocket mockSocket = mock(SSLSocket.class);
+        RequestMetricsTracker.onEnqueued(mockRequest);
+        final RequestMetrics metrics = RequestMetricsTracker.onNetworkDispatch(mockRequest);
+        RequestMetricsTracker.onHeadersReceived(metrics, 200);
+
+        RequestMetricsTracker.onSocketCreated(mockSocket);
+
+        verify(mockSocket, never()).addHandshakeCompletedListener(
+                any(HandshakeCompletedListener.class));
+        assertThat(metrics.isConnectionReused()).isTrue();
+    }
+
+    @Test
+    public void onNetworkDispatch_shouldCountRequestsInFlightPerHost() {
+        final MultiAdRequest otherRequest = mock(MultiAdRequest.class);
+        when(otherRequest.getUrl()).thenReturn(URL);
+        when(otherRequest.getRequestCategory()).thenReturn(RequestCategory.AD);
+        RequestMetricsTracker.onEnqueued(mockRequest);
+        RequestMetricsTracker.onEnqueued(otherRequest);
+
+        final RequestMetrics first = RequestMetricsTracker.onNetworkDispatch(mockRequest);
+        final RequestMetrics second = RequestMetricsTracker.onNetworkDispatch(otherRequest);
+        RequestMetricsTracker.onNetworkAttemptFinished(first);
+        RequestMetricsTracker.onNetworkAttemptFinished(second);
+        RequestMetricsTracker.onEnqueued(mockRequest);
+        final RequestMetrics third = RequestMetricsTracker.onNetworkDispatch(mockRequest);
+
+        assertThat(first.getHostRequestsInFlight()).isEqualTo(1);
+        assertThat(second.getHostRequestsInFlight()).isEqualTo(2);
+        assertThat(second.getQueueDepth()).isEqualTo(1);
+        assertThat(third.getHostRequestsInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void onEnqueued_withoutListener_shouldNotTrack() {
+        RequestMetricsTracker.setListener(null);
+
+        RequestMetricsTracker.onEnqueued(mockRequest);
+
+        assertThat(RequestMetricsTracker.onNetworkDispatch(mockRequest)).isNull();
+        assertThat(RequestMetricsTracker.getWaitingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void requestCategoryOf_shouldUseRequestCategory_orDetectImages() {
+        assertThat(RequestCategory.of(mockRequest)).isEqualTo(RequestCategory.AD);
+        assertThat(RequestCategory.of(mock(ImageRequest.class))).isEqualTo(RequestCategory.IMAGE);
+        assertThat(RequestCategory.of(mock(Request.class))).isEqualTo(RequestCategory.OTHER);
+    }
+}
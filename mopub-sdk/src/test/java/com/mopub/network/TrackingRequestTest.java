@@ -10,16 +10,19 @@ import android.content.Context;
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.mobileads.VastErrorCode;
 import com.mopub.mobileads.VastTracker;
+import com.mopub.volley.Request;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.robolectric.Robolectric;
 
 import java.util.Arrays;
 
 import static com.mopub.common.VolleyRequestMatcher.isUrl;
+import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.never;
@@ -63,6 +66,26 @@ public class TrackingRequestTest {
         verify(mockRequestQueue, never()).add(any(TrackingRequest.class));
     }
 
+    @Test
+    public void makeTrackingHttpRequest_shouldUseHighPriority() throws Exception {
+        TrackingRequest.makeTrackingHttpRequest(url, context);
+
+        final ArgumentCaptor<TrackingRequest> captor = ArgumentCaptor.forClass(TrackingRequest.class);
+        verify(mockRequestQueue).add(captor.capture());
+        assertThat(captor.getValue().getPriority()).isEqualTo(Request.Priority.HIGH);
+        assertThat(captor.getValue().getRequestCategory()).isEqualTo(RequestCategory.TRACKING);
+    }
+
+    @Test
+    public void makeVastTrackingHttpRequest_shouldUseNormalPriority() throws Exception {
+        TrackingRequest.makeVastTrackingHttpRequest(Arrays.asList(new VastTracker(url)), null,
+                null, null, context);
+
+        final ArgumentCaptor<TrackingRequest> captor = ArgumentCaptor.forClass(TrackingRequest.class);
+        verify(mockRequestQueue).add(captor.capture());
+        assertThat(captor.getValue().getPriority()).isEqualTo(Request.Priority.NORMAL);
+    }
+
     @Test
     public void makeVastTrackingHttpRequest_shouldSubstituteMacros_shouldMakeSingleRequest() throws Exception {
         VastTracker vastTracker = new VastTracker("uri?errorcode=[ERRORCODE]&contentplayhead=[CONTENTPLAYHEAD]&asseturi=[ASSETURI]");
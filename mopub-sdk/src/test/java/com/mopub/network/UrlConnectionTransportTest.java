@@ -0,0 +1,47 @@
+// Copyright 2018-2019 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// http://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class UrlConnectionTransportTest {
+    @Mock private SSLSocketFactory mockSslSocketFactory;
+
+    @Test
+    public void openConnection_withHttpsUrl_shouldUseSslSocketFactory() throws Exception {
+        final UrlConnectionTransport subject = new UrlConnectionTransport(mockSslSocketFactory);
+
+        final HttpURLConnection connection = subject.openConnection(
+                new URL("https://ads.mopub.com/m/gen_ad"));
+
+        assertThat(connection).isInstanceOf(HttpsURLConnection.class);
+        assertThat(((HttpsURLConnection) connection).getSSLSocketFactory())
+                .isSameAs(mockSslSocketFactory);
+    }
+
+    @Test
+    public void openConnection_withHttpUrl_shouldReturnUnconnectedConnection() throws Exception {
+        final UrlConnectionTransport subject = new UrlConnectionTransport(mockSslSocketFactory);
+
+        final HttpURLConnection connection = subject.openConnection(
+                new URL("http://ads.mopub.com/m/gen_ad"));
+
+        assertThat(connection).isNotInstanceOf(HttpsURLConnection.class);
+        assertThat(connection.getURL().toString()).isEqualTo("http://ads.mopub.com/m/gen_ad");
+    }
+}